@@ -3,6 +3,7 @@ plugins {
 	id("org.springframework.boot") version "4.0.2"
 	id("io.spring.dependency-management") version "1.1.7"
 	id("com.vaadin") version "25.0.5"
+	id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "com.jonasdurau"
@@ -32,7 +33,7 @@ dependencies {
 	implementation("com.vaadin:vaadin-spring-boot-starter")
 	implementation("org.flywaydb:flyway-database-postgresql")
 	developmentOnly("org.springframework.boot:spring-boot-devtools")
-	runtimeOnly("org.postgresql:postgresql")
+	implementation("org.postgresql:postgresql") // CopyManager para a carga em massa via COPY
 	testImplementation("org.springframework.boot:spring-boot-starter-actuator-test")
 	testImplementation("org.springframework.boot:spring-boot-starter-data-jpa-test")
 	testImplementation("org.springframework.boot:spring-boot-starter-flyway-test")
@@ -51,6 +52,22 @@ dependencyManagement {
 	}
 }
 
+// Kernels de indicadores em lote (BulkIndicatorKernels) usam o Vector API, ainda incubado. O javac precisa do
+// módulo para compilá-los; em execução, só o caminho opcional spectator.backtest.bulk-kernels os carrega, então a
+// aplicação roda sem a flag e só os testes e os benchmarks, que exercitam os kernels, sobem com ela
+val vectorApi = "--add-modules=jdk.incubator.vector"
+
+tasks.withType<JavaCompile>().configureEach {
+	options.compilerArgs.add(vectorApi)
+}
+
+// Microbenchmarks em src/jmh/java; o profiler gc mostra os bytes alocados por operação
+jmh {
+	profilers.add("gc")
+	jvmArgs.add(vectorApi)
+}
+
 tasks.withType<Test> {
 	useJUnitPlatform()
+	jvmArgs(vectorApi)
 }
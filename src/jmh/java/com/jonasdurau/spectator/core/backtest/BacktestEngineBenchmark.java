@@ -0,0 +1,109 @@
+package com.jonasdurau.spectator.core.backtest;
+
+import com.jonasdurau.spectator.core.service.RiskManagerService;
+import com.jonasdurau.spectator.core.strategy.MeanReversionStrategy;
+import com.jonasdurau.spectator.core.strategy.PullbackTrendStrategy;
+import com.jonasdurau.spectator.core.strategy.RegimeAnalyzerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vazão do {@link BacktestEngine} com as estratégias do ao vivo sobre um passeio aleatório de candles de 1H
+ * (e o 4H agregado dele). Cada operação é um backtest inteiro, com cache de indicadores novo: mede o cálculo das
+ * colunas e a simulação juntos, como uma chamada do {@code BacktestService}, com e sem os kernels em lote
+ * ({@code spectator.backtest.bulk-kernels}).
+ *
+ * Rode com {@code ./gradlew jmh}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BacktestEngineBenchmark {
+
+    private static final long HOUR = Duration.ofHours(1).toMillis();
+
+    @Param({"200000"})
+    public int bars;
+
+    @Param({"false", "true"})
+    public boolean bulkKernels;
+
+    private CandleSeries bars1h;
+    private CandleSeries bars4h;
+    private BacktestConfig config;
+    private BacktestEngine engine;
+
+    @Setup
+    public void setUp() {
+        bars1h = randomWalk(bars, 42);
+        bars4h = aggregate(bars1h, 4);
+        RiskManagerService risk = new RiskManagerService();
+        config = BacktestConfig.defaults(10_000, 0.001);
+        engine = new BacktestEngine(List.of(new PullbackTrendStrategy(risk), new MeanReversionStrategy(risk)),
+                new RegimeAnalyzerService(), config);
+    }
+
+    @Benchmark
+    public BacktestStatistics backtest() {
+        return engine.run(BacktestDataset.of(bars1h, bars4h, Long.MIN_VALUE, config.analysisWindow(), bulkKernels))
+                .statistics();
+    }
+
+    private static CandleSeries randomWalk(int n, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        long[] time = new long[n];
+        double[] open = new double[n];
+        double[] high = new double[n];
+        double[] low = new double[n];
+        double[] close = new double[n];
+        double price = 30_000;
+        for (int i = 0; i < n; i++) {
+            time[i] = i * HOUR;
+            open[i] = price;
+            price *= 1 + random.nextGaussian() * 0.004 + 0.0001 * Math.sin(i / 500.0);
+            close[i] = price;
+            high[i] = Math.max(open[i], close[i]) * (1 + random.nextDouble() * 0.003);
+            low[i] = Math.min(open[i], close[i]) * (1 - random.nextDouble() * 0.003);
+        }
+        return new CandleSeries("BTCUSDT", "1h", time, open, high, low, close, new double[n]);
+    }
+
+    private static CandleSeries aggregate(CandleSeries bars, int factor) {
+        int n = bars.size() / factor;
+        long[] time = new long[n];
+        double[] open = new double[n];
+        double[] high = new double[n];
+        double[] low = new double[n];
+        double[] close = new double[n];
+        for (int i = 0; i < n; i++) {
+            int from = i * factor;
+            time[i] = bars.time(from);
+            open[i] = bars.open(from);
+            close[i] = bars.close(from + factor - 1);
+            high[i] = Double.NEGATIVE_INFINITY;
+            low[i] = Double.POSITIVE_INFINITY;
+            for (int j = from; j < from + factor; j++) {
+                high[i] = Math.max(high[i], bars.high(j));
+                low[i] = Math.min(low[i], bars.low(j));
+            }
+        }
+        return new CandleSeries("BTCUSDT", "4h", time, open, high, low, close, new double[n]);
+    }
+}
@@ -0,0 +1,127 @@
+package com.jonasdurau.spectator.core.indicator;
+
+import com.jonasdurau.spectator.core.domain.Candle;
+import com.jonasdurau.spectator.core.strategy.Ta4jMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ta4j.core.BarSeries;
+import org.ta4j.core.Indicator;
+import org.ta4j.core.indicators.ATRIndicator;
+import org.ta4j.core.indicators.RSIIndicator;
+import org.ta4j.core.indicators.averages.EMAIndicator;
+import org.ta4j.core.indicators.averages.SMAIndicator;
+import org.ta4j.core.indicators.helpers.ClosePriceIndicator;
+import org.ta4j.core.indicators.statistics.StandardDeviationIndicator;
+import org.ta4j.core.num.Num;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de calcular EMA 50, SMA 20, desvio padrão 20, RSI 14 e ATR 14 sobre o histórico inteiro:
+ * <ul>
+ *   <li>{@code ta4jDecimalNum}: o caminho de hoje, {@code BarSeries} do {@link Ta4jMapper} com {@code DecimalNum}
+ *   (a conversão fica no setup, só os indicadores são medidos);</li>
+ *   <li>{@code streaming}: os indicadores incrementais do ao vivo, candle a candle;</li>
+ *   <li>{@code bulkKernels}: os kernels de coluna do {@link BulkIndicatorKernels}.</li>
+ * </ul>
+ *
+ * Rode com {@code ./gradlew jmh}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BulkIndicatorBenchmark {
+
+    @Param({"10000", "100000"})
+    public int bars;
+
+    private BarSeries series;
+    private double[] high;
+    private double[] low;
+    private double[] close;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(3);
+        List<Candle> candles = new ArrayList<>(bars);
+        high = new double[bars];
+        low = new double[bars];
+        close = new double[bars];
+        Instant time = Instant.parse("2024-01-01T00:00:00Z");
+        double price = 42_000;
+        for (int i = 0; i < bars; i++) {
+            double open = price;
+            price *= 1 + (random.nextDouble() - 0.5) * 0.02;
+            close[i] = price;
+            high[i] = Math.max(open, price) * (1 + random.nextDouble() * 0.005);
+            low[i] = Math.min(open, price) * (1 - random.nextDouble() * 0.005);
+            candles.add(new Candle("BTCUSDT", "1h", time, open, high[i], low[i], close[i], 1));
+            time = time.plus(Duration.ofHours(1));
+        }
+        series = Ta4jMapper.toBarSeries(candles, "benchmark");
+    }
+
+    @Benchmark
+    public double ta4jDecimalNum() {
+        // Indicadores novos a cada rodada: o cache interno do ta4j não pode guardar o resultado anterior
+        ClosePriceIndicator closePrice = new ClosePriceIndicator(series);
+        return last(new EMAIndicator(closePrice, 50))
+                + last(new SMAIndicator(closePrice, 20))
+                + last(new StandardDeviationIndicator(closePrice, 20))
+                + last(new RSIIndicator(closePrice, 14))
+                + last(new ATRIndicator(series, 14));
+    }
+
+    @Benchmark
+    public double streaming() {
+        StreamingEma ema = new StreamingEma(50);
+        StreamingSma sma = new StreamingSma(20);
+        StreamingStandardDeviation stdDev = new StreamingStandardDeviation(20);
+        StreamingRsi rsi = new StreamingRsi(14);
+        StreamingAtr atr = new StreamingAtr(14);
+        double checksum = 0;
+        for (int i = 0; i < bars; i++) {
+            checksum += ema.update(close[i], true) + sma.update(close[i], true) + stdDev.update(close[i], true)
+                    + rsi.update(close[i], true) + atr.update(high[i], low[i], close[i], true);
+        }
+        return checksum;
+    }
+
+    @Benchmark
+    public double bulkKernels() {
+        int last = bars - 1;
+        return BulkIndicatorKernels.ema(close, 50)[last]
+                + BulkIndicatorKernels.sma(close, 20)[last]
+                + BulkIndicatorKernels.standardDeviation(close, 20)[last]
+                + BulkIndicatorKernels.rsi(close, 14)[last]
+                + BulkIndicatorKernels.atr(high, low, close, 14)[last];
+    }
+
+    /**
+     * Percorre a série inteira em ordem (como um backtest) e devolve o último valor.
+     */
+    private double last(Indicator<Num> indicator) {
+        double value = 0;
+        for (int i = 0; i < bars; i++) {
+            value = indicator.getValue(i).doubleValue();
+        }
+        return value;
+    }
+}
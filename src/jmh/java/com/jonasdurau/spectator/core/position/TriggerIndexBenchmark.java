@@ -0,0 +1,136 @@
+package com.jonasdurau.spectator.core.position;
+
+import com.jonasdurau.spectator.core.domain.TradeSide;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de um tick com muitos gatilhos em repouso: o {@link TriggerIndex} contra a varredura linear com os
+ * quatro ramos por posição do {@code evaluateLiveTick} antigo.
+ *
+ * Cada posição tem stop e alvo (em OCO no índice, um terço delas com trailing stop no lugar do stop fixo).
+ * O preço faz um passeio aleatório de ±0,05% por tick; posições que disparam são reabertas no preço atual,
+ * então o número de gatilhos fica constante.
+ *
+ * Rode com {@code ./gradlew jmh}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TriggerIndexBenchmark {
+
+    // Gatilhos em repouso (duas por posição)
+    @Param({"1000", "100000"})
+    public int triggers;
+
+    private final SplittableRandom random = new SplittableRandom(11);
+
+    private TriggerIndex<Integer> index;
+    private Integer[] owners;
+
+    // Mesmo livro em arrays para a varredura linear
+    private boolean[] longSide;
+    private double[] stops;
+    private double[] targets;
+
+    private double price;
+    private double indexPrice;
+    private int reopened;
+
+    @Setup
+    public void setUp() {
+        int positions = triggers / 2;
+        price = 50_000;
+        indexPrice = price;
+        index = new TriggerIndex<>();
+        owners = new Integer[positions];
+        longSide = new boolean[positions];
+        stops = new double[positions];
+        targets = new double[positions];
+
+        for (int i = 0; i < positions; i++) {
+            owners[i] = i;
+            open(i, price);
+        }
+    }
+
+    @Benchmark
+    public int indexedTick() {
+        indexPrice = nextPrice(indexPrice);
+        reopened = 0;
+        index.onPrice(indexPrice, (owner, kind, level, p) -> {
+            // O parceiro OCO já saiu; reabre a posição para manter o total constante
+            reopen(owner, p);
+            reopened++;
+        });
+        return reopened;
+    }
+
+    @Benchmark
+    public int linearScanTick() {
+        price = nextPrice(price);
+        int fired = 0;
+        for (int i = 0; i < stops.length; i++) {
+            boolean hit;
+            if (longSide[i]) {
+                hit = price <= stops[i] || price >= targets[i];
+            } else {
+                hit = price >= stops[i] || price <= targets[i];
+            }
+            if (hit) {
+                placeLevels(i, price);
+                fired++;
+            }
+        }
+        return fired;
+    }
+
+    private double nextPrice(double current) {
+        double next = current * (1 + (random.nextDouble() - 0.5) * 0.001);
+        // Mantém o passeio perto dos gatilhos em vez de fugir para longe deles
+        return Math.min(55_000, Math.max(45_000, next));
+    }
+
+    private void open(int i, double at) {
+        placeLevels(i, at);
+        addToIndex(i, at);
+    }
+
+    private void reopen(Integer owner, double at) {
+        int i = owner;
+        placeLevels(i, at);
+        addToIndex(i, at);
+    }
+
+    private void placeLevels(int i, double at) {
+        longSide[i] = random.nextBoolean();
+        double stopDistance = at * (0.002 + random.nextDouble() * 0.05);
+        double targetDistance = at * (0.002 + random.nextDouble() * 0.05);
+        stops[i] = longSide[i] ? at - stopDistance : at + stopDistance;
+        targets[i] = longSide[i] ? at + targetDistance : at - targetDistance;
+    }
+
+    private void addToIndex(int i, double at) {
+        TradeSide side = longSide[i] ? TradeSide.LONG : TradeSide.SHORT;
+        int stop = i % 3 == 0
+                ? index.addTrailingStop(owners[i], side, at, Math.abs(at - stops[i]))
+                : index.addStopLoss(owners[i], side, stops[i]);
+        int target = index.addTakeProfit(owners[i], side, targets[i]);
+        index.linkOco(stop, target);
+    }
+}
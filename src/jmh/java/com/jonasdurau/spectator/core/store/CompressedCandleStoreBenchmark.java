@@ -0,0 +1,81 @@
+package com.jonasdurau.spectator.core.store;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vazão do decode sequencial do {@link CompressedCandleStore} (candles por segundo) sobre um milhão de candles
+ * de 1 minuto com preços de 2 casas, e o custo de selar um bloco. O setup imprime os bytes por candle.
+ *
+ * Rode com {@code ./gradlew jmh}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressedCandleStoreBenchmark {
+
+    private static final int CANDLES = 1 << 20;
+    private static final int BLOCK = CompressedCandleStore.DEFAULT_BLOCK_SIZE;
+
+    private CompressedCandleStore store;
+    private final long[] time = new long[BLOCK];
+    private final double[] open = new double[BLOCK];
+    private final double[] high = new double[BLOCK];
+    private final double[] low = new double[BLOCK];
+    private final double[] close = new double[BLOCK];
+    private final double[] volume = new double[BLOCK];
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        store = new CompressedCandleStore("BTCUSDT", "1m");
+        long t = 1_700_000_000_000L;
+        double price = 60_000;
+        for (int i = 0; i < CANDLES; i++) {
+            double c = Math.round((price + random.nextGaussian() * 20) * 100) / 100.0;
+            double h = Math.round((Math.max(price, c) + Math.abs(random.nextGaussian()) * 10) * 100) / 100.0;
+            double l = Math.round((Math.min(price, c) - Math.abs(random.nextGaussian()) * 10) * 100) / 100.0;
+            double v = Math.round(random.nextDouble() * 5_000_000) / 100_000.0;
+            store.append(t, price, h, l, c, v);
+            t += 60_000;
+            price = c;
+        }
+        System.out.printf("%n%.2f bytes per candle%n", (double) store.memoryBytes() / store.size());
+        store.decodeBlock(0, time, open, high, low, close, volume, 0);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CANDLES)
+    public void decodeAll(Blackhole blackhole) {
+        int blocks = store.blockCount();
+        for (int b = 0; b < blocks; b++) {
+            store.decodeBlock(b, time, open, high, low, close, volume, 0);
+            blackhole.consume(close[BLOCK - 1]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BLOCK)
+    public long[] encodeBlock() {
+        int priceDecimals = CandleBlockCodec.decimals(0, BLOCK, open, high, low, close);
+        int volumeDecimals = CandleBlockCodec.decimals(0, BLOCK, volume);
+        return CandleBlockCodec.encode(time, open, high, low, close, volume, 0, BLOCK, priceDecimals,
+                volumeDecimals);
+    }
+}
@@ -0,0 +1,131 @@
+package com.jonasdurau.spectator.integration.binance;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jonasdurau.spectator.core.domain.Candle;
+import com.jonasdurau.spectator.integration.binance.dto.BinanceKlineEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caminho antigo (ObjectMapper → record com Strings → Double.parseDouble) contra o decoder de streaming,
+ * para o payload do WebSocket e para a resposta REST de 1000 klines.
+ *
+ * Rode com {@code ./gradlew jmh}; o profiler {@code gc} (configurado no build) mostra {@code gc.alloc.rate.norm},
+ * os bytes alocados por mensagem.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KlineDecodeBenchmark {
+
+    private static final String[] SYMBOLS = {"BTCUSDT", "ETHUSDT", "SOLUSDT", "BNBUSDT", "XRPUSDT", "ADAUSDT", "DOGEUSDT", "AVAXUSDT"};
+    private static final int PAYLOADS = 256;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BinanceKlineDecoder decoder = new BinanceKlineDecoder(objectMapper.getFactory());
+
+    private String[] payloads;
+    private byte[] restBody;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        payloads = new String[PAYLOADS];
+        for (int i = 0; i < PAYLOADS; i++) {
+            double price = 100 + random.nextDouble() * 60_000;
+            payloads[i] = String.format(Locale.ROOT, """
+                    {"e":"kline","E":%d,"s":"%s","k":{"t":%d,"T":%d,"s":"%s","i":"1m","f":100,"L":200,\
+                    "o":"%.8f","c":"%.8f","h":"%.8f","l":"%.8f","v":"%.8f","n":%d,"x":%b,\
+                    "q":"%.8f","V":"%.8f","Q":"%.8f","B":"0"}}""",
+                    1_700_000_000_000L + i, SYMBOLS[i % SYMBOLS.length], 1_700_000_000_000L, 1_700_000_059_999L,
+                    SYMBOLS[i % SYMBOLS.length], price, price * 1.001, price * 1.002, price * 0.999,
+                    random.nextDouble() * 1000, random.nextInt(10_000), i % 60 == 0,
+                    random.nextDouble() * 1e7, random.nextDouble() * 500, random.nextDouble() * 5e6);
+        }
+
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < BinanceRestClient.MAX_KLINES_PER_REQUEST; i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            double price = 30_000 + random.nextDouble() * 10_000;
+            long open = 1_700_000_000_000L + i * 60_000L;
+            body.append(String.format(Locale.ROOT,
+                    "[%d,\"%.8f\",\"%.8f\",\"%.8f\",\"%.8f\",\"%.8f\",%d,\"%.8f\",%d,\"%.8f\",\"%.8f\",\"0\"]",
+                    open, price, price * 1.001, price * 0.999, price * 1.0005, random.nextDouble() * 100,
+                    open + 59_999, random.nextDouble() * 1e6, random.nextInt(5000), random.nextDouble() * 50,
+                    random.nextDouble() * 5e5));
+        }
+        restBody = body.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private String nextPayload() {
+        String payload = payloads[cursor];
+        cursor = (cursor + 1) & (PAYLOADS - 1);
+        return payload;
+    }
+
+    @Benchmark
+    public Candle websocketObjectMapper() throws Exception {
+        BinanceKlineEvent event = objectMapper.readValue(nextPayload(), BinanceKlineEvent.class);
+        BinanceKlineEvent.KlineData data = event.kline();
+        return new Candle(event.symbol(), data.interval(), Instant.ofEpochMilli(data.startTime()),
+                Double.parseDouble(data.open()), Double.parseDouble(data.high()), Double.parseDouble(data.low()),
+                Double.parseDouble(data.close()), Double.parseDouble(data.volume()));
+    }
+
+    @Benchmark
+    public void websocketStreaming(Blackhole blackhole) throws Exception {
+        MutableKlineEvent event = decoder.decode(nextPayload());
+        blackhole.consume(event.getOpenTime());
+        blackhole.consume(event.getClose());
+        blackhole.consume(event.getVolume());
+        blackhole.consume(event.getSymbol());
+    }
+
+    @Benchmark
+    public Candle websocketStreamingToCandle() throws Exception {
+        return decoder.decode(nextPayload()).toCandle();
+    }
+
+    @Benchmark
+    public List<Candle> restObjectMapper() throws Exception {
+        List<List<Object>> rows = objectMapper.readValue(restBody, new TypeReference<List<List<Object>>>() {});
+        List<Candle> candles = new ArrayList<>(rows.size());
+        for (List<Object> kline : rows) {
+            candles.add(new Candle("BTCUSDT", "1m", Instant.ofEpochMilli(((Number) kline.get(0)).longValue()),
+                    Double.parseDouble(kline.get(1).toString()), Double.parseDouble(kline.get(2).toString()),
+                    Double.parseDouble(kline.get(3).toString()), Double.parseDouble(kline.get(4).toString()),
+                    Double.parseDouble(kline.get(5).toString())));
+        }
+        return candles;
+    }
+
+    @Benchmark
+    public List<Candle> restStreaming() throws Exception {
+        return BinanceKlineDecoder.decodeKlineArray(new ByteArrayInputStream(restBody), "BTCUSDT", "1m");
+    }
+}
@@ -0,0 +1,438 @@
+package com.jonasdurau.spectator.core.archive;
+
+import com.jonasdurau.spectator.core.backtest.CandleSeries;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Arquivo colunar de candles de um (símbolo, timeframe), lido e escrito por {@link MemorySegment}s mapeados:
+ * varrer anos de candles não cria nenhuma entidade nem passa pelo banco.
+ *
+ * Formato (little-endian):
+ * <pre>
+ * cabeçalho, 4096 bytes:
+ *   0  int   magic "SPCA"         16 long  linhas gravadas
+ *   4  int   versão               24 16 B  timeframe (UTF-8, completado com zeros)
+ *   8  int   linhas por bloco     40 24 B  símbolo
+ *   64 long[] horário da primeira linha de cada bloco (o índice do cabeçalho)
+ * blocos, um depois do outro, cada um com as colunas inteiras:
+ *   time (epoch millis) | open | high | low | close | volume, {@code chunkRows} valores de 8 bytes cada
+ * </pre>
+ * O arquivo cresce um bloco por vez e cada bloco é mapeado uma única vez, então crescer nunca remapeia (nem
+ * invalida) o que já foi lido.
+ *
+ * Um único escritor ({@link #append}) e vários leitores: as linhas abaixo de {@link #size()} já estão completas.
+ * A exceção é a última linha, que pode ser reescrita quando chega uma revisão do mesmo horário.
+ */
+public final class CandleArchive implements AutoCloseable {
+
+    static final int MAGIC = 0x53504341; // "SPCA"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 4096;
+    static final int DEFAULT_CHUNK_ROWS = 1 << 16;
+
+    private static final int COLUMNS = 6;
+    private static final int TIMEFRAME_OFFSET = 24;
+    private static final int TIMEFRAME_BYTES = 16;
+    private static final int SYMBOL_OFFSET = 40;
+    private static final int SYMBOL_BYTES = 24;
+    private static final int INDEX_OFFSET = 64;
+    private static final int MAX_CHUNKS = (HEADER_BYTES - INDEX_OFFSET) / Long.BYTES;
+
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfDouble DOUBLE = ValueLayout.JAVA_DOUBLE.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private static final int TIME = 0;
+    private static final int OPEN = 1;
+    private static final int HIGH = 2;
+    private static final int LOW = 3;
+    private static final int CLOSE = 4;
+    private static final int VOLUME = 5;
+
+    private final Path path;
+    private final String symbol;
+    private final String timeframe;
+    private final int chunkRows;
+    private final int chunkShift;
+    private final long columnBytes;
+    private final boolean writable;
+    private final FileChannel channel;
+    private final Arena arena = Arena.ofShared();
+    private final MemorySegment header;
+
+    // Copiado a cada bloco novo: leitores pegam o array atual sem trava
+    private volatile MemorySegment[] chunks;
+    private volatile long size;
+
+    private CandleArchive(Path path, FileChannel channel, boolean writable, String symbol, String timeframe,
+            int chunkRows) throws IOException {
+        this.path = path;
+        this.channel = channel;
+        this.writable = writable;
+        this.symbol = symbol;
+        this.timeframe = timeframe;
+        this.chunkRows = chunkRows;
+        this.chunkShift = Integer.numberOfTrailingZeros(chunkRows);
+        this.columnBytes = (long) chunkRows * Long.BYTES;
+        this.header = channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, 0,
+                HEADER_BYTES, arena);
+    }
+
+    /**
+     * Abre o arquivo para leitura e escrita, criando-o vazio se não existir.
+     */
+    public static CandleArchive openOrCreate(Path path, String symbol, String timeframe) {
+        return openOrCreate(path, symbol, timeframe, DEFAULT_CHUNK_ROWS);
+    }
+
+    static CandleArchive openOrCreate(Path path, String symbol, String timeframe, int chunkRows) {
+        if (Integer.bitCount(chunkRows) != 1) {
+            throw new IllegalArgumentException("Chunk rows must be a power of two, got " + chunkRows);
+        }
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            boolean exists = Files.exists(path) && Files.size(path) >= HEADER_BYTES;
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            if (!exists) {
+                CandleArchive archive = new CandleArchive(path, channel, true, symbol, timeframe, chunkRows);
+                archive.writeHeader();
+                return archive;
+            }
+            return open(path, channel, true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open candle archive " + path, e);
+        }
+    }
+
+    /**
+     * Abre um arquivo existente só para leitura (ex.: num processo de pesquisa separado do ao vivo).
+     */
+    public static CandleArchive openReadOnly(Path path) {
+        try {
+            return open(path, FileChannel.open(path, StandardOpenOption.READ), false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open candle archive " + path, e);
+        }
+    }
+
+    private static CandleArchive open(Path path, FileChannel channel, boolean writable) throws IOException {
+        try (Arena probe = Arena.ofConfined()) {
+            MemorySegment header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES, probe);
+            if (header.get(INT, 0) != MAGIC || header.get(INT, 4) != VERSION) {
+                channel.close();
+                throw new IllegalStateException("Not a version " + VERSION + " candle archive: " + path);
+            }
+            int chunkRows = header.get(INT, 8);
+            CandleArchive archive = new CandleArchive(path, channel, writable, readText(header, SYMBOL_OFFSET,
+                    SYMBOL_BYTES), readText(header, TIMEFRAME_OFFSET, TIMEFRAME_BYTES), chunkRows);
+            archive.mapExistingChunks(header.get(LONG, 16));
+            return archive;
+        }
+    }
+
+    /**
+     * Grava um candle depois do último. O mesmo horário do último reescreve a linha (revisão de um candle
+     * reparado); horários anteriores já estão no arquivo e são ignorados.
+     *
+     * @return false se o candle foi ignorado
+     */
+    public boolean append(long timeMs, double open, double high, double low, double close, double volume) {
+        if (!writable) {
+            throw new IllegalStateException("Candle archive is read-only: " + path);
+        }
+        long rows = size;
+        long row = rows;
+        if (rows > 0) {
+            long last = time(rows - 1);
+            if (timeMs < last) {
+                return false;
+            }
+            if (timeMs == last) {
+                row = rows - 1;
+            }
+        }
+        int chunk = (int) (row >>> chunkShift);
+        if (chunk == chunks.length) {
+            addChunk(timeMs);
+        }
+        MemorySegment segment = chunks[chunk];
+        long offset = (row & (chunkRows - 1)) * Long.BYTES;
+        segment.set(LONG, TIME * columnBytes + offset, timeMs);
+        segment.set(DOUBLE, OPEN * columnBytes + offset, open);
+        segment.set(DOUBLE, HIGH * columnBytes + offset, high);
+        segment.set(DOUBLE, LOW * columnBytes + offset, low);
+        segment.set(DOUBLE, CLOSE * columnBytes + offset, close);
+        segment.set(DOUBLE, VOLUME * columnBytes + offset, volume);
+        if (row == rows) {
+            header.set(LONG, 16, rows + 1);
+            // Escrita volátil depois das colunas: quem lê o tamanho novo enxerga a linha inteira
+            size = rows + 1;
+        }
+        return true;
+    }
+
+    /**
+     * Garante que o que foi gravado chegou ao disco.
+     */
+    public void force() {
+        header.force();
+        MemorySegment[] current = chunks;
+        if (current.length > 0) {
+            current[current.length - 1].force();
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public String getTimeframe() {
+        return timeframe;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long time(long row) {
+        return chunks[(int) (row >>> chunkShift)].get(LONG, TIME * columnBytes + (row & (chunkRows - 1)) * Long.BYTES);
+    }
+
+    public double open(long row) {
+        return value(OPEN, row);
+    }
+
+    public double high(long row) {
+        return value(HIGH, row);
+    }
+
+    public double low(long row) {
+        return value(LOW, row);
+    }
+
+    public double close(long row) {
+        return value(CLOSE, row);
+    }
+
+    public double volume(long row) {
+        return value(VOLUME, row);
+    }
+
+    /**
+     * Horário da última linha, ou {@link Long#MIN_VALUE} se o arquivo estiver vazio.
+     */
+    public long lastTime() {
+        long rows = size;
+        return rows > 0 ? time(rows - 1) : Long.MIN_VALUE;
+    }
+
+    public long firstTime() {
+        return size > 0 ? time(0) : Long.MAX_VALUE;
+    }
+
+    /**
+     * Primeira linha que abre em {@code timeMs} ou depois ({@link #size()} se nenhuma): busca binária no índice
+     * do cabeçalho e depois dentro da coluna de horários do bloco.
+     */
+    public long indexAtOrAfter(long timeMs) {
+        long rows = size;
+        if (rows == 0) {
+            return 0;
+        }
+        int chunkCount = (int) ((rows - 1) >>> chunkShift) + 1;
+        int lo = 0;
+        int hi = chunkCount - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (header.get(LONG, INDEX_OFFSET + (long) mid * Long.BYTES) <= timeMs) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        long from = (long) lo << chunkShift;
+        long to = Math.min(rows, from + chunkRows);
+        while (from < to) {
+            long mid = (from + to) >>> 1;
+            if (time(mid) < timeMs) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * Os candles que abrem em {@code [fromMs, toMs]} como uma {@link CandleSeries} lida direto dos blocos mapeados,
+     * sem copiar nenhuma coluna. A série só é legível enquanto o arquivo estiver aberto e enxerga uma revisão da
+     * última linha; quem precisa dela depois disso, ou de um retrato fixo, chama {@link CandleSeries#copy()}.
+     */
+    public CandleSeries toSeries(long fromMs, long toMs) {
+        long first = indexAtOrAfter(fromMs);
+        long end = toMs == Long.MAX_VALUE ? size : indexAtOrAfter(toMs + 1);
+        int n = (int) Math.max(0, end - first);
+        return CandleSeries.view(symbol, timeframe, n, new MappedColumns(chunks, first, n));
+    }
+
+    /**
+     * Janela de {@code size} linhas a partir de {@code first}. Guarda o array de blocos do momento em que foi
+     * criada: ele já cobre a janela inteira e blocos nunca são remapeados.
+     */
+    private final class MappedColumns implements CandleSeries.Columns {
+
+        private final MemorySegment[] chunks;
+        private final long first;
+        private final int size;
+
+        MappedColumns(MemorySegment[] chunks, long first, int size) {
+            this.chunks = chunks;
+            this.first = first;
+            this.size = size;
+        }
+
+        @Override
+        public long time(int index) {
+            long row = row(index);
+            return chunks[(int) (row >>> chunkShift)].get(LONG,
+                    TIME * columnBytes + (row & (chunkRows - 1)) * Long.BYTES);
+        }
+
+        @Override
+        public double open(int index) {
+            return value(OPEN, index);
+        }
+
+        @Override
+        public double high(int index) {
+            return value(HIGH, index);
+        }
+
+        @Override
+        public double low(int index) {
+            return value(LOW, index);
+        }
+
+        @Override
+        public double close(int index) {
+            return value(CLOSE, index);
+        }
+
+        @Override
+        public double volume(int index) {
+            return value(VOLUME, index);
+        }
+
+        private double value(int column, int index) {
+            long row = row(index);
+            return chunks[(int) (row >>> chunkShift)].get(DOUBLE,
+                    column * columnBytes + (row & (chunkRows - 1)) * Long.BYTES);
+        }
+
+        private long row(int index) {
+            return first + Objects.checkIndex(index, size);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (writable) {
+                force();
+            }
+            arena.close();
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to close candle archive " + path, e);
+        }
+    }
+
+    private double value(int column, long row) {
+        return chunks[(int) (row >>> chunkShift)].get(DOUBLE,
+                column * columnBytes + (row & (chunkRows - 1)) * Long.BYTES);
+    }
+
+    private void writeHeader() {
+        header.fill((byte) 0);
+        header.set(INT, 0, MAGIC);
+        header.set(INT, 4, VERSION);
+        header.set(INT, 8, chunkRows);
+        header.set(LONG, 16, 0L);
+        writeText(header, TIMEFRAME_OFFSET, TIMEFRAME_BYTES, timeframe);
+        writeText(header, SYMBOL_OFFSET, SYMBOL_BYTES, symbol);
+        chunks = new MemorySegment[0];
+        size = 0;
+        header.force();
+    }
+
+    private void mapExistingChunks(long rows) throws IOException {
+        int count = rows == 0 ? 0 : (int) ((rows - 1) >>> chunkShift) + 1;
+        MemorySegment[] mapped = new MemorySegment[count];
+        for (int c = 0; c < count; c++) {
+            mapped[c] = mapChunk(c);
+        }
+        chunks = mapped;
+        size = rows;
+    }
+
+    private void addChunk(long firstTimeMs) {
+        MemorySegment[] current = chunks;
+        int chunk = current.length;
+        if (chunk >= MAX_CHUNKS) {
+            throw new IllegalStateException("Candle archive " + path + " is full (" + MAX_CHUNKS + " chunks)");
+        }
+        try {
+            MemorySegment[] grown = Arrays.copyOf(current, chunk + 1);
+            grown[chunk] = mapChunk(chunk);
+            header.set(LONG, INDEX_OFFSET + (long) chunk * Long.BYTES, firstTimeMs);
+            chunks = grown;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to grow candle archive " + path, e);
+        }
+    }
+
+    private MemorySegment mapChunk(int chunk) throws IOException {
+        long chunkBytes = COLUMNS * columnBytes;
+        long offset = HEADER_BYTES + chunk * chunkBytes;
+        // Mapear além do fim em modo escrita estende o arquivo
+        return channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, offset,
+                chunkBytes, arena);
+    }
+
+    private static void writeText(MemorySegment header, int offset, int maxBytes, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > maxBytes) {
+            throw new IllegalArgumentException("'" + value + "' does not fit in " + maxBytes + " bytes");
+        }
+        MemorySegment.copy(bytes, 0, header, ValueLayout.JAVA_BYTE, offset, bytes.length);
+    }
+
+    private static String readText(MemorySegment header, int offset, int maxBytes) {
+        byte[] bytes = header.asSlice(offset, maxBytes).toArray(ValueLayout.JAVA_BYTE);
+        int length = 0;
+        while (length < maxBytes && bytes[length] != 0) {
+            length++;
+        }
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,167 @@
+package com.jonasdurau.spectator.core.archive;
+
+import com.jonasdurau.spectator.core.backtest.CandleSeries;
+import com.jonasdurau.spectator.core.domain.Candle;
+import com.jonasdurau.spectator.core.repository.CandleBatchRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mantém os {@link CandleArchive}s em {@code spectator.archive.directory}, um arquivo por (símbolo, timeframe).
+ *
+ * Um arquivo nasce de um {@link #export} do banco; daí em diante os candles fechados do stream (e os reparados
+ * depois de uma reconexão) são acrescentados nele, e na subida do símbolo o que faltou é completado a partir do
+ * banco. Só os símbolos já exportados são mantidos: o stream não cria arquivos sozinho.
+ *
+ * Toda escrita roda na thread {@code candle-archive}, em ordem; leituras (backtests) podem acontecer em paralelo.
+ */
+@Service
+public class CandleArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(CandleArchiveService.class);
+
+    private static final String EXTENSION = ".candles";
+
+    private final CandleBatchRepository candleBatchRepository;
+    private final Path directory;
+
+    private final Map<String, CandleArchive> archives = new ConcurrentHashMap<>();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "candle-archive");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CandleArchiveService(CandleBatchRepository candleBatchRepository,
+            @Value("${spectator.archive.directory:archive}") String directory) {
+        this.candleBatchRepository = candleBatchRepository;
+        this.directory = Path.of(directory);
+    }
+
+    /**
+     * Cria o arquivo (ou completa um existente a partir da última linha) lendo {@code market_candles} em streaming.
+     * Bloqueia até terminar.
+     *
+     * @return quantidade de candles lidos do banco
+     */
+    public long export(String symbol, String timeframe) {
+        try {
+            return writer.submit(() -> {
+                CandleArchive archive = archives.computeIfAbsent(key(symbol, timeframe),
+                        k -> CandleArchive.openOrCreate(path(symbol, timeframe), symbol, timeframe));
+                return copyFromDatabase(archive);
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Archive export interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Archive export of " + symbol + " " + timeframe + " failed", e.getCause());
+        }
+    }
+
+    /**
+     * Completa a partir do banco um arquivo que já existe (candles gravados enquanto a aplicação estava parada).
+     */
+    public void catchUp(String symbol, String timeframe) {
+        writer.execute(() -> {
+            CandleArchive archive = existing(symbol, timeframe);
+            if (archive != null) {
+                long rows = copyFromDatabase(archive);
+                log.info("Archive {} {} caught up with {} candles from the database.", symbol, timeframe, rows);
+            }
+        });
+    }
+
+    /**
+     * Acrescenta candles do stream, se o (símbolo, timeframe) tiver arquivo. Não bloqueia quem chama.
+     *
+     * @param candles em ordem de horário, todos do mesmo (símbolo, timeframe)
+     */
+    public void append(List<Candle> candles) {
+        if (candles.isEmpty()) {
+            return;
+        }
+        writer.execute(() -> {
+            Candle first = candles.get(0);
+            CandleArchive archive = existing(first.getSymbol(), first.getTimeframe());
+            if (archive == null) {
+                return;
+            }
+            for (Candle c : candles) {
+                archive.append(c.getTime().toEpochMilli(), c.getOpen(), c.getHigh(), c.getLow(), c.getClose(),
+                        c.getVolume());
+            }
+            archive.force();
+        });
+    }
+
+    /**
+     * Os candles que abrem em {@code [from, to]}, lidos do arquivo se ele cobrir o período inteiro. A série é uma
+     * visão dos blocos mapeados (sem cópia), válida enquanto o serviço estiver de pé.
+     *
+     * @param barMs duração do candle: o último pode ter aberto até um candle antes de {@code to}
+     * @return null se não há arquivo ou ele não cobre o período (quem chama cai para o banco)
+     */
+    public CandleSeries load(String symbol, String timeframe, Instant from, Instant to, long barMs) {
+        CandleArchive archive = existing(symbol, timeframe);
+        if (archive == null || archive.firstTime() > from.toEpochMilli()
+                || archive.lastTime() < to.toEpochMilli() - barMs) {
+            return null;
+        }
+        return archive.toSeries(from.toEpochMilli(), to.toEpochMilli());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        archives.values().forEach(CandleArchive::close);
+        archives.clear();
+    }
+
+    private long copyFromDatabase(CandleArchive archive) {
+        // A última linha entra de novo: pode ter sido gravada ainda aberta
+        long last = archive.lastTime();
+        Instant from = last == Long.MIN_VALUE ? Instant.EPOCH : Instant.ofEpochMilli(last);
+        long rows = candleBatchRepository.forEachSince(archive.getSymbol(), archive.getTimeframe(), from,
+                archive::append);
+        archive.force();
+        log.info("Archive {} {} now holds {} candles ({}).", archive.getSymbol(), archive.getTimeframe(),
+                archive.size(), archive.getPath());
+        return rows;
+    }
+
+    private CandleArchive existing(String symbol, String timeframe) {
+        return archives.computeIfAbsent(key(symbol, timeframe), k -> {
+            Path path = path(symbol, timeframe);
+            return Files.exists(path) ? CandleArchive.openOrCreate(path, symbol, timeframe) : null;
+        });
+    }
+
+    private Path path(String symbol, String timeframe) {
+        return directory.resolve(symbol.toUpperCase(Locale.ROOT)).resolve(timeframe + EXTENSION);
+    }
+
+    private static String key(String symbol, String timeframe) {
+        return symbol.toUpperCase(Locale.ROOT) + ":" + timeframe;
+    }
+}
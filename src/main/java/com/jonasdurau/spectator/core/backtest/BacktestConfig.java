@@ -0,0 +1,35 @@
+package com.jonasdurau.spectator.core.backtest;
+
+import com.jonasdurau.spectator.core.service.TickPipelineService;
+
+import java.time.Duration;
+
+/**
+ * Parâmetros de uma execução de backtest.
+ *
+ * @param initialEquity  saldo inicial da conta simulada
+ * @param feeRate        taxa cobrada sobre o notional em cada lado (0.001 = 0,1%)
+ * @param strategyBar    duração do candle das estratégias (1H)
+ * @param regimeBar      duração do candle do regime macro (4H)
+ * @param analysisWindow candles visíveis para estratégias e regime, como no pipeline ao vivo
+ */
+public record BacktestConfig(double initialEquity, double feeRate, Duration strategyBar, Duration regimeBar,
+        int analysisWindow) {
+
+    public BacktestConfig {
+        if (initialEquity <= 0) {
+            throw new IllegalArgumentException("Initial equity must be positive, got " + initialEquity);
+        }
+        if (feeRate < 0) {
+            throw new IllegalArgumentException("Fee rate cannot be negative, got " + feeRate);
+        }
+        if (analysisWindow <= 0) {
+            throw new IllegalArgumentException("Analysis window must be positive, got " + analysisWindow);
+        }
+    }
+
+    public static BacktestConfig defaults(double initialEquity, double feeRate) {
+        return new BacktestConfig(initialEquity, feeRate, Duration.ofHours(1), Duration.ofHours(4),
+                TickPipelineService.ANALYSIS_WINDOW);
+    }
+}
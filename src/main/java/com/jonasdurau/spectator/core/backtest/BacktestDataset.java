@@ -0,0 +1,48 @@
+package com.jonasdurau.spectator.core.backtest;
+
+/**
+ * Histórico de um símbolo pronto para o backtest: candles das estratégias e do regime, mais os caches de
+ * indicadores de cada um. Imutável e thread-safe, para ser compartilhado por todas as variantes de uma otimização.
+ *
+ * Só os candles que abrem em {@code [tradeFromMs, tradeToMs)} são negociados; os anteriores servem de histórico
+ * para os indicadores. {@link #slice} recorta outro período sobre as mesmas séries e os mesmos caches, então janelas
+ * que se sobrepõem (walk-forward) não recalculam nenhum indicador.
+ */
+public record BacktestDataset(CandleSeries bars, CandleSeries regimeBars, long tradeFromMs, long tradeToMs,
+        int analysisWindow, IndicatorCache indicators, IndicatorCache regimeIndicators) {
+
+    public static BacktestDataset of(CandleSeries bars, CandleSeries regimeBars, long tradeFromMs, int analysisWindow) {
+        return of(bars, regimeBars, tradeFromMs, analysisWindow, false);
+    }
+
+    /**
+     * @param bulkKernels caches de indicadores com os kernels em lote (ver {@link IndicatorCache})
+     */
+    public static BacktestDataset of(CandleSeries bars, CandleSeries regimeBars, long tradeFromMs, int analysisWindow,
+            boolean bulkKernels) {
+        return new BacktestDataset(bars, regimeBars, tradeFromMs, Long.MAX_VALUE, analysisWindow,
+                new IndicatorCache(bars, analysisWindow, bulkKernels),
+                new IndicatorCache(regimeBars, analysisWindow, bulkKernels));
+    }
+
+    /**
+     * O mesmo dataset negociando só os candles que abrem em {@code [fromMs, toMs)}.
+     */
+    public BacktestDataset slice(long fromMs, long toMs) {
+        return new BacktestDataset(bars, regimeBars, fromMs, toMs, analysisWindow, indicators, regimeIndicators);
+    }
+
+    /**
+     * Índice do primeiro candle negociado.
+     */
+    public int firstIndex() {
+        return bars.indexAtOrAfter(tradeFromMs);
+    }
+
+    /**
+     * Índice logo depois do último candle negociado.
+     */
+    public int endIndex() {
+        return tradeToMs == Long.MAX_VALUE ? bars.size() : bars.indexAtOrAfter(tradeToMs);
+    }
+}
@@ -0,0 +1,173 @@
+package com.jonasdurau.spectator.core.backtest;
+
+import com.jonasdurau.spectator.core.buffer.CandleRingBuffer;
+import com.jonasdurau.spectator.core.domain.MarketRegime;
+import com.jonasdurau.spectator.core.indicator.IndicatorContext;
+import com.jonasdurau.spectator.core.indicator.IndicatorEngine;
+import com.jonasdurau.spectator.core.indicator.IndicatorSpec;
+import com.jonasdurau.spectator.core.strategy.RegimeAnalyzerService;
+import com.jonasdurau.spectator.core.strategy.TradeSignal;
+import com.jonasdurau.spectator.core.strategy.TradingStrategy;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reproduz o histórico candle a candle pelo mesmo código do pipeline ao vivo: {@link TradingStrategy},
+ * {@link RegimeAnalyzerService}, {@link IndicatorEngine} incremental sobre {@link CandleRingBuffer} e o
+ * {@link com.jonasdurau.spectator.core.position.TriggerIndex} de SL/TP (via {@link SimulatedExecutionService}).
+ *
+ * Nada vai ao banco nem reconstrói séries: os indicadores vêm do {@link IndicatorCache} do {@link BacktestDataset}
+ * (calculados uma vez por spec, com o mesmo motor incremental), e cada candle custa uma avaliação das estratégias
+ * e, com posição aberta, quatro preços no índice de gatilhos.
+ *
+ * Diferenças em relação ao ao vivo, para não olhar o futuro:
+ * <ul>
+ *   <li>as estratégias são avaliadas uma vez por candle, no fechamento, e a ordem sai no preço de fechamento;</li>
+ *   <li>o regime usa só candles de 4H já fechados no fechamento do candle de 1H (ao vivo entra o 4H em formação);</li>
+ *   <li>o SL/TP percorre o caminho abertura → mínima/máxima → fechamento (a extremidade mais próxima da abertura
+ *       primeiro) e executa no nível, ou na abertura se o candle abriu além dele.</li>
+ * </ul>
+ *
+ * Uma instância não guarda estado entre execuções e pode rodar vários datasets em paralelo.
+ */
+public class BacktestEngine {
+
+    private final List<TradingStrategy> strategies;
+    private final RegimeAnalyzerService regimeAnalyzer;
+    private final BacktestConfig config;
+    private final Set<IndicatorSpec> strategySpecs;
+
+    public BacktestEngine(List<TradingStrategy> strategies, RegimeAnalyzerService regimeAnalyzer,
+            BacktestConfig config) {
+        this.strategies = List.copyOf(strategies);
+        this.regimeAnalyzer = regimeAnalyzer;
+        this.config = config;
+
+        Set<IndicatorSpec> specs = new LinkedHashSet<>();
+        for (TradingStrategy strategy : strategies) {
+            specs.addAll(strategy.requiredIndicators());
+        }
+        this.strategySpecs = Set.copyOf(specs);
+    }
+
+    public BacktestResult run(CandleSeries bars, CandleSeries regimeBars) {
+        return run(bars, regimeBars, Long.MIN_VALUE);
+    }
+
+    /**
+     * @param bars        candles das estratégias (1H)
+     * @param regimeBars  candles do regime (4H) cobrindo o mesmo período
+     * @param tradeFromMs candles que abrem antes disso só aquecem os indicadores: não negociam nem entram na curva
+     */
+    public BacktestResult run(CandleSeries bars, CandleSeries regimeBars, long tradeFromMs) {
+        return run(BacktestDataset.of(bars, regimeBars, tradeFromMs, config.analysisWindow()));
+    }
+
+    /**
+     * Execução completa: posições com seus trades, curva de saldo e estatísticas.
+     */
+    public BacktestResult run(BacktestDataset dataset) {
+        long started = System.nanoTime();
+        SimulatedExecutionService execution = new SimulatedExecutionService(config.initialEquity(), config.feeRate());
+        int traded = Math.max(0, dataset.endIndex() - dataset.firstIndex());
+        EquityCurve curve = new EquityCurve(new long[traded], new double[traded]);
+
+        BacktestStatistics.Accumulator accumulator = replay(dataset, execution, curve);
+
+        BacktestStatistics statistics = accumulator.build(execution, System.nanoTime() - started);
+        return new BacktestResult(dataset.bars().getSymbol(), List.copyOf(execution.getClosedPositions()),
+                execution.getOpenPositions(), curve, statistics);
+    }
+
+    /**
+     * Só as estatísticas, sem criar entidades nem guardar a curva: o modo usado pelas otimizações.
+     */
+    public BacktestStatistics evaluate(BacktestDataset dataset) {
+        long started = System.nanoTime();
+        SimulatedExecutionService execution = new SimulatedExecutionService(config.initialEquity(), config.feeRate(),
+                false);
+        BacktestStatistics.Accumulator accumulator = replay(dataset, execution, null);
+        return accumulator.build(execution, System.nanoTime() - started);
+    }
+
+    private BacktestStatistics.Accumulator replay(BacktestDataset dataset, SimulatedExecutionService execution,
+            EquityCurve curve) {
+        if (dataset.analysisWindow() != config.analysisWindow()) {
+            throw new IllegalArgumentException("Dataset window " + dataset.analysisWindow()
+                    + " does not match the configured analysis window " + config.analysisWindow());
+        }
+        CandleSeries bars = dataset.bars();
+        CandleSeries regimeBars = dataset.regimeBars();
+        String symbol = bars.getSymbol();
+        long barMs = config.strategyBar().toMillis();
+        long regimeBarMs = config.regimeBar().toMillis();
+
+        // Indicadores lidos do cache do dataset, compartilhado entre variantes
+        IndicatorCache.View indicators = dataset.indicators().view(strategySpecs);
+        IndicatorCache.View regimeIndicators = dataset.regimeIndicators().view(regimeAnalyzer.requiredIndicators());
+        BacktestStatistics.Accumulator accumulator = new BacktestStatistics.Accumulator(config);
+
+        // Os indicadores já chegam aquecidos pelo cache: o replay começa direto no primeiro candle negociado
+        int first = dataset.firstIndex();
+        int end = dataset.endIndex();
+        MarketRegime regime = MarketRegime.SIDEWAYS;
+        int nextRegimeBar = first < end ? regimeBars.indexAtOrAfter(bars.time(first) + barMs - regimeBarMs + 1) : 0;
+        boolean regimeKnown = false;
+
+        for (int i = first; i < end; i++) {
+            long closeTime = bars.time(i) + barMs;
+            double open = bars.open(i);
+            double high = bars.high(i);
+            double low = bars.low(i);
+            double close = bars.close(i);
+            execution.setTime(closeTime);
+
+            // 1. SL/TP das posições abertas no fechamento anterior, pelo caminho intrabar
+            if (execution.hasOpenPositions()) {
+                boolean lowFirst = open - low <= high - open;
+                execution.onPrice(open, true);
+                execution.onPrice(lowFirst ? low : high, false);
+                execution.onPrice(lowFirst ? high : low, false);
+                execution.onPrice(close, false);
+            }
+
+            // 2. Regime com os candles de 4H que já fecharam
+            int regimeBefore = nextRegimeBar;
+            while (nextRegimeBar < regimeBars.size() && regimeBars.time(nextRegimeBar) + regimeBarMs <= closeTime) {
+                nextRegimeBar++;
+            }
+            if (nextRegimeBar != regimeBefore || !regimeKnown) {
+                regime = nextRegimeBar == 0 ? MarketRegime.SIDEWAYS : regimeAt(regimeIndicators, nextRegimeBar - 1);
+                regimeKnown = true;
+            }
+
+            // 3. Entradas com o contexto do 1H fechado, com a mesma regra do StrategyEngineService: uma posição por vez
+            if (!execution.hasOpenPositions()) {
+                IndicatorContext indicators1h = indicators.contextAt(i);
+                for (TradingStrategy strategy : strategies) {
+                    TradeSignal signal = strategy.evaluate(indicators1h, regime, close);
+                    if (signal.fire()) {
+                        execution.executeMarketOrder(symbol, signal.side(), signal.quantity(), close,
+                                signal.stopLoss(), signal.takeProfit());
+                        break;
+                    }
+                }
+            }
+
+            double equity = execution.equity(close);
+            accumulator.add(equity);
+            if (curve != null) {
+                curve.time()[i - first] = closeTime;
+                curve.equity()[i - first] = equity;
+            }
+        }
+        return accumulator;
+    }
+
+    private MarketRegime regimeAt(IndicatorCache.View regimeIndicators, int index) {
+        IndicatorContext indicators4h = regimeIndicators.contextAt(index);
+        return indicators4h.getBarCount() > 50 ? regimeAnalyzer.analyze(indicators4h) : MarketRegime.SIDEWAYS;
+    }
+}
@@ -0,0 +1,27 @@
+package com.jonasdurau.spectator.core.backtest;
+
+import com.jonasdurau.spectator.core.domain.Position;
+import com.jonasdurau.spectator.core.domain.Trade;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Saída de uma execução: posições (com seus trades de entrada e saída), curva de saldo e estatísticas.
+ *
+ * @param openPositions posições ainda abertas no último candle, marcadas a mercado na curva
+ */
+public record BacktestResult(String symbol, List<Position> closedPositions, List<Position> openPositions,
+        EquityCurve equityCurve, BacktestStatistics statistics) {
+
+    /**
+     * Todos os trades em ordem cronológica.
+     */
+    public List<Trade> trades() {
+        List<Trade> trades = new ArrayList<>();
+        closedPositions.forEach(p -> trades.addAll(p.getTrades()));
+        openPositions.forEach(p -> trades.addAll(p.getTrades()));
+        trades.sort((a, b) -> a.getTimestamp().compareTo(b.getTimestamp()));
+        return trades;
+    }
+}
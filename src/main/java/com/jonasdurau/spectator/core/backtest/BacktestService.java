@@ -0,0 +1,172 @@
+package com.jonasdurau.spectator.core.backtest;
+
+import com.jonasdurau.spectator.core.archive.CandleArchiveService;
+import com.jonasdurau.spectator.core.domain.Candle;
+import com.jonasdurau.spectator.core.domain.PositionStatus;
+import com.jonasdurau.spectator.core.repository.CandleRepository;
+import com.jonasdurau.spectator.core.repository.PositionRepository;
+import com.jonasdurau.spectator.core.service.IndicatorService;
+import com.jonasdurau.spectator.core.service.RiskManagerService;
+import com.jonasdurau.spectator.core.store.CandleStoreService;
+import com.jonasdurau.spectator.core.strategy.RegimeAnalyzerService;
+import com.jonasdurau.spectator.core.strategy.TradingStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Roda o {@link BacktestEngine} sobre os candles guardados no banco, com as mesmas estratégias do ao vivo.
+ * O histórico é lido uma única vez por execução (mais o aquecimento dos indicadores) e replayado em memória.
+ *
+ * As otimizações carregam o período uma vez e compartilham o {@link BacktestDataset} entre todas as variantes,
+ * avaliadas em paralelo pelo {@link ParameterOptimizer} com {@code optimizer-parallelism} threads.
+ *
+ * Os candles saem do store comprimido em memória se ele cobrir o período; senão do arquivo colunar, e por último do
+ * banco.
+ *
+ * O {@link MonteCarloSimulator} testa a robustez do sizing sobre os trades fechados, do ao vivo ou de um backtest.
+ *
+ * Com {@code bulk-kernels}, os caches de indicadores calculam EMA, RSI e ATR com o Vector API (ver
+ * {@link IndicatorCache}); a JVM precisa de {@code --add-modules=jdk.incubator.vector}, conferido na subida.
+ */
+@Service
+public class BacktestService {
+
+    private static final Logger log = LoggerFactory.getLogger(BacktestService.class);
+
+    private final CandleRepository candleRepository;
+    private final PositionRepository positionRepository;
+    private final CandleArchiveService candleArchive;
+    private final CandleStoreService candleStore;
+    private final List<TradingStrategy> strategies;
+    private final RegimeAnalyzerService regimeAnalyzerService;
+    private final RiskManagerService riskManagerService;
+    private final ParameterOptimizer optimizer;
+    private final WalkForwardAnalyzer walkForwardAnalyzer;
+    private final MonteCarloSimulator monteCarloSimulator;
+    private final boolean bulkKernels;
+
+    public BacktestService(CandleRepository candleRepository, PositionRepository positionRepository,
+            CandleArchiveService candleArchive, CandleStoreService candleStore, List<TradingStrategy> strategies,
+            RegimeAnalyzerService regimeAnalyzerService,
+            RiskManagerService riskManagerService,
+            @Value("${spectator.backtest.optimizer-parallelism:0}") int optimizerParallelism,
+            @Value("${spectator.backtest.monte-carlo-parallelism:0}") int monteCarloParallelism,
+            @Value("${spectator.backtest.bulk-kernels:false}") boolean bulkKernels) {
+        if (bulkKernels && !IndicatorCache.vectorApiAvailable()) {
+            throw new IllegalStateException("spectator.backtest.bulk-kernels needs the JVM option --add-modules="
+                    + IndicatorCache.VECTOR_MODULE);
+        }
+        this.candleRepository = candleRepository;
+        this.positionRepository = positionRepository;
+        this.candleArchive = candleArchive;
+        this.candleStore = candleStore;
+        this.strategies = strategies;
+        this.regimeAnalyzerService = regimeAnalyzerService;
+        this.riskManagerService = riskManagerService;
+        this.optimizer = new ParameterOptimizer(optimizerParallelism);
+        this.walkForwardAnalyzer = new WalkForwardAnalyzer(optimizer);
+        this.monteCarloSimulator = new MonteCarloSimulator(riskManagerService, monteCarloParallelism);
+        this.bulkKernels = bulkKernels;
+    }
+
+    public BacktestResult run(String symbol, Instant from, Instant to, BacktestConfig config) {
+        BacktestResult result = new BacktestEngine(strategies, regimeAnalyzerService, config)
+                .run(loadDataset(symbol, from, to, config));
+        BacktestStatistics stats = result.statistics();
+        log.info("Backtest {} {} -> {}: {} bars, {} trades, net {} ({} bars/s)", symbol, from, to, stats.bars(),
+                stats.trades(), stats.netProfit(), Math.round(stats.barsPerSecond()));
+        return result;
+    }
+
+    /**
+     * Grade completa sobre as estratégias do ao vivo (ver as chaves em {@link StrategyVariants}).
+     */
+    public List<OptimizationResult> gridSearch(String symbol, Instant from, Instant to, BacktestConfig config,
+            ParameterSpace space, ToDoubleFunction<BacktestStatistics> objective, int topK) {
+        log.info("Grid search on {} {} -> {}: {} combinations of {}", symbol, from, to, space.size(), space.names());
+        return optimizer.gridSearch(loadDataset(symbol, from, to, config), space,
+                new StrategyVariants(riskManagerService, config), objective, topK);
+    }
+
+    public List<OptimizationResult> randomSearch(String symbol, Instant from, Instant to, BacktestConfig config,
+            ParameterSpace space, ToDoubleFunction<BacktestStatistics> objective, int samples, long seed, int topK) {
+        log.info("Random search on {} {} -> {}: {} of {} combinations of {}", symbol, from, to, samples, space.size(),
+                space.names());
+        return optimizer.randomSearch(loadDataset(symbol, from, to, config), space,
+                new StrategyVariants(riskManagerService, config), objective, samples, seed, topK);
+    }
+
+    /**
+     * Walk-forward sobre todo o histórico do símbolo em {@code market_candles}. O primeiro trecho (uma janela de
+     * análise de candles de 4H) só aquece os indicadores.
+     *
+     * @param samples combinações sorteadas por janela; 0 avalia a grade inteira
+     */
+    public WalkForwardReport walkForward(String symbol, BacktestConfig config, WalkForwardConfig walkForward,
+            ParameterSpace space, ToDoubleFunction<BacktestStatistics> objective, int samples, long seed) {
+        Candle first = candleRepository.findTopBySymbolAndTimeframeOrderByTimeAsc(symbol,
+                IndicatorService.STRATEGY_TIMEFRAME);
+        Candle last = candleRepository.findTopBySymbolAndTimeframeOrderByTimeDesc(symbol,
+                IndicatorService.STRATEGY_TIMEFRAME);
+        if (first == null || last == null) {
+            throw new IllegalStateException("No " + IndicatorService.STRATEGY_TIMEFRAME + " candles stored for " + symbol);
+        }
+        Instant from = first.getTime().plus(config.regimeBar().multipliedBy(config.analysisWindow()));
+        log.info("Walk-forward on {} {} -> {}: {} in-sample / {} out-of-sample windows, {} combinations of {}",
+                symbol, from, last.getTime(), walkForward.inSample(), walkForward.outOfSample(), space.size(),
+                space.names());
+        return walkForwardAnalyzer.analyze(loadDataset(symbol, from, last.getTime(), config), walkForward, space,
+                new StrategyVariants(riskManagerService, config), objective, samples, seed);
+    }
+
+    /**
+     * Monte Carlo sobre as posições fechadas do símbolo na tabela {@code positions}.
+     */
+    public MonteCarloResult monteCarlo(String symbol, MonteCarloConfig config) {
+        TradeSample sample = TradeSample.of(positionRepository.findBySymbolAndStatus(symbol, PositionStatus.CLOSED));
+        log.info("Monte Carlo on {} closed {} positions", symbol, sample.size());
+        return monteCarloSimulator.simulate(sample, config);
+    }
+
+    /**
+     * Monte Carlo sobre as posições fechadas de um backtest.
+     */
+    public MonteCarloResult monteCarlo(BacktestResult result, MonteCarloConfig config) {
+        return monteCarloSimulator.simulate(TradeSample.of(result.closedPositions()), config);
+    }
+
+    /**
+     * Candles do período (mais o aquecimento) de 1H e 4H, lidos uma única vez.
+     */
+    public BacktestDataset loadDataset(String symbol, Instant from, Instant to, BacktestConfig config) {
+        CandleSeries bars = load(symbol, IndicatorService.STRATEGY_TIMEFRAME, from, to, config,
+                config.strategyBar().toMillis());
+        CandleSeries regimeBars = load(symbol, IndicatorService.REGIME_TIMEFRAME, from, to, config,
+                config.regimeBar().toMillis());
+        return BacktestDataset.of(bars, regimeBars, from.toEpochMilli(), config.analysisWindow(), bulkKernels);
+    }
+
+    /**
+     * Carrega o período mais uma janela de análise antes dele, para os indicadores chegarem aquecidos em {@code from}.
+     */
+    private CandleSeries load(String symbol, String timeframe, Instant from, Instant to, BacktestConfig config,
+            long barMs) {
+        Instant warmupStart = from.minusMillis(barMs * config.analysisWindow());
+        CandleSeries stored = candleStore.load(symbol, timeframe, warmupStart, to, barMs);
+        if (stored != null) {
+            return stored;
+        }
+        CandleSeries archived = candleArchive.load(symbol, timeframe, warmupStart, to, barMs);
+        if (archived != null) {
+            return archived;
+        }
+        return CandleSeries.of(symbol, timeframe, candleRepository
+                .findBySymbolAndTimeframeAndTimeBetweenOrderByTimeAsc(symbol, timeframe, warmupStart, to));
+    }
+}
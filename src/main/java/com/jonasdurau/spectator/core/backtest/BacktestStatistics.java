@@ -0,0 +1,99 @@
+package com.jonasdurau.spectator.core.backtest;
+
+import java.time.Duration;
+
+/**
+ * Resumo de uma execução de backtest.
+ *
+ * @param bars           candles negociados (sem contar o aquecimento dos indicadores)
+ * @param trades         posições fechadas
+ * @param grossProfit    soma do PnL das posições vencedoras, antes das taxas
+ * @param grossLoss      soma do PnL das perdedoras (negativa), antes das taxas
+ * @param maxDrawdown    maior queda do saldo a partir de um topo, em valor
+ * @param maxDrawdownPct a mesma queda relativa ao topo (0.1 = 10%)
+ * @param sharpe         Sharpe anualizado dos retornos por candle, sem taxa livre de risco
+ * @param elapsedNanos   tempo de parede da execução
+ */
+public record BacktestStatistics(int bars, int trades, int wins, int losses, double grossProfit, double grossLoss,
+        double fees, double netProfit, double finalEquity, double maxDrawdown, double maxDrawdownPct, double sharpe,
+        long elapsedNanos) {
+
+    private static final Duration YEAR = Duration.ofDays(365);
+
+    public double winRate() {
+        return trades > 0 ? (double) wins / trades : 0;
+    }
+
+    /**
+     * Lucro bruto / perda bruta; infinito se não houve perdas.
+     */
+    public double profitFactor() {
+        if (grossLoss == 0) {
+            return grossProfit > 0 ? Double.POSITIVE_INFINITY : 0;
+        }
+        return grossProfit / -grossLoss;
+    }
+
+    /**
+     * Lucro líquido / maior drawdown; infinito se o saldo nunca caiu.
+     */
+    public double returnOverMaxDrawdown() {
+        if (maxDrawdown == 0) {
+            return netProfit > 0 ? Double.POSITIVE_INFINITY : 0;
+        }
+        return netProfit / maxDrawdown;
+    }
+
+    public double barsPerSecond() {
+        return elapsedNanos > 0 ? bars * 1e9 / elapsedNanos : 0;
+    }
+
+    /**
+     * Acumula drawdown e retornos da curva de saldo em uma passada, sem precisar guardá-la.
+     */
+    static final class Accumulator {
+
+        private final double initialEquity;
+        private final double periodsPerYear;
+
+        private int bars;
+        private double peak;
+        private double previous;
+        private double maxDrawdown;
+        private double maxDrawdownPct;
+        // Média e variância dos retornos por candle (Welford)
+        private double mean;
+        private double m2;
+
+        Accumulator(BacktestConfig config) {
+            this.initialEquity = config.initialEquity();
+            this.periodsPerYear = (double) YEAR.toMillis() / config.strategyBar().toMillis();
+            this.peak = initialEquity;
+            this.previous = initialEquity;
+        }
+
+        void add(double equity) {
+            if (equity > peak) {
+                peak = equity;
+            } else if (peak - equity > maxDrawdown) {
+                maxDrawdown = peak - equity;
+                maxDrawdownPct = maxDrawdown / peak;
+            }
+
+            double ret = equity / previous - 1;
+            bars++;
+            double delta = ret - mean;
+            mean += delta / bars;
+            m2 += delta * (ret - mean);
+            previous = equity;
+        }
+
+        BacktestStatistics build(SimulatedExecutionService execution, long elapsedNanos) {
+            double stdDev = bars > 1 ? Math.sqrt(m2 / (bars - 1)) : 0;
+            double sharpe = stdDev > 0 ? mean / stdDev * Math.sqrt(periodsPerYear) : 0;
+            return new BacktestStatistics(bars, execution.getClosedCount(), execution.getWins(), execution.getLosses(),
+                    execution.getGrossProfit(), execution.getGrossLoss(), execution.getFees(),
+                    previous - initialEquity, previous, maxDrawdown, maxDrawdownPct, sharpe, elapsedNanos);
+        }
+    }
+}
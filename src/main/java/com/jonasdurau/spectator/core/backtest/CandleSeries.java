@@ -0,0 +1,213 @@
+package com.jonasdurau.spectator.core.backtest;
+
+import com.jonasdurau.spectator.core.domain.Candle;
+
+import java.util.List;
+
+/**
+ * Histórico de um (símbolo, timeframe) em colunas primitivas, carregado uma única vez para o backtest.
+ * Imutável depois de construído: pode ser compartilhado por várias execuções em paralelo.
+ *
+ * As colunas ficam em arrays no heap ou, com {@link #view}, em quem já as guarda (ex.: o arquivo mapeado de
+ * {@code CandleArchive}), lidas no lugar sem cópia. {@link #copy()} traz uma visão para o heap.
+ */
+public final class CandleSeries {
+
+    /**
+     * Colunas de {@code size} candles, lidas por índice a partir de 0.
+     */
+    public interface Columns {
+
+        long time(int index);
+
+        double open(int index);
+
+        double high(int index);
+
+        double low(int index);
+
+        double close(int index);
+
+        double volume(int index);
+    }
+
+    private record HeapColumns(long[] time, double[] open, double[] high, double[] low, double[] close,
+            double[] volume) implements Columns {
+
+        @Override
+        public long time(int index) {
+            return time[index];
+        }
+
+        @Override
+        public double open(int index) {
+            return open[index];
+        }
+
+        @Override
+        public double high(int index) {
+            return high[index];
+        }
+
+        @Override
+        public double low(int index) {
+            return low[index];
+        }
+
+        @Override
+        public double close(int index) {
+            return close[index];
+        }
+
+        @Override
+        public double volume(int index) {
+            return volume[index];
+        }
+    }
+
+    private final String symbol;
+    private final String timeframe;
+    private final int size;
+    private final Columns columns;
+
+    /**
+     * Os arrays passam a pertencer à série (não são copiados).
+     *
+     * @param time horário de abertura em epoch millis, estritamente crescente
+     */
+    public CandleSeries(String symbol, String timeframe, long[] time, double[] open, double[] high, double[] low,
+            double[] close, double[] volume) {
+        int n = time.length;
+        if (open.length != n || high.length != n || low.length != n || close.length != n || volume.length != n) {
+            throw new IllegalArgumentException("All columns must have the same length");
+        }
+        for (int i = 1; i < n; i++) {
+            if (time[i] <= time[i - 1]) {
+                throw new IllegalArgumentException("Candle times must be strictly increasing (index " + i + ")");
+            }
+        }
+        this.symbol = symbol;
+        this.timeframe = timeframe;
+        this.size = n;
+        this.columns = new HeapColumns(time, open, high, low, close, volume);
+    }
+
+    private CandleSeries(String symbol, String timeframe, int size, Columns columns) {
+        this.symbol = symbol;
+        this.timeframe = timeframe;
+        this.size = size;
+        this.columns = columns;
+    }
+
+    /**
+     * Série que lê as colunas de {@code columns} no lugar, sem copiar. Quem fornece as colunas garante os horários
+     * estritamente crescentes e que elas continuam legíveis enquanto a série for usada.
+     */
+    public static CandleSeries view(String symbol, String timeframe, int size, Columns columns) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Size must not be negative, got " + size);
+        }
+        return new CandleSeries(symbol, timeframe, size, columns);
+    }
+
+    /**
+     * @param candles ordenados do mais antigo para o mais novo
+     */
+    public static CandleSeries of(String symbol, String timeframe, List<Candle> candles) {
+        int n = candles.size();
+        long[] time = new long[n];
+        double[] open = new double[n];
+        double[] high = new double[n];
+        double[] low = new double[n];
+        double[] close = new double[n];
+        double[] volume = new double[n];
+        for (int i = 0; i < n; i++) {
+            Candle c = candles.get(i);
+            time[i] = c.getTime().toEpochMilli();
+            open[i] = c.getOpen();
+            high[i] = c.getHigh();
+            low[i] = c.getLow();
+            close[i] = c.getClose();
+            volume[i] = c.getVolume();
+        }
+        return new CandleSeries(symbol, timeframe, time, open, high, low, close, volume);
+    }
+
+    /**
+     * A mesma série com as colunas em arrays próprios no heap. Uma série que já está no heap é devolvida como
+     * está.
+     */
+    public CandleSeries copy() {
+        if (columns instanceof HeapColumns) {
+            return this;
+        }
+        long[] time = new long[size];
+        double[] open = new double[size];
+        double[] high = new double[size];
+        double[] low = new double[size];
+        double[] close = new double[size];
+        double[] volume = new double[size];
+        for (int i = 0; i < size; i++) {
+            time[i] = columns.time(i);
+            open[i] = columns.open(i);
+            high[i] = columns.high(i);
+            low[i] = columns.low(i);
+            close[i] = columns.close(i);
+            volume[i] = columns.volume(i);
+        }
+        return new CandleSeries(symbol, timeframe, time, open, high, low, close, volume);
+    }
+
+    /**
+     * Índice do primeiro candle que abre em {@code timeMs} ou depois ({@link #size()} se nenhum).
+     */
+    public int indexAtOrAfter(long timeMs) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (columns.time(mid) < timeMs) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public String getTimeframe() {
+        return timeframe;
+    }
+
+    public long time(int index) {
+        return columns.time(index);
+    }
+
+    public double open(int index) {
+        return columns.open(index);
+    }
+
+    public double high(int index) {
+        return columns.high(index);
+    }
+
+    public double low(int index) {
+        return columns.low(index);
+    }
+
+    public double close(int index) {
+        return columns.close(index);
+    }
+
+    public double volume(int index) {
+        return columns.volume(index);
+    }
+}
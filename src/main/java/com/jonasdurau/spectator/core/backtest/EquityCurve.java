@@ -0,0 +1,18 @@
+package com.jonasdurau.spectator.core.backtest;
+
+/**
+ * Saldo marcado a mercado no fechamento de cada candle do período negociado.
+ *
+ * @param time   horário de fechamento do candle em epoch millis
+ * @param equity saldo naquele instante (já descontadas as taxas)
+ */
+public record EquityCurve(long[] time, double[] equity) {
+
+    public int size() {
+        return time.length;
+    }
+
+    public double last() {
+        return equity[equity.length - 1];
+    }
+}
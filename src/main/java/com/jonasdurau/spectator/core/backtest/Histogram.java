@@ -0,0 +1,136 @@
+package com.jonasdurau.spectator.core.backtest;
+
+/**
+ * Histograma de faixas fixas em {@code [min, max)}, para resumir milhões de amostras sem guardá-las.
+ * Valores fora da faixa caem nas faixas das pontas; média, mínimo e máximo são exatos.
+ *
+ * Não é thread-safe: cada thread acumula o seu e os parciais são somados com {@link #merge}.
+ */
+public final class Histogram {
+
+    private final double min;
+    private final double max;
+    private final double binWidth;
+    private final long[] counts;
+
+    private long count;
+    private double sum;
+    private double lowest = Double.POSITIVE_INFINITY;
+    private double highest = Double.NEGATIVE_INFINITY;
+
+    public Histogram(double min, double max, int bins) {
+        if (!(max > min) || bins <= 0) {
+            throw new IllegalArgumentException("Histogram needs max > min and at least one bin");
+        }
+        this.min = min;
+        this.max = max;
+        this.binWidth = (max - min) / bins;
+        this.counts = new long[bins];
+    }
+
+    /**
+     * Histograma vazio com as mesmas faixas (o parcial de outra thread).
+     */
+    public Histogram emptyCopy() {
+        return new Histogram(min, max, counts.length);
+    }
+
+    public void add(double value) {
+        int bin = (int) ((value - min) / binWidth);
+        if (bin < 0 || value != value) {
+            bin = 0;
+        } else if (bin >= counts.length) {
+            bin = counts.length - 1;
+        }
+        counts[bin]++;
+        count++;
+        sum += value;
+        if (value < lowest) {
+            lowest = value;
+        }
+        if (value > highest) {
+            highest = value;
+        }
+    }
+
+    public void merge(Histogram other) {
+        if (other.counts.length != counts.length || other.min != min || other.max != max) {
+            throw new IllegalArgumentException("Cannot merge histograms with different bins");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        lowest = Math.min(lowest, other.lowest);
+        highest = Math.max(highest, other.highest);
+    }
+
+    /**
+     * Quantil {@code q} (0..1), interpolado dentro da faixa e limitado ao mínimo/máximo observados.
+     */
+    public double quantile(double q) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        double rank = q * count;
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0 && seen + counts[i] >= rank) {
+                double value = min + binWidth * (i + (rank - seen) / counts[i]);
+                return Math.max(lowest, Math.min(highest, value));
+            }
+            seen += counts[i];
+        }
+        return highest;
+    }
+
+    /**
+     * Fração das amostras maiores ou iguais a {@code value} (na resolução de uma faixa).
+     */
+    public double fractionAtLeast(double value) {
+        if (count == 0) {
+            return 0;
+        }
+        int from = (int) Math.ceil((value - min) / binWidth);
+        if (from <= 0) {
+            return 1;
+        }
+        long above = 0;
+        for (int i = from; i < counts.length; i++) {
+            above += counts[i];
+        }
+        return (double) above / count;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public double mean() {
+        return count > 0 ? sum / count : Double.NaN;
+    }
+
+    public double min() {
+        return count > 0 ? lowest : Double.NaN;
+    }
+
+    public double max() {
+        return count > 0 ? highest : Double.NaN;
+    }
+
+    public int bins() {
+        return counts.length;
+    }
+
+    /**
+     * Amostras na faixa {@code bin}, que começa em {@link #binStart}.
+     */
+    public long countAt(int bin) {
+        return counts[bin];
+    }
+
+    public double binStart(int bin) {
+        return min + binWidth * bin;
+    }
+}
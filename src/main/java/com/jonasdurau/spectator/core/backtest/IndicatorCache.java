@@ -0,0 +1,193 @@
+package com.jonasdurau.spectator.core.backtest;
+
+import com.jonasdurau.spectator.core.buffer.CandleRingBuffer;
+import com.jonasdurau.spectator.core.indicator.BulkIndicatorKernels;
+import com.jonasdurau.spectator.core.indicator.IndicatorContext;
+import com.jonasdurau.spectator.core.indicator.IndicatorEngine;
+import com.jonasdurau.spectator.core.indicator.IndicatorSpec;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Valores de cada indicador candle a candle sobre uma {@link CandleSeries}, calculados uma única vez por spec
+ * e compartilhados por todas as variantes do backtest (uma EMA 50 serve a todas as combinações que a usam).
+ *
+ * As colunas saem do mesmo {@link IndicatorEngine} incremental do ao vivo, alimentado por um
+ * {@link CandleRingBuffer} com a mesma janela, então o valor no índice {@code i} é exatamente o que o motor
+ * veria no fechamento do candle {@code i}. Thread-safe: colunas são criadas sob demanda e nunca mudam.
+ *
+ * Cada coluna é calculada uma vez, fora do lock do mapa: o primeiro a pedir um spec publica uma tarefa e a
+ * executa, quem pede o mesmo spec espera por ela, e quem pede specs diferentes calcula em paralelo.
+ *
+ * Com {@code bulkKernels}, EMA, RSI e ATR saem dos {@link BulkIndicatorKernels} numa passada só sobre as colunas
+ * da série. Eles repetem as operações de ponto flutuante dos indicadores incrementais, então as colunas são as
+ * mesmas bit a bit. Os demais tipos seguem pelo motor. Exige o módulo {@link #VECTOR_MODULE} na JVM.
+ */
+public final class IndicatorCache {
+
+    public static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    private final CandleSeries series;
+    private final int window;
+    private final boolean bulkKernels;
+    private final Map<IndicatorSpec, FutureTask<double[]>> columns = new ConcurrentHashMap<>();
+
+    public IndicatorCache(CandleSeries series, int window) {
+        this(series, window, false);
+    }
+
+    /**
+     * @param bulkKernels calcula EMA, RSI e ATR com os {@link BulkIndicatorKernels}
+     */
+    public IndicatorCache(CandleSeries series, int window, boolean bulkKernels) {
+        if (bulkKernels && !vectorApiAvailable()) {
+            throw new IllegalStateException("Bulk indicator kernels need the JVM option --add-modules="
+                    + VECTOR_MODULE);
+        }
+        this.series = series;
+        this.window = window;
+        this.bulkKernels = bulkKernels;
+    }
+
+    /**
+     * Se a JVM foi iniciada com o Vector API, sem carregar nenhuma classe dele.
+     */
+    public static boolean vectorApiAvailable() {
+        return ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent();
+    }
+
+    /**
+     * Coluna do indicador, calculada na primeira chamada. Não deve ser modificada.
+     */
+    public double[] column(IndicatorSpec spec) {
+        FutureTask<double[]> task = columns.get(spec);
+        if (task == null) {
+            FutureTask<double[]> created = new FutureTask<>(() -> compute(spec));
+            task = columns.putIfAbsent(spec, created);
+            if (task == null) {
+                task = created;
+                created.run();
+            }
+        }
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            // Não guarda a falha: o próximo pedido tenta de novo
+            columns.remove(spec, task);
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Failed to compute " + spec, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + spec, e);
+        }
+    }
+
+    /**
+     * Visão dos indicadores pedidos, pronta para montar um {@link IndicatorContext} por candle.
+     */
+    public View view(Collection<IndicatorSpec> specs) {
+        List<IndicatorSpec> ordered = List.copyOf(Set.copyOf(specs));
+        Map<IndicatorSpec, Integer> slots = new HashMap<>();
+        double[][] selected = new double[ordered.size()][];
+        for (int i = 0; i < ordered.size(); i++) {
+            slots.put(ordered.get(i), i);
+            selected[i] = column(ordered.get(i));
+        }
+        return new View(series, window, Map.copyOf(slots), selected);
+    }
+
+    public int size() {
+        return columns.size();
+    }
+
+    private double[] compute(IndicatorSpec spec) {
+        if (bulkKernels) {
+            double[] bulk = switch (spec.kind()) {
+                case EMA -> BulkIndicatorKernels.ema(closes(), spec.period());
+                case RSI -> BulkIndicatorKernels.rsi(closes(), spec.period());
+                case ATR -> BulkIndicatorKernels.atr(highs(), lows(), closes(), spec.period());
+                default -> null;
+            };
+            if (bulk != null) {
+                return bulk;
+            }
+        }
+        int n = series.size();
+        double[] column = new double[n];
+        CandleRingBuffer buffer = new CandleRingBuffer(series.getSymbol(), series.getTimeframe(), window);
+        IndicatorEngine engine = new IndicatorEngine(series.getSymbol(), series.getTimeframe(), Set.of(spec));
+        for (int i = 0; i < n; i++) {
+            buffer.update(series.time(i), series.open(i), series.high(i), series.low(i), series.close(i),
+                    series.volume(i));
+            column[i] = engine.sync(buffer.window(window)).get(spec);
+        }
+        return column;
+    }
+
+    private double[] closes() {
+        double[] close = new double[series.size()];
+        for (int i = 0; i < close.length; i++) {
+            close[i] = series.close(i);
+        }
+        return close;
+    }
+
+    private double[] highs() {
+        double[] high = new double[series.size()];
+        for (int i = 0; i < high.length; i++) {
+            high[i] = series.high(i);
+        }
+        return high;
+    }
+
+    private double[] lows() {
+        double[] low = new double[series.size()];
+        for (int i = 0; i < low.length; i++) {
+            low[i] = series.low(i);
+        }
+        return low;
+    }
+
+    /**
+     * Subconjunto de colunas com slots fixos: cada {@link #contextAt} só copia alguns doubles.
+     */
+    public static final class View {
+
+        private final CandleSeries series;
+        private final int window;
+        private final Map<IndicatorSpec, Integer> slots;
+        private final double[][] columns;
+
+        private View(CandleSeries series, int window, Map<IndicatorSpec, Integer> slots, double[][] columns) {
+            this.series = series;
+            this.window = window;
+            this.slots = slots;
+            this.columns = columns;
+        }
+
+        /**
+         * O contexto que o {@link IndicatorEngine} devolveria no fechamento do candle {@code index}.
+         */
+        public IndicatorContext contextAt(int index) {
+            double[] values = new double[columns.length];
+            for (int s = 0; s < columns.length; s++) {
+                values[s] = columns[s][index];
+            }
+            return new IndicatorContext(series.getSymbol(), series.getTimeframe(), Math.min(index + 1, window),
+                    series.time(index), series.open(index), series.high(index), series.low(index),
+                    series.close(index), slots, values);
+        }
+    }
+}
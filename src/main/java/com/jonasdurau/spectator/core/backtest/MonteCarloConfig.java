@@ -0,0 +1,43 @@
+package com.jonasdurau.spectator.core.backtest;
+
+import com.jonasdurau.spectator.core.service.RiskManagerService;
+
+/**
+ * Parâmetros de uma simulação de Monte Carlo sobre trades fechados.
+ *
+ * @param paths          caminhos simulados
+ * @param resampling     como cada caminho sorteia os trades
+ * @param tradesPerPath  trades por caminho; 0 usa o tamanho da amostra (no embaralhamento, nunca passa dele)
+ * @param riskPercentage risco por trade passado ao {@link RiskManagerService#calculatePositionSize}
+ * @param compounding    dimensiona pelo saldo atual do caminho; sem, sempre pelo saldo inicial (como o ao vivo hoje)
+ * @param feeRate        taxa por lado, sobre o valor negociado
+ * @param maxSlippage    slippage adverso sorteado em {@code [0, maxSlippage)} do preço, na entrada e na saída
+ * @param ruinDrawdown   queda a partir do topo (0.5 = 50%) que conta como ruína e encerra o caminho
+ */
+public record MonteCarloConfig(long paths, Resampling resampling, int tradesPerPath, double initialEquity,
+        double riskPercentage, boolean compounding, double feeRate, double maxSlippage, double ruinDrawdown,
+        long seed) {
+
+    public enum Resampling {
+        /** Permutação da amostra: mesmos trades, outra ordem (só o caminho muda, não o resultado final). */
+        SHUFFLE,
+        /** Sorteio com reposição: alguns trades se repetem, outros ficam de fora. */
+        BOOTSTRAP
+    }
+
+    public MonteCarloConfig {
+        if (paths <= 0 || tradesPerPath < 0 || initialEquity <= 0 || riskPercentage <= 0 || feeRate < 0
+                || maxSlippage < 0 || ruinDrawdown <= 0 || ruinDrawdown > 1) {
+            throw new IllegalArgumentException("Invalid Monte Carlo configuration");
+        }
+    }
+
+    /**
+     * Sizing do ao vivo (saldo fixo, risco padrão do {@link RiskManagerService}), 0.1% de taxa, até 0.05% de
+     * slippage por lado e ruína em 50% de drawdown.
+     */
+    public static MonteCarloConfig defaults(long paths, Resampling resampling, long seed) {
+        return new MonteCarloConfig(paths, resampling, 0, RiskManagerService.MOCK_ACCOUNT_EQUITY,
+                RiskManagerService.DEFAULT_RISK_PERCENTAGE, false, 0.001, 0.0005, 0.5, seed);
+    }
+}
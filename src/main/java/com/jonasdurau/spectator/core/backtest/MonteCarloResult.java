@@ -0,0 +1,42 @@
+package com.jonasdurau.spectator.core.backtest;
+
+/**
+ * Distribuições de uma simulação de Monte Carlo, resumidas em histogramas (nenhum caminho é guardado).
+ *
+ * @param maxDrawdownPct maior queda a partir do topo de cada caminho (0.1 = 10%)
+ * @param logReturn      {@code ln(saldo final / saldo inicial)} de cada caminho
+ * @param ruined         caminhos que atingiram {@link MonteCarloConfig#ruinDrawdown}
+ */
+public record MonteCarloResult(MonteCarloConfig config, int tradesPerPath, Histogram maxDrawdownPct,
+        Histogram logReturn, long ruined, long elapsedNanos) {
+
+    public long paths() {
+        return maxDrawdownPct.count();
+    }
+
+    public double ruinProbability() {
+        return paths() > 0 ? (double) ruined / paths() : 0;
+    }
+
+    /**
+     * Probabilidade de o drawdown máximo chegar a {@code drawdownPct}.
+     */
+    public double probabilityOfDrawdownAtLeast(double drawdownPct) {
+        return maxDrawdownPct.fractionAtLeast(drawdownPct);
+    }
+
+    public double drawdownQuantile(double q) {
+        return maxDrawdownPct.quantile(q);
+    }
+
+    /**
+     * Retorno simples do quantil {@code q} (0.05 = o pior caminho entre os 5% piores).
+     */
+    public double returnQuantile(double q) {
+        return Math.expm1(logReturn.quantile(q));
+    }
+
+    public double pathsPerSecond() {
+        return elapsedNanos > 0 ? paths() * 1e9 / elapsedNanos : 0;
+    }
+}
@@ -0,0 +1,199 @@
+package com.jonasdurau.spectator.core.backtest;
+
+import com.jonasdurau.spectator.core.service.RiskManagerService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Monte Carlo sobre uma {@link TradeSample}: cada caminho reembaralha ou reamostra os trades, perturba o preço de
+ * entrada e saída com slippage e reaplica o sizing do {@link RiskManagerService}, medindo drawdown e ruína.
+ *
+ * Feito para milhões de caminhos: a amostra fica em arrays de primitivos, os caminhos são divididos em blocos
+ * com um {@link SplittableRandom} próprio (derivado da semente em ordem, então o resultado não depende do número
+ * de threads) e cada thread soma os seus caminhos em histogramas locais, somados no fim.
+ */
+public class MonteCarloSimulator {
+
+    private static final Logger log = LoggerFactory.getLogger(MonteCarloSimulator.class);
+
+    private static final int PATHS_PER_BLOCK = 4096;
+
+    // ln do retorno: -10 (saldo / 22000) a +10 (saldo x 22000), faixas de 0.5%
+    private static final double MIN_LOG_RETURN = -10;
+    private static final double MAX_LOG_RETURN = 10;
+    private static final int LOG_RETURN_BINS = 4000;
+    private static final int DRAWDOWN_BINS = 1000;
+
+    private final RiskManagerService riskManagerService;
+    private final int parallelism;
+
+    /**
+     * @param parallelism threads de trabalho; 0 ou menos usa todos os núcleos
+     */
+    public MonteCarloSimulator(RiskManagerService riskManagerService, int parallelism) {
+        this.riskManagerService = riskManagerService;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    public MonteCarloResult simulate(TradeSample sample, MonteCarloConfig config) {
+        if (sample.size() == 0) {
+            throw new IllegalArgumentException("Monte Carlo needs at least one closed trade with a stop loss");
+        }
+        long started = System.nanoTime();
+        int n = sample.size();
+        int length = config.tradesPerPath() == 0 ? n : config.tradesPerPath();
+        if (config.resampling() == MonteCarloConfig.Resampling.SHUFFLE) {
+            length = Math.min(length, n);
+        }
+
+        // Quantidade por unidade de saldo: o sizing é linear no saldo, então o RiskManager é chamado uma vez por
+        // trade e não uma vez por trade de cada caminho
+        double[] entry = new double[n];
+        double[] exit = new double[n];
+        double[] move = new double[n];
+        double[] unitQuantity = new double[n];
+        for (int i = 0; i < n; i++) {
+            entry[i] = sample.entry(i);
+            exit[i] = sample.exit(i);
+            move[i] = sample.move(i) - config.feeRate() * (entry[i] + exit[i]);
+            unitQuantity[i] = riskManagerService.calculatePositionSize(entry[i], sample.stopLoss(i), 1.0,
+                    config.riskPercentage());
+        }
+
+        int blocks = (int) ((config.paths() + PATHS_PER_BLOCK - 1) / PATHS_PER_BLOCK);
+        SplittableRandom root = new SplittableRandom(config.seed());
+        SplittableRandom[] randoms = new SplittableRandom[blocks];
+        for (int b = 0; b < blocks; b++) {
+            randoms[b] = root.split();
+        }
+
+        int pathLength = length;
+        AtomicInteger nextBlock = new AtomicInteger();
+        List<Future<Accumulator>> workers = new ArrayList<>(parallelism);
+        List<Accumulator> partials = new ArrayList<>(parallelism);
+        try (ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+                Thread.ofPlatform().name("monte-carlo-", 0).daemon().factory())) {
+            for (int w = 0; w < parallelism; w++) {
+                workers.add(executor.submit(() -> {
+                    Accumulator accumulator = new Accumulator(n);
+                    int b;
+                    while ((b = nextBlock.getAndIncrement()) < blocks) {
+                        long from = (long) b * PATHS_PER_BLOCK;
+                        long to = Math.min(config.paths(), from + PATHS_PER_BLOCK);
+                        accumulator.resetOrder();
+                        for (long p = from; p < to; p++) {
+                            accumulator.runPath(randoms[b], config, pathLength, entry, exit, move, unitQuantity);
+                        }
+                    }
+                    return accumulator;
+                }));
+            }
+            for (Future<Accumulator> worker : workers) {
+                partials.add(worker.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Monte Carlo interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Monte Carlo worker failed", e.getCause());
+        }
+
+        Accumulator total = partials.get(0);
+        for (int i = 1; i < partials.size(); i++) {
+            total.merge(partials.get(i));
+        }
+        MonteCarloResult result = new MonteCarloResult(config, length, total.drawdown, total.logReturn,
+                total.ruined, System.nanoTime() - started);
+        log.info("Monte Carlo {}: {} paths x {} trades (sample of {}) on {} threads in {} ms, ruin {}, "
+                        + "drawdown p50 {} / p95 {} / p99 {}", config.resampling(), result.paths(), length, n,
+                parallelism, result.elapsedNanos() / 1_000_000, result.ruinProbability(), result.drawdownQuantile(0.5),
+                result.drawdownQuantile(0.95), result.drawdownQuantile(0.99));
+        return result;
+    }
+
+    /**
+     * Histogramas e a ordem de embaralhamento de uma thread.
+     */
+    private static final class Accumulator {
+
+        private final Histogram drawdown = new Histogram(0, 1, DRAWDOWN_BINS);
+        private final Histogram logReturn = new Histogram(MIN_LOG_RETURN, MAX_LOG_RETURN, LOG_RETURN_BINS);
+        private final int[] order;
+        private long ruined;
+
+        Accumulator(int sampleSize) {
+            order = new int[sampleSize];
+        }
+
+        /**
+         * Cada bloco começa da ordem original, para o resultado depender só do seu gerador e não de qual thread
+         * rodou os blocos anteriores.
+         */
+        void resetOrder() {
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+        }
+
+        void runPath(SplittableRandom random, MonteCarloConfig config, int length, double[] entry, double[] exit,
+                double[] move, double[] unitQuantity) {
+            boolean shuffle = config.resampling() == MonteCarloConfig.Resampling.SHUFFLE;
+            boolean compounding = config.compounding();
+            double slippage = config.maxSlippage();
+            double ruinDrawdown = config.ruinDrawdown();
+            double initial = config.initialEquity();
+            int n = order.length;
+
+            double equity = initial;
+            double peak = initial;
+            double maxDrawdown = 0;
+            for (int k = 0; k < length; k++) {
+                int t;
+                if (shuffle) {
+                    // Fisher-Yates parcial: a ordem do caminho anterior já é uma permutação, serve de ponto de partida
+                    int j = k + random.nextInt(n - k);
+                    t = order[j];
+                    order[j] = order[k];
+                    order[k] = t;
+                } else {
+                    t = random.nextInt(n);
+                }
+                double perUnit = move[t];
+                if (slippage > 0) {
+                    perUnit -= slippage * (random.nextDouble() * entry[t] + random.nextDouble() * exit[t]);
+                }
+                equity += (compounding ? equity : initial) * unitQuantity[t] * perUnit;
+
+                if (equity > peak) {
+                    peak = equity;
+                } else {
+                    double drawdown = (peak - equity) / peak;
+                    if (drawdown > maxDrawdown) {
+                        maxDrawdown = drawdown;
+                        if (drawdown >= ruinDrawdown) {
+                            ruined++;
+                            break;
+                        }
+                    }
+                }
+            }
+            drawdown.add(Math.min(maxDrawdown, 1));
+            logReturn.add(Math.log(Math.max(equity, Double.MIN_NORMAL) / initial));
+        }
+
+        void merge(Accumulator other) {
+            drawdown.merge(other.drawdown);
+            logReturn.merge(other.logReturn);
+            ruined += other.ruined;
+        }
+    }
+}
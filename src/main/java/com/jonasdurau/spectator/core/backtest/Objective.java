@@ -0,0 +1,49 @@
+package com.jonasdurau.spectator.core.backtest;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Objetivos prontos para ranquear variantes (maior é melhor). O otimizador aceita qualquer
+ * {@code ToDoubleFunction<BacktestStatistics>}, então combinações próprias também servem.
+ */
+public enum Objective implements ToDoubleFunction<BacktestStatistics> {
+
+    NET_PROFIT {
+        @Override
+        public double applyAsDouble(BacktestStatistics statistics) {
+            return statistics.netProfit();
+        }
+    },
+    SHARPE {
+        @Override
+        public double applyAsDouble(BacktestStatistics statistics) {
+            return statistics.sharpe();
+        }
+    },
+    PROFIT_FACTOR {
+        @Override
+        public double applyAsDouble(BacktestStatistics statistics) {
+            return statistics.profitFactor();
+        }
+    },
+    RETURN_OVER_MAX_DRAWDOWN {
+        @Override
+        public double applyAsDouble(BacktestStatistics statistics) {
+            return statistics.returnOverMaxDrawdown();
+        }
+    },
+    WIN_RATE {
+        @Override
+        public double applyAsDouble(BacktestStatistics statistics) {
+            return statistics.winRate();
+        }
+    };
+
+    /**
+     * Descarta (pontuação -infinito) variantes com menos de {@code minTrades} trades: poucas amostras
+     * costumam dar as melhores pontuações por acaso.
+     */
+    public ToDoubleFunction<BacktestStatistics> withMinTrades(int minTrades) {
+        return statistics -> statistics.trades() >= minTrades ? applyAsDouble(statistics) : Double.NEGATIVE_INFINITY;
+    }
+}
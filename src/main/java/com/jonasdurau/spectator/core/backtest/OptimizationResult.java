@@ -0,0 +1,9 @@
+package com.jonasdurau.spectator.core.backtest;
+
+/**
+ * Uma variante avaliada pelo {@link ParameterOptimizer}.
+ *
+ * @param score valor do objetivo (maior é melhor)
+ */
+public record OptimizationResult(ParameterSet parameters, BacktestStatistics statistics, double score) {
+}
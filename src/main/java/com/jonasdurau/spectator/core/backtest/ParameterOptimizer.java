@@ -0,0 +1,199 @@
+package com.jonasdurau.spectator.core.backtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongUnaryOperator;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Busca em grade ou aleatória sobre um {@link ParameterSpace}, com as variantes distribuídas entre todos os núcleos.
+ *
+ * Todas as variantes leem o mesmo {@link BacktestDataset} (candles e cache de indicadores imutáveis), então o custo
+ * de cada uma é só o replay das estratégias ({@link BacktestEngine#evaluate}). As threads de plataforma puxam o
+ * próximo índice de um contador compartilhado, o que equilibra variantes de custo desigual, e cada uma guarda só
+ * o seu top-K: a memória não cresce com o tamanho da grade.
+ *
+ * Várias janelas independentes (walk-forward) podem ser otimizadas numa única busca: os pares (janela, combinação)
+ * entram intercalados no mesmo contador e todas as janelas avançam juntas.
+ */
+public class ParameterOptimizer {
+
+    private static final Logger log = LoggerFactory.getLogger(ParameterOptimizer.class);
+
+    private static final Comparator<OptimizationResult> BY_SCORE =
+            Comparator.comparingDouble(OptimizationResult::score);
+
+    /**
+     * Cria o motor de backtest de uma combinação de parâmetros.
+     */
+    @FunctionalInterface
+    public interface VariantFactory {
+        BacktestEngine create(ParameterSet parameters);
+    }
+
+    private final int parallelism;
+
+    /**
+     * @param parallelism threads de trabalho; 0 ou menos usa todos os núcleos
+     */
+    public ParameterOptimizer(int parallelism) {
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Avalia todas as combinações do espaço.
+     *
+     * @return as {@code topK} melhores, da maior para a menor pontuação
+     */
+    public List<OptimizationResult> gridSearch(BacktestDataset dataset, ParameterSpace space, VariantFactory factory,
+            ToDoubleFunction<BacktestStatistics> objective, int topK) {
+        return gridSearch(List.of(dataset), space, factory, objective, topK).get(0);
+    }
+
+    /**
+     * Avalia todas as combinações do espaço em cada dataset.
+     *
+     * @return o top-K de cada dataset, na mesma ordem
+     */
+    public List<List<OptimizationResult>> gridSearch(List<BacktestDataset> datasets, ParameterSpace space,
+            VariantFactory factory, ToDoubleFunction<BacktestStatistics> objective, int topK) {
+        return search(datasets, space, space.size(), index -> index, factory, objective, topK);
+    }
+
+    /**
+     * Avalia {@code samples} combinações distintas sorteadas do espaço (a grade inteira se for menor que isso).
+     * A mesma semente sorteia as mesmas combinações.
+     */
+    public List<OptimizationResult> randomSearch(BacktestDataset dataset, ParameterSpace space, VariantFactory factory,
+            ToDoubleFunction<BacktestStatistics> objective, int samples, long seed, int topK) {
+        return randomSearch(List.of(dataset), space, factory, objective, samples, seed, topK).get(0);
+    }
+
+    /**
+     * Busca aleatória com as mesmas combinações sorteadas em todos os datasets.
+     */
+    public List<List<OptimizationResult>> randomSearch(List<BacktestDataset> datasets, ParameterSpace space,
+            VariantFactory factory, ToDoubleFunction<BacktestStatistics> objective, int samples, long seed, int topK) {
+        if (samples >= space.size()) {
+            return gridSearch(datasets, space, factory, objective, topK);
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        Set<Long> drawn = new LinkedHashSet<>();
+        while (drawn.size() < samples) {
+            drawn.add(random.nextLong(space.size()));
+        }
+        long[] indices = drawn.stream().mapToLong(Long::longValue).toArray();
+        return search(datasets, space, indices.length, i -> indices[(int) i], factory, objective, topK);
+    }
+
+    /**
+     * Avalia um conjunto de parâmetros por dataset, em paralelo (ex.: os vencedores de cada janela fora da amostra).
+     *
+     * @return as estatísticas de {@code parameters.get(i)} em {@code datasets.get(i)}
+     */
+    public List<BacktestStatistics> evaluate(List<BacktestDataset> datasets, List<ParameterSet> parameters,
+            VariantFactory factory) {
+        if (datasets.size() != parameters.size()) {
+            throw new IllegalArgumentException("Expected one parameter set per dataset");
+        }
+        BacktestStatistics[] results = new BacktestStatistics[datasets.size()];
+        AtomicLong next = new AtomicLong();
+        runWorkers(() -> {
+            long k;
+            while ((k = next.getAndIncrement()) < results.length) {
+                int i = (int) k;
+                results[i] = factory.create(parameters.get(i)).evaluate(datasets.get(i));
+            }
+            return null;
+        });
+        return List.of(results);
+    }
+
+    private List<List<OptimizationResult>> search(List<BacktestDataset> datasets, ParameterSpace space, long count,
+            LongUnaryOperator combinationAt, VariantFactory factory, ToDoubleFunction<BacktestStatistics> objective,
+            int topK) {
+        long started = System.nanoTime();
+        int windows = datasets.size();
+        long total = Math.multiplyExact(count, windows);
+        AtomicLong next = new AtomicLong();
+        AtomicInteger failures = new AtomicInteger();
+
+        List<PriorityQueue<OptimizationResult>[]> perWorker = runWorkers(() -> {
+            // Min-heap por dataset: a cabeça é a pior das melhores, a primeira a sair
+            @SuppressWarnings("unchecked")
+            PriorityQueue<OptimizationResult>[] best = new PriorityQueue[windows];
+            for (int d = 0; d < windows; d++) {
+                best[d] = new PriorityQueue<>(topK + 1, BY_SCORE);
+            }
+            long k;
+            while ((k = next.getAndIncrement()) < total) {
+                int d = (int) (k % windows);
+                ParameterSet parameters = space.combination(combinationAt.applyAsLong(k / windows));
+                try {
+                    BacktestStatistics statistics = factory.create(parameters).evaluate(datasets.get(d));
+                    best[d].add(new OptimizationResult(parameters, statistics, objective.applyAsDouble(statistics)));
+                    if (best[d].size() > topK) {
+                        best[d].poll();
+                    }
+                } catch (RuntimeException e) {
+                    failures.incrementAndGet();
+                    log.warn("Backtest variant {} failed: {}", parameters, e.getMessage());
+                }
+            }
+            return best;
+        });
+
+        List<List<OptimizationResult>> tops = new ArrayList<>(windows);
+        for (int d = 0; d < windows; d++) {
+            List<OptimizationResult> merged = new ArrayList<>();
+            for (PriorityQueue<OptimizationResult>[] best : perWorker) {
+                merged.addAll(best[d]);
+            }
+            merged.sort(BY_SCORE.reversed());
+            tops.add(List.copyOf(merged.subList(0, Math.min(topK, merged.size()))));
+        }
+
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        log.info("Optimization finished: {} variants x {} datasets ({} failed) on {} threads in {} ms.",
+                count, windows, failures.get(), parallelism, elapsedMs);
+        return tops;
+    }
+
+    /**
+     * Roda {@code work} em cada thread de trabalho e devolve o resultado de cada uma.
+     */
+    private <R> List<R> runWorkers(Supplier<R> work) {
+        List<Future<R>> workers = new ArrayList<>(parallelism);
+        try (ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+                Thread.ofPlatform().name("backtest-optimizer-", 0).daemon().factory())) {
+            for (int w = 0; w < parallelism; w++) {
+                workers.add(executor.submit(work::get));
+            }
+            List<R> results = new ArrayList<>(parallelism);
+            for (Future<R> worker : workers) {
+                results.add(worker.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Optimization interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Optimization worker failed", e.getCause());
+        }
+    }
+}
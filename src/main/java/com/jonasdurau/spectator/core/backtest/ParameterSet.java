@@ -0,0 +1,53 @@
+package com.jonasdurau.spectator.core.backtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Uma combinação de um {@link ParameterSpace}. Parâmetros fora da combinação ficam com o valor padrão de quem lê.
+ */
+public final class ParameterSet {
+
+    private final String[] names;
+    private final double[] values;
+
+    ParameterSet(String[] names, double[] values) {
+        this.names = names;
+        this.values = values;
+    }
+
+    public static ParameterSet of(Map<String, Double> parameters) {
+        String[] names = parameters.keySet().toArray(String[]::new);
+        double[] values = new double[names.length];
+        for (int i = 0; i < names.length; i++) {
+            values[i] = parameters.get(names[i]);
+        }
+        return new ParameterSet(names, values);
+    }
+
+    public double get(String name, double defaultValue) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return values[i];
+            }
+        }
+        return defaultValue;
+    }
+
+    public int getInt(String name, int defaultValue) {
+        return (int) Math.round(get(name, defaultValue));
+    }
+
+    public Map<String, Double> asMap() {
+        Map<String, Double> map = new LinkedHashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            map.put(names[i], values[i]);
+        }
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return asMap().toString();
+    }
+}
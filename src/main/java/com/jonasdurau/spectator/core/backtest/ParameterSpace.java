@@ -0,0 +1,91 @@
+package com.jonasdurau.spectator.core.backtest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Espaço de parâmetros de uma otimização: cada dimensão tem um nome (ex.: {@code "pullback.maxDistancePct"}) e
+ * uma lista de valores. As combinações nunca são materializadas: {@link #combination(long)} decodifica o índice
+ * em base mista, então uma grade de milhões de pontos ocupa só os arrays de valores.
+ */
+public final class ParameterSpace {
+
+    private final String[] names;
+    private final double[][] values;
+    private final long size;
+
+    private ParameterSpace(String[] names, double[][] values) {
+        this.names = names;
+        this.values = values;
+        long combinations = 1;
+        for (double[] dimension : values) {
+            combinations = Math.multiplyExact(combinations, dimension.length);
+        }
+        this.size = combinations;
+    }
+
+    public static ParameterSpace empty() {
+        return new ParameterSpace(new String[0], new double[0][]);
+    }
+
+    /**
+     * Nova dimensão com os valores dados.
+     */
+    public ParameterSpace with(String name, double... dimensionValues) {
+        if (dimensionValues.length == 0) {
+            throw new IllegalArgumentException("Dimension " + name + " has no values");
+        }
+        if (Arrays.asList(names).contains(name)) {
+            throw new IllegalArgumentException("Dimension " + name + " is already defined");
+        }
+        String[] newNames = Arrays.copyOf(names, names.length + 1);
+        double[][] newValues = Arrays.copyOf(values, values.length + 1);
+        newNames[names.length] = name;
+        newValues[values.length] = dimensionValues.clone();
+        return new ParameterSpace(newNames, newValues);
+    }
+
+    /**
+     * Nova dimensão de {@code from} a {@code to} (inclusive) em passos de {@code step}.
+     */
+    public ParameterSpace withRange(String name, double from, double to, double step) {
+        if (step <= 0 || to < from) {
+            throw new IllegalArgumentException("Invalid range for " + name + ": " + from + ".." + to + " step " + step);
+        }
+        List<Double> steps = new ArrayList<>();
+        // Meio passo de folga para o último ponto não cair fora por erro de arredondamento
+        for (int i = 0; from + i * step <= to + step / 2; i++) {
+            steps.add(from + i * step);
+        }
+        return with(name, steps.stream().mapToDouble(Double::doubleValue).toArray());
+    }
+
+    /**
+     * Quantidade de combinações da grade.
+     */
+    public long size() {
+        return size;
+    }
+
+    public List<String> names() {
+        return List.of(names);
+    }
+
+    /**
+     * A combinação de número {@code index} (0 até {@link #size()} - 1); a última dimensão varia mais rápido.
+     */
+    public ParameterSet combination(long index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Combination " + index + " outside 0.." + (size - 1));
+        }
+        double[] chosen = new double[names.length];
+        long remainder = index;
+        for (int d = names.length - 1; d >= 0; d--) {
+            int radix = values[d].length;
+            chosen[d] = values[d][(int) (remainder % radix)];
+            remainder /= radix;
+        }
+        return new ParameterSet(names, chosen);
+    }
+}
@@ -0,0 +1,204 @@
+package com.jonasdurau.spectator.core.backtest;
+
+import com.jonasdurau.spectator.core.domain.Position;
+import com.jonasdurau.spectator.core.domain.Trade;
+import com.jonasdurau.spectator.core.domain.TradeSide;
+import com.jonasdurau.spectator.core.position.TriggerIndex;
+import com.jonasdurau.spectator.core.service.OrderExecutionService;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Execução e livro de posições do backtest, inteiramente em memória: as ordens das estratégias abrem posições
+ * com o horário do relógio simulado e o SL/TP é vigiado pelo mesmo {@link TriggerIndex} do livro ao vivo.
+ * Não é um bean nem é thread-safe: cada execução tem a sua instância.
+ *
+ * Com {@code recordTrades}, cada posição fechada vira uma {@link Position} com seus {@link Trade}s de entrada e
+ * saída; sem, só os totais são somados (é o modo das otimizações, que rodam milhares de variantes).
+ */
+public class SimulatedExecutionService implements OrderExecutionService {
+
+    private final double initialEquity;
+    private final double feeRate;
+    private final boolean recordTrades;
+
+    private final TriggerIndex<SimulatedPosition> triggers = new TriggerIndex<>();
+    private final List<SimulatedPosition> openPositions = new ArrayList<>();
+    private final List<Position> closedPositions = new ArrayList<>();
+
+    private long nowMs;
+    private double realizedPnl;
+    private double fees;
+    private int wins;
+    private int losses;
+    private double grossProfit;
+    private double grossLoss;
+
+    // O ponto atual do caminho intrabar é a abertura do candle (gap)?
+    private boolean fillAtPrice;
+
+    private final TriggerIndex.TriggerListener<SimulatedPosition> onTrigger =
+            (position, kind, level, price) -> close(position, fillAtPrice ? price : level);
+
+    public SimulatedExecutionService(double initialEquity, double feeRate) {
+        this(initialEquity, feeRate, true);
+    }
+
+    public SimulatedExecutionService(double initialEquity, double feeRate, boolean recordTrades) {
+        this.initialEquity = initialEquity;
+        this.feeRate = feeRate;
+        this.recordTrades = recordTrades;
+    }
+
+    /**
+     * Avança o relógio simulado; ordens e fechamentos seguintes usam este horário.
+     */
+    public void setTime(long epochMillis) {
+        this.nowMs = epochMillis;
+    }
+
+    @Override
+    public void executeMarketOrder(String symbol, TradeSide side, double quantity, double currentPrice, Double stopLoss,
+            Double takeProfit) {
+        SimulatedPosition position = new SimulatedPosition(symbol, side, currentPrice, quantity, stopLoss, takeProfit,
+                nowMs);
+        fees += currentPrice * quantity * feeRate;
+        openPositions.add(position);
+
+        int stop = stopLoss != null ? triggers.addStopLoss(position, side, stopLoss) : -1;
+        int target = takeProfit != null ? triggers.addTakeProfit(position, side, takeProfit) : -1;
+        if (stop >= 0 && target >= 0) {
+            triggers.linkOco(stop, target);
+        }
+    }
+
+    /**
+     * Aplica um ponto do caminho de preço do candle aos gatilhos.
+     *
+     * @param gap true para a abertura do candle: um gatilho já ultrapassado executa no preço de abertura,
+     *            não no nível (o mercado pulou o stop)
+     */
+    public void onPrice(double price, boolean gap) {
+        fillAtPrice = gap;
+        triggers.onPrice(price, onTrigger);
+    }
+
+    public boolean hasOpenPositions() {
+        return !openPositions.isEmpty();
+    }
+
+    /**
+     * Saldo marcado a mercado: inicial + realizado + flutuante - taxas.
+     */
+    public double equity(double markPrice) {
+        double floating = 0;
+        for (int i = 0; i < openPositions.size(); i++) {
+            floating += openPositions.get(i).floatingPnl(markPrice);
+        }
+        return initialEquity + realizedPnl + floating - fees;
+    }
+
+    /**
+     * Posições ainda abertas, como entidades com o trade de entrada.
+     */
+    public List<Position> getOpenPositions() {
+        List<Position> open = new ArrayList<>(openPositions.size());
+        for (SimulatedPosition position : openPositions) {
+            open.add(position.toPosition());
+        }
+        return open;
+    }
+
+    /**
+     * Posições fechadas com seus trades; vazio se {@code recordTrades} estiver desligado.
+     */
+    public List<Position> getClosedPositions() {
+        return Collections.unmodifiableList(closedPositions);
+    }
+
+    public int getClosedCount() {
+        return wins + losses;
+    }
+
+    public int getWins() {
+        return wins;
+    }
+
+    public int getLosses() {
+        return losses;
+    }
+
+    public double getGrossProfit() {
+        return grossProfit;
+    }
+
+    public double getGrossLoss() {
+        return grossLoss;
+    }
+
+    public double getFees() {
+        return fees;
+    }
+
+    private void close(SimulatedPosition position, double price) {
+        double pnl = position.floatingPnl(price);
+        realizedPnl += pnl;
+        fees += price * position.quantity * feeRate;
+        if (pnl > 0) {
+            wins++;
+            grossProfit += pnl;
+        } else {
+            losses++;
+            grossLoss += pnl;
+        }
+        openPositions.remove(position);
+
+        if (recordTrades) {
+            Instant now = Instant.ofEpochMilli(nowMs);
+            Position closed = position.toPosition();
+            TradeSide exitSide = position.side == TradeSide.LONG ? TradeSide.SHORT : TradeSide.LONG;
+            closed.addTrade(new Trade(closed, position.symbol, exitSide, price, position.quantity, now));
+            closed.closePosition(price, now);
+            closedPositions.add(closed);
+        }
+    }
+
+    /**
+     * Posição aberta sem o peso da entidade JPA (UUIDs, lista de trades): é o dono dos gatilhos no índice.
+     */
+    private static final class SimulatedPosition {
+
+        final String symbol;
+        final TradeSide side;
+        final double entryPrice;
+        final double quantity;
+        final Double stopLoss;
+        final Double takeProfit;
+        final long openedAtMs;
+
+        SimulatedPosition(String symbol, TradeSide side, double entryPrice, double quantity, Double stopLoss,
+                Double takeProfit, long openedAtMs) {
+            this.symbol = symbol;
+            this.side = side;
+            this.entryPrice = entryPrice;
+            this.quantity = quantity;
+            this.stopLoss = stopLoss;
+            this.takeProfit = takeProfit;
+            this.openedAtMs = openedAtMs;
+        }
+
+        double floatingPnl(double price) {
+            return side == TradeSide.LONG ? (price - entryPrice) * quantity : (entryPrice - price) * quantity;
+        }
+
+        Position toPosition() {
+            Instant openedAt = Instant.ofEpochMilli(openedAtMs);
+            Position position = new Position(symbol, side, entryPrice, quantity, stopLoss, takeProfit, openedAt);
+            position.addTrade(new Trade(position, symbol, side, entryPrice, quantity, openedAt));
+            return position;
+        }
+    }
+}
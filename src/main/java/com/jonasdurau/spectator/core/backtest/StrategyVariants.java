@@ -0,0 +1,81 @@
+package com.jonasdurau.spectator.core.backtest;
+
+import com.jonasdurau.spectator.core.service.RiskManagerService;
+import com.jonasdurau.spectator.core.strategy.MeanReversionStrategy;
+import com.jonasdurau.spectator.core.strategy.PullbackTrendStrategy;
+import com.jonasdurau.spectator.core.strategy.RegimeAnalyzerService;
+
+import java.util.List;
+
+/**
+ * Monta as estratégias do ao vivo e o analisador de regime com os parâmetros de uma combinação.
+ * Cada chave abaixo é uma dimensão possível de um {@link ParameterSpace}; as ausentes ficam com o padrão.
+ */
+public class StrategyVariants implements ParameterOptimizer.VariantFactory {
+
+    public static final String PULLBACK_EMA_PERIOD = "pullback.emaPeriod";
+    public static final String PULLBACK_SWING_LOW_PERIOD = "pullback.swingLowPeriod";
+    public static final String PULLBACK_MAX_DISTANCE_PCT = "pullback.maxDistancePct";
+    public static final String PULLBACK_REWARD_RISK = "pullback.rewardRisk";
+
+    public static final String MEAN_REVERSION_RSI_PERIOD = "meanReversion.rsiPeriod";
+    public static final String MEAN_REVERSION_RSI_OVERSOLD = "meanReversion.rsiOversold";
+    public static final String MEAN_REVERSION_BB_PERIOD = "meanReversion.bbPeriod";
+    public static final String MEAN_REVERSION_BB_MULTIPLIER = "meanReversion.bbMultiplier";
+    public static final String MEAN_REVERSION_ATR_PERIOD = "meanReversion.atrPeriod";
+    public static final String MEAN_REVERSION_ATR_SL_MULTIPLIER = "meanReversion.atrSlMultiplier";
+
+    public static final String REGIME_EMA_FAST_PERIOD = "regime.emaFastPeriod";
+    public static final String REGIME_EMA_SLOW_PERIOD = "regime.emaSlowPeriod";
+    public static final String REGIME_ADX_PERIOD = "regime.adxPeriod";
+    public static final String REGIME_ATR_PERIOD = "regime.atrPeriod";
+    public static final String REGIME_ADX_TREND_THRESHOLD = "regime.adxTrendThreshold";
+    public static final String REGIME_ATR_VOLATILITY_MULTIPLIER = "regime.atrVolatilityMultiplier";
+
+    private final RiskManagerService riskManagerService;
+    private final BacktestConfig config;
+
+    public StrategyVariants(RiskManagerService riskManagerService, BacktestConfig config) {
+        this.riskManagerService = riskManagerService;
+        this.config = config;
+    }
+
+    @Override
+    public BacktestEngine create(ParameterSet parameters) {
+        return new BacktestEngine(
+                List.of(new PullbackTrendStrategy(riskManagerService, pullback(parameters)),
+                        new MeanReversionStrategy(riskManagerService, meanReversion(parameters))),
+                new RegimeAnalyzerService(regime(parameters)), config);
+    }
+
+    public static PullbackTrendStrategy.Parameters pullback(ParameterSet p) {
+        PullbackTrendStrategy.Parameters d = PullbackTrendStrategy.Parameters.DEFAULTS;
+        return new PullbackTrendStrategy.Parameters(
+                p.getInt(PULLBACK_EMA_PERIOD, d.emaPeriod()),
+                p.getInt(PULLBACK_SWING_LOW_PERIOD, d.swingLowPeriod()),
+                p.get(PULLBACK_MAX_DISTANCE_PCT, d.maxPullbackDistancePct()),
+                p.get(PULLBACK_REWARD_RISK, d.rewardRisk()));
+    }
+
+    public static MeanReversionStrategy.Parameters meanReversion(ParameterSet p) {
+        MeanReversionStrategy.Parameters d = MeanReversionStrategy.Parameters.DEFAULTS;
+        return new MeanReversionStrategy.Parameters(
+                p.getInt(MEAN_REVERSION_RSI_PERIOD, d.rsiPeriod()),
+                p.get(MEAN_REVERSION_RSI_OVERSOLD, d.rsiOversold()),
+                p.getInt(MEAN_REVERSION_BB_PERIOD, d.bbPeriod()),
+                p.get(MEAN_REVERSION_BB_MULTIPLIER, d.bbMultiplier()),
+                p.getInt(MEAN_REVERSION_ATR_PERIOD, d.atrPeriod()),
+                p.get(MEAN_REVERSION_ATR_SL_MULTIPLIER, d.atrSlMultiplier()));
+    }
+
+    public static RegimeAnalyzerService.Parameters regime(ParameterSet p) {
+        RegimeAnalyzerService.Parameters d = RegimeAnalyzerService.Parameters.DEFAULTS;
+        return new RegimeAnalyzerService.Parameters(
+                p.getInt(REGIME_EMA_FAST_PERIOD, d.emaFastPeriod()),
+                p.getInt(REGIME_EMA_SLOW_PERIOD, d.emaSlowPeriod()),
+                p.getInt(REGIME_ADX_PERIOD, d.adxPeriod()),
+                p.getInt(REGIME_ATR_PERIOD, d.atrPeriod()),
+                p.get(REGIME_ADX_TREND_THRESHOLD, d.adxTrendThreshold()),
+                p.get(REGIME_ATR_VOLATILITY_MULTIPLIER, d.atrVolatilityMultiplier()));
+    }
+}
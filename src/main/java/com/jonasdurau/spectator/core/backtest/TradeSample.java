@@ -0,0 +1,80 @@
+package com.jonasdurau.spectator.core.backtest;
+
+import com.jonasdurau.spectator.core.domain.Position;
+import com.jonasdurau.spectator.core.domain.PositionStatus;
+import com.jonasdurau.spectator.core.domain.TradeSide;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Posições fechadas em colunas de primitivos, prontas para o {@link MonteCarloSimulator}: só o que o
+ * redimensionamento precisa (entrada, stop, saída), sem a quantidade original.
+ *
+ * O resultado de cada trade é guardado por unidade do ativo ({@code move}, já com o sinal do lado), então o mesmo
+ * trade pode ser reavaliado com qualquer tamanho de posição.
+ */
+public final class TradeSample {
+
+    private final double[] entry;
+    private final double[] exit;
+    private final double[] stopLoss;
+    private final double[] move;
+
+    private TradeSample(double[] entry, double[] exit, double[] stopLoss, double[] move) {
+        this.entry = entry;
+        this.exit = exit;
+        this.stopLoss = stopLoss;
+        this.move = move;
+    }
+
+    /**
+     * Posições fechadas com stop loss (da tabela {@code positions} ou de um {@link BacktestResult}). As sem stop
+     * ou sem PnL realizado são ignoradas: sem a distância do stop não há como redimensioná-las pelo risco.
+     */
+    public static TradeSample of(List<Position> positions) {
+        int n = 0;
+        double[] entry = new double[positions.size()];
+        double[] exit = new double[positions.size()];
+        double[] stopLoss = new double[positions.size()];
+        double[] move = new double[positions.size()];
+        for (Position position : positions) {
+            if (position.getStatus() != PositionStatus.CLOSED || position.getStopLoss() == null
+                    || position.getRealizedPnl() == null || position.getQuantity() <= 0
+                    || position.getStopLoss() == position.getEntryPrice()) {
+                continue;
+            }
+            double perUnit = position.getRealizedPnl() / position.getQuantity();
+            entry[n] = position.getEntryPrice();
+            exit[n] = position.getSide() == TradeSide.LONG ? entry[n] + perUnit : entry[n] - perUnit;
+            stopLoss[n] = position.getStopLoss();
+            move[n] = perUnit;
+            n++;
+        }
+        return new TradeSample(Arrays.copyOf(entry, n), Arrays.copyOf(exit, n),
+                Arrays.copyOf(stopLoss, n), Arrays.copyOf(move, n));
+    }
+
+    public int size() {
+        return entry.length;
+    }
+
+    public double entry(int i) {
+        return entry[i];
+    }
+
+    public double exit(int i) {
+        return exit[i];
+    }
+
+    public double stopLoss(int i) {
+        return stopLoss[i];
+    }
+
+    /**
+     * Lucro por unidade do ativo, antes das taxas.
+     */
+    public double move(int i) {
+        return move[i];
+    }
+}
@@ -0,0 +1,114 @@
+package com.jonasdurau.spectator.core.backtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Walk-forward: rola a janela de otimização (dentro da amostra) e a de validação (fora da amostra) por todo o
+ * histórico de um {@link BacktestDataset}.
+ *
+ * As janelas não dependem umas das outras, então todas são otimizadas numa única busca do {@link ParameterOptimizer}
+ * (pares janela x combinação no mesmo pool) e depois validadas juntas. Cada janela é um {@link BacktestDataset#slice}
+ * do dataset completo: os indicadores são calculados uma vez, incrementalmente, sobre o histórico inteiro, e janelas
+ * sobrepostas só leem trechos diferentes do mesmo cache.
+ */
+public class WalkForwardAnalyzer {
+
+    private static final Logger log = LoggerFactory.getLogger(WalkForwardAnalyzer.class);
+
+    // Parâmetros atuais: nenhuma chave, todos os padrões
+    private static final ParameterSet BASELINE = ParameterSet.of(Map.of());
+
+    private final ParameterOptimizer optimizer;
+
+    public WalkForwardAnalyzer(ParameterOptimizer optimizer) {
+        this.optimizer = optimizer;
+    }
+
+    /**
+     * @param samples combinações sorteadas por janela; 0 avalia a grade inteira
+     */
+    public WalkForwardReport analyze(BacktestDataset dataset, WalkForwardConfig config, ParameterSpace space,
+            ParameterOptimizer.VariantFactory factory, ToDoubleFunction<BacktestStatistics> objective, int samples,
+            long seed) {
+        List<long[]> bounds = windows(dataset, config);
+        if (bounds.isEmpty()) {
+            log.warn("Walk-forward: history of {} is shorter than one in-sample + out-of-sample window.",
+                    dataset.bars().getSymbol());
+            return new WalkForwardReport(config, List.of());
+        }
+
+        List<BacktestDataset> inSample = new ArrayList<>(bounds.size());
+        List<BacktestDataset> outOfSample = new ArrayList<>(bounds.size());
+        for (long[] window : bounds) {
+            inSample.add(dataset.slice(window[0], window[1]));
+            outOfSample.add(dataset.slice(window[1], window[2]));
+        }
+
+        List<List<OptimizationResult>> winners = samples > 0
+                ? optimizer.randomSearch(inSample, space, factory, objective, samples, seed, 1)
+                : optimizer.gridSearch(inSample, space, factory, objective, 1);
+
+        // Vencedor e parâmetros atuais de cada janela, validados fora da amostra numa única rodada
+        List<BacktestDataset> validation = new ArrayList<>(bounds.size() * 2);
+        List<ParameterSet> validated = new ArrayList<>(bounds.size() * 2);
+        List<ParameterSet> chosen = new ArrayList<>(bounds.size());
+        for (int w = 0; w < bounds.size(); w++) {
+            List<OptimizationResult> top = winners.get(w);
+            ParameterSet parameters = top.isEmpty() ? BASELINE : top.get(0).parameters();
+            chosen.add(parameters);
+            validation.add(outOfSample.get(w));
+            validated.add(parameters);
+            validation.add(outOfSample.get(w));
+            validated.add(BASELINE);
+        }
+        List<BacktestStatistics> validationStats = optimizer.evaluate(validation, validated, factory);
+
+        List<WalkForwardWindow> windows = new ArrayList<>(bounds.size());
+        for (int w = 0; w < bounds.size(); w++) {
+            long[] window = bounds.get(w);
+            List<OptimizationResult> top = winners.get(w);
+            BacktestStatistics inSampleStats = top.isEmpty()
+                    ? factory.create(BASELINE).evaluate(inSample.get(w))
+                    : top.get(0).statistics();
+            windows.add(new WalkForwardWindow(Instant.ofEpochMilli(window[0]), Instant.ofEpochMilli(window[1]),
+                    Instant.ofEpochMilli(window[2]), chosen.get(w), inSampleStats, validationStats.get(2 * w),
+                    validationStats.get(2 * w + 1)));
+        }
+
+        WalkForwardReport report = new WalkForwardReport(config, List.copyOf(windows));
+        log.info("Walk-forward on {}: {} windows, out-of-sample net {} vs baseline {} ({} windows better), "
+                        + "efficiency {}, promote: {}", dataset.bars().getSymbol(), windows.size(),
+                report.outOfSampleNetProfit(), report.baselineNetProfit(), report.windowsBeatingBaseline(),
+                report.efficiency(), report.shouldPromote());
+        return report;
+    }
+
+    /**
+     * Limites {@code [inSampleFrom, outOfSampleFrom, outOfSampleTo]} de cada janela completa dentro do período
+     * negociável do dataset.
+     */
+    static List<long[]> windows(BacktestDataset dataset, WalkForwardConfig config) {
+        int first = dataset.firstIndex();
+        int end = dataset.endIndex();
+        List<long[]> windows = new ArrayList<>();
+        if (first >= end) {
+            return windows;
+        }
+        long start = dataset.bars().time(first);
+        long limit = dataset.bars().time(end - 1) + 1;
+        long inSampleMs = config.inSample().toMillis();
+        long outOfSampleMs = config.outOfSample().toMillis();
+        long stepMs = config.step().toMillis();
+        for (long from = start; from + inSampleMs + outOfSampleMs <= limit; from += stepMs) {
+            windows.add(new long[] {from, from + inSampleMs, from + inSampleMs + outOfSampleMs});
+        }
+        return windows;
+    }
+}
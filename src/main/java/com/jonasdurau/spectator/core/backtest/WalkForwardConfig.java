@@ -0,0 +1,22 @@
+package com.jonasdurau.spectator.core.backtest;
+
+import java.time.Duration;
+
+/**
+ * Janelas do walk-forward: otimiza em {@code inSample}, valida nos {@code outOfSample} seguintes e anda {@code step}.
+ *
+ * @param step com {@code step == outOfSample} os períodos fora da amostra ficam colados, sem sobreposição
+ */
+public record WalkForwardConfig(Duration inSample, Duration outOfSample, Duration step) {
+
+    public WalkForwardConfig {
+        if (inSample.isNegative() || inSample.isZero() || outOfSample.isNegative() || outOfSample.isZero()
+                || step.isNegative() || step.isZero()) {
+            throw new IllegalArgumentException("Walk-forward windows and step must be positive");
+        }
+    }
+
+    public static WalkForwardConfig rolling(Duration inSample, Duration outOfSample) {
+        return new WalkForwardConfig(inSample, outOfSample, outOfSample);
+    }
+}
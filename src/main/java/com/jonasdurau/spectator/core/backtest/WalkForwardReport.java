@@ -0,0 +1,57 @@
+package com.jonasdurau.spectator.core.backtest;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Resultado do walk-forward, com o que é preciso para decidir se um novo conjunto de parâmetros deve ir para o
+ * ao vivo: o vencedor de cada janela precisa ganhar dos parâmetros atuais no período que ele não viu.
+ */
+public record WalkForwardReport(WalkForwardConfig config, List<WalkForwardWindow> windows) {
+
+    public double outOfSampleNetProfit() {
+        return windows.stream().mapToDouble(w -> w.outOfSample().netProfit()).sum();
+    }
+
+    public double baselineNetProfit() {
+        return windows.stream().mapToDouble(w -> w.baseline().netProfit()).sum();
+    }
+
+    public long windowsBeatingBaseline() {
+        return windows.stream().filter(WalkForwardWindow::beatsBaseline).count();
+    }
+
+    /**
+     * Walk-forward efficiency: lucro por unidade de tempo fora da amostra dividido pelo de dentro.
+     * Perto de 1 o que foi otimizado se sustenta; perto de 0 (ou negativo) foi sobreajuste.
+     * NaN se a otimização não deu lucro dentro da amostra.
+     */
+    public double efficiency() {
+        double inSample = windows.stream().mapToDouble(w -> w.inSample().netProfit()).sum();
+        if (windows.isEmpty() || inSample <= 0) {
+            return Double.NaN;
+        }
+        return (outOfSampleNetProfit() / millis(config.outOfSample())) / (inSample / millis(config.inSample()));
+    }
+
+    /**
+     * Promover só se, somado, o vencedor de cada janela ganhou dos parâmetros atuais fora da amostra
+     * e ganhou na maioria das janelas.
+     */
+    public boolean shouldPromote() {
+        return !windows.isEmpty()
+                && outOfSampleNetProfit() > baselineNetProfit()
+                && windowsBeatingBaseline() * 2 > windows.size();
+    }
+
+    /**
+     * Candidato à promoção: o vencedor da janela mais recente.
+     */
+    public ParameterSet latestParameters() {
+        return windows.isEmpty() ? null : windows.get(windows.size() - 1).parameters();
+    }
+
+    private static double millis(Duration duration) {
+        return duration.toMillis();
+    }
+}
@@ -0,0 +1,20 @@
+package com.jonasdurau.spectator.core.backtest;
+
+import java.time.Instant;
+
+/**
+ * Uma janela do walk-forward.
+ *
+ * @param parameters  vencedor da otimização dentro da amostra
+ * @param inSample    desempenho do vencedor dentro da amostra (o que foi otimizado)
+ * @param outOfSample desempenho do vencedor no período seguinte, que ele não viu
+ * @param baseline    desempenho dos parâmetros atuais (padrões) no mesmo período fora da amostra
+ */
+public record WalkForwardWindow(Instant inSampleFrom, Instant outOfSampleFrom, Instant outOfSampleTo,
+        ParameterSet parameters, BacktestStatistics inSample, BacktestStatistics outOfSample,
+        BacktestStatistics baseline) {
+
+    public boolean beatsBaseline() {
+        return outOfSample.netProfit() > baseline.netProfit();
+    }
+}
@@ -0,0 +1,81 @@
+package com.jonasdurau.spectator.core.buffer;
+
+import com.jonasdurau.spectator.core.domain.Candle;
+import com.jonasdurau.spectator.core.repository.CandleRepository;
+import com.jonasdurau.spectator.core.service.TickPipelineService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mantém um {@link CandleRingBuffer} por (símbolo, timeframe).
+ * O banco só é consultado uma vez, na carga inicial; a partir daí o WebSocket alimenta os buffers
+ * e as estratégias leem direto da memória.
+ *
+ * A capacidade precisa ser maior que a janela de análise: as {@link CandleWindow}s não copiam os dados e só são
+ * seguras enquanto o escritor não dá a volta no anel sobre elas.
+ */
+@Component
+public class CandleBufferRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(CandleBufferRegistry.class);
+
+    private final CandleRepository candleRepository;
+    private final int capacity;
+    private final Map<String, CandleRingBuffer> buffers = new ConcurrentHashMap<>();
+
+    public CandleBufferRegistry(CandleRepository candleRepository,
+            @Value("${spectator.buffer.capacity:500}") int capacity) {
+        if (capacity <= TickPipelineService.ANALYSIS_WINDOW) {
+            throw new IllegalArgumentException("spectator.buffer.capacity must be greater than the analysis window ("
+                    + TickPipelineService.ANALYSIS_WINDOW + "), got " + capacity);
+        }
+        this.candleRepository = candleRepository;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Carrega os últimos candles do banco para o buffer. Deve ser chamado depois do seed/gap fill.
+     */
+    public void seed(String symbol, String timeframe) {
+        List<Candle> recent = candleRepository.findLastCandles(symbol, timeframe, capacity);
+        // O repositório devolve do mais novo para o mais velho
+        Collections.reverse(recent);
+
+        CandleRingBuffer buffer = get(symbol, timeframe);
+        buffer.seed(recent);
+        log.info("Seeded in-memory buffer {} {} with {} candles.", symbol, timeframe, buffer.size());
+    }
+
+    /**
+     * Aplica um candle vindo do stream no buffer correspondente.
+     * @return true se abriu um novo candle, false se revisou o atual.
+     */
+    public boolean update(Candle candle) {
+        return get(candle.getSymbol(), candle.getTimeframe()).update(
+                candle.getTime().toEpochMilli(),
+                candle.getOpen(),
+                candle.getHigh(),
+                candle.getLow(),
+                candle.getClose(),
+                candle.getVolume());
+    }
+
+    public CandleWindow window(String symbol, String timeframe, int maxBars) {
+        return get(symbol, timeframe).window(maxBars);
+    }
+
+    public CandleRingBuffer get(String symbol, String timeframe) {
+        return buffers.computeIfAbsent(key(symbol, timeframe), k -> new CandleRingBuffer(symbol, timeframe, capacity));
+    }
+
+    private static String key(String symbol, String timeframe) {
+        return symbol + ":" + timeframe;
+    }
+}
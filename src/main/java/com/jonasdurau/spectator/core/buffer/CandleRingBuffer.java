@@ -0,0 +1,142 @@
+package com.jonasdurau.spectator.core.buffer;
+
+import com.jonasdurau.spectator.core.domain.Candle;
+
+import java.util.List;
+
+/**
+ * Buffer circular de candles para um par (símbolo, timeframe), guardado em arrays primitivos.
+ * O WebSocket atualiza o último candle in-place (intrabar) ou avança o buffer quando um novo candle abre.
+ *
+ * Modelo de concorrência: um único escritor (a thread do stream daquele timeframe) e leitores
+ * em outras threads. O contador {@code count} é volátil e só é incrementado depois que os arrays
+ * foram escritos, então um leitor nunca enxerga um slot ainda não preenchido.
+ */
+public class CandleRingBuffer {
+
+    private final String symbol;
+    private final String timeframe;
+    private final int capacity;
+
+    private final long[] time;
+    private final double[] open;
+    private final double[] high;
+    private final double[] low;
+    private final double[] close;
+    private final double[] volume;
+
+    // Total de candles já adicionados desde a criação (o mais novo tem sequência count - 1)
+    private volatile long count;
+
+    public CandleRingBuffer(String symbol, String timeframe, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive, got " + capacity);
+        }
+        this.symbol = symbol;
+        this.timeframe = timeframe;
+        this.capacity = capacity;
+        this.time = new long[capacity];
+        this.open = new double[capacity];
+        this.high = new double[capacity];
+        this.low = new double[capacity];
+        this.close = new double[capacity];
+        this.volume = new double[capacity];
+    }
+
+    /**
+     * Carga inicial a partir do banco.
+     * @param candles Lista ordenada do mais antigo para o mais novo.
+     */
+    public void seed(List<Candle> candles) {
+        for (Candle c : candles) {
+            update(c.getTime().toEpochMilli(), c.getOpen(), c.getHigh(), c.getLow(), c.getClose(), c.getVolume());
+        }
+    }
+
+    /**
+     * Aplica um tick. Se o horário de abertura for o mesmo do último candle, revisa-o in-place;
+     * se for mais novo, avança o buffer. Ticks mais antigos que o último candle são descartados.
+     *
+     * @return true se um novo candle foi adicionado, false se foi uma revisão (ou descarte).
+     */
+    public boolean update(long openTimeMs, double o, double h, double l, double c, double v) {
+        long n = count;
+        if (n > 0) {
+            int last = slot(n - 1);
+            if (openTimeMs == time[last]) {
+                write(last, openTimeMs, o, h, l, c, v);
+                return false;
+            }
+            if (openTimeMs < time[last]) {
+                return false;
+            }
+        }
+
+        write(slot(n), openTimeMs, o, h, l, c, v);
+        count = n + 1; // Publica o slot só depois de escrito
+        return true;
+    }
+
+    /**
+     * Retorna uma visão (sem cópia) dos últimos {@code maxBars} candles, do mais antigo para o mais novo.
+     */
+    public CandleWindow window(int maxBars) {
+        long n = count;
+        int size = (int) Math.min(Math.min(n, capacity), maxBars);
+        return new CandleWindow(this, n - size, size);
+    }
+
+    public int size() {
+        return (int) Math.min(count, capacity);
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public String getTimeframe() {
+        return timeframe;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private void write(int i, long t, double o, double h, double l, double c, double v) {
+        time[i] = t;
+        open[i] = o;
+        high[i] = h;
+        low[i] = l;
+        close[i] = c;
+        volume[i] = v;
+    }
+
+    // Acesso por número de sequência, usado pelas janelas
+    int slot(long sequence) {
+        return (int) (sequence % capacity);
+    }
+
+    long timeAt(long sequence) {
+        return time[slot(sequence)];
+    }
+
+    double openAt(long sequence) {
+        return open[slot(sequence)];
+    }
+
+    double highAt(long sequence) {
+        return high[slot(sequence)];
+    }
+
+    double lowAt(long sequence) {
+        return low[slot(sequence)];
+    }
+
+    double closeAt(long sequence) {
+        return close[slot(sequence)];
+    }
+
+    double volumeAt(long sequence) {
+        return volume[slot(sequence)];
+    }
+}
@@ -0,0 +1,74 @@
+package com.jonasdurau.spectator.core.buffer;
+
+/**
+ * Janela somente-leitura sobre um {@link CandleRingBuffer}, sem copiar os dados.
+ * O índice 0 é o candle mais antigo da janela e {@code size() - 1} o mais recente.
+ *
+ * A janela fixa o intervalo de sequências no momento da criação. Como o buffer tem
+ * capacidade maior que as janelas pedidas, o escritor só sobrescreveria esses slots
+ * depois de avançar vários candles inteiros, o que não acontece durante uma avaliação.
+ */
+public final class CandleWindow {
+
+    private final CandleRingBuffer buffer;
+    private final long firstSequence;
+    private final int size;
+
+    CandleWindow(CandleRingBuffer buffer, long firstSequence, int size) {
+        this.buffer = buffer;
+        this.firstSequence = firstSequence;
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int lastIndex() {
+        return size - 1;
+    }
+
+    public String getSymbol() {
+        return buffer.getSymbol();
+    }
+
+    public String getTimeframe() {
+        return buffer.getTimeframe();
+    }
+
+    /** Horário de abertura do candle em epoch millis. */
+    public long time(int index) {
+        return buffer.timeAt(sequence(index));
+    }
+
+    public double open(int index) {
+        return buffer.openAt(sequence(index));
+    }
+
+    public double high(int index) {
+        return buffer.highAt(sequence(index));
+    }
+
+    public double low(int index) {
+        return buffer.lowAt(sequence(index));
+    }
+
+    public double close(int index) {
+        return buffer.closeAt(sequence(index));
+    }
+
+    public double volume(int index) {
+        return buffer.volumeAt(sequence(index));
+    }
+
+    private long sequence(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of window of size " + size);
+        }
+        return firstSequence + index;
+    }
+}
@@ -56,6 +56,14 @@ public class Position {
 
     public Position(String symbol, TradeSide side, double entryPrice, double quantity, Double stopLoss,
             Double takeProfit) {
+        this(symbol, side, entryPrice, quantity, stopLoss, takeProfit, Instant.now());
+    }
+
+    /**
+     * @param createdAt horário de abertura (o relógio simulado, no backtest)
+     */
+    public Position(String symbol, TradeSide side, double entryPrice, double quantity, Double stopLoss,
+            Double takeProfit, Instant createdAt) {
         this.id = UUID.randomUUID();
         this.symbol = symbol;
         this.side = side;
@@ -64,7 +72,7 @@ public class Position {
         this.stopLoss = stopLoss;
         this.takeProfit = takeProfit;
         this.status = PositionStatus.OPEN;
-        this.createdAt = Instant.now();
+        this.createdAt = createdAt;
         this.updatedAt = this.createdAt;
     }
 
@@ -98,9 +106,23 @@ public class Position {
     }
 
     public void closePosition(double finalPrice) {
-        this.status = PositionStatus.CLOSED;
-        this.closedAt = Instant.now();
+        closePosition(finalPrice, Instant.now());
+    }
+
+    public void closePosition(double finalPrice, Instant closedAt) {
+        // O PnL precisa ser calculado antes de mudar o status: fechada, a posição devolve o realizado
         this.realizedPnl = calculateFloatingPnl(finalPrice);
+        this.status = PositionStatus.CLOSED;
+        this.closedAt = closedAt;
+    }
+
+    /**
+     * Desfaz um {@link #closePosition} que não foi persistido.
+     */
+    public void reopen() {
+        this.realizedPnl = null;
+        this.status = PositionStatus.OPEN;
+        this.closedAt = null;
     }
 
     public void addTrade(Trade trade) {
@@ -0,0 +1,26 @@
+package com.jonasdurau.spectator.core.domain;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Cópia imutável de uma {@link Position} aberta, segura para ser lida de qualquer thread (UI, métricas)
+ * sem tocar na entidade JPA nem na coleção lazy de trades.
+ */
+public record PositionSnapshot(UUID id, String symbol, TradeSide side, double entryPrice, double quantity,
+        Double stopLoss, Double takeProfit, Instant createdAt) {
+
+    public static PositionSnapshot of(Position position) {
+        return new PositionSnapshot(position.getId(), position.getSymbol(), position.getSide(),
+                position.getEntryPrice(), position.getQuantity(), position.getStopLoss(), position.getTakeProfit(),
+                position.getCreatedAt());
+    }
+
+    public double calculateFloatingPnl(double currentPrice) {
+        if (side == TradeSide.LONG) {
+            return (currentPrice - entryPrice) * quantity;
+        } else {
+            return (entryPrice - currentPrice) * quantity;
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.jonasdurau.spectator.core.indicator;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Indicadores calculados de uma vez sobre colunas {@code double[]} inteiras (backtests e análises sobre o histórico
+ * todo), com os mesmos valores dos indicadores streaming e do ta4j: {@code out[i]} é o valor no fechamento do
+ * candle {@code i}.
+ *
+ * O que é independente por candle (diferenças da janela deslizante, true range, ganhos e perdas do RSI, a fórmula
+ * final do RSI e do desvio padrão) roda em lanes do Vector API; as recorrências (EMA, média de Wilder e a soma da
+ * janela) são inerentemente sequenciais e ficam em laços escalares enxutos sobre o resultado já vetorizado.
+ *
+ * EMA, RSI e ATR fazem exatamente as mesmas operações de ponto flutuante que {@link StreamingEma},
+ * {@link StreamingRsi} e {@link StreamingAtr}; SMA e desvio padrão somam numa ordem diferente e batem dentro da
+ * tolerância.
+ *
+ * Usado pelo {@code IndicatorCache} do backtest quando {@code spectator.backtest.bulk-kernels} está ligado. Só é
+ * carregado por esse caminho, e só ele precisa de {@code --add-modules=jdk.incubator.vector} na JVM.
+ */
+public final class BulkIndicatorKernels {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    // Soma da janela refeita do zero periodicamente, como nos indicadores streaming
+    private static final int RESYNC_INTERVAL = 1024;
+
+    private BulkIndicatorKernels() {
+    }
+
+    /**
+     * EMA com {@code k = 2 / (period + 1)}; o primeiro valor é a primeira entrada.
+     */
+    public static double[] ema(double[] input, int period) {
+        requirePositive(period);
+        double[] out = new double[input.length];
+        smooth(input, out, 2.0 / (period + 1));
+        return out;
+    }
+
+    /**
+     * Média de Wilder ({@code k = 1 / period}), a suavização de RSI, ATR e ADX.
+     */
+    public static double[] wilder(double[] input, int period) {
+        requirePositive(period);
+        double[] out = new double[input.length];
+        smooth(input, out, 1.0 / period);
+        return out;
+    }
+
+    /**
+     * Média simples das últimas {@code period} entradas (nas primeiras, das disponíveis).
+     */
+    public static double[] sma(double[] input, int period) {
+        requirePositive(period);
+        int n = input.length;
+        double[] out = new double[n];
+        // out[i] = x[i] - x[i - period]: o quanto a soma da janela muda no candle i
+        windowDeltas(input, period, out);
+
+        int warmup = Math.min(period, n);
+        double sum = 0;
+        for (int i = 0; i < warmup; i++) {
+            sum += input[i];
+            out[i] = sum / (i + 1);
+        }
+        for (int i = period; i < n; i++) {
+            if (i % RESYNC_INTERVAL == 0) {
+                sum = sum(input, i - period + 1, i + 1);
+            } else {
+                sum += out[i];
+            }
+            out[i] = sum / period;
+        }
+        return out;
+    }
+
+    /**
+     * Desvio padrão populacional das últimas {@code period} entradas (a largura das Bandas de Bollinger).
+     * Os valores são deslocados pela primeira entrada para reduzir o cancelamento com preços altos.
+     */
+    public static double[] standardDeviation(double[] input, int period) {
+        requirePositive(period);
+        int n = input.length;
+        double[] sums = new double[n];
+        double[] squares = new double[n];
+        if (n == 0) {
+            return squares;
+        }
+        double shift = input[0];
+
+        // Deltas da soma e da soma dos quadrados (deslocados) da janela
+        DoubleVector shiftVector = DoubleVector.broadcast(SPECIES, shift);
+        int i = period;
+        for (int bound = period + SPECIES.loopBound(Math.max(n - period, 0)); i < bound; i += SPECIES.length()) {
+            DoubleVector entering = DoubleVector.fromArray(SPECIES, input, i).sub(shiftVector);
+            DoubleVector leaving = DoubleVector.fromArray(SPECIES, input, i - period).sub(shiftVector);
+            entering.sub(leaving).intoArray(sums, i);
+            entering.mul(entering).sub(leaving.mul(leaving)).intoArray(squares, i);
+        }
+        for (; i < n; i++) {
+            double entering = input[i] - shift;
+            double leaving = input[i - period] - shift;
+            sums[i] = entering - leaving;
+            squares[i] = entering * entering - leaving * leaving;
+        }
+
+        // Varredura sequencial: sums[i] e squares[i] passam a ser a soma e a soma dos quadrados da janela
+        double s = 0;
+        double q = 0;
+        for (i = 0; i < n; i++) {
+            if (i < period) {
+                double x = input[i] - shift;
+                s += x;
+                q += x * x;
+            } else if (i % RESYNC_INTERVAL == 0) {
+                s = 0;
+                q = 0;
+                for (int j = i - period + 1; j <= i; j++) {
+                    double x = input[j] - shift;
+                    s += x;
+                    q += x * x;
+                }
+            } else {
+                s += sums[i];
+                q += squares[i];
+            }
+            sums[i] = s;
+            squares[i] = q;
+        }
+
+        // sqrt(max(q/n - (s/n)^2, 0)), com n = min(i + 1, period)
+        int warmup = Math.min(period, n);
+        for (i = 0; i < warmup; i++) {
+            double mean = sums[i] / (i + 1);
+            squares[i] = Math.sqrt(Math.max(squares[i] / (i + 1) - mean * mean, 0.0));
+        }
+        DoubleVector count = DoubleVector.broadcast(SPECIES, period);
+        for (int bound = i + SPECIES.loopBound(n - i); i < bound; i += SPECIES.length()) {
+            DoubleVector mean = DoubleVector.fromArray(SPECIES, sums, i).div(count);
+            DoubleVector variance = DoubleVector.fromArray(SPECIES, squares, i).div(count).sub(mean.mul(mean));
+            variance.max(0.0).sqrt().intoArray(squares, i);
+        }
+        for (; i < n; i++) {
+            double mean = sums[i] / period;
+            squares[i] = Math.sqrt(Math.max(squares[i] / period - mean * mean, 0.0));
+        }
+        return squares;
+    }
+
+    /**
+     * RSI do fechamento: ganhos e perdas suavizados por Wilder, ganho/perda do primeiro candle = 0.
+     */
+    public static double[] rsi(double[] close, int period) {
+        requirePositive(period);
+        int n = close.length;
+        double[] gains = new double[n];
+        double[] losses = new double[n];
+        int i = 1;
+        for (int bound = 1 + SPECIES.loopBound(Math.max(n - 1, 0)); i < bound; i += SPECIES.length()) {
+            DoubleVector change = DoubleVector.fromArray(SPECIES, close, i)
+                    .sub(DoubleVector.fromArray(SPECIES, close, i - 1));
+            change.max(0.0).intoArray(gains, i);
+            change.neg().max(0.0).intoArray(losses, i);
+        }
+        for (; i < n; i++) {
+            double change = close[i] - close[i - 1];
+            gains[i] = Math.max(change, 0.0);
+            losses[i] = Math.max(-change, 0.0);
+        }
+
+        double k = 1.0 / period;
+        smooth(gains, gains, k);
+        smooth(losses, losses, k);
+
+        // 100 - 100 / (1 + ganho / perda); sem perda, 100 (ou 0 se também não houve ganho)
+        i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            DoubleVector gain = DoubleVector.fromArray(SPECIES, gains, i);
+            DoubleVector loss = DoubleVector.fromArray(SPECIES, losses, i);
+            DoubleVector value = DoubleVector.broadcast(SPECIES, 100.0)
+                    .sub(DoubleVector.broadcast(SPECIES, 100.0).div(gain.div(loss).add(1.0)));
+            VectorMask<Double> noLoss = loss.compare(VectorOperators.EQ, 0.0);
+            DoubleVector flat = DoubleVector.broadcast(SPECIES, 100.0)
+                    .blend(0.0, gain.compare(VectorOperators.EQ, 0.0));
+            value.blend(flat, noLoss).intoArray(gains, i);
+        }
+        for (; i < n; i++) {
+            double gain = gains[i];
+            double loss = losses[i];
+            gains[i] = loss == 0.0 ? (gain == 0.0 ? 0.0 : 100.0) : 100.0 - 100.0 / (1.0 + gain / loss);
+        }
+        return gains;
+    }
+
+    /**
+     * True range: máxima - mínima no primeiro candle, depois o maior entre ela e as distâncias ao fechamento anterior.
+     */
+    public static double[] trueRange(double[] high, double[] low, double[] close) {
+        int n = high.length;
+        double[] out = new double[n];
+        if (n == 0) {
+            return out;
+        }
+        out[0] = Math.abs(high[0] - low[0]);
+        int i = 1;
+        for (int bound = 1 + SPECIES.loopBound(n - 1); i < bound; i += SPECIES.length()) {
+            DoubleVector h = DoubleVector.fromArray(SPECIES, high, i);
+            DoubleVector l = DoubleVector.fromArray(SPECIES, low, i);
+            DoubleVector previousClose = DoubleVector.fromArray(SPECIES, close, i - 1);
+            DoubleVector range = h.sub(l).abs();
+            range.max(h.sub(previousClose).abs().max(previousClose.sub(l).abs())).intoArray(out, i);
+        }
+        for (; i < n; i++) {
+            out[i] = StreamingAtr.trueRange(high[i], low[i], close[i - 1]);
+        }
+        return out;
+    }
+
+    /**
+     * ATR: média de Wilder do true range.
+     */
+    public static double[] atr(double[] high, double[] low, double[] close, int period) {
+        requirePositive(period);
+        double[] out = trueRange(high, low, close);
+        smooth(out, out, 1.0 / period);
+        return out;
+    }
+
+    /**
+     * {@code out[0] = in[0]}, {@code out[i] = out[i-1] + (in[i] - out[i-1]) * k}. {@code out} pode ser {@code in}.
+     */
+    private static void smooth(double[] in, double[] out, double k) {
+        if (in.length == 0) {
+            return;
+        }
+        double value = in[0];
+        out[0] = value;
+        for (int i = 1; i < in.length; i++) {
+            value = value + (in[i] - value) * k;
+            out[i] = value;
+        }
+    }
+
+    private static void windowDeltas(double[] input, int period, double[] out) {
+        int n = input.length;
+        int i = period;
+        for (int bound = period + SPECIES.loopBound(Math.max(n - period, 0)); i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, input, i)
+                    .sub(DoubleVector.fromArray(SPECIES, input, i - period))
+                    .intoArray(out, i);
+        }
+        for (; i < n; i++) {
+            out[i] = input[i] - input[i - period];
+        }
+    }
+
+    private static double sum(double[] input, int from, int to) {
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            acc = acc.add(DoubleVector.fromArray(SPECIES, input, i));
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < to; i++) {
+            sum += input[i];
+        }
+        return sum;
+    }
+
+    private static void requirePositive(int period) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Period must be positive, got " + period);
+        }
+    }
+}
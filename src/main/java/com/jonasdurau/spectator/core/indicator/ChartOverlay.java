@@ -0,0 +1,15 @@
+package com.jonasdurau.spectator.core.indicator;
+
+import com.jonasdurau.spectator.core.domain.MarketRegime;
+
+/**
+ * Indicadores desenhados sobre um candle do gráfico: as EMAs do regime (4H), as bandas de Bollinger da
+ * estratégia de reversão à média (1H) e o regime. NaN enquanto o indicador não tem candles suficientes.
+ * Ao vivo o 4H inclui o candle aberto; no histórico, só os fechados (ver {@code ChartOverlayService}).
+ *
+ * @param time   horário de abertura do candle de 1H em epoch ms
+ * @param regime null se nenhum candle de 4H fechou antes deste
+ */
+public record ChartOverlay(long time, double emaFast, double emaSlow, double bbUpper, double bbMiddle,
+        double bbLower, MarketRegime regime) {
+}
@@ -0,0 +1,82 @@
+package com.jonasdurau.spectator.core.indicator;
+
+import java.util.Map;
+
+/**
+ * Valores dos indicadores de um (símbolo, timeframe) no tick atual, calculados uma única vez
+ * pelo {@link IndicatorEngine} e compartilhados por todas as estratégias.
+ * Imutável: os valores são copiados no momento em que o contexto é criado.
+ */
+public final class IndicatorContext {
+
+    private final String symbol;
+    private final String timeframe;
+    private final int barCount;
+    private final long time;
+    private final double open;
+    private final double high;
+    private final double low;
+    private final double close;
+    private final Map<IndicatorSpec, Integer> slots;
+    private final double[] values;
+
+    public IndicatorContext(String symbol, String timeframe, int barCount, long time,
+            double open, double high, double low, double close,
+            Map<IndicatorSpec, Integer> slots, double[] values) {
+        this.symbol = symbol;
+        this.timeframe = timeframe;
+        this.barCount = barCount;
+        this.time = time;
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.close = close;
+        this.slots = slots;
+        this.values = values;
+    }
+
+    /**
+     * Valor atual do indicador. O indicador precisa ter sido declarado pela estratégia.
+     */
+    public double get(IndicatorSpec spec) {
+        Integer slot = slots.get(spec);
+        if (slot == null) {
+            throw new IllegalArgumentException("Indicator " + spec + " was not declared for " + symbol + " " + timeframe);
+        }
+        return values[slot];
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public String getTimeframe() {
+        return timeframe;
+    }
+
+    /** Quantidade de candles disponíveis na janela analisada. */
+    public int getBarCount() {
+        return barCount;
+    }
+
+    /** Horário de abertura do candle corrente em epoch millis. */
+    public long getTime() {
+        return time;
+    }
+
+    public double getOpen() {
+        return open;
+    }
+
+    public double getHigh() {
+        return high;
+    }
+
+    public double getLow() {
+        return low;
+    }
+
+    public double getClose() {
+        return close;
+    }
+}
@@ -0,0 +1,129 @@
+package com.jonasdurau.spectator.core.indicator;
+
+import com.jonasdurau.spectator.core.buffer.CandleWindow;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Mantém os indicadores incrementais de um (símbolo, timeframe) para a união dos requisitos
+ * declarados. Cada spec existe uma única vez, é atualizada uma vez por candle e o resultado
+ * é exposto como um {@link IndicatorContext} por tick.
+ */
+public class IndicatorEngine {
+
+    @FunctionalInterface
+    private interface Updater {
+        double update(CandleWindow window, int index, boolean advance, double[] values);
+    }
+
+    private final String symbol;
+    private final String timeframe;
+    private final Map<IndicatorSpec, Integer> slots;
+    private final Updater[] updaters;
+    private final double[] values;
+    private final WindowCursor cursor = new WindowCursor();
+
+    public IndicatorEngine(String symbol, String timeframe, Collection<IndicatorSpec> requirements) {
+        this.symbol = symbol;
+        this.timeframe = timeframe;
+
+        // Dependências implícitas (a média do ATR precisa do ATR) e ordem de cálculo estável
+        Set<IndicatorSpec> specs = new LinkedHashSet<>(requirements);
+        for (IndicatorSpec spec : requirements) {
+            if (spec.kind() == IndicatorSpec.Kind.ATR_AVERAGE) {
+                specs.add(IndicatorSpec.atr(spec.period()));
+            }
+        }
+        List<IndicatorSpec> ordered = new ArrayList<>(specs);
+        ordered.sort(Comparator.comparing(IndicatorSpec::kind)
+                .thenComparingInt(IndicatorSpec::period)
+                .thenComparingInt(IndicatorSpec::smoothing));
+
+        Map<IndicatorSpec, Integer> slotMap = new HashMap<>();
+        for (int i = 0; i < ordered.size(); i++) {
+            slotMap.put(ordered.get(i), i);
+        }
+        this.slots = Map.copyOf(slotMap);
+
+        this.updaters = new Updater[ordered.size()];
+        for (int i = 0; i < ordered.size(); i++) {
+            updaters[i] = createUpdater(ordered.get(i));
+        }
+        this.values = new double[ordered.size()];
+        Arrays.fill(values, Double.NaN);
+    }
+
+    /**
+     * Alimenta os indicadores com o que mudou na janela e devolve o contexto do tick.
+     */
+    public synchronized IndicatorContext sync(CandleWindow window) {
+        cursor.sync(window, this::onBar);
+
+        if (window.isEmpty()) {
+            return new IndicatorContext(symbol, timeframe, 0, 0L, Double.NaN, Double.NaN, Double.NaN, Double.NaN,
+                    slots, values.clone());
+        }
+        int last = window.lastIndex();
+        return new IndicatorContext(symbol, timeframe, window.size(), window.time(last),
+                window.open(last), window.high(last), window.low(last), window.close(last),
+                slots, values.clone());
+    }
+
+    public Set<IndicatorSpec> getSpecs() {
+        return slots.keySet();
+    }
+
+    private void onBar(CandleWindow window, int index, boolean advance) {
+        for (int i = 0; i < updaters.length; i++) {
+            values[i] = updaters[i].update(window, index, advance, values);
+        }
+    }
+
+    private Updater createUpdater(IndicatorSpec spec) {
+        int period = spec.period();
+        return switch (spec.kind()) {
+            case EMA -> {
+                StreamingEma ema = new StreamingEma(period);
+                yield (w, i, advance, v) -> ema.update(w.close(i), advance);
+            }
+            case SMA -> {
+                StreamingSma sma = new StreamingSma(period);
+                yield (w, i, advance, v) -> sma.update(w.close(i), advance);
+            }
+            case STANDARD_DEVIATION -> {
+                StreamingStandardDeviation stdDev = new StreamingStandardDeviation(period);
+                yield (w, i, advance, v) -> stdDev.update(w.close(i), advance);
+            }
+            case RSI -> {
+                StreamingRsi rsi = new StreamingRsi(period);
+                yield (w, i, advance, v) -> rsi.update(w.close(i), advance);
+            }
+            case ATR -> {
+                StreamingAtr atr = new StreamingAtr(period);
+                yield (w, i, advance, v) -> atr.update(w.high(i), w.low(i), w.close(i), advance);
+            }
+            case ADX -> {
+                StreamingAdx adx = new StreamingAdx(period);
+                yield (w, i, advance, v) -> adx.update(w.high(i), w.low(i), w.close(i), advance);
+            }
+            case LOWEST_LOW -> {
+                StreamingLowestValue lowest = new StreamingLowestValue(period);
+                yield (w, i, advance, v) -> lowest.update(w.low(i), advance);
+            }
+            case ATR_AVERAGE -> {
+                // O ATR já foi calculado antes (ordem por tipo), basta ler o slot dele
+                int atrSlot = slots.get(IndicatorSpec.atr(period));
+                StreamingSma average = new StreamingSma(spec.smoothing());
+                yield (w, i, advance, v) -> average.update(v[atrSlot], advance);
+            }
+        };
+    }
+}
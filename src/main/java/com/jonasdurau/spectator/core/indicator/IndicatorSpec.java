@@ -0,0 +1,78 @@
+package com.jonasdurau.spectator.core.indicator;
+
+/**
+ * Declaração de um indicador e seus parâmetros. Estratégias pedem indicadores por spec;
+ * specs iguais pedidas por estratégias diferentes são calculadas uma única vez.
+ *
+ * @param kind      tipo do indicador
+ * @param period    período principal
+ * @param smoothing período secundário (só usado por {@link Kind#ATR_AVERAGE}), 0 nos demais
+ */
+public record IndicatorSpec(Kind kind, int period, int smoothing) {
+
+    // A ordem define a ordem de cálculo: derivados depois das suas dependências
+    public enum Kind {
+        EMA,
+        SMA,
+        STANDARD_DEVIATION,
+        RSI,
+        ATR,
+        ADX,
+        LOWEST_LOW,
+        ATR_AVERAGE
+    }
+
+    public IndicatorSpec {
+        if (kind == null) {
+            throw new IllegalArgumentException("Indicator kind is required");
+        }
+        if (period <= 0) {
+            throw new IllegalArgumentException("Period must be positive, got " + period);
+        }
+        if (kind == Kind.ATR_AVERAGE && smoothing <= 0) {
+            throw new IllegalArgumentException("ATR average needs a positive smoothing period, got " + smoothing);
+        }
+    }
+
+    /** EMA do fechamento. */
+    public static IndicatorSpec ema(int period) {
+        return new IndicatorSpec(Kind.EMA, period, 0);
+    }
+
+    /** SMA do fechamento (linha central de Bollinger). */
+    public static IndicatorSpec sma(int period) {
+        return new IndicatorSpec(Kind.SMA, period, 0);
+    }
+
+    /** Desvio padrão do fechamento (largura de Bollinger). */
+    public static IndicatorSpec standardDeviation(int period) {
+        return new IndicatorSpec(Kind.STANDARD_DEVIATION, period, 0);
+    }
+
+    public static IndicatorSpec rsi(int period) {
+        return new IndicatorSpec(Kind.RSI, period, 0);
+    }
+
+    public static IndicatorSpec atr(int period) {
+        return new IndicatorSpec(Kind.ATR, period, 0);
+    }
+
+    public static IndicatorSpec adx(int period) {
+        return new IndicatorSpec(Kind.ADX, period, 0);
+    }
+
+    /** Menor mínima das últimas {@code period} barras (swing low). */
+    public static IndicatorSpec lowestLow(int period) {
+        return new IndicatorSpec(Kind.LOWEST_LOW, period, 0);
+    }
+
+    /** SMA de {@code averagePeriod} barras sobre o ATR de {@code atrPeriod}. */
+    public static IndicatorSpec atrAverage(int atrPeriod, int averagePeriod) {
+        return new IndicatorSpec(Kind.ATR_AVERAGE, atrPeriod, averagePeriod);
+    }
+
+    @Override
+    public String toString() {
+        return smoothing > 0 ? kind + "(" + period + "," + smoothing + ")" : kind + "(" + period + ")";
+    }
+}
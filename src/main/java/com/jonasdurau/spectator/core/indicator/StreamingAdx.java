@@ -0,0 +1,68 @@
+package com.jonasdurau.spectator.core.indicator;
+
+/**
+ * ADX incremental, equivalente ao {@code ADXIndicator} do ta4j com o mesmo período para DI e ADX:
+ * +DM/-DM e ATR suavizados por Wilder, DX = |+DI - -DI| / (+DI + -DI) * 100 e ADX = Wilder(DX).
+ */
+public class StreamingAdx {
+
+    private final StreamingAtr atr;
+    private final StreamingEma averagePlusDm;
+    private final StreamingEma averageMinusDm;
+    private final StreamingEma averageDx;
+
+    private double previousHigh = Double.NaN;
+    private double previousLow = Double.NaN;
+    private double pendingHigh;
+    private double pendingLow;
+    private boolean pending;
+
+    public StreamingAdx(int period) {
+        this.atr = new StreamingAtr(period);
+        this.averagePlusDm = StreamingEma.wilder(period);
+        this.averageMinusDm = StreamingEma.wilder(period);
+        this.averageDx = StreamingEma.wilder(period);
+    }
+
+    public double update(double high, double low, double close, boolean advance) {
+        if (advance && pending) {
+            previousHigh = pendingHigh;
+            previousLow = pendingLow;
+        }
+        pendingHigh = high;
+        pendingLow = low;
+        pending = true;
+
+        double plusDm = 0.0;
+        double minusDm = 0.0;
+        if (!Double.isNaN(previousHigh)) {
+            double upMove = high - previousHigh;
+            double downMove = previousLow - low;
+            if (upMove > downMove && upMove > 0) {
+                plusDm = upMove;
+            }
+            if (downMove > upMove && downMove > 0) {
+                minusDm = downMove;
+            }
+        }
+
+        double currentAtr = atr.update(high, low, close, advance);
+        double smoothedPlus = averagePlusDm.update(plusDm, advance);
+        double smoothedMinus = averageMinusDm.update(minusDm, advance);
+
+        double dx = 0.0;
+        if (currentAtr != 0.0) {
+            double plusDi = smoothedPlus / currentAtr * 100.0;
+            double minusDi = smoothedMinus / currentAtr * 100.0;
+            double sumDi = plusDi + minusDi;
+            if (sumDi != 0.0) {
+                dx = Math.abs(plusDi - minusDi) / sumDi * 100.0;
+            }
+        }
+        return averageDx.update(dx, advance);
+    }
+
+    public double getValue() {
+        return averageDx.getValue();
+    }
+}
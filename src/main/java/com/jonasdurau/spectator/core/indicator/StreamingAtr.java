@@ -0,0 +1,40 @@
+package com.jonasdurau.spectator.core.indicator;
+
+/**
+ * ATR incremental, equivalente ao {@code ATRIndicator} do ta4j: média de Wilder do True Range,
+ * onde o True Range da primeira barra é apenas máxima - mínima.
+ */
+public class StreamingAtr {
+
+    private final StreamingEma average;
+
+    private double previousClose = Double.NaN;
+    private double pendingClose;
+    private boolean pending;
+
+    public StreamingAtr(int period) {
+        this.average = StreamingEma.wilder(period);
+    }
+
+    public double update(double high, double low, double close, boolean advance) {
+        if (advance && pending) {
+            previousClose = pendingClose;
+        }
+        pendingClose = close;
+        pending = true;
+
+        return average.update(trueRange(high, low, previousClose), advance);
+    }
+
+    public double getValue() {
+        return average.getValue();
+    }
+
+    static double trueRange(double high, double low, double previousClose) {
+        double range = Math.abs(high - low);
+        if (Double.isNaN(previousClose)) {
+            return range;
+        }
+        return Math.max(range, Math.max(Math.abs(high - previousClose), Math.abs(previousClose - low)));
+    }
+}
@@ -0,0 +1,63 @@
+package com.jonasdurau.spectator.core.indicator;
+
+/**
+ * Média móvel exponencial incremental, equivalente ao {@code EMAIndicator} do ta4j
+ * (primeiro valor = primeira entrada, depois {@code prev + (x - prev) * k}).
+ *
+ * Todos os indicadores streaming seguem o mesmo contrato: {@code update(x, true)} fecha a barra
+ * anterior e começa uma nova; {@code update(x, false)} revisa a barra corrente (intrabar)
+ * recalculando a partir do estado confirmado, sem avançá-lo. Custo O(1) por atualização.
+ */
+public class StreamingEma {
+
+    private final int period;
+    private final double multiplier;
+
+    private double committed;
+    private long committedBars;
+
+    private double value = Double.NaN;
+    private boolean pending;
+
+    public StreamingEma(int period) {
+        this(period, 2.0 / (period + 1));
+    }
+
+    private StreamingEma(int period, double multiplier) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Period must be positive, got " + period);
+        }
+        this.period = period;
+        this.multiplier = multiplier;
+    }
+
+    /**
+     * Média de Wilder (MMA no ta4j), usada por RSI, ATR e ADX: multiplicador 1/n.
+     */
+    public static StreamingEma wilder(int period) {
+        return new StreamingEma(period, 1.0 / period);
+    }
+
+    public double update(double input, boolean advance) {
+        if (advance && pending) {
+            committed = value;
+            committedBars++;
+        }
+        value = committedBars == 0 ? input : committed + (input - committed) * multiplier;
+        pending = true;
+        return value;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    /** Quantidade de barras vistas, incluindo a corrente. */
+    public long getBarCount() {
+        return pending ? committedBars + 1 : committedBars;
+    }
+
+    public int getPeriod() {
+        return period;
+    }
+}
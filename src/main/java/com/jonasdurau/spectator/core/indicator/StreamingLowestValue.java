@@ -0,0 +1,45 @@
+package com.jonasdurau.spectator.core.indicator;
+
+/**
+ * Menor valor das últimas {@code period} barras, equivalente ao {@code LowestValueIndicator} do ta4j.
+ * O custo por atualização depende só do período (pequeno, ex: 5 barras), nunca do histórico.
+ */
+public class StreamingLowestValue {
+
+    private final int period;
+    private final double[] committed;
+    private long committedBars;
+
+    private double pendingInput;
+    private boolean pending;
+    private double value = Double.NaN;
+
+    public StreamingLowestValue(int period) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Period must be positive, got " + period);
+        }
+        this.period = period;
+        this.committed = new double[period];
+    }
+
+    public double update(double input, boolean advance) {
+        if (advance && pending) {
+            committed[(int) (committedBars % period)] = pendingInput;
+            committedBars++;
+        }
+        pendingInput = input;
+        pending = true;
+
+        double lowest = input;
+        long available = Math.min(committedBars, period - 1);
+        for (long i = 1; i <= available; i++) {
+            lowest = Math.min(lowest, committed[(int) ((committedBars - i) % period)]);
+        }
+        value = lowest;
+        return value;
+    }
+
+    public double getValue() {
+        return value;
+    }
+}
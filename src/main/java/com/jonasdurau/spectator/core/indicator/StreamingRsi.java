@@ -0,0 +1,44 @@
+package com.jonasdurau.spectator.core.indicator;
+
+/**
+ * RSI incremental sobre o fechamento, equivalente ao {@code RSIIndicator} do ta4j
+ * (ganhos e perdas suavizados pela média de Wilder; ganho/perda da primeira barra = 0).
+ */
+public class StreamingRsi {
+
+    private final StreamingEma averageGain;
+    private final StreamingEma averageLoss;
+
+    private double previousClose = Double.NaN;
+    private double pendingClose;
+    private boolean pending;
+    private double value = Double.NaN;
+
+    public StreamingRsi(int period) {
+        this.averageGain = StreamingEma.wilder(period);
+        this.averageLoss = StreamingEma.wilder(period);
+    }
+
+    public double update(double close, boolean advance) {
+        if (advance && pending) {
+            previousClose = pendingClose;
+        }
+        pendingClose = close;
+        pending = true;
+
+        double change = Double.isNaN(previousClose) ? 0.0 : close - previousClose;
+        double gain = averageGain.update(Math.max(change, 0.0), advance);
+        double loss = averageLoss.update(Math.max(-change, 0.0), advance);
+
+        if (loss == 0.0) {
+            value = gain == 0.0 ? 0.0 : 100.0;
+        } else {
+            value = 100.0 - 100.0 / (1.0 + gain / loss);
+        }
+        return value;
+    }
+
+    public double getValue() {
+        return value;
+    }
+}
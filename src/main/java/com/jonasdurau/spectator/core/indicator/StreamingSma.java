@@ -0,0 +1,75 @@
+package com.jonasdurau.spectator.core.indicator;
+
+/**
+ * Média móvel simples incremental, equivalente ao {@code SMAIndicator} do ta4j
+ * (nas primeiras barras divide pela quantidade disponível).
+ * Mantém a soma das últimas barras confirmadas num buffer circular: O(1) por atualização.
+ */
+public class StreamingSma {
+
+    // A soma corrente é refeita do zero periodicamente para não acumular erro de ponto flutuante
+    private static final int RESYNC_INTERVAL = 1024;
+
+    private final int period;
+    private final double[] committed;
+    private long committedBars;
+    private double sum;
+    private int sinceResync;
+
+    private double pendingInput;
+    private double value = Double.NaN;
+    private boolean pending;
+
+    public StreamingSma(int period) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Period must be positive, got " + period);
+        }
+        this.period = period;
+        this.committed = new double[period];
+    }
+
+    public double update(double input, boolean advance) {
+        if (advance && pending) {
+            commit(pendingInput);
+        }
+        pendingInput = input;
+        pending = true;
+
+        if (committedBars >= period) {
+            // Janela = últimas (period - 1) confirmadas + a corrente
+            double oldest = committed[(int) (committedBars % period)];
+            value = (sum - oldest + input) / period;
+        } else {
+            value = (sum + input) / (committedBars + 1);
+        }
+        return value;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    public int getPeriod() {
+        return period;
+    }
+
+    private void commit(double input) {
+        int slot = (int) (committedBars % period);
+        if (committedBars >= period) {
+            sum -= committed[slot];
+        }
+        committed[slot] = input;
+        sum += input;
+        committedBars++;
+
+        if (++sinceResync >= RESYNC_INTERVAL) {
+            sinceResync = 0;
+            int filled = (int) Math.min(committedBars, period);
+            double exact = 0;
+            for (int i = 0; i < filled; i++) {
+                exact += committed[i];
+            }
+            sum = exact;
+        }
+    }
+}
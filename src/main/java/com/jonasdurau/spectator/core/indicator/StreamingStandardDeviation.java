@@ -0,0 +1,99 @@
+package com.jonasdurau.spectator.core.indicator;
+
+/**
+ * Desvio padrão populacional incremental sobre uma janela móvel, equivalente ao
+ * {@code StandardDeviationIndicator} do ta4j usado nas Bandas de Bollinger.
+ *
+ * Mantém soma e soma dos quadrados das barras confirmadas (O(1) por atualização). Os valores são
+ * deslocados pela primeira entrada para reduzir cancelamento numérico com preços altos.
+ */
+public class StreamingStandardDeviation {
+
+    private static final int RESYNC_INTERVAL = 1024;
+
+    private final int period;
+    private final double[] committed;
+    private long committedBars;
+    private double sum;
+    private double sumSquares;
+    private int sinceResync;
+
+    private double shift = Double.NaN;
+    private double pendingInput;
+    private double value = Double.NaN;
+    private boolean pending;
+
+    public StreamingStandardDeviation(int period) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Period must be positive, got " + period);
+        }
+        this.period = period;
+        this.committed = new double[period];
+    }
+
+    public double update(double input, boolean advance) {
+        if (Double.isNaN(shift)) {
+            shift = input;
+        }
+        if (advance && pending) {
+            commit(pendingInput);
+        }
+        pendingInput = input;
+        pending = true;
+
+        double x = input - shift;
+        double s;
+        double q;
+        long n;
+        if (committedBars >= period) {
+            double oldest = committed[(int) (committedBars % period)];
+            s = sum - oldest + x;
+            q = sumSquares - oldest * oldest + x * x;
+            n = period;
+        } else {
+            s = sum + x;
+            q = sumSquares + x * x;
+            n = committedBars + 1;
+        }
+
+        double mean = s / n;
+        double variance = q / n - mean * mean;
+        value = Math.sqrt(Math.max(variance, 0.0));
+        return value;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    public int getPeriod() {
+        return period;
+    }
+
+    private void commit(double input) {
+        double x = input - shift;
+        int slot = (int) (committedBars % period);
+        if (committedBars >= period) {
+            double old = committed[slot];
+            sum -= old;
+            sumSquares -= old * old;
+        }
+        committed[slot] = x;
+        sum += x;
+        sumSquares += x * x;
+        committedBars++;
+
+        if (++sinceResync >= RESYNC_INTERVAL) {
+            sinceResync = 0;
+            int filled = (int) Math.min(committedBars, period);
+            double s = 0;
+            double q = 0;
+            for (int i = 0; i < filled; i++) {
+                s += committed[i];
+                q += committed[i] * committed[i];
+            }
+            sum = s;
+            sumSquares = q;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.jonasdurau.spectator.core.indicator;
+
+import com.jonasdurau.spectator.core.buffer.CandleWindow;
+
+/**
+ * Lembra até qual candle um conjunto de indicadores já foi alimentado e, a cada tick,
+ * entrega só o que mudou: a revisão do candle corrente e eventuais candles novos.
+ * Na primeira sincronização a janela inteira é usada como aquecimento.
+ */
+public class WindowCursor {
+
+    @FunctionalInterface
+    public interface BarSink {
+        void onBar(CandleWindow window, int index, boolean advance);
+    }
+
+    private long lastTime = Long.MIN_VALUE;
+
+    /**
+     * @return quantidade de candles entregues ao sink.
+     */
+    public int sync(CandleWindow window, BarSink sink) {
+        if (window.isEmpty()) {
+            return 0;
+        }
+
+        // Volta a partir do fim só até o último candle já visto (normalmente 0 ou 1 passo)
+        int start = window.lastIndex();
+        while (start > 0 && window.time(start - 1) >= lastTime) {
+            start--;
+        }
+
+        int delivered = 0;
+        for (int i = start; i < window.size(); i++) {
+            long time = window.time(i);
+            if (time < lastTime) {
+                continue;
+            }
+            sink.onBar(window, i, time > lastTime);
+            lastTime = time;
+            delivered++;
+        }
+        return delivered;
+    }
+
+    public long getLastTime() {
+        return lastTime;
+    }
+}
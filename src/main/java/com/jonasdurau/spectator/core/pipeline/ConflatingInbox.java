@@ -0,0 +1,65 @@
+package com.jonasdurau.spectator.core.pipeline;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BinaryOperator;
+
+/**
+ * Caixa de entrada com conflação por chave: guarda no máximo um valor pendente por chave, e um valor novo
+ * para uma chave que ainda não foi consumida substitui o anterior (mesclado pelo {@code merger}).
+ *
+ * Aceita vários produtores e um consumidor. As chaves saem na ordem em que ficaram pendentes, então uma chave
+ * muito ativa não passa na frente das outras. O tamanho é limitado pelo número de chaves distintas.
+ */
+public final class ConflatingInbox<K, V> {
+
+    private final ConcurrentHashMap<K, V> pending = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<K> ready = new ConcurrentLinkedQueue<>();
+    private final BinaryOperator<V> merger;
+
+    /**
+     * @param merger recebe (pendente, novo) e devolve o que fica na fila; {@code (old, latest) -> latest} é latest-wins.
+     */
+    public ConflatingInbox(BinaryOperator<V> merger) {
+        this.merger = merger;
+    }
+
+    /**
+     * @return true se a chave não tinha nada pendente; false se o valor foi conflacionado com um pendente.
+     */
+    public boolean offer(K key, V value) {
+        while (true) {
+            V current = pending.putIfAbsent(key, value);
+            if (current == null) {
+                ready.offer(key);
+                return true;
+            }
+            if (pending.replace(key, current, merger.apply(current, value))) {
+                return false;
+            }
+            // O consumidor levou o pendente (ou outro produtor trocou) entre as duas operações: tenta de novo
+        }
+    }
+
+    /**
+     * Só pode ser chamado pelo consumidor.
+     * @return o valor pendente mais antigo, ou null se não há nada.
+     */
+    public V poll() {
+        K key;
+        while ((key = ready.poll()) != null) {
+            V value = pending.remove(key);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Chaves com valor pendente.
+     */
+    public int size() {
+        return pending.size();
+    }
+}
@@ -0,0 +1,48 @@
+package com.jonasdurau.spectator.core.pipeline;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.function.Consumer;
+
+/**
+ * Estágio alimentado por uma {@link ConflatingInbox}: enquanto o handler está ocupado, só o item mais recente
+ * de cada chave fica esperando. Aceita vários produtores e {@link #offer} nunca bloqueia.
+ *
+ * Além das métricas de {@link PipelineStage}, conta em {@code spectator.pipeline.conflated} os itens substituídos
+ * antes de serem processados. O lag de um item conflacionado conta desde o primeiro que ele substituiu.
+ */
+public final class ConflatingStage<K, T> extends PipelineStage<T> {
+
+    private final ConflatingInbox<K, Envelope<T>> inbox = new ConflatingInbox<>(
+            (pending, latest) -> new Envelope<>(latest.item(), pending.enqueuedNanos()));
+    private final Counter conflated;
+
+    public ConflatingStage(String name, Consumer<T> handler, MeterRegistry meterRegistry) {
+        super(name, handler, meterRegistry);
+        this.conflated = meterRegistry.counter("spectator.pipeline.conflated", "stage", name);
+    }
+
+    public ConflatingStage(String name, Consumer<T> handler, MeterRegistry meterRegistry, Thread.Builder threadBuilder) {
+        super(name, handler, meterRegistry, threadBuilder);
+        this.conflated = meterRegistry.counter("spectator.pipeline.conflated", "stage", name);
+    }
+
+    public void offer(K key, T item) {
+        if (inbox.offer(key, new Envelope<>(item, System.nanoTime()))) {
+            signal();
+        } else {
+            conflated.increment();
+        }
+    }
+
+    @Override
+    public int getDepth() {
+        return inbox.size();
+    }
+
+    @Override
+    protected Envelope<T> poll() {
+        return inbox.poll();
+    }
+}
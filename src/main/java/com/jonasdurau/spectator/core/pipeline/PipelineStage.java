@@ -0,0 +1,129 @@
+package com.jonasdurau.spectator.core.pipeline;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Um estágio do pipeline de ticks: uma thread dedicada que consome a fila do estágio em ordem e entrega
+ * cada item ao handler. Quem produz nunca espera pelo handler.
+ *
+ * Métricas por estágio (tag {@code stage}):
+ * <ul>
+ *   <li>{@code spectator.pipeline.depth}: itens esperando na fila;</li>
+ *   <li>{@code spectator.pipeline.lag}: tempo entre o item entrar na fila e o handler começar a processá-lo;</li>
+ *   <li>{@code spectator.pipeline.errors}: itens cujo handler lançou exceção (o estágio segue para o próximo).</li>
+ * </ul>
+ */
+public abstract class PipelineStage<T> {
+
+    private static final Logger log = LoggerFactory.getLogger(PipelineStage.class);
+
+    // Rede de segurança: o produtor acorda o consumidor, mas ele também revisita a fila sozinho de tempos em tempos
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /**
+     * Item na fila com o instante em que entrou, para medir o lag.
+     */
+    protected record Envelope<E>(E item, long enqueuedNanos) {
+    }
+
+    private final String name;
+    private final Consumer<T> handler;
+    private final Thread thread;
+    private final Timer lag;
+    private final Counter errors;
+
+    private volatile boolean running = true;
+    private volatile boolean idle;
+
+    protected PipelineStage(String name, Consumer<T> handler, MeterRegistry meterRegistry) {
+        this(name, handler, meterRegistry, Thread.ofPlatform().name("pipeline-" + name).daemon());
+    }
+
+    /**
+     * @param threadBuilder como criar a thread do estágio (ex.: virtual, para estágios que existem aos milhares)
+     */
+    protected PipelineStage(String name, Consumer<T> handler, MeterRegistry meterRegistry, Thread.Builder threadBuilder) {
+        this.name = name;
+        this.handler = handler;
+        this.lag = meterRegistry.timer("spectator.pipeline.lag", "stage", name);
+        this.errors = meterRegistry.counter("spectator.pipeline.errors", "stage", name);
+        meterRegistry.gauge("spectator.pipeline.depth", Tags.of("stage", name), this, PipelineStage::getDepth);
+        this.thread = threadBuilder.unstarted(this::run);
+    }
+
+    /**
+     * Chamado depois que a subclasse terminou de se construir (a thread já lê a fila dela).
+     */
+    public void start() {
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Itens esperando na fila do estágio.
+     */
+    public abstract int getDepth();
+
+    protected abstract Envelope<T> poll();
+
+    protected boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Acorda a thread do estágio se ela estiver parada esperando trabalho. Chamado pelo produtor depois de enfileirar.
+     */
+    protected void signal() {
+        if (idle) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void run() {
+        while (running) {
+            Envelope<T> envelope = poll();
+            if (envelope == null) {
+                // Marca antes de olhar a fila de novo: um produtor que enfileirar depois disso vê a flag e nos acorda
+                idle = true;
+                envelope = poll();
+                if (envelope == null) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    idle = false;
+                    continue;
+                }
+                idle = false;
+            }
+
+            long waited = System.nanoTime() - envelope.enqueuedNanos();
+            lag.record(waited, TimeUnit.NANOSECONDS);
+            try {
+                handler.accept(envelope.item());
+            } catch (Exception e) {
+                errors.increment();
+                log.error("Pipeline stage {} failed to process {}", name, envelope.item(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.jonasdurau.spectator.core.pipeline;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Dono único do estado de um símbolo: uma virtual thread com caixa de entrada própria, que executa
+ * as mensagens uma de cada vez e na ordem em que chegaram.
+ *
+ * Tudo o que lê ou altera posições, sinais e indicadores de um símbolo deve passar por aqui; como só há
+ * uma thread por símbolo, duas mensagens nunca se intercalam e ninguém precisa de lock (nem do banco)
+ * para decidir, por exemplo, se já existe posição aberta. Símbolos diferentes rodam em paralelo.
+ *
+ * As mensagens são conflacionadas por chave (um tick novo do mesmo timeframe substitui o pendente), então a caixa
+ * de entrada nunca guarda mais de uma mensagem por chave. Profundidade e lag saem nas métricas do
+ * {@link PipelineStage} (estágio {@code actor-<símbolo>}).
+ */
+public final class SymbolActor {
+
+    private final String symbol;
+    private final ConflatingStage<Object, Runnable> mailbox;
+
+    public SymbolActor(String symbol, MeterRegistry meterRegistry) {
+        this.symbol = symbol;
+        this.mailbox = new ConflatingStage<>("actor-" + symbol, Runnable::run, meterRegistry,
+                Thread.ofVirtual().name("actor-" + symbol));
+        this.mailbox.start();
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * Enfileira uma mensagem que substitui a pendente com a mesma chave, se houver.
+     */
+    public void tellLatest(Object key, Runnable message) {
+        mailbox.offer(key, message);
+    }
+
+    public void stop() {
+        mailbox.stop();
+    }
+}
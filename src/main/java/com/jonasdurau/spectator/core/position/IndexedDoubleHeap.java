@@ -0,0 +1,149 @@
+package com.jonasdurau.spectator.core.position;
+
+import java.util.Arrays;
+
+/**
+ * Min-heap de ids inteiros ordenados por uma chave {@code double}, em arrays primitivos.
+ * Guarda a posição de cada id no heap, então remover ou mudar a chave de um id qualquer custa O(log n)
+ * (é isso que permite cancelar um OCO ou subir um trailing stop sem varrer o heap).
+ *
+ * Os ids são índices pequenos e densos (alocados pelo {@link TriggerIndex}); não é thread-safe.
+ */
+final class IndexedDoubleHeap {
+
+    private double[] keys = new double[16]; // por id
+    private int[] heap = new int[16];       // posição -> id
+    private int[] positions = new int[16];  // id -> posição, -1 se o id não está no heap
+    private int size;
+
+    IndexedDoubleHeap() {
+        Arrays.fill(positions, -1);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(int id) {
+        return id < positions.length && positions[id] >= 0;
+    }
+
+    int peekId() {
+        return heap[0];
+    }
+
+    double peekKey() {
+        return keys[heap[0]];
+    }
+
+    double key(int id) {
+        return keys[id];
+    }
+
+    void add(int id, double key) {
+        ensureId(id);
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        keys[id] = key;
+        heap[size] = id;
+        positions[id] = size;
+        siftUp(size++);
+    }
+
+    int poll() {
+        int id = heap[0];
+        removeAt(0);
+        return id;
+    }
+
+    boolean remove(int id) {
+        if (!contains(id)) {
+            return false;
+        }
+        removeAt(positions[id]);
+        return true;
+    }
+
+    /**
+     * Muda a chave de um id que já está no heap.
+     */
+    void update(int id, double key) {
+        double old = keys[id];
+        keys[id] = key;
+        int position = positions[id];
+        if (key < old) {
+            siftUp(position);
+        } else if (key > old) {
+            siftDown(position);
+        }
+    }
+
+    private void removeAt(int position) {
+        int id = heap[position];
+        positions[id] = -1;
+        int last = --size;
+        if (position != last) {
+            int moved = heap[last];
+            heap[position] = moved;
+            positions[moved] = position;
+            siftDown(position);
+            if (heap[position] == moved) {
+                siftUp(position);
+            }
+        }
+    }
+
+    private void siftUp(int position) {
+        int id = heap[position];
+        double key = keys[id];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            int parentId = heap[parent];
+            if (keys[parentId] <= key) {
+                break;
+            }
+            heap[position] = parentId;
+            positions[parentId] = position;
+            position = parent;
+        }
+        heap[position] = id;
+        positions[id] = position;
+    }
+
+    private void siftDown(int position) {
+        int id = heap[position];
+        double key = keys[id];
+        int half = size >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            int right = child + 1;
+            if (right < size && keys[heap[right]] < keys[heap[child]]) {
+                child = right;
+            }
+            int childId = heap[child];
+            if (key <= keys[childId]) {
+                break;
+            }
+            heap[position] = childId;
+            positions[childId] = position;
+            position = child;
+        }
+        heap[position] = id;
+        positions[id] = position;
+    }
+
+    private void ensureId(int id) {
+        if (id >= positions.length) {
+            int length = Math.max(id + 1, positions.length * 2);
+            int old = positions.length;
+            positions = Arrays.copyOf(positions, length);
+            Arrays.fill(positions, old, length, -1);
+            keys = Arrays.copyOf(keys, length);
+        }
+    }
+}
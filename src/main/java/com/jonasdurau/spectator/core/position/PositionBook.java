@@ -0,0 +1,155 @@
+package com.jonasdurau.spectator.core.position;
+
+import com.jonasdurau.spectator.core.domain.Position;
+import com.jonasdurau.spectator.core.domain.PositionSnapshot;
+import com.jonasdurau.spectator.core.domain.PositionStatus;
+import com.jonasdurau.spectator.core.repository.PositionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Livro das posições abertas, por símbolo. É a fonte da verdade durante a execução: o banco só é lido
+ * uma vez, no {@link #load()} da subida; depois disso abrir e fechar posição altera o livro in-place
+ * (e grava no banco, write-through, no {@code PositionManagerService}).
+ *
+ * Cada símbolo tem também um {@link TriggerIndex} com o stop loss e o take profit de cada posição (em OCO),
+ * então o tick só visita os gatilhos que cruzou em vez de conferir posição por posição.
+ *
+ * Modelo de concorrência: as entidades e o índice de um símbolo só são lidos e alterados pelo ator daquele símbolo.
+ * Outras threads leem {@link #snapshot}, uma lista imutável republicada a cada mudança.
+ */
+@Component
+public class PositionBook {
+
+    private static final Logger log = LoggerFactory.getLogger(PositionBook.class);
+
+    private final PositionRepository positionRepository;
+    private final Map<String, SymbolBook> books = new ConcurrentHashMap<>();
+
+    private static final class SymbolBook {
+        // Só a thread dona do símbolo mexe aqui
+        private final List<Position> open = new ArrayList<>();
+        private final TriggerIndex<Position> triggers = new TriggerIndex<>();
+        private final Map<UUID, int[]> triggerIds = new HashMap<>();
+        private volatile List<PositionSnapshot> snapshot = List.of();
+
+        private void publish() {
+            snapshot = open.stream().map(PositionSnapshot::of).toList();
+        }
+
+        private void arm(Position position) {
+            Integer stop = position.getStopLoss() != null
+                    ? triggers.addStopLoss(position, position.getSide(), position.getStopLoss())
+                    : null;
+            Integer target = position.getTakeProfit() != null
+                    ? triggers.addTakeProfit(position, position.getSide(), position.getTakeProfit())
+                    : null;
+            if (stop != null && target != null) {
+                triggers.linkOco(stop, target);
+            }
+            triggerIds.put(position.getId(), Stream.of(stop, target)
+                    .filter(Objects::nonNull).mapToInt(Integer::intValue).toArray());
+        }
+
+        private void disarm(Position position) {
+            int[] ids = triggerIds.remove(position.getId());
+            if (ids != null) {
+                // Os que já dispararam foram liberados (e podem ter sido reaproveitados por outra posição)
+                for (int id : ids) {
+                    triggers.cancel(id, position);
+                }
+            }
+        }
+    }
+
+    public PositionBook(PositionRepository positionRepository) {
+        this.positionRepository = positionRepository;
+    }
+
+    /**
+     * Carrega as posições abertas do banco (com os trades já inicializados, já que as entidades vivem fora
+     * da sessão). Deve rodar antes do primeiro tick.
+     */
+    public void load() {
+        List<Position> open = positionRepository.findWithTradesByStatus(PositionStatus.OPEN);
+        books.clear();
+        for (Position position : open) {
+            SymbolBook book = book(position.getSymbol());
+            book.open.add(position);
+            book.arm(position);
+        }
+        books.values().forEach(SymbolBook::publish);
+        log.info("Position book loaded with {} open positions across {} symbols.", open.size(), books.size());
+    }
+
+    /**
+     * Entidades abertas do símbolo. Só pode ser chamado pela thread dona do símbolo; não altere a lista.
+     */
+    public List<Position> openPositions(String symbol) {
+        SymbolBook book = books.get(symbol);
+        return book == null ? List.of() : Collections.unmodifiableList(book.open);
+    }
+
+    public boolean hasOpenPositions(String symbol) {
+        SymbolBook book = books.get(symbol);
+        return book != null && !book.open.isEmpty();
+    }
+
+    public void add(Position position) {
+        SymbolBook book = book(position.getSymbol());
+        book.open.add(position);
+        book.arm(position);
+        book.publish();
+    }
+
+    public void remove(Position position) {
+        SymbolBook book = books.get(position.getSymbol());
+        if (book != null && book.open.removeIf(p -> p.getId().equals(position.getId()))) {
+            book.disarm(position);
+            book.publish();
+        }
+    }
+
+    /**
+     * Aplica um tick aos gatilhos do símbolo. Só pode ser chamado pela thread dona do símbolo.
+     * @return quantidade de gatilhos disparados
+     */
+    public int onPrice(String symbol, double price, TriggerIndex.TriggerListener<Position> listener) {
+        SymbolBook book = books.get(symbol);
+        return book == null ? 0 : book.triggers.onPrice(price, listener);
+    }
+
+    /**
+     * Recoloca os gatilhos de uma posição que continua aberta (ex.: o fechamento disparado por eles falhou).
+     */
+    public void rearm(Position position) {
+        SymbolBook book = books.get(position.getSymbol());
+        if (book != null && book.open.contains(position)) {
+            book.disarm(position);
+            book.arm(position);
+        }
+    }
+
+    /**
+     * Posições abertas do símbolo, imutáveis; pode ser chamado de qualquer thread.
+     */
+    public List<PositionSnapshot> snapshot(String symbol) {
+        SymbolBook book = books.get(symbol);
+        return book == null ? List.of() : book.snapshot;
+    }
+
+    private SymbolBook book(String symbol) {
+        return books.computeIfAbsent(symbol, k -> new SymbolBook());
+    }
+}
@@ -0,0 +1,328 @@
+package com.jonasdurau.spectator.core.position;
+
+import com.jonasdurau.spectator.core.domain.TradeSide;
+
+import java.util.Arrays;
+
+/**
+ * Índice de gatilhos de saída (stop loss, take profit, trailing stop) de um símbolo, ordenado por preço.
+ *
+ * Os gatilhos ficam em dois lados: os que disparam quando o preço <b>cai</b> até o nível (stop de LONG, alvo de
+ * SHORT) e os que disparam quando o preço <b>sobe</b> (alvo de LONG, stop de SHORT). O lado de subida é o mesmo
+ * algoritmo aplicado ao preço negado. Em cada lado, os níveis fixos ficam num heap indexado pelo preço, e um tick
+ * só visita os gatilhos que ele cruzou: O(log n + k) em vez de olhar cada posição.
+ *
+ * Trailing stops: todos os que já acompanham o topo corrente compartilham o mesmo pico, então ficam num heap
+ * ordenado pela distância e disparam quando {@code pico - preço >= distância}, sem nenhuma atualização por tick.
+ * Os que ainda não alcançaram esse pico (criados abaixo dele) ficam como nível fixo até o preço passar do próprio
+ * pico deles, quando sobem (O(log n) cada) ou entram no grupo.
+ *
+ * OCO: dois gatilhos ligados por {@link #linkOco}; o primeiro que dispara cancela o outro no mesmo tick.
+ *
+ * Não é thread-safe: cada símbolo tem o seu, usado só pelo ator do símbolo.
+ *
+ * @param <O> dono do gatilho (ex.: a posição), devolvido no disparo
+ */
+public final class TriggerIndex<O> {
+
+    @FunctionalInterface
+    public interface TriggerListener<O> {
+        /**
+         * @param level nível em que o gatilho estava quando disparou
+         * @param price preço do tick que cruzou o nível
+         */
+        void onTrigger(O owner, TriggerKind kind, double level, double price);
+    }
+
+    private static final int NONE = -1;
+
+    private final SideBook falling = new SideBook();
+    private final SideBook rising = new SideBook();
+
+    // Dados por id de gatilho
+    private Object[] owners = new Object[16];
+    private TriggerKind[] kinds = new TriggerKind[16];
+    private int[] partners = new int[16];
+    private double[] distances = new double[16];
+    private boolean[] risingSide = new boolean[16];
+
+    private int[] freeIds = new int[16];
+    private int freeCount;
+    private int nextId;
+    private int size;
+
+    // Buffers reaproveitados entre ticks: os gatilhos disparados são coletados e só depois entregues ao listener
+    private Object[] firedOwners = new Object[16];
+    private TriggerKind[] firedKinds = new TriggerKind[16];
+    private double[] firedLevels = new double[16];
+    private int firedCount;
+
+    /**
+     * Stop loss de uma posição: LONG dispara quando o preço cai até {@code level}, SHORT quando sobe.
+     * @return id do gatilho
+     */
+    public int addStopLoss(O owner, TradeSide side, double level) {
+        return addFixed(owner, TriggerKind.STOP_LOSS, side == TradeSide.SHORT, level);
+    }
+
+    /**
+     * Take profit de uma posição: LONG dispara quando o preço sobe até {@code level}, SHORT quando cai.
+     */
+    public int addTakeProfit(O owner, TradeSide side, double level) {
+        return addFixed(owner, TriggerKind.TAKE_PROFIT, side == TradeSide.LONG, level);
+    }
+
+    /**
+     * Trailing stop a {@code distance} do melhor preço visto desde {@code currentPrice}
+     * (o topo, para LONG; o fundo, para SHORT).
+     */
+    public int addTrailingStop(O owner, TradeSide side, double currentPrice, double distance) {
+        if (!(distance > 0)) {
+            throw new IllegalArgumentException("Trailing distance must be positive, got " + distance);
+        }
+        boolean onRising = side == TradeSide.SHORT;
+        int id = allocate(owner, TriggerKind.TRAILING_STOP, onRising);
+        distances[id] = distance;
+        book(onRising).addTrailing(id, onRising ? -currentPrice : currentPrice, distance);
+        return id;
+    }
+
+    /**
+     * Liga dois gatilhos em OCO: quando um dispara, o outro é cancelado.
+     */
+    public void linkOco(int first, int second) {
+        requireActive(first);
+        requireActive(second);
+        partners[first] = second;
+        partners[second] = first;
+    }
+
+    /**
+     * @return false se o id já disparou ou foi cancelado.
+     */
+    public boolean cancel(int id) {
+        if (!isActive(id)) {
+            return false;
+        }
+        int partner = partners[id];
+        if (partner != NONE && partners[partner] == id) {
+            partners[partner] = NONE;
+        }
+        book(risingSide[id]).remove(id);
+        release(id);
+        return true;
+    }
+
+    /**
+     * Cancela o gatilho só se ele ainda pertence a {@code owner} (ids são reaproveitados depois de disparar).
+     */
+    public boolean cancel(int id, O owner) {
+        return isActive(id) && owners[id].equals(owner) && cancel(id);
+    }
+
+    public boolean isActive(int id) {
+        return id >= 0 && id < nextId && owners[id] != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public O ownerOf(int id) {
+        return isActive(id) ? (O) owners[id] : null;
+    }
+
+    /**
+     * Nível atual do gatilho (para trailing stops, já considerando o melhor preço visto).
+     */
+    public double levelOf(int id) {
+        requireActive(id);
+        double level = book(risingSide[id]).level(id);
+        return risingSide[id] ? -level : level;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Aplica um tick: ajusta trailing stops e dispara (e remove) todos os gatilhos cruzados.
+     * O listener é chamado depois que o índice já está consistente, então pode adicionar ou cancelar gatilhos.
+     *
+     * @return quantidade de gatilhos disparados
+     */
+    @SuppressWarnings("unchecked")
+    public int onPrice(double price, TriggerListener<O> listener) {
+        firedCount = 0;
+        falling.onPrice(price);
+        rising.onPrice(-price);
+
+        int fired = firedCount;
+        for (int i = 0; i < fired; i++) {
+            O owner = (O) firedOwners[i];
+            firedOwners[i] = null;
+            listener.onTrigger(owner, firedKinds[i], firedLevels[i], price);
+        }
+        return fired;
+    }
+
+    private int addFixed(O owner, TriggerKind kind, boolean onRising, double level) {
+        int id = allocate(owner, kind, onRising);
+        book(onRising).addFixed(id, onRising ? -level : level);
+        return id;
+    }
+
+    private SideBook book(boolean onRising) {
+        return onRising ? rising : falling;
+    }
+
+    /**
+     * Chamado pelo lado quando um gatilho foi cruzado (já removido das estruturas daquele lado).
+     */
+    private void fire(int id, double sideLevel) {
+        if (firedCount == firedOwners.length) {
+            firedOwners = Arrays.copyOf(firedOwners, firedCount * 2);
+            firedKinds = Arrays.copyOf(firedKinds, firedCount * 2);
+            firedLevels = Arrays.copyOf(firedLevels, firedCount * 2);
+        }
+        firedOwners[firedCount] = owners[id];
+        firedKinds[firedCount] = kinds[id];
+        firedLevels[firedCount] = risingSide[id] ? -sideLevel : sideLevel;
+        firedCount++;
+
+        int partner = partners[id];
+        release(id);
+        if (partner != NONE && isActive(partner) && partners[partner] == id) {
+            partners[partner] = NONE;
+            book(risingSide[partner]).remove(partner);
+            release(partner);
+        }
+    }
+
+    private int allocate(O owner, TriggerKind kind, boolean onRising) {
+        if (owner == null) {
+            throw new IllegalArgumentException("Trigger owner must not be null");
+        }
+        int id;
+        if (freeCount > 0) {
+            id = freeIds[--freeCount];
+        } else {
+            id = nextId++;
+            if (id == owners.length) {
+                int length = id * 2;
+                owners = Arrays.copyOf(owners, length);
+                kinds = Arrays.copyOf(kinds, length);
+                partners = Arrays.copyOf(partners, length);
+                distances = Arrays.copyOf(distances, length);
+                risingSide = Arrays.copyOf(risingSide, length);
+            }
+        }
+        owners[id] = owner;
+        kinds[id] = kind;
+        partners[id] = NONE;
+        distances[id] = 0;
+        risingSide[id] = onRising;
+        size++;
+        return id;
+    }
+
+    private void release(int id) {
+        owners[id] = null;
+        kinds[id] = null;
+        partners[id] = NONE;
+        if (freeCount == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+        }
+        freeIds[freeCount++] = id;
+        size--;
+    }
+
+    private void requireActive(int id) {
+        if (!isActive(id)) {
+            throw new IllegalArgumentException("Trigger " + id + " is not active");
+        }
+    }
+
+    /**
+     * Um lado do índice, sempre na orientação "dispara quando x cai até o nível" (o lado de subida recebe -preço).
+     */
+    private final class SideBook {
+
+        // Níveis fixos (stops, alvos e trailing stops atrasados), chave = -nível para o maior nível ficar no topo
+        private final IndexedDoubleHeap levels = new IndexedDoubleHeap();
+        // Trailing stops atrasados, chave = pico próprio (o menor é o primeiro a ser alcançado)
+        private final IndexedDoubleHeap lagging = new IndexedDoubleHeap();
+        // Trailing stops que acompanham o pico do grupo, chave = distância
+        private final IndexedDoubleHeap group = new IndexedDoubleHeap();
+        private double groupPeak = Double.NaN;
+
+        void addFixed(int id, double level) {
+            levels.add(id, -level);
+        }
+
+        void addTrailing(int id, double x, double distance) {
+            if (group.isEmpty()) {
+                groupPeak = x;
+                group.add(id, distance);
+            } else if (x == groupPeak) {
+                group.add(id, distance);
+            } else {
+                // Pico próprio diferente do grupo: segue sozinho até o preço passar dele
+                lagging.add(id, x);
+                levels.add(id, -(x - distance));
+            }
+        }
+
+        void remove(int id) {
+            levels.remove(id);
+            lagging.remove(id);
+            if (group.remove(id) && group.isEmpty()) {
+                groupPeak = Double.NaN;
+            }
+        }
+
+        double level(int id) {
+            if (group.contains(id)) {
+                return groupPeak - group.key(id);
+            }
+            return -levels.key(id);
+        }
+
+        void onPrice(double x) {
+            if (!group.isEmpty() && x > groupPeak) {
+                groupPeak = x;
+            }
+
+            // Trailing stops atrasados cujo pico o preço passou: sobem junto, ou entram no grupo se alcançaram o topo
+            while (!lagging.isEmpty() && lagging.peekKey() < x) {
+                int id = lagging.poll();
+                double distance = distances[id];
+                if (group.isEmpty() || x >= groupPeak) {
+                    if (group.isEmpty()) {
+                        groupPeak = x;
+                    }
+                    levels.remove(id);
+                    group.add(id, distance);
+                } else {
+                    lagging.add(id, x);
+                    levels.update(id, -(x - distance));
+                }
+            }
+
+            // Grupo: dispara todo trailing stop com distância <= pico - preço
+            while (!group.isEmpty() && group.peekKey() <= groupPeak - x) {
+                int id = group.poll();
+                double level = groupPeak - distances[id];
+                if (group.isEmpty()) {
+                    groupPeak = Double.NaN;
+                }
+                fire(id, level);
+            }
+
+            // Níveis fixos cruzados: maior nível primeiro
+            while (!levels.isEmpty() && -levels.peekKey() >= x) {
+                double level = -levels.peekKey();
+                int id = levels.poll();
+                lagging.remove(id);
+                fire(id, level);
+            }
+        }
+    }
+}
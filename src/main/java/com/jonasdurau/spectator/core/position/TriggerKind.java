@@ -0,0 +1,7 @@
+package com.jonasdurau.spectator.core.position;
+
+public enum TriggerKind {
+    STOP_LOSS,
+    TAKE_PROFIT,
+    TRAILING_STOP
+}
@@ -0,0 +1,167 @@
+package com.jonasdurau.spectator.core.repository;
+
+import com.jonasdurau.spectator.core.domain.Candle;
+import com.jonasdurau.spectator.core.domain.CandleId;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Escrita em lote de candles via JDBC puro.
+ * Um único {@code INSERT ... VALUES (...), (...) ON CONFLICT} por bloco de linhas, no lugar de
+ * um statement (e uma transação) por candle como no {@link CandleRepository#upsert}.
+ *
+ * Também faz a leitura em streaming para o arquivo colunar, linha a linha, sem materializar entidades.
+ */
+@Repository
+public class CandleBatchRepository {
+
+    // 8 parâmetros por linha; 500 linhas ficam bem abaixo do limite de 65535 binds do PostgreSQL
+    private static final int ROWS_PER_STATEMENT = 500;
+
+    private static final String INSERT_PREFIX =
+            "INSERT INTO market_candles (symbol, timeframe, time, open, high, low, close, volume) VALUES ";
+
+    private static final String ON_CONFLICT = """
+             ON CONFLICT (symbol, timeframe, time)
+            DO UPDATE SET
+                open = EXCLUDED.open,
+                high = EXCLUDED.high,
+                low = EXCLUDED.low,
+                close = EXCLUDED.close,
+                volume = EXCLUDED.volume
+            """;
+
+    private static final String SELECT_SINCE = """
+            SELECT time, open, high, low, close, volume FROM market_candles
+            WHERE symbol = ? AND timeframe = ? AND time >= ?
+            ORDER BY time
+            """;
+
+    // Paginação por keyset: anda pelo índice (symbol, timeframe, time) a partir do cursor, sem OFFSET
+    private static final String SELECT_BEFORE = """
+            SELECT time, open, high, low, close, volume FROM market_candles
+            WHERE symbol = ? AND timeframe = ? AND time < ?
+            ORDER BY time DESC
+            LIMIT ?
+            """;
+
+    // Linhas por ida ao banco no cursor da leitura em streaming
+    private static final int FETCH_SIZE = 10_000;
+
+    /**
+     * Recebe uma linha de {@code market_candles} em primitivos.
+     */
+    @FunctionalInterface
+    public interface CandleRowHandler {
+        void row(long timeMs, double open, double high, double low, double close, double volume);
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CandleBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * UPSERT de vários candles em statements multi-linha.
+     * Chaves repetidas são reduzidas à última ocorrência, já que o PostgreSQL não aceita a mesma
+     * linha duas vezes num único {@code ON CONFLICT DO UPDATE}.
+     * @return quantidade de linhas enviadas.
+     */
+    public int upsertAll(Collection<Candle> candles) {
+        if (candles.isEmpty()) {
+            return 0;
+        }
+
+        Map<CandleId, Candle> unique = new LinkedHashMap<>();
+        for (Candle c : candles) {
+            unique.put(new CandleId(c.getSymbol(), c.getTimeframe(), c.getTime()), c);
+        }
+        List<Candle> rows = new ArrayList<>(unique.values());
+        for (int from = 0; from < rows.size(); from += ROWS_PER_STATEMENT) {
+            List<Candle> chunk = rows.subList(from, Math.min(from + ROWS_PER_STATEMENT, rows.size()));
+            jdbcTemplate.update(buildUpsert(chunk.size()), ps -> bind(ps, chunk));
+        }
+        return rows.size();
+    }
+
+    /**
+     * Percorre os candles a partir de {@code from} (inclusive), em ordem, por um cursor do servidor: a memória não
+     * cresce com o tamanho do histórico. O PostgreSQL só usa cursor dentro de uma transação, daí o
+     * {@code readOnly}.
+     *
+     * @return quantidade de linhas lidas.
+     */
+    @Transactional(readOnly = true)
+    public long forEachSince(String symbol, String timeframe, Instant from, CandleRowHandler handler) {
+        long[] rows = {0};
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SELECT_SINCE);
+            ps.setFetchSize(FETCH_SIZE);
+            ps.setString(1, symbol);
+            ps.setString(2, timeframe);
+            ps.setTimestamp(3, Timestamp.from(from));
+            return ps;
+        }, (RowCallbackHandler) rs -> {
+            handler.row(rs.getTimestamp(1).getTime(), rs.getDouble(2), rs.getDouble(3), rs.getDouble(4),
+                    rs.getDouble(5), rs.getDouble(6));
+            rows[0]++;
+        });
+        return rows[0];
+    }
+
+    /**
+     * Página de até {@code limit} candles anteriores a {@code before} (exclusivo), do mais novo para o mais velho.
+     * A próxima página usa o horário do último candle entregue como cursor: o custo é o mesmo em qualquer ponto
+     * do histórico, ao contrário de um {@code OFFSET}.
+     *
+     * @return quantidade de linhas lidas; menos que {@code limit} quando o histórico acabou.
+     */
+    public int forEachBefore(String symbol, String timeframe, Instant before, int limit, CandleRowHandler handler) {
+        int[] rows = {0};
+        jdbcTemplate.query(SELECT_BEFORE, (RowCallbackHandler) rs -> {
+            handler.row(rs.getTimestamp(1).getTime(), rs.getDouble(2), rs.getDouble(3), rs.getDouble(4),
+                    rs.getDouble(5), rs.getDouble(6));
+            rows[0]++;
+        }, symbol, timeframe, Timestamp.from(before), limit);
+        return rows[0];
+    }
+
+    private static String buildUpsert(int rows) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + rows * 20 + ON_CONFLICT.length());
+        sql.append(INSERT_PREFIX);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(',');
+            }
+            sql.append("(?,?,?,?,?,?,?,?)");
+        }
+        return sql.append(ON_CONFLICT).toString();
+    }
+
+    private static void bind(PreparedStatement ps, List<Candle> chunk) throws SQLException {
+        int p = 1;
+        for (Candle c : chunk) {
+            ps.setString(p++, c.getSymbol());
+            ps.setString(p++, c.getTimeframe());
+            ps.setTimestamp(p++, Timestamp.from(c.getTime()));
+            ps.setDouble(p++, c.getOpen());
+            ps.setDouble(p++, c.getHigh());
+            ps.setDouble(p++, c.getLow());
+            ps.setDouble(p++, c.getClose());
+            ps.setDouble(p++, c.getVolume());
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.jonasdurau.spectator.core.repository;
+
+import com.jonasdurau.spectator.core.domain.Candle;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Carga em massa de candles (seed histórico e gap fill).
+ *
+ * Os candles são enviados com {@code COPY ... FROM STDIN (FORMAT binary)} para uma tabela temporária
+ * da sessão e depois mesclados em {@code market_candles} com um único {@code INSERT ... SELECT ... ON CONFLICT}.
+ * Isso troca milhares de round trips (um por candle) por um stream e um statement.
+ */
+@Repository
+public class CandleBulkLoader {
+
+    private static final String STAGING_TABLE = "market_candles_staging";
+
+    private static final String CREATE_STAGING = """
+            CREATE TEMP TABLE IF NOT EXISTS market_candles_staging (
+                symbol      VARCHAR(20) NOT NULL,
+                timeframe   VARCHAR(10) NOT NULL,
+                time        TIMESTAMPTZ NOT NULL,
+                open        DOUBLE PRECISION NOT NULL,
+                high        DOUBLE PRECISION NOT NULL,
+                low         DOUBLE PRECISION NOT NULL,
+                close       DOUBLE PRECISION NOT NULL,
+                volume      DOUBLE PRECISION NOT NULL
+            )
+            """;
+
+    private static final String COPY_SQL = "COPY " + STAGING_TABLE
+            + " (symbol, timeframe, time, open, high, low, close, volume) FROM STDIN (FORMAT binary)";
+
+    // DISTINCT ON evita que a mesma chave apareça duas vezes no ON CONFLICT (páginas sobrepostas do gap fill)
+    private static final String MERGE_SQL = """
+            INSERT INTO market_candles (symbol, timeframe, time, open, high, low, close, volume)
+            SELECT DISTINCT ON (symbol, timeframe, time) symbol, timeframe, time, open, high, low, close, volume
+            FROM market_candles_staging
+            ORDER BY symbol, timeframe, time
+            ON CONFLICT (symbol, timeframe, time)
+            DO UPDATE SET
+                open = EXCLUDED.open,
+                high = EXCLUDED.high,
+                low = EXCLUDED.low,
+                close = EXCLUDED.close,
+                volume = EXCLUDED.volume
+            """;
+
+    // Cabeçalho do formato binário do COPY: assinatura + flags + tamanho da extensão
+    private static final byte[] COPY_SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+
+    // O PostgreSQL guarda TIMESTAMPTZ como microssegundos desde 2000-01-01 UTC
+    private static final long POSTGRES_EPOCH_SECONDS = Instant.parse("2000-01-01T00:00:00Z").getEpochSecond();
+
+    private static final int FIELDS_PER_ROW = 8;
+    private static final int ROWS_PER_CHUNK = 8192;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CandleBulkLoader(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Grava os candles via COPY binário + merge.
+     * @return quantidade de linhas inseridas ou atualizadas em {@code market_candles}.
+     */
+    public int load(List<Candle> candles) {
+        if (candles.isEmpty()) {
+            return 0;
+        }
+
+        Integer merged = jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                // A tabela temporária vive na sessão (conexão do pool), então só a limpamos
+                statement.execute(CREATE_STAGING);
+                statement.execute("TRUNCATE " + STAGING_TABLE);
+            }
+
+            copyToStaging(connection, candles);
+
+            try (Statement statement = connection.createStatement()) {
+                int rows = statement.executeUpdate(MERGE_SQL);
+                statement.execute("TRUNCATE " + STAGING_TABLE);
+                return rows;
+            }
+        });
+        return merged != null ? merged : 0;
+    }
+
+    private void copyToStaging(Connection connection, List<Candle> candles) throws SQLException {
+        CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+        CopyIn copyIn = copyManager.copyIn(COPY_SQL);
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(ROWS_PER_CHUNK * 96);
+            DataOutputStream out = new DataOutputStream(buffer);
+
+            out.write(COPY_SIGNATURE);
+            out.writeInt(0); // flags
+            out.writeInt(0); // tamanho da extensão do cabeçalho
+
+            int rowsInChunk = 0;
+            for (Candle c : candles) {
+                writeRow(out, c);
+                if (++rowsInChunk == ROWS_PER_CHUNK) {
+                    flushChunk(copyIn, buffer);
+                    rowsInChunk = 0;
+                }
+            }
+
+            out.writeShort(-1); // trailer
+            flushChunk(copyIn, buffer);
+            copyIn.endCopy();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode candles for COPY", e);
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private static void writeRow(DataOutputStream out, Candle c) throws IOException {
+        out.writeShort(FIELDS_PER_ROW);
+        writeText(out, c.getSymbol());
+        writeText(out, c.getTimeframe());
+
+        Instant time = c.getTime();
+        long micros = (time.getEpochSecond() - POSTGRES_EPOCH_SECONDS) * 1_000_000L + time.getNano() / 1_000;
+        out.writeInt(8);
+        out.writeLong(micros);
+
+        writeDouble(out, c.getOpen());
+        writeDouble(out, c.getHigh());
+        writeDouble(out, c.getLow());
+        writeDouble(out, c.getClose());
+        writeDouble(out, c.getVolume());
+    }
+
+    private static void writeText(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeDouble(DataOutputStream out, double value) throws IOException {
+        out.writeInt(8);
+        out.writeDouble(value);
+    }
+
+    private static void flushChunk(CopyIn copyIn, ByteArrayOutputStream buffer) throws SQLException {
+        byte[] bytes = buffer.toByteArray();
+        if (bytes.length > 0) {
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+        }
+        buffer.reset();
+    }
+}
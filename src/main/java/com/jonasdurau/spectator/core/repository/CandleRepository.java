@@ -33,6 +33,11 @@ public interface CandleRepository extends JpaRepository<Candle, CandleId> {
      */
     Candle findTopBySymbolAndTimeframeOrderByTimeDesc(String symbol, String timeframe);
 
+    /**
+     * Primeiro candle gravado: início do histórico disponível (walk-forward sobre o range inteiro).
+     */
+    Candle findTopBySymbolAndTimeframeOrderByTimeAsc(String symbol, String timeframe);
+
     /**
      * UPSERT nativo otimizado para PostgreSQL/TimescaleDB.
      * Insere o candle. Se a chave composta (symbol, time) já existir, 
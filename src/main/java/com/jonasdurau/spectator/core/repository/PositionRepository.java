@@ -3,6 +3,8 @@ package com.jonasdurau.spectator.core.repository;
 import com.jonasdurau.spectator.core.domain.Position;
 import com.jonasdurau.spectator.core.domain.PositionStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,4 +13,10 @@ import java.util.UUID;
 @Repository
 public interface PositionRepository extends JpaRepository<Position, UUID> {
     List<Position> findBySymbolAndStatus(String symbol, PositionStatus status);
+
+    /**
+     * Posições com os trades já carregados, para uso fora da sessão (livro em memória).
+     */
+    @Query("SELECT DISTINCT p FROM Position p LEFT JOIN FETCH p.trades WHERE p.status = :status")
+    List<Position> findWithTradesByStatus(@Param("status") PositionStatus status);
 }
@@ -0,0 +1,134 @@
+package com.jonasdurau.spectator.core.service;
+
+import com.jonasdurau.spectator.core.domain.Candle;
+import com.jonasdurau.spectator.core.domain.CandleId;
+import com.jonasdurau.spectator.core.repository.CandleBatchRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Persistência write-behind dos candles do stream.
+ *
+ * A maioria das mensagens da Binance só revisa o candle ainda aberto, então guardamos em memória
+ * apenas o estado mais recente de cada (símbolo, timeframe, horário) e gravamos em lote:
+ * <ul>
+ *   <li>a cada {@code flush-interval-ms} (limite de perda: no máximo esse intervalo de revisões intrabar);</li>
+ *   <li>imediatamente quando um candle fecha, para que o valor final nunca dependa do timer;</li>
+ *   <li>quando o número de chaves pendentes passa de {@code max-pending} (limite de memória);</li>
+ *   <li>no desligamento da aplicação.</li>
+ * </ul>
+ * O volume de escrita passa a depender do intervalo e da quantidade de símbolos, não do número de mensagens.
+ */
+@Service
+public class CandleWriteBehindService {
+
+    private static final Logger log = LoggerFactory.getLogger(CandleWriteBehindService.class);
+
+    private final CandleBatchRepository candleBatchRepository;
+    private final int maxPending;
+
+    private final Map<CandleId, Candle> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "candle-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CandleWriteBehindService(CandleBatchRepository candleBatchRepository,
+            @Value("${spectator.candles.write-behind.flush-interval-ms:1000}") long flushIntervalMs,
+            @Value("${spectator.candles.write-behind.max-pending:5000}") int maxPending) {
+        this.candleBatchRepository = candleBatchRepository;
+        this.maxPending = maxPending;
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Registra o estado mais recente do candle. Nunca bloqueia a thread do WebSocket:
+     * a escrita acontece na thread do write-behind.
+     *
+     * @param closed true quando a Binance marca o candle como fechado ({@code x} no payload)
+     */
+    public void submit(Candle candle, boolean closed) {
+        pending.put(new CandleId(candle.getSymbol(), candle.getTimeframe(), candle.getTime()), candle);
+
+        if (closed || pending.size() >= maxPending) {
+            requestFlush();
+        }
+    }
+
+    /**
+     * Agenda um flush imediato (coalescido: vários pedidos seguidos geram um único flush).
+     */
+    public void requestFlush() {
+        if (flushRequested.compareAndSet(false, true)) {
+            scheduler.execute(this::flushQuietly);
+        }
+    }
+
+    /**
+     * Grava tudo o que está pendente num único lote.
+     * @return quantidade de candles gravados.
+     */
+    public synchronized int flush() {
+        flushRequested.set(false);
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        List<Map.Entry<CandleId, Candle>> batch = new ArrayList<>(pending.entrySet().size());
+        for (Map.Entry<CandleId, Candle> entry : pending.entrySet()) {
+            batch.add(Map.entry(entry.getKey(), entry.getValue()));
+        }
+
+        candleBatchRepository.upsertAll(batch.stream().map(Map.Entry::getValue).toList());
+
+        // Só remove se não chegou revisão nova durante a escrita; nesse caso ela fica para o próximo lote.
+        // Compara por identidade: Candle.equals só olha (símbolo, timeframe, horário) e a revisão seria descartada
+        for (Map.Entry<CandleId, Candle> entry : batch) {
+            Candle written = entry.getValue();
+            pending.computeIfPresent(entry.getKey(), (id, candle) -> candle == written ? null : candle);
+        }
+        return batch.size();
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int written = flush();
+        log.info("Write-behind stopped. Flushed {} pending candles on shutdown.", written);
+    }
+
+    private void flushQuietly() {
+        try {
+            int written = flush();
+            if (written > 0) {
+                log.debug("Write-behind flushed {} candles.", written);
+            }
+        } catch (Exception e) {
+            // Os candles continuam pendentes e entram no próximo lote
+            log.error("Write-behind flush failed. {} candles remain pending.", pending.size(), e);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.jonasdurau.spectator.core.service;
+
+import com.jonasdurau.spectator.core.backtest.CandleSeries;
+import com.jonasdurau.spectator.core.backtest.IndicatorCache;
+import com.jonasdurau.spectator.core.buffer.CandleBufferRegistry;
+import com.jonasdurau.spectator.core.buffer.CandleRingBuffer;
+import com.jonasdurau.spectator.core.buffer.CandleWindow;
+import com.jonasdurau.spectator.core.domain.MarketRegime;
+import com.jonasdurau.spectator.core.indicator.ChartOverlay;
+import com.jonasdurau.spectator.core.indicator.IndicatorContext;
+import com.jonasdurau.spectator.core.indicator.IndicatorSpec;
+import com.jonasdurau.spectator.core.strategy.MeanReversionStrategy;
+import com.jonasdurau.spectator.core.strategy.RegimeAnalyzerService;
+import com.jonasdurau.spectator.integration.binance.BinanceRestClient;
+import org.springframework.stereotype.Service;
+
+import java.util.Set;
+
+/**
+ * Monta os {@link ChartOverlay}s do gráfico a partir dos indicadores que o regime e as estratégias já usam: as
+ * EMAs rápida e lenta do {@link RegimeAnalyzerService} no 4H e as bandas de Bollinger da
+ * {@link MeanReversionStrategy} no 1H. Ao vivo não há cálculo extra: os valores saem dos
+ * {@link IndicatorContext}s que o pipeline acabou de calcular para o tick.
+ *
+ * O histórico da tela ({@link #history}) é recalculado a partir dos buffers em memória com o
+ * {@link IndicatorCache} do backtest, com a mesma janela do pipeline. Como no backtest, cada candle de 1H usa o
+ * último candle de 4H já fechado no seu fechamento.
+ *
+ * As duas fontes usam o 4H de forma diferente, de propósito. Ao vivo, as EMAs e o regime são os que o pipeline
+ * acabou de usar para decidir, e a janela de 4H do pipeline inclui o candle de 4H ainda aberto. O overlay mostra
+ * exatamente isso, e pode mudar a cada tick. No histórico, os estados intermediários do candle de 4H aberto não
+ * existem mais: o buffer só guarda o valor final, e usá-lo num candle de 1H anterior seria olhar o futuro. Por
+ * isso o histórico usa o último 4H fechado. Os dois coincidem nos candles de 1H que fecham junto com um de 4H.
+ * Nos demais, quando a tela recarrega o histórico, as EMAs e o regime de um candle que foi visto ao vivo podem
+ * mudar para os do 4H fechado.
+ */
+@Service
+public class ChartOverlayService {
+
+    private static final String STRATEGY_TIMEFRAME = IndicatorService.STRATEGY_TIMEFRAME;
+    private static final String REGIME_TIMEFRAME = IndicatorService.REGIME_TIMEFRAME;
+
+    // Mesmo mínimo do pipeline para classificar o regime
+    private static final int MIN_REGIME_BARS = 50;
+
+    private final CandleBufferRegistry candleBuffers;
+    private final RegimeAnalyzerService regimeAnalyzerService;
+
+    private final IndicatorSpec emaFast;
+    private final IndicatorSpec emaSlow;
+    private final IndicatorSpec bbMiddle;
+    private final IndicatorSpec bbStdDev;
+    private final int bbPeriod;
+    private final double bbMultiplier;
+
+    public ChartOverlayService(CandleBufferRegistry candleBuffers, RegimeAnalyzerService regimeAnalyzerService,
+            MeanReversionStrategy meanReversionStrategy) {
+        this.candleBuffers = candleBuffers;
+        this.regimeAnalyzerService = regimeAnalyzerService;
+        RegimeAnalyzerService.Parameters regime = regimeAnalyzerService.getParameters();
+        this.emaFast = IndicatorSpec.ema(regime.emaFastPeriod());
+        this.emaSlow = IndicatorSpec.ema(regime.emaSlowPeriod());
+        MeanReversionStrategy.Parameters meanReversion = meanReversionStrategy.getParameters();
+        this.bbPeriod = meanReversion.bbPeriod();
+        this.bbMultiplier = meanReversion.bbMultiplier();
+        this.bbMiddle = IndicatorSpec.sma(bbPeriod);
+        this.bbStdDev = IndicatorSpec.standardDeviation(bbPeriod);
+    }
+
+    /**
+     * Overlay do tick, com os contextos de 1H e 4H já calculados pelo pipeline (o 4H inclui o candle aberto).
+     */
+    public ChartOverlay live(IndicatorContext indicators1h, IndicatorContext indicators4h, MarketRegime regime) {
+        return overlay(indicators1h, indicators4h, regime);
+    }
+
+    /**
+     * Overlays dos candles de 1H abertos em {@code times} (em ordem crescente), recalculados dos buffers.
+     *
+     * @return um overlay por horário; null onde o candle não está no buffer ou se o buffer mudou durante a cópia
+     */
+    public ChartOverlay[] history(String symbol, long[] times) {
+        ChartOverlay[] overlays = new ChartOverlay[times.length];
+        if (times.length == 0) {
+            return overlays;
+        }
+        CandleSeries bars = copy(candleBuffers.get(symbol, STRATEGY_TIMEFRAME));
+        CandleSeries regimeBars = copy(candleBuffers.get(symbol, REGIME_TIMEFRAME));
+        if (bars == null || regimeBars == null) {
+            return overlays;
+        }
+        IndicatorCache.View indicators = new IndicatorCache(bars, TickPipelineService.ANALYSIS_WINDOW)
+                .view(Set.of(bbMiddle, bbStdDev));
+        IndicatorCache.View regimeIndicators = new IndicatorCache(regimeBars, TickPipelineService.ANALYSIS_WINDOW)
+                .view(regimeAnalyzerService.requiredIndicators());
+        long barMs = BinanceRestClient.intervalDuration(STRATEGY_TIMEFRAME).toMillis();
+        long regimeBarMs = BinanceRestClient.intervalDuration(REGIME_TIMEFRAME).toMillis();
+
+        // Candles de 4H fechados até o fechamento do candle de 1H da vez
+        int closedRegimeBars = 0;
+        int contextBars = -1;
+        IndicatorContext indicators4h = null;
+        MarketRegime regime = null;
+        for (int k = 0; k < times.length; k++) {
+            int i = bars.indexAtOrAfter(times[k]);
+            if (i == bars.size() || bars.time(i) != times[k]) {
+                continue;
+            }
+            long closeTime = times[k] + barMs;
+            while (closedRegimeBars < regimeBars.size()
+                    && regimeBars.time(closedRegimeBars) + regimeBarMs <= closeTime) {
+                closedRegimeBars++;
+            }
+            if (closedRegimeBars != contextBars) {
+                contextBars = closedRegimeBars;
+                indicators4h = closedRegimeBars == 0 ? null : regimeIndicators.contextAt(closedRegimeBars - 1);
+                regime = indicators4h == null ? null : regime(indicators4h);
+            }
+            overlays[k] = overlay(indicators.contextAt(i), indicators4h, regime);
+        }
+        return overlays;
+    }
+
+    private ChartOverlay overlay(IndicatorContext indicators1h, IndicatorContext indicators4h, MarketRegime regime) {
+        double middle = Double.NaN;
+        double width = Double.NaN;
+        if (indicators1h.getBarCount() > bbPeriod) {
+            middle = indicators1h.get(bbMiddle);
+            width = indicators1h.get(bbStdDev) * bbMultiplier;
+        }
+        return new ChartOverlay(indicators1h.getTime(), ema(indicators4h, emaFast), ema(indicators4h, emaSlow),
+                middle + width, middle, middle - width, regime);
+    }
+
+    private static double ema(IndicatorContext indicators4h, IndicatorSpec spec) {
+        return indicators4h != null && indicators4h.getBarCount() > spec.period() ? indicators4h.get(spec)
+                : Double.NaN;
+    }
+
+    private MarketRegime regime(IndicatorContext indicators4h) {
+        return indicators4h.getBarCount() > MIN_REGIME_BARS ? regimeAnalyzerService.analyze(indicators4h)
+                : MarketRegime.SIDEWAYS;
+    }
+
+    /**
+     * Cópia do buffer inteiro menos um slot, que o escritor pode ocupar ao abrir um candle sem tocar na cópia.
+     *
+     * @return null se os horários copiados não são crescentes (o buffer mudou no meio)
+     */
+    private static CandleSeries copy(CandleRingBuffer buffer) {
+        CandleWindow window = buffer.window(buffer.getCapacity() - 1);
+        int n = window.size();
+        long[] time = new long[n];
+        double[] open = new double[n];
+        double[] high = new double[n];
+        double[] low = new double[n];
+        double[] close = new double[n];
+        double[] volume = new double[n];
+        for (int i = 0; i < n; i++) {
+            time[i] = window.time(i);
+            if (i > 0 && time[i] <= time[i - 1]) {
+                return null;
+            }
+            open[i] = window.open(i);
+            high[i] = window.high(i);
+            low[i] = window.low(i);
+            close[i] = window.close(i);
+            volume[i] = window.volume(i);
+        }
+        return new CandleSeries(buffer.getSymbol(), buffer.getTimeframe(), time, open, high, low, close, volume);
+    }
+}
@@ -0,0 +1,60 @@
+package com.jonasdurau.spectator.core.service;
+
+import com.jonasdurau.spectator.core.buffer.CandleWindow;
+import com.jonasdurau.spectator.core.indicator.IndicatorContext;
+import com.jonasdurau.spectator.core.indicator.IndicatorEngine;
+import com.jonasdurau.spectator.core.indicator.IndicatorSpec;
+import com.jonasdurau.spectator.core.strategy.RegimeAnalyzerService;
+import com.jonasdurau.spectator.core.strategy.TradingStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Calcula os indicadores uma vez por tick e por (símbolo, timeframe) e entrega o mesmo
+ * {@link IndicatorContext} para todos os consumidores.
+ * Os requisitos são a união do que cada estratégia (1H) e o analisador de regime (4H) declaram.
+ */
+@Service
+public class IndicatorService {
+
+    private static final Logger log = LoggerFactory.getLogger(IndicatorService.class);
+
+    public static final String STRATEGY_TIMEFRAME = "1h";
+    public static final String REGIME_TIMEFRAME = "4h";
+
+    private final Map<String, Set<IndicatorSpec>> requirementsByTimeframe = new HashMap<>();
+    private final Map<String, IndicatorEngine> engines = new ConcurrentHashMap<>();
+
+    public IndicatorService(List<TradingStrategy> strategies, RegimeAnalyzerService regimeAnalyzerService) {
+        for (TradingStrategy strategy : strategies) {
+            register(STRATEGY_TIMEFRAME, strategy.requiredIndicators());
+        }
+        register(REGIME_TIMEFRAME, regimeAnalyzerService.requiredIndicators());
+
+        requirementsByTimeframe.forEach((timeframe, specs) ->
+                log.info("Indicators computed once per {} tick: {}", timeframe, specs));
+    }
+
+    /**
+     * Atualiza os indicadores com a janela atual e devolve o contexto compartilhado do tick.
+     */
+    public IndicatorContext compute(CandleWindow window) {
+        String symbol = window.getSymbol();
+        String timeframe = window.getTimeframe();
+        IndicatorEngine engine = engines.computeIfAbsent(symbol + ":" + timeframe,
+                k -> new IndicatorEngine(symbol, timeframe, requirementsByTimeframe.getOrDefault(timeframe, Set.of())));
+        return engine.sync(window);
+    }
+
+    private void register(String timeframe, Set<IndicatorSpec> specs) {
+        requirementsByTimeframe.computeIfAbsent(timeframe, k -> new LinkedHashSet<>()).addAll(specs);
+    }
+}
@@ -1,53 +1,73 @@
 package com.jonasdurau.spectator.core.service;
 
+import com.jonasdurau.spectator.core.archive.CandleArchiveService;
+import com.jonasdurau.spectator.core.buffer.CandleBufferRegistry;
+import com.jonasdurau.spectator.core.buffer.CandleWindow;
 import com.jonasdurau.spectator.core.domain.Candle;
-import com.jonasdurau.spectator.core.domain.MarketRegime;
+import com.jonasdurau.spectator.core.position.PositionBook;
+import com.jonasdurau.spectator.core.repository.CandleBulkLoader;
 import com.jonasdurau.spectator.core.repository.CandleRepository;
-import com.jonasdurau.spectator.core.strategy.RegimeAnalyzerService;
+import com.jonasdurau.spectator.core.store.CandleStoreService;
 import com.jonasdurau.spectator.integration.binance.BinanceRestClient;
-import com.jonasdurau.spectator.integration.binance.BinanceWebSocketClient;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.jonasdurau.spectator.ui.broadcaster.MarketDataBroadcaster;
-import com.jonasdurau.spectator.ui.broadcaster.MarketTick;
+import com.jonasdurau.spectator.integration.binance.BinanceStreamManager;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
 
 @Service
 public class MarketDataService {
 
     private static final Logger log = LoggerFactory.getLogger(MarketDataService.class);
 
-    // Como o Spectator é focado em Bitcoin, vamos deixar isso fixo por enquanto.
-    private static final String TARGET_SYMBOL = "BTCUSDT";
+    private static final String STRATEGY_TIMEFRAME = IndicatorService.STRATEGY_TIMEFRAME;
+    private static final String REGIME_TIMEFRAME = IndicatorService.REGIME_TIMEFRAME;
+
     private final CandleRepository candleRepository;
+    private final CandleBulkLoader candleBulkLoader;
+    private final CandleBufferRegistry candleBuffers;
+    private final CandleWriteBehindService candleWriter;
+    private final CandleArchiveService candleArchive;
+    private final CandleStoreService candleStore;
     private final BinanceRestClient restClient;
-    private final ObjectMapper objectMapper;
-    private final RegimeAnalyzerService regimeAnalyzerService;
-    private final MarketDataBroadcaster broadcaster;
-    private final PositionManagerService positionManagerService;
-    private final StrategyEngineService strategyEngineService;
+    private final BinanceStreamManager streamManager;
+    private final TickPipelineService tickPipeline;
+    private final PositionBook positionBook;
+
+    // Universo de símbolos acompanhados (ordenado para a UI); pode mudar em tempo de execução
+    private final NavigableSet<String> symbols = new ConcurrentSkipListSet<>();
+    private final List<String> configuredSymbols;
 
     public MarketDataService(CandleRepository candleRepository,
+            CandleBulkLoader candleBulkLoader,
+            CandleBufferRegistry candleBuffers,
+            CandleWriteBehindService candleWriter,
+            CandleArchiveService candleArchive,
+            CandleStoreService candleStore,
             BinanceRestClient restClient,
-            ObjectMapper objectMapper,
-            RegimeAnalyzerService regimeAnalyzerService,
-            MarketDataBroadcaster broadcaster,
-            PositionManagerService positionManagerService,
-            StrategyEngineService strategyEngineService) {
+            BinanceStreamManager streamManager,
+            TickPipelineService tickPipeline,
+            PositionBook positionBook,
+            @Value("${spectator.market.symbols:BTCUSDT}") List<String> configuredSymbols) {
         this.candleRepository = candleRepository;
+        this.candleBulkLoader = candleBulkLoader;
+        this.candleBuffers = candleBuffers;
+        this.candleWriter = candleWriter;
+        this.candleArchive = candleArchive;
+        this.candleStore = candleStore;
         this.restClient = restClient;
-        this.objectMapper = objectMapper;
-        this.regimeAnalyzerService = regimeAnalyzerService;
-        this.broadcaster = broadcaster;
-        this.positionManagerService = positionManagerService;
-        this.strategyEngineService = strategyEngineService;
+        this.streamManager = streamManager;
+        this.tickPipeline = tickPipeline;
+        this.positionBook = positionBook;
+        this.configuredSymbols = configuredSymbols;
     }
 
     /**
@@ -56,68 +76,104 @@ public class MarketDataService {
      */
     @EventListener(ApplicationReadyEvent.class)
     public void startSync() {
-        log.info("Spectator Engine Starting... Initializing Market Data Sync.");
+        log.info("Spectator Engine Starting... Initializing Market Data Sync for {}.", configuredSymbols);
 
-        // 1. Carga Inicial (Seed) via REST
-        seedHistoricalData("1h");
-        seedHistoricalData("4h");
+        // Posições abertas vão para a memória antes do primeiro tick; daqui em diante o tick não consulta o banco
+        positionBook.load();
 
-        // 2. Conecta no WebSocket para atualizações em tempo real
-        startRealtimeStream("1h");
-        startRealtimeStream("4h");
+        for (String symbol : configuredSymbols) {
+            if (!symbol.isBlank()) {
+                addSymbol(symbol);
+            }
+        }
     }
 
-    private void seedHistoricalData(String timeframe) {
-        Candle lastCandle = candleRepository.findTopBySymbolAndTimeframeOrderByTimeDesc(TARGET_SYMBOL, timeframe);
-
-        if (lastCandle == null) {
-            log.info("Database is empty for {} ({}). Fetching initial 1000 candles via REST...", TARGET_SYMBOL, timeframe);
-            List<Candle> history = restClient.fetchHistoricalCandles(TARGET_SYMBOL, timeframe, 1000);
-            // Usando nosso upsert otimizado para salvar a carga inicial
-            history.forEach(candleRepository::upsert);
-            log.info("Successfully saved {} historical candles to TimescaleDB.", history.size());
-        } else {
-            log.info("Database contains data for {}. Last candle time: {}", timeframe, lastCandle.getTime());
-            fillGap(timeframe, lastCandle.getTime());
+    /**
+     * Passa a acompanhar um símbolo: carga inicial/gap fill, buffers em memória e inscrição nos streams.
+     * Os sockets já abertos não são derrubados; a inscrição entra por SUBSCRIBE.
+     */
+    public void addSymbol(String rawSymbol) {
+        String symbol = rawSymbol.trim().toUpperCase(Locale.ROOT);
+        if (!symbols.add(symbol)) {
+            return;
         }
-    }
 
-    private void fillGap(String timeframe, java.time.Instant lastCandleTime) {
-        log.info("Checking for missing candles since {}...", lastCandleTime);
-        java.time.Instant currentTime = lastCandleTime;
-        java.time.Instant now = java.time.Instant.now();
-        int totalFetched = 0;
+        try {
+            // 1. Carga Inicial (Seed) via REST
+            seedHistoricalData(symbol, STRATEGY_TIMEFRAME);
+            seedHistoricalData(symbol, REGIME_TIMEFRAME);
+
+            // 2. Carrega os buffers em memória uma única vez; daqui em diante o stream os mantém
+            candleBuffers.seed(symbol, STRATEGY_TIMEFRAME);
+            candleBuffers.seed(symbol, REGIME_TIMEFRAME);
 
-        // Loop para paginar gaps que sejam maiores que 1000 candles
-        while (currentTime.isBefore(now)) {
-            List<Candle> batch = restClient.fetchHistoricalCandles(TARGET_SYMBOL, timeframe, 1000, currentTime);
+            // Arquivos colunares já exportados recebem o que o gap fill trouxe (em background)
+            candleArchive.catchUp(symbol, STRATEGY_TIMEFRAME);
+            candleArchive.catchUp(symbol, REGIME_TIMEFRAME);
 
-            if (batch.isEmpty()) {
-                break;
+            // Histórico completo comprimido em memória; entra antes da inscrição para não perder candles do stream
+            if (candleStore.isPreloadEnabled()) {
+                candleStore.loadHistory(symbol, STRATEGY_TIMEFRAME);
+                candleStore.loadHistory(symbol, REGIME_TIMEFRAME);
             }
+        } catch (RuntimeException e) {
+            // Sem histórico os indicadores não fazem sentido; deixa o símbolo de fora para tentar de novo depois
+            symbols.remove(symbol);
+            log.error("Failed to seed {}. Symbol will not be tracked.", symbol, e);
+            return;
+        }
 
-            // Salva o lote usando o upsert nativo (seguro para overlaps)
-            batch.forEach(candleRepository::upsert);
-            totalFetched += batch.size();
+        // 3. Inscreve nos combined streams para atualizações em tempo real
+        streamManager.subscribe(symbol, STRATEGY_TIMEFRAME, this::onKline, this::repairGap);
+        streamManager.subscribe(symbol, REGIME_TIMEFRAME, this::onKline, this::repairGap);
+    }
 
-            java.time.Instant lastFetchedTime = batch.get(batch.size() - 1).getTime();
+    /**
+     * Para de acompanhar um símbolo (UNSUBSCRIBE apenas dos streams dele).
+     */
+    public void removeSymbol(String rawSymbol) {
+        String symbol = rawSymbol.trim().toUpperCase(Locale.ROOT);
+        if (symbols.remove(symbol)) {
+            streamManager.unsubscribe(symbol, STRATEGY_TIMEFRAME);
+            streamManager.unsubscribe(symbol, REGIME_TIMEFRAME);
+            tickPipeline.removeSymbol(symbol);
+            log.info("Stopped tracking {}.", symbol);
+        }
+    }
 
-            // Se a API retornou apenas o próprio candle de início (sem velas novas), saímos
-            // do loop
-            if (lastFetchedTime.equals(currentTime) && batch.size() == 1) {
-                break;
-            }
+    public NavigableSet<String> getSymbols() {
+        return java.util.Collections.unmodifiableNavigableSet(symbols);
+    }
 
-            currentTime = lastFetchedTime;
+    /**
+     * Primeiro símbolo da configuração, usado como padrão pela UI (mesmo antes da carga inicial terminar).
+     */
+    public String getDefaultSymbol() {
+        return configuredSymbols.isEmpty() ? "BTCUSDT" : configuredSymbols.get(0).trim().toUpperCase(Locale.ROOT);
+    }
 
-            // Pausa de 100ms para evitar banimento (Rate Limit) da Binance caso o loop rode
-            // muitas vezes
-            try {
-                Thread.sleep(100);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
+    private void seedHistoricalData(String symbol, String timeframe) {
+        Candle lastCandle = candleRepository.findTopBySymbolAndTimeframeOrderByTimeDesc(symbol, timeframe);
+
+        if (lastCandle == null) {
+            log.info("Database is empty for {} ({}). Fetching initial 1000 candles via REST...", symbol, timeframe);
+            List<Candle> history = restClient.fetchHistoricalCandles(symbol, timeframe, 1000);
+            // COPY binário + merge: um round trip para o lote inteiro
+            candleBulkLoader.load(history);
+            log.info("Successfully saved {} historical candles to TimescaleDB.", history.size());
+        } else {
+            log.info("Database contains data for {} {}. Last candle time: {}", symbol, timeframe, lastCandle.getTime());
+            fillGap(symbol, timeframe, lastCandle.getTime());
         }
+    }
+
+    private void fillGap(String symbol, String timeframe, java.time.Instant lastCandleTime) {
+        log.info("Checking for missing {} {} candles since {}...", symbol, timeframe, lastCandleTime);
+
+        // Faixas baixadas em paralelo e respeitando o peso da Binance; os lotes chegam em ordem
+        // e são gravados via COPY + merge (o ON CONFLICT mantém o overlap seguro)
+        int totalFetched = restClient.backfill(symbol, timeframe, lastCandleTime, java.time.Instant.now(),
+                candleBulkLoader::load);
 
         // Se totalFetched > 1 é porque baixamos mais coisas além do candle de overlap
         if (totalFetched > 1) {
@@ -127,46 +183,58 @@ public class MarketDataService {
         }
     }
 
-    private void startRealtimeStream(String timeframe) {
-        log.info("Opening WebSocket stream for {} timeframe...", timeframe);
-
-        new BinanceWebSocketClient(objectMapper, incomingCandle -> {
-            // 1. Salva o tick atual no banco
-            candleRepository.upsert(incomingCandle);
-
-            if ("1h".equals(timeframe)) {
-                // 2. Busca histórico do 1H para as Estratégias
-                List<Candle> recent1h = candleRepository.findLastCandles(TARGET_SYMBOL, "1h", 250);
-                Collections.reverse(recent1h);
-
-                // 3. Busca histórico do 4H para o Regime Macro
-                List<Candle> recent4h = candleRepository.findLastCandles(TARGET_SYMBOL, "4h", 250);
-                Collections.reverse(recent4h);
-
-                // 4. Analisa o regime de mercado macro
-                MarketRegime currentRegime = MarketRegime.SIDEWAYS;
-                if (recent4h.size() > 50) {
-                    currentRegime = regimeAnalyzerService.analyze(recent4h);
-                }
-
-            log.info("Tick: {} | Price: {} | 4H Regime: {}", incomingCandle.getSymbol(), incomingCandle.getClose(),
-                    currentRegime);
+    /**
+     * Chamado depois que um socket reconecta, antes das klines ao vivo voltarem a chegar.
+     * Busca via REST tudo desde o último candle em memória e aplica nos buffers e no write-behind
+     * (que substitui qualquer revisão intrabar antiga ainda pendente do mesmo candle).
+     */
+    private void repairGap(String symbol, String timeframe) {
+        CandleWindow last = candleBuffers.window(symbol, timeframe, 1);
+        java.time.Instant from;
+        if (!last.isEmpty()) {
+            from = java.time.Instant.ofEpochMilli(last.time(0));
+        } else {
+            Candle lastStored = candleRepository.findTopBySymbolAndTimeframeOrderByTimeDesc(symbol, timeframe);
+            if (lastStored == null) {
+                return;
+            }
+            from = lastStored.getTime();
+        }
 
-            // 5. Avalia posições ativas para SL/TP
-            positionManagerService.evaluateLiveTick(TARGET_SYMBOL, incomingCandle.getClose());
+        int repaired = restClient.backfill(symbol, timeframe, from, java.time.Instant.now(), batch -> {
+            for (Candle candle : batch) {
+                candleWriter.submit(candle, false);
+                candleBuffers.update(candle);
+            }
+            candleArchive.append(batch);
+            candleStore.append(batch);
+        });
+        candleWriter.requestFlush();
+        log.info("Repaired {} {} gap since {} with {} candles.", symbol, timeframe, from, repaired);
+    }
 
-            // 6. Strategy processing repassando os candles de 1h puros
-            strategyEngineService.processTick(TARGET_SYMBOL, incomingCandle.getClose(), currentRegime, recent1h);
+    /**
+     * Estágio de ingestão, na thread do socket: recebe as klines de todos os símbolos e timeframes já roteadas pelo
+     * {@link BinanceStreamManager}, faz só trabalho em memória e repassa ao {@link TickPipelineService}.
+     */
+    private void onKline(Candle incomingCandle, boolean closed) {
+        // Enfileira o tick para o write-behind (coalescido por candle) e atualiza o buffer em memória
+        candleWriter.submit(incomingCandle, closed);
+        candleBuffers.update(incomingCandle);
+        if (closed) {
+            // Só o valor final vai para o arquivo colunar; as revisões intrabar ficam no banco
+            List<Candle> closedCandle = List.of(incomingCandle);
+            candleArchive.append(closedCandle);
+            candleStore.append(closedCandle);
+        }
 
-            // 7. Get open positions to stream to the UI
-            List<com.jonasdurau.spectator.core.domain.Position> openPositions = positionManagerService
-                    .getOpenPositions(TARGET_SYMBOL);
+        if (!STRATEGY_TIMEFRAME.equals(incomingCandle.getTimeframe())) {
+            log.debug("Saved {} tick: {} | Price: {}", incomingCandle.getTimeframe(), incomingCandle.getSymbol(),
+                    incomingCandle.getClose());
+            return;
+        }
 
-                // Dispara a atualização para qualquer tela do Vaadin que estiver aberta
-                broadcaster.broadcast(new MarketTick(incomingCandle, currentRegime, openPositions));
-            } else {
-                log.info("Saved 4H tick: {} | Price: {}", incomingCandle.getSymbol(), incomingCandle.getClose());
-            }
-        }).connect(TARGET_SYMBOL, timeframe);
+        // Indicadores, regime, estratégias e UI rodam nos estágios do pipeline
+        tickPipeline.submit(incomingCandle);
     }
-}
\ No newline at end of file
+}
@@ -1,19 +1,30 @@
 package com.jonasdurau.spectator.core.service;
 
 import com.jonasdurau.spectator.core.domain.Position;
-import com.jonasdurau.spectator.core.domain.PositionStatus;
+import com.jonasdurau.spectator.core.domain.PositionSnapshot;
 import com.jonasdurau.spectator.core.domain.Trade;
 import com.jonasdurau.spectator.core.domain.TradeSide;
+import com.jonasdurau.spectator.core.position.PositionBook;
+import com.jonasdurau.spectator.core.position.TriggerKind;
 import com.jonasdurau.spectator.core.repository.PositionRepository;
 import com.jonasdurau.spectator.core.repository.TradeRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.Instant;
 import java.util.List;
 
+/**
+ * Abre e fecha posições. O {@link PositionBook} é a fonte da verdade no caminho do tick; cada mudança é gravada
+ * no banco (write-through) antes de entrar no livro, então o que está em memória sempre já foi persistido.
+ *
+ * Chamado pelo ator do símbolo (ver {@link TickPipelineService}), que garante uma mudança por vez por símbolo.
+ */
 @Service
 public class PositionManagerService {
 
@@ -21,10 +32,15 @@ public class PositionManagerService {
 
     private final PositionRepository positionRepository;
     private final TradeRepository tradeRepository;
+    private final PositionBook positionBook;
+    private final TransactionOperations transactionOperations;
 
-    public PositionManagerService(PositionRepository positionRepository, TradeRepository tradeRepository) {
+    public PositionManagerService(PositionRepository positionRepository, TradeRepository tradeRepository,
+            PositionBook positionBook, TransactionOperations transactionOperations) {
         this.positionRepository = positionRepository;
         this.tradeRepository = tradeRepository;
+        this.positionBook = positionBook;
+        this.transactionOperations = transactionOperations;
     }
 
     @Transactional
@@ -39,6 +55,8 @@ public class PositionManagerService {
         position = positionRepository.save(position);
         tradeRepository.save(trade);
 
+        Position opened = position;
+        afterCommit(() -> positionBook.add(opened));
         return position;
     }
 
@@ -55,48 +73,78 @@ public class PositionManagerService {
 
         positionRepository.save(position);
         tradeRepository.save(trade);
+
+        afterCommit(() -> positionBook.remove(position));
         log.info("Position closed. Realized PnL: {}", position.getRealizedPnl());
     }
 
-    @Transactional
+    /**
+     * Confere SL/TP das posições abertas do símbolo no índice de gatilhos em memória: só os gatilhos cruzados
+     * por este preço são visitados, e só vai ao banco para fechar.
+     */
     public void evaluateLiveTick(String symbol, double currentPrice) {
-        List<Position> openPositions = positionRepository.findBySymbolAndStatus(symbol, PositionStatus.OPEN);
-
-        for (Position position : openPositions) {
-            double pnl = position.calculateFloatingPnl(currentPrice);
-
-            // Checking Stop Loss
-            if (position.getStopLoss() != null) {
-                if (position.getSide() == TradeSide.LONG && currentPrice <= position.getStopLoss()) {
-                    log.warn("Stop Loss hit for LONG position on {}! Closing at {}. Floating PnL was: {}", symbol,
-                            currentPrice, pnl);
-                    closePosition(position, currentPrice);
-                    continue;
-                } else if (position.getSide() == TradeSide.SHORT && currentPrice >= position.getStopLoss()) {
-                    log.warn("Stop Loss hit for SHORT position on {}! Closing at {}. Floating PnL was: {}", symbol,
-                            currentPrice, pnl);
-                    closePosition(position, currentPrice);
-                    continue;
-                }
+        positionBook.onPrice(symbol, currentPrice, (position, kind, level, price) -> {
+            double pnl = position.calculateFloatingPnl(price);
+            if (kind == TriggerKind.TAKE_PROFIT) {
+                log.info("Take Profit hit for {} position on {}! Closing at {}. Floating PnL was: {}",
+                        position.getSide(), symbol, price, pnl);
+            } else {
+                log.warn("{} hit for {} position on {} (level {})! Closing at {}. Floating PnL was: {}",
+                        kind == TriggerKind.STOP_LOSS ? "Stop Loss" : "Trailing Stop", position.getSide(), symbol,
+                        level, price, pnl);
             }
 
-            // Checking Take Profit
-            if (position.getTakeProfit() != null) {
-                if (position.getSide() == TradeSide.LONG && currentPrice >= position.getTakeProfit()) {
-                    log.info("Take Profit hit for LONG position on {}! Closing at {}. Floating PnL was: {}", symbol,
-                            currentPrice, pnl);
-                    closePosition(position, currentPrice);
-                } else if (position.getSide() == TradeSide.SHORT && currentPrice <= position.getTakeProfit()) {
-                    log.info("Take Profit hit for SHORT position on {}! Closing at {}. Floating PnL was: {}", symbol,
-                            currentPrice, pnl);
-                    closePosition(position, currentPrice);
-                }
+            int trades = position.getTrades().size();
+            try {
+                // Chamado daqui mesmo, o @Transactional de closePosition não passaria pelo proxy
+                transactionOperations.executeWithoutResult(status -> closePosition(position, price));
+            } catch (RuntimeException e) {
+                // A posição continua aberta no banco; o objeto do livro já tinha sido fechado e volta a ficar aberto
+                reopen(position, trades);
+                log.error("Failed to close {} position {} on {}. Re-arming its triggers.",
+                        position.getSide(), position.getId(), symbol, e);
+                positionBook.rearm(position);
             }
+        });
+    }
+
+    public boolean hasOpenPositions(String symbol) {
+        return positionBook.hasOpenPositions(symbol);
+    }
+
+    /**
+     * Posições abertas do símbolo como snapshots imutáveis, sem consulta ao banco.
+     */
+    public List<PositionSnapshot> getOpenPositions(String symbol) {
+        return positionBook.snapshot(symbol);
+    }
+
+    /**
+     * Desfaz no objeto em memória um {@link #closePosition} que não chegou ao banco: tira o trade de saída e
+     * reabre a posição, para que a próxima tentativa não acumule um segundo trade de saída.
+     */
+    private static void reopen(Position position, int tradeCount) {
+        List<Trade> trades = position.getTrades();
+        for (Trade exit : List.copyOf(trades.subList(tradeCount, trades.size()))) {
+            position.removeTrade(exit);
         }
+        position.reopen();
     }
 
-    @Transactional(readOnly = true)
-    public List<Position> getOpenPositions(String symbol) {
-        return positionRepository.findBySymbolAndStatus(symbol, PositionStatus.OPEN);
+    /**
+     * O livro só muda depois que o banco confirmou: um rollback nunca deixa uma posição fantasma em memória.
+     * Fora de transação, os saves já foram confirmados.
+     */
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
     }
 }
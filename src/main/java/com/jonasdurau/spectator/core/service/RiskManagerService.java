@@ -10,10 +10,10 @@ public class RiskManagerService {
     private static final Logger log = LoggerFactory.getLogger(RiskManagerService.class);
 
     // Hardcoded for now until we have a proper Portfolio module
-    private static final double MOCK_ACCOUNT_EQUITY = 10000.0;
+    public static final double MOCK_ACCOUNT_EQUITY = 10000.0;
     
     // As per the manual: Risk per trade is 0.5% to 1.0%. Let's default to 1.0%
-    private static final double DEFAULT_RISK_PERCENTAGE = 0.01; 
+    public static final double DEFAULT_RISK_PERCENTAGE = 0.01;
 
     /**
      * Calculates the position size based on the Stop Loss distance.
@@ -37,7 +37,7 @@ public class RiskManagerService {
         }
 
         double positionSize = maxLossFait / stopDistance;
-        log.info("Risk Manager: Equity=${}, Risk={}, SL Dist=${}. Computed Position Size={}", 
+        log.debug("Risk Manager: Equity=${}, Risk={}, SL Dist=${}. Computed Position Size={}", 
                 accountEquity, riskPercentage, stopDistance, positionSize);
                 
         return positionSize;
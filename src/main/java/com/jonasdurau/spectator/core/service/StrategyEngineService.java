@@ -1,10 +1,7 @@
 package com.jonasdurau.spectator.core.service;
 
-import com.jonasdurau.spectator.core.domain.Candle;
 import com.jonasdurau.spectator.core.domain.MarketRegime;
-import com.jonasdurau.spectator.core.domain.Position;
-import com.jonasdurau.spectator.core.domain.PositionStatus;
-import com.jonasdurau.spectator.core.repository.PositionRepository;
+import com.jonasdurau.spectator.core.indicator.IndicatorContext;
 import com.jonasdurau.spectator.core.strategy.TradeSignal;
 import com.jonasdurau.spectator.core.strategy.TradingStrategy;
 import org.slf4j.Logger;
@@ -19,27 +16,25 @@ public class StrategyEngineService {
     private static final Logger log = LoggerFactory.getLogger(StrategyEngineService.class);
 
     private final OrderExecutionService orderExecutionService;
-    private final PositionRepository positionRepository;
+    private final PositionManagerService positionManagerService;
     private final List<TradingStrategy> strategies;
 
     public StrategyEngineService(OrderExecutionService orderExecutionService, 
-                                 PositionRepository positionRepository,
+                                 PositionManagerService positionManagerService,
                                  List<TradingStrategy> strategies) {
         this.orderExecutionService = orderExecutionService;
-        this.positionRepository = positionRepository;
+        this.positionManagerService = positionManagerService;
         this.strategies = strategies;
     }
 
-    public void processTick(String symbol, double currentPrice, MarketRegime regime, List<Candle> recent1hCandles) {
-        List<Position> openPositions = positionRepository.findBySymbolAndStatus(symbol, PositionStatus.OPEN);
-
+    public void processTick(String symbol, double currentPrice, MarketRegime regime, IndicatorContext indicators1h) {
         // Simples anti-martingale: 1 posição por vez no painel global
-        if (!openPositions.isEmpty()) {
+        if (positionManagerService.hasOpenPositions(symbol)) {
             return;
         }
 
         for (TradingStrategy strategy : strategies) {
-            TradeSignal signal = strategy.evaluate(recent1hCandles, regime, currentPrice);
+            TradeSignal signal = strategy.evaluate(indicators1h, regime, currentPrice);
             
             if (signal.fire()) {
                 log.info("Strategy [{}] fired {} signal! Executing...", strategy.getName(), signal.side());
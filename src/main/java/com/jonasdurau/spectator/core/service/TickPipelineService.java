@@ -0,0 +1,167 @@
+package com.jonasdurau.spectator.core.service;
+
+import com.jonasdurau.spectator.core.buffer.CandleBufferRegistry;
+import com.jonasdurau.spectator.core.buffer.CandleWindow;
+import com.jonasdurau.spectator.core.domain.Candle;
+import com.jonasdurau.spectator.core.domain.MarketRegime;
+import com.jonasdurau.spectator.core.domain.PositionSnapshot;
+import com.jonasdurau.spectator.core.indicator.ChartOverlay;
+import com.jonasdurau.spectator.core.indicator.IndicatorContext;
+import com.jonasdurau.spectator.core.pipeline.ConflatingStage;
+import com.jonasdurau.spectator.core.pipeline.SymbolActor;
+import com.jonasdurau.spectator.core.strategy.RegimeAnalyzerService;
+import com.jonasdurau.spectator.ui.broadcaster.MarketDataBroadcaster;
+import com.jonasdurau.spectator.ui.broadcaster.MarketTick;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pipeline dos ticks do timeframe das estratégias, em estágios separados:
+ * <ol>
+ *   <li><b>ingest</b> (thread do socket, em {@link MarketDataService}): write-behind e buffer em memória, depois {@link #submit};</li>
+ *   <li><b>ator do símbolo</b> ({@link SymbolActor}): indicadores do 1h e do 4h, regime macro, SL/TP e estratégias;</li>
+ *   <li><b>publish</b>: envio para as telas, com os overlays do gráfico montados no ator a partir dos mesmos
+ *   indicadores ({@link ChartOverlayService}).</li>
+ * </ol>
+ * Cada símbolo tem um único ator (virtual thread com caixa de entrada própria) que executa todas as transições de
+ * estado daquele símbolo em ordem: SL/TP e abertura de posição nunca correm em paralelo, então dois ticks não
+ * conseguem ver "nenhuma posição aberta" ao mesmo tempo. Símbolos diferentes rodam em paralelo, escalando com o
+ * número de núcleos.
+ *
+ * A caixa de entrada do ator conflaciona os ticks por timeframe: se o ator está ocupado, um tick novo substitui
+ * o pendente em vez de enfileirar, então o socket nunca espera por banco, estratégia ou UI. O publish também
+ * conflaciona (por símbolo), já que a tela só precisa do estado mais recente.
+ *
+ * Como o buffer é atualizado na ingestão, a conflação nunca perde o fechamento de um candle: o ator sempre
+ * lê a janela completa, só pula avaliações intermediárias de preço.
+ */
+@Service
+public class TickPipelineService {
+
+    private static final Logger log = LoggerFactory.getLogger(TickPipelineService.class);
+
+    private static final String STRATEGY_TIMEFRAME = IndicatorService.STRATEGY_TIMEFRAME;
+    private static final String REGIME_TIMEFRAME = IndicatorService.REGIME_TIMEFRAME;
+
+    // Tamanho da janela lida pelas estratégias e pelo analisador de regime
+    public static final int ANALYSIS_WINDOW = 250;
+
+    private final CandleBufferRegistry candleBuffers;
+    private final IndicatorService indicatorService;
+    private final RegimeAnalyzerService regimeAnalyzerService;
+    private final PositionManagerService positionManagerService;
+    private final StrategyEngineService strategyEngineService;
+    private final ChartOverlayService chartOverlayService;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, SymbolActor> actors = new ConcurrentHashMap<>();
+    private final ConflatingStage<String, MarketTick> publish;
+
+    public TickPipelineService(CandleBufferRegistry candleBuffers,
+            IndicatorService indicatorService,
+            RegimeAnalyzerService regimeAnalyzerService,
+            PositionManagerService positionManagerService,
+            StrategyEngineService strategyEngineService,
+            ChartOverlayService chartOverlayService,
+            MarketDataBroadcaster broadcaster,
+            MeterRegistry meterRegistry) {
+        this.candleBuffers = candleBuffers;
+        this.indicatorService = indicatorService;
+        this.regimeAnalyzerService = regimeAnalyzerService;
+        this.positionManagerService = positionManagerService;
+        this.strategyEngineService = strategyEngineService;
+        this.chartOverlayService = chartOverlayService;
+        this.meterRegistry = meterRegistry;
+
+        this.publish = new ConflatingStage<>("publish", broadcaster::broadcast, meterRegistry);
+        publish.start();
+    }
+
+    /**
+     * Entrega um tick já aplicado no buffer ao ator do símbolo. Nunca bloqueia.
+     */
+    public void submit(Candle candle) {
+        actor(candle.getSymbol()).tellLatest(candle.getTimeframe(), () -> process(candle));
+    }
+
+    /**
+     * Encerra o ator de um símbolo que deixou de ser acompanhado (o que estiver na caixa de entrada é descartado).
+     */
+    public void removeSymbol(String symbol) {
+        SymbolActor actor = actors.remove(symbol);
+        if (actor != null) {
+            actor.stop();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Os atores param de produzir antes do publish parar de consumir
+        actors.values().forEach(SymbolActor::stop);
+        actors.clear();
+        publish.stop();
+    }
+
+    private SymbolActor actor(String symbol) {
+        return actors.computeIfAbsent(symbol, s -> new SymbolActor(s, meterRegistry));
+    }
+
+    /**
+     * Roda na thread do ator do símbolo.
+     */
+    private void process(Candle candle) {
+        Analysis analysis = analyze(candle);
+        execute(analysis);
+    }
+
+    /**
+     * Resultado da análise de um tick, consumido pela execução.
+     */
+    private record Analysis(Candle candle, MarketRegime regime, IndicatorContext indicators1h,
+            IndicatorContext indicators4h) {
+    }
+
+    private Analysis analyze(Candle candle) {
+        String symbol = candle.getSymbol();
+
+        // Indicadores do 1H para as Estratégias, calculados uma vez e compartilhados
+        CandleWindow recent1h = candleBuffers.window(symbol, STRATEGY_TIMEFRAME, ANALYSIS_WINDOW);
+        IndicatorContext indicators1h = indicatorService.compute(recent1h);
+
+        // Indicadores do 4H para o Regime Macro
+        CandleWindow recent4h = candleBuffers.window(symbol, REGIME_TIMEFRAME, ANALYSIS_WINDOW);
+        IndicatorContext indicators4h = indicatorService.compute(recent4h);
+
+        MarketRegime currentRegime = MarketRegime.SIDEWAYS;
+        if (indicators4h.getBarCount() > 50) {
+            currentRegime = regimeAnalyzerService.analyze(indicators4h);
+        }
+
+        log.debug("Tick: {} | Price: {} | 4H Regime: {}", symbol, candle.getClose(), currentRegime);
+        return new Analysis(candle, currentRegime, indicators1h, indicators4h);
+    }
+
+    private void execute(Analysis analysis) {
+        String symbol = analysis.candle().getSymbol();
+        double price = analysis.candle().getClose();
+
+        // Avalia posições ativas para SL/TP
+        positionManagerService.evaluateLiveTick(symbol, price);
+
+        // Strategy processing repassando o contexto de indicadores do 1h
+        strategyEngineService.processTick(symbol, price, analysis.regime(), analysis.indicators1h());
+
+        List<PositionSnapshot> openPositions = positionManagerService.getOpenPositions(symbol);
+        // Uma vez por tick e por símbolo, com os valores que as estratégias acabaram de ler
+        ChartOverlay overlay = chartOverlayService.live(analysis.indicators1h(), analysis.indicators4h(),
+                analysis.regime());
+        publish.offer(symbol, new MarketTick(analysis.candle(), analysis.regime(), openPositions, overlay));
+    }
+}
@@ -0,0 +1,50 @@
+package com.jonasdurau.spectator.core.store;
+
+/**
+ * Leitura sequencial dos bits gravados por {@link BitOutput}.
+ */
+final class BitInput {
+
+    private final long[] words;
+    private long position;
+
+    BitInput(long[] words) {
+        this.words = words;
+    }
+
+    /**
+     * Lê {@code bits} bits (0 a 64) como inteiro sem sinal.
+     */
+    long read(int bits) {
+        if (bits == 0) {
+            return 0;
+        }
+        int index = (int) (position >>> 6);
+        int used = (int) (position & 63);
+        long value = words[index] << used;
+        if (used + bits > 64) {
+            value |= words[index + 1] >>> (64 - used);
+        }
+        position += bits;
+        return bits == 64 ? value : value >>> (64 - bits);
+    }
+
+    boolean readBit() {
+        int index = (int) (position >>> 6);
+        int used = (int) (position & 63);
+        position++;
+        return (words[index] << used) < 0;
+    }
+
+    long readVarLong() {
+        long value = 0;
+        int shift = 0;
+        long group;
+        do {
+            group = read(8);
+            value |= (group & 0x7F) << shift;
+            shift += 7;
+        } while ((group & 0x80) != 0);
+        return value;
+    }
+}
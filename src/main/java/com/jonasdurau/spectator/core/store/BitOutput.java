@@ -0,0 +1,64 @@
+package com.jonasdurau.spectator.core.store;
+
+import java.util.Arrays;
+
+/**
+ * Escrita de bits (do mais significativo para o menos) num {@code long[]} que cresce sob demanda.
+ */
+final class BitOutput {
+
+    private long[] words;
+    private long position;
+
+    BitOutput(int initialWords) {
+        words = new long[Math.max(1, initialWords)];
+    }
+
+    /**
+     * Escreve os {@code bits} menos significativos de {@code value} (0 a 64).
+     */
+    void write(long value, int bits) {
+        if (bits == 0) {
+            return;
+        }
+        if (bits < 64) {
+            value &= (1L << bits) - 1;
+        }
+        int index = (int) (position >>> 6);
+        int used = (int) (position & 63);
+        ensure(index + 1);
+        int free = 64 - used;
+        if (bits <= free) {
+            words[index] |= value << (free - bits);
+        } else {
+            int spill = bits - free;
+            words[index] |= value >>> spill;
+            words[index + 1] = value << (64 - spill);
+        }
+        position += bits;
+    }
+
+    /**
+     * Inteiro não negativo em grupos de 7 bits, cada um precedido por um bit de continuação.
+     */
+    void writeVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            write(0x80 | (value & 0x7F), 8);
+            value >>>= 7;
+        }
+        write(value, 8);
+    }
+
+    /**
+     * Cópia exata das palavras usadas.
+     */
+    long[] toArray() {
+        return Arrays.copyOf(words, (int) ((position + 63) >>> 6));
+    }
+
+    private void ensure(int wordsNeeded) {
+        if (wordsNeeded >= words.length) {
+            words = Arrays.copyOf(words, Math.max(words.length * 2, wordsNeeded + 1));
+        }
+    }
+}
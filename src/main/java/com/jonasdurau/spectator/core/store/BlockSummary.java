@@ -0,0 +1,22 @@
+package com.jonasdurau.spectator.core.store;
+
+/**
+ * Resumo de um bloco do {@link CompressedCandleStore}, consultável sem decodificar o bloco:
+ * permite pular blocos fora do período ou que nunca tocaram um nível de preço.
+ *
+ * @param firstTime horário de abertura do primeiro candle (epoch ms)
+ * @param lastTime  horário de abertura do último candle (epoch ms)
+ * @param count     quantidade de candles
+ * @param minLow    menor mínima do bloco
+ * @param maxHigh   maior máxima do bloco
+ */
+public record BlockSummary(long firstTime, long lastTime, int count, double minLow, double maxHigh) {
+
+    public boolean overlaps(long fromMs, long toMs) {
+        return lastTime >= fromMs && firstTime <= toMs;
+    }
+
+    public boolean touches(double price) {
+        return minLow <= price && price <= maxHigh;
+    }
+}
@@ -0,0 +1,319 @@
+package com.jonasdurau.spectator.core.store;
+
+/**
+ * Codificação de um bloco de candles num fluxo de bits, candle a candle (o decode é uma única passada):
+ * <ul>
+ *   <li>horário: delta-of-delta com os baldes do Gorilla ({@code 0}, {@code 10}+7, {@code 110}+9,
+ *   {@code 1110}+12, {@code 1111}+64 bits). Candles contíguos custam 1 bit;</li>
+ *   <li>preços decimais (o caso da corretora, com tick fixo): inteiros na escala do bloco, em diferenças pequenas
+ *   — abertura contra o fechamento anterior, fechamento contra a abertura, máxima e mínima contra o corpo —
+ *   cada uma com 1 bit se zero ou 1 + 6 bits de tamanho + os bits do valor em zigzag;</li>
+ *   <li>preços sem escala exata: XOR com o valor anterior da mesma coluna (a abertura contra o fechamento
+ *   anterior) no esquema do Gorilla: {@code 0} se igual, {@code 10} + bits significativos na janela anterior,
+ *   {@code 11} + 5 bits de zeros à esquerda + 6 bits de tamanho + bits significativos;</li>
+ *   <li>volume: varint do volume na escala do bloco, ou os 64 bits do double se não houver escala exata.</li>
+ * </ul>
+ * A escala é a menor potência de 10 (até {@link #MAX_DECIMALS} casas) que torna todos os valores da coluna no
+ * bloco inteiros exatos. Sem perda: o decode devolve exatamente os mesmos doubles.
+ *
+ * O XOR do Gorilla foi pensado para séries de ponto flutuante que mudam pouco; em preços com 2 a 8 casas a mantissa
+ * muda quase inteira a cada candle e ele sozinho não passa de ~2x sobre os doubles crus, daí o caminho decimal.
+ */
+final class CandleBlockCodec {
+
+    static final int MAX_DECIMALS = 8;
+    static final int NO_SCALE = -1;
+
+    private static final double[] POW10 = {1, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8};
+    // Maior inteiro representável exatamente num double
+    private static final double MAX_EXACT = 9.007199254740992E15;
+
+    private CandleBlockCodec() {
+    }
+
+    /**
+     * Menor quantidade de casas decimais que representa exatamente todos os valores das colunas no intervalo, ou
+     * {@link #NO_SCALE}.
+     */
+    static int decimals(int from, int count, double[]... columns) {
+        for (int decimals = 0; decimals <= MAX_DECIMALS; decimals++) {
+            boolean exact = true;
+            for (int c = 0; c < columns.length && exact; c++) {
+                exact = exactAt(columns[c], from, count, decimals);
+            }
+            if (exact) {
+                return decimals;
+            }
+        }
+        return NO_SCALE;
+    }
+
+    static long[] encode(long[] time, double[] open, double[] high, double[] low, double[] close, double[] volume,
+            int from, int count, int priceDecimals, int volumeDecimals) {
+        BitOutput out = new BitOutput(count * 2);
+        encodeTime(out, time, from, count);
+        if (priceDecimals == NO_SCALE) {
+            encodeXorPrices(out, open, high, low, close, from, count);
+        } else {
+            encodeDecimalPrices(out, open, high, low, close, from, count, POW10[priceDecimals]);
+        }
+        for (int i = from; i < from + count; i++) {
+            if (volumeDecimals == NO_SCALE) {
+                out.write(Double.doubleToRawLongBits(volume[i]), 64);
+            } else {
+                out.writeVarLong(Math.round(volume[i] * POW10[volumeDecimals]));
+            }
+        }
+        return out.toArray();
+    }
+
+    /**
+     * Decodifica os {@code count} candles do bloco a partir de {@code offset} nos arrays de destino.
+     */
+    static void decode(long[] bits, int count, int priceDecimals, int volumeDecimals, long[] time, double[] open,
+            double[] high, double[] low, double[] close, double[] volume, int offset) {
+        BitInput in = new BitInput(bits);
+        decodeTime(in, time, offset, count);
+        if (priceDecimals == NO_SCALE) {
+            decodeXorPrices(in, open, high, low, close, offset, count);
+        } else {
+            decodeDecimalPrices(in, open, high, low, close, offset, count, POW10[priceDecimals]);
+        }
+        if (volumeDecimals == NO_SCALE) {
+            for (int i = offset; i < offset + count; i++) {
+                volume[i] = Double.longBitsToDouble(in.read(64));
+            }
+        } else {
+            double scale = POW10[volumeDecimals];
+            for (int i = offset; i < offset + count; i++) {
+                volume[i] = in.readVarLong() / scale;
+            }
+        }
+    }
+
+    private static void encodeTime(BitOutput out, long[] time, int from, int count) {
+        long previousTime = 0;
+        long previousDelta = 0;
+        for (int i = from; i < from + count; i++) {
+            long delta = time[i] - previousTime;
+            writeDeltaOfDelta(out, delta - previousDelta);
+            previousTime = time[i];
+            previousDelta = delta;
+        }
+    }
+
+    private static void decodeTime(BitInput in, long[] time, int offset, int count) {
+        long previousTime = 0;
+        long previousDelta = 0;
+        for (int i = offset; i < offset + count; i++) {
+            long delta = previousDelta + readDeltaOfDelta(in);
+            previousTime += delta;
+            previousDelta = delta;
+            time[i] = previousTime;
+        }
+    }
+
+    private static void encodeDecimalPrices(BitOutput out, double[] open, double[] high, double[] low,
+            double[] close, int from, int count, double scale) {
+        long previousClose = 0;
+        for (int i = from; i < from + count; i++) {
+            long o = Math.round(open[i] * scale);
+            long h = Math.round(high[i] * scale);
+            long l = Math.round(low[i] * scale);
+            long c = Math.round(close[i] * scale);
+            writeSigned(out, o - previousClose);
+            writeSigned(out, c - o);
+            writeSigned(out, h - Math.max(o, c));
+            writeSigned(out, Math.min(o, c) - l);
+            previousClose = c;
+        }
+    }
+
+    private static void decodeDecimalPrices(BitInput in, double[] open, double[] high, double[] low, double[] close,
+            int offset, int count, double scale) {
+        long previousClose = 0;
+        for (int i = offset; i < offset + count; i++) {
+            long o = previousClose + readSigned(in);
+            long c = o + readSigned(in);
+            long h = Math.max(o, c) + readSigned(in);
+            long l = Math.min(o, c) - readSigned(in);
+            open[i] = o / scale;
+            high[i] = h / scale;
+            low[i] = l / scale;
+            close[i] = c / scale;
+            previousClose = c;
+        }
+    }
+
+    private static void encodeXorPrices(BitOutput out, double[] open, double[] high, double[] low, double[] close,
+            int from, int count) {
+        XorState openState = new XorState();
+        XorState highState = new XorState();
+        XorState lowState = new XorState();
+        XorState closeState = new XorState();
+
+        long previousHigh = 0;
+        long previousLow = 0;
+        long previousClose = 0;
+        for (int i = from; i < from + count; i++) {
+            long openBits = Double.doubleToRawLongBits(open[i]);
+            long highBits = Double.doubleToRawLongBits(high[i]);
+            long lowBits = Double.doubleToRawLongBits(low[i]);
+            long closeBits = Double.doubleToRawLongBits(close[i]);
+            openState.write(out, openBits ^ previousClose);
+            highState.write(out, highBits ^ previousHigh);
+            lowState.write(out, lowBits ^ previousLow);
+            closeState.write(out, closeBits ^ previousClose);
+            previousHigh = highBits;
+            previousLow = lowBits;
+            previousClose = closeBits;
+        }
+    }
+
+    private static void decodeXorPrices(BitInput in, double[] open, double[] high, double[] low, double[] close,
+            int offset, int count) {
+        XorState openState = new XorState();
+        XorState highState = new XorState();
+        XorState lowState = new XorState();
+        XorState closeState = new XorState();
+
+        long previousHigh = 0;
+        long previousLow = 0;
+        long previousClose = 0;
+        for (int i = offset; i < offset + count; i++) {
+            long openBits = openState.read(in) ^ previousClose;
+            long highBits = highState.read(in) ^ previousHigh;
+            long lowBits = lowState.read(in) ^ previousLow;
+            long closeBits = closeState.read(in) ^ previousClose;
+            open[i] = Double.longBitsToDouble(openBits);
+            high[i] = Double.longBitsToDouble(highBits);
+            low[i] = Double.longBitsToDouble(lowBits);
+            close[i] = Double.longBitsToDouble(closeBits);
+            previousHigh = highBits;
+            previousLow = lowBits;
+            previousClose = closeBits;
+        }
+    }
+
+    private static boolean exactAt(double[] volume, int from, int count, int decimals) {
+        double scale = POW10[decimals];
+        for (int i = from; i < from + count; i++) {
+            double scaled = volume[i] * scale;
+            if (!(scaled >= 0 && scaled <= MAX_EXACT) || Math.round(scaled) / scale != volume[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Zigzag com prefixo de tamanho: {@code 0} se zero, senão {@code 1} + 6 bits de (tamanho - 1) + o valor sem o
+     * bit mais alto, que é sempre 1.
+     */
+    private static void writeSigned(BitOutput out, long value) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        if (zigzag == 0) {
+            out.write(0, 1);
+            return;
+        }
+        int length = 64 - Long.numberOfLeadingZeros(zigzag);
+        out.write(0b1000000 | (length - 1), 7);
+        out.write(zigzag, length - 1);
+    }
+
+    private static long readSigned(BitInput in) {
+        if (!in.readBit()) {
+            return 0;
+        }
+        int length = (int) in.read(6) + 1;
+        long zigzag = (1L << (length - 1)) | in.read(length - 1);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    private static void writeDeltaOfDelta(BitOutput out, long dod) {
+        if (dod == 0) {
+            out.write(0, 1);
+        } else if (dod >= -63 && dod <= 64) {
+            out.write(0b10, 2);
+            out.write(dod, 7);
+        } else if (dod >= -255 && dod <= 256) {
+            out.write(0b110, 3);
+            out.write(dod, 9);
+        } else if (dod >= -2047 && dod <= 2048) {
+            out.write(0b1110, 4);
+            out.write(dod, 12);
+        } else {
+            out.write(0b1111, 4);
+            out.write(dod, 64);
+        }
+    }
+
+    private static long readDeltaOfDelta(BitInput in) {
+        if (!in.readBit()) {
+            return 0;
+        }
+        if (!in.readBit()) {
+            return signExtend(in.read(7), 7);
+        }
+        if (!in.readBit()) {
+            return signExtend(in.read(9), 9);
+        }
+        if (!in.readBit()) {
+            return signExtend(in.read(12), 12);
+        }
+        return in.read(64);
+    }
+
+    /**
+     * Valores positivos no topo do balde (64, 256, 2048) voltam do complemento de dois como negativos;
+     * o intervalo assimétrico de cada balde desfaz a ambiguidade.
+     */
+    private static long signExtend(long value, int bits) {
+        long signed = (value << (64 - bits)) >> (64 - bits);
+        long max = 1L << (bits - 1);
+        return signed == -max ? max : signed;
+    }
+
+    /**
+     * Janela de bits significativos do XOR anterior de uma coluna.
+     */
+    private static final class XorState {
+
+        private int leading = -1;
+        private int trailing;
+
+        void write(BitOutput out, long xor) {
+            if (xor == 0) {
+                out.write(0, 1);
+                return;
+            }
+            int lead = Math.min(Long.numberOfLeadingZeros(xor), 31);
+            int trail = Long.numberOfTrailingZeros(xor);
+            if (leading >= 0 && lead >= leading && trail >= trailing) {
+                out.write(0b10, 2);
+                out.write(xor >>> trailing, 64 - leading - trailing);
+            } else {
+                int meaningful = 64 - lead - trail;
+                out.write(0b11, 2);
+                out.write(lead, 5);
+                out.write(meaningful - 1, 6);
+                out.write(xor >>> trail, meaningful);
+                leading = lead;
+                trailing = trail;
+            }
+        }
+
+        long read(BitInput in) {
+            if (!in.readBit()) {
+                return 0;
+            }
+            if (!in.readBit()) {
+                return in.read(64 - leading - trailing) << trailing;
+            }
+            leading = (int) in.read(5);
+            int meaningful = (int) in.read(6) + 1;
+            trailing = 64 - leading - meaningful;
+            return in.read(meaningful) << trailing;
+        }
+    }
+}
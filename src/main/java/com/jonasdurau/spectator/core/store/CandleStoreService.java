@@ -0,0 +1,138 @@
+package com.jonasdurau.spectator.core.store;
+
+import com.jonasdurau.spectator.core.backtest.CandleSeries;
+import com.jonasdurau.spectator.core.domain.Candle;
+import com.jonasdurau.spectator.core.repository.CandleBatchRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mantém {@link CompressedCandleStore}s em memória para scans e backtests sem ida ao banco.
+ *
+ * Um (símbolo, timeframe) entra por {@link #loadHistory}, que lê todo o histórico de {@code market_candles} em
+ * streaming; com {@code spectator.store.preload} os timeframes das estratégias dos símbolos acompanhados são
+ * carregados na subida. Daí em diante os candles fechados do stream são acrescentados. Tudo na thread
+ * {@code candle-store}, em ordem: um candle que fecha durante a carga espera por ela na fila e não se perde.
+ */
+@Service
+public class CandleStoreService {
+
+    private static final Logger log = LoggerFactory.getLogger(CandleStoreService.class);
+
+    private final CandleBatchRepository candleBatchRepository;
+    private final boolean preload;
+
+    // Só recebe o store depois da carga completa: leitores nunca veem um histórico pela metade
+    private final Map<String, CompressedCandleStore> stores = new ConcurrentHashMap<>();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "candle-store");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CandleStoreService(CandleBatchRepository candleBatchRepository,
+            @Value("${spectator.store.preload:false}") boolean preload) {
+        this.candleBatchRepository = candleBatchRepository;
+        this.preload = preload;
+    }
+
+    public boolean isPreloadEnabled() {
+        return preload;
+    }
+
+    /**
+     * Carrega (ou completa, se já carregado) o histórico do (símbolo, timeframe) em background.
+     */
+    public void loadHistory(String symbol, String timeframe) {
+        writer.execute(() -> {
+            try {
+                String key = key(symbol, timeframe);
+                CompressedCandleStore store = stores.get(key);
+                if (store == null) {
+                    store = new CompressedCandleStore(symbol.toUpperCase(Locale.ROOT), timeframe);
+                }
+                long last = store.lastTime();
+                Instant from = last == Long.MIN_VALUE ? Instant.EPOCH : Instant.ofEpochMilli(last);
+                long started = System.nanoTime();
+                long rows = candleBatchRepository.forEachSince(symbol, timeframe, from, store::append);
+                stores.put(key, store);
+                log.info("Candle store {} {} loaded {} candles in {} ms: {} KB compressed ({} bytes/candle).",
+                        symbol, timeframe, rows, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started),
+                        store.memoryBytes() / 1024, String.format(Locale.ROOT, "%.1f", bytesPerCandle(store)));
+            } catch (RuntimeException e) {
+                log.error("Failed to load candle store {} {}.", symbol, timeframe, e);
+            }
+        });
+    }
+
+    /**
+     * Acrescenta candles do stream, se o (símbolo, timeframe) estiver carregado. Não bloqueia quem chama.
+     *
+     * @param candles em ordem de horário, todos do mesmo (símbolo, timeframe)
+     */
+    public void append(List<Candle> candles) {
+        if (candles.isEmpty()) {
+            return;
+        }
+        writer.execute(() -> {
+            Candle first = candles.get(0);
+            CompressedCandleStore store = stores.get(key(first.getSymbol(), first.getTimeframe()));
+            if (store == null) {
+                return;
+            }
+            for (Candle c : candles) {
+                store.append(c.getTime().toEpochMilli(), c.getOpen(), c.getHigh(), c.getLow(), c.getClose(),
+                        c.getVolume());
+            }
+        });
+    }
+
+    public CompressedCandleStore get(String symbol, String timeframe) {
+        return stores.get(key(symbol, timeframe));
+    }
+
+    /**
+     * Os candles que abrem em {@code [from, to]}, se o store cobrir o período inteiro.
+     *
+     * @param barMs duração do candle: o último pode ter aberto até um candle antes de {@code to}
+     * @return null se o (símbolo, timeframe) não está carregado ou não cobre o período
+     */
+    public CandleSeries load(String symbol, String timeframe, Instant from, Instant to, long barMs) {
+        CompressedCandleStore store = get(symbol, timeframe);
+        if (store == null || store.size() == 0 || store.firstTime() > from.toEpochMilli()
+                || store.lastTime() < to.toEpochMilli() - barMs) {
+            return null;
+        }
+        return store.toSeries(from.toEpochMilli(), to.toEpochMilli());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.shutdownNow();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static double bytesPerCandle(CompressedCandleStore store) {
+        return store.size() == 0 ? 0 : (double) store.memoryBytes() / store.size();
+    }
+
+    private static String key(String symbol, String timeframe) {
+        return symbol.toUpperCase(Locale.ROOT) + ":" + timeframe;
+    }
+}
@@ -0,0 +1,291 @@
+package com.jonasdurau.spectator.core.store;
+
+import com.jonasdurau.spectator.core.backtest.CandleSeries;
+
+import java.util.Arrays;
+
+/**
+ * Histórico de um (símbolo, timeframe) comprimido em memória, em blocos de tamanho fixo codificados pelo
+ * {@link CandleBlockCodec}: delta-of-delta nos horários, diferenças inteiras (ou XOR do Gorilla) nos preços e
+ * varint no volume.
+ *
+ * Os candles entram crus num bloco de cauda; quando ele enche e chega um candle mais novo, é comprimido e
+ * selado. Blocos selados são imutáveis e publicados por cópia do array, então leituras não travam escritas e
+ * podem decodificar blocos em paralelo. Cada bloco (inclusive a cauda) tem um {@link BlockSummary}.
+ *
+ * Mesma semântica de escrita do arquivo colunar: um candle com o horário do último o substitui e candles mais
+ * antigos são ignorados. Como só a cauda é mutável, o último candle nunca está num bloco selado.
+ */
+public final class CompressedCandleStore {
+
+    public static final int DEFAULT_BLOCK_SIZE = 1024;
+
+    // Referências, cabeçalho e contadores de um bloco selado, além das palavras codificadas
+    private static final int BLOCK_OVERHEAD_BYTES = 96;
+
+    private final String symbol;
+    private final String timeframe;
+    private final int blockSize;
+
+    private volatile Block[] blocks = new Block[0];
+    private volatile long sealedRows;
+
+    // Cauda crua: só acessada sob o monitor do store
+    private final long[] tailTime;
+    private final double[] tailOpen;
+    private final double[] tailHigh;
+    private final double[] tailLow;
+    private final double[] tailClose;
+    private final double[] tailVolume;
+    private int tailCount;
+    private volatile long size;
+
+    public CompressedCandleStore(String symbol, String timeframe) {
+        this(symbol, timeframe, DEFAULT_BLOCK_SIZE);
+    }
+
+    public CompressedCandleStore(String symbol, String timeframe, int blockSize) {
+        if (blockSize < 2) {
+            throw new IllegalArgumentException("Block size must be at least 2");
+        }
+        this.symbol = symbol;
+        this.timeframe = timeframe;
+        this.blockSize = blockSize;
+        this.tailTime = new long[blockSize];
+        this.tailOpen = new double[blockSize];
+        this.tailHigh = new double[blockSize];
+        this.tailLow = new double[blockSize];
+        this.tailClose = new double[blockSize];
+        this.tailVolume = new double[blockSize];
+    }
+
+    /**
+     * @return false se o candle é mais antigo que o último (ignorado)
+     */
+    public synchronized boolean append(long timeMs, double open, double high, double low, double close,
+            double volume) {
+        int row;
+        if (tailCount > 0 && timeMs <= tailTime[tailCount - 1]) {
+            if (timeMs < tailTime[tailCount - 1]) {
+                return false;
+            }
+            row = tailCount - 1;
+        } else {
+            if (tailCount == blockSize) {
+                seal();
+            }
+            row = tailCount++;
+        }
+        tailTime[row] = timeMs;
+        tailOpen[row] = open;
+        tailHigh[row] = high;
+        tailLow[row] = low;
+        tailClose[row] = close;
+        tailVolume[row] = volume;
+        size = sealedRows + tailCount;
+        return true;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public String getTimeframe() {
+        return timeframe;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Blocos selados mais a cauda, se não estiver vazia.
+     */
+    public synchronized int blockCount() {
+        return blocks.length + (tailCount > 0 ? 1 : 0);
+    }
+
+    public synchronized BlockSummary summary(int block) {
+        if (block < blocks.length) {
+            return blocks[block].summary;
+        }
+        checkTail(block);
+        return summarize(tailTime, tailHigh, tailLow, 0, tailCount);
+    }
+
+    public long firstTime() {
+        Block[] sealed = blocks;
+        if (sealed.length > 0) {
+            return sealed[0].summary.firstTime();
+        }
+        synchronized (this) {
+            return tailCount > 0 ? tailTime[0] : Long.MIN_VALUE;
+        }
+    }
+
+    public synchronized long lastTime() {
+        return tailCount > 0 ? tailTime[tailCount - 1] : Long.MIN_VALUE;
+    }
+
+    /**
+     * Decodifica um bloco inteiro nos arrays a partir de {@code offset}, que precisam de espaço para
+     * {@link BlockSummary#count()} candles.
+     *
+     * @return quantidade de candles escritos
+     */
+    public int decodeBlock(int block, long[] time, double[] open, double[] high, double[] low, double[] close,
+            double[] volume, int offset) {
+        Block[] sealed = blocks;
+        if (block < sealed.length) {
+            Block b = sealed[block];
+            CandleBlockCodec.decode(b.bits, b.summary.count(), b.priceDecimals, b.volumeDecimals, time, open,
+                    high, low, close, volume, offset);
+            return b.summary.count();
+        }
+        synchronized (this) {
+            // O bloco pode ter sido selado entre a leitura do array e o monitor
+            if (block < blocks.length) {
+                return decodeBlock(block, time, open, high, low, close, volume, offset);
+            }
+            checkTail(block);
+            return copyTail(time, open, high, low, close, volume, offset);
+        }
+    }
+
+    /**
+     * Os candles que abrem em {@code [fromMs, toMs]}. Blocos fora do período são pulados pelo resumo, sem decode.
+     */
+    public CandleSeries toSeries(long fromMs, long toMs) {
+        Block[] sealed;
+        long[] tTime;
+        double[] tOpen;
+        double[] tHigh;
+        double[] tLow;
+        double[] tClose;
+        double[] tVolume;
+        synchronized (this) {
+            sealed = blocks;
+            tTime = Arrays.copyOf(tailTime, tailCount);
+            tOpen = Arrays.copyOf(tailOpen, tailCount);
+            tHigh = Arrays.copyOf(tailHigh, tailCount);
+            tLow = Arrays.copyOf(tailLow, tailCount);
+            tClose = Arrays.copyOf(tailClose, tailCount);
+            tVolume = Arrays.copyOf(tailVolume, tailCount);
+        }
+
+        int first = 0;
+        while (first < sealed.length && sealed[first].summary.lastTime() < fromMs) {
+            first++;
+        }
+        int end = first;
+        int rows = 0;
+        while (end < sealed.length && sealed[end].summary.firstTime() <= toMs) {
+            rows += sealed[end].summary.count();
+            end++;
+        }
+        boolean withTail = end == sealed.length && tTime.length > 0 && tTime[0] <= toMs
+                && tTime[tTime.length - 1] >= fromMs;
+        if (withTail) {
+            rows += tTime.length;
+        }
+
+        long[] time = new long[rows];
+        double[] open = new double[rows];
+        double[] high = new double[rows];
+        double[] low = new double[rows];
+        double[] close = new double[rows];
+        double[] volume = new double[rows];
+        int written = 0;
+        for (int i = first; i < end; i++) {
+            Block b = sealed[i];
+            CandleBlockCodec.decode(b.bits, b.summary.count(), b.priceDecimals, b.volumeDecimals, time, open,
+                    high, low, close, volume, written);
+            written += b.summary.count();
+        }
+        if (withTail) {
+            System.arraycopy(tTime, 0, time, written, tTime.length);
+            System.arraycopy(tOpen, 0, open, written, tTime.length);
+            System.arraycopy(tHigh, 0, high, written, tTime.length);
+            System.arraycopy(tLow, 0, low, written, tTime.length);
+            System.arraycopy(tClose, 0, close, written, tTime.length);
+            System.arraycopy(tVolume, 0, volume, written, tTime.length);
+        }
+
+        // Só os blocos das pontas podem ter candles fora do período
+        int from = lowerBound(time, fromMs);
+        int to = lowerBound(time, toMs == Long.MAX_VALUE ? Long.MAX_VALUE : toMs + 1);
+        if (from > 0 || to < rows) {
+            time = Arrays.copyOfRange(time, from, to);
+            open = Arrays.copyOfRange(open, from, to);
+            high = Arrays.copyOfRange(high, from, to);
+            low = Arrays.copyOfRange(low, from, to);
+            close = Arrays.copyOfRange(close, from, to);
+            volume = Arrays.copyOfRange(volume, from, to);
+        }
+        return new CandleSeries(symbol, timeframe, time, open, high, low, close, volume);
+    }
+
+    /**
+     * Memória aproximada do store: palavras codificadas, cabeçalhos dos blocos e a cauda crua.
+     */
+    public synchronized long memoryBytes() {
+        long bytes = (long) tailTime.length * 6 * Long.BYTES;
+        for (Block b : blocks) {
+            bytes += (long) b.bits.length * Long.BYTES + BLOCK_OVERHEAD_BYTES;
+        }
+        return bytes;
+    }
+
+    private void seal() {
+        int priceDecimals = CandleBlockCodec.decimals(0, tailCount, tailOpen, tailHigh, tailLow, tailClose);
+        int volumeDecimals = CandleBlockCodec.decimals(0, tailCount, tailVolume);
+        long[] bits = CandleBlockCodec.encode(tailTime, tailOpen, tailHigh, tailLow, tailClose, tailVolume, 0,
+                tailCount, priceDecimals, volumeDecimals);
+        Block block = new Block(bits, priceDecimals, volumeDecimals,
+                summarize(tailTime, tailHigh, tailLow, 0, tailCount));
+        Block[] sealed = Arrays.copyOf(blocks, blocks.length + 1);
+        sealed[sealed.length - 1] = block;
+        blocks = sealed;
+        sealedRows += tailCount;
+        tailCount = 0;
+    }
+
+    private int copyTail(long[] time, double[] open, double[] high, double[] low, double[] close, double[] volume,
+            int offset) {
+        System.arraycopy(tailTime, 0, time, offset, tailCount);
+        System.arraycopy(tailOpen, 0, open, offset, tailCount);
+        System.arraycopy(tailHigh, 0, high, offset, tailCount);
+        System.arraycopy(tailLow, 0, low, offset, tailCount);
+        System.arraycopy(tailClose, 0, close, offset, tailCount);
+        System.arraycopy(tailVolume, 0, volume, offset, tailCount);
+        return tailCount;
+    }
+
+    private void checkTail(int block) {
+        if (block != blocks.length || tailCount == 0) {
+            throw new IndexOutOfBoundsException("Block " + block + " out of range [0, " + blockCount() + ")");
+        }
+    }
+
+    private static BlockSummary summarize(long[] time, double[] high, double[] low, int from, int count) {
+        double minLow = Double.POSITIVE_INFINITY;
+        double maxHigh = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < from + count; i++) {
+            minLow = Math.min(minLow, low[i]);
+            maxHigh = Math.max(maxHigh, high[i]);
+        }
+        return new BlockSummary(time[from], time[from + count - 1], count, minLow, maxHigh);
+    }
+
+    private static int lowerBound(long[] time, long timeMs) {
+        int i = Arrays.binarySearch(time, timeMs);
+        return i >= 0 ? i : -i - 1;
+    }
+
+    private record Block(long[] bits, int priceDecimals, int volumeDecimals, BlockSummary summary) {
+    }
+}
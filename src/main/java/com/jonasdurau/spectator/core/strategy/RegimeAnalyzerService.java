@@ -1,76 +1,96 @@
 package com.jonasdurau.spectator.core.strategy;
 
-import com.jonasdurau.spectator.core.domain.Candle;
 import com.jonasdurau.spectator.core.domain.MarketRegime;
+import com.jonasdurau.spectator.core.indicator.IndicatorContext;
+import com.jonasdurau.spectator.core.indicator.IndicatorSpec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.ta4j.core.BarSeries;
-import org.ta4j.core.indicators.averages.EMAIndicator;
-import org.ta4j.core.indicators.adx.ADXIndicator;
-import org.ta4j.core.indicators.ATRIndicator;
-import org.ta4j.core.indicators.averages.SMAIndicator;
-import org.ta4j.core.indicators.helpers.ClosePriceIndicator;
 
-import java.util.List;
+import java.util.Set;
 
 @Service
 public class RegimeAnalyzerService {
 
     private static final Logger log = LoggerFactory.getLogger(RegimeAnalyzerService.class);
 
-    // Parâmetros clássicos de Análise Técnica
-    private static final int EMA_200_PERIOD = 200;
-    private static final int EMA_50_PERIOD = 50;
-    private static final int ADX_PERIOD = 14;
-    private static final int ATR_PERIOD = 14;
-    
-    // Limiares (Thresholds) da sua estratégia
-    private static final double ADX_TREND_THRESHOLD = 20.0;
-    private static final double ATR_VOLATILITY_MULTIPLIER = 1.5;
+    /**
+     * Parâmetros clássicos de Análise Técnica e os limiares da estratégia. {@link #DEFAULTS} são os valores
+     * usados ao vivo; o backtest (otimização e walk-forward) testa outras combinações.
+     *
+     * @param adxTrendThreshold       ADX mínimo para considerar que o mercado tem força
+     * @param atrVolatilityMultiplier ATR acima de N vezes a sua média classifica o mercado como volátil
+     */
+    public record Parameters(int emaFastPeriod, int emaSlowPeriod, int adxPeriod, int atrPeriod,
+            double adxTrendThreshold, double atrVolatilityMultiplier) {
+
+        public static final Parameters DEFAULTS = new Parameters(50, 200, 14, 14, 20.0, 1.5);
+    }
+
+    private final Parameters parameters;
+
+    private final IndicatorSpec emaSlow;
+    private final IndicatorSpec emaFast;
+    private final IndicatorSpec adx;
+    private final IndicatorSpec atr;
+    private final IndicatorSpec averageAtr;
+
+    @Autowired
+    public RegimeAnalyzerService() {
+        this(Parameters.DEFAULTS);
+    }
+
+    public RegimeAnalyzerService(Parameters parameters) {
+        this.parameters = parameters;
+        this.emaSlow = IndicatorSpec.ema(parameters.emaSlowPeriod());
+        this.emaFast = IndicatorSpec.ema(parameters.emaFastPeriod());
+        this.adx = IndicatorSpec.adx(parameters.adxPeriod());
+        this.atr = IndicatorSpec.atr(parameters.atrPeriod());
+        this.averageAtr = IndicatorSpec.atrAverage(parameters.atrPeriod(), parameters.atrPeriod() * 2);
+    }
+
+    public Parameters getParameters() {
+        return parameters;
+    }
 
     /**
-     * Analisa o mercado baseado nos candles recentes e retorna o estado atual.
-     * @param recentCandles Lista ordenada do mais antigo para o mais novo.
+     * Indicadores do 4H que o analisador lê do contexto.
      */
-    public MarketRegime analyze(List<Candle> recentCandles) {
-        if (recentCandles.size() <= EMA_200_PERIOD) {
-            log.warn("Not enough candles to calculate EMA {}. Need at least {}, got {}", EMA_200_PERIOD, EMA_200_PERIOD + 1, recentCandles.size());
+    public Set<IndicatorSpec> requiredIndicators() {
+        return Set.of(emaSlow, emaFast, adx, atr, averageAtr);
+    }
+
+    /**
+     * Analisa o mercado baseado nos indicadores do candle atual e retorna o estado atual.
+     * @param indicators4h Contexto de indicadores do 4H calculado no tick.
+     */
+    public MarketRegime analyze(IndicatorContext indicators4h) {
+        int slowPeriod = parameters.emaSlowPeriod();
+        if (indicators4h.getBarCount() <= slowPeriod) {
+            log.debug("Not enough candles to calculate EMA {}. Need at least {}, got {}", slowPeriod, slowPeriod + 1, indicators4h.getBarCount());
             return MarketRegime.SIDEWAYS; // Estado de segurança padrão
         }
 
-        // 1. Converter para o formato ta4j
-        BarSeries series = Ta4jMapper.toBarSeries(recentCandles, "Bitcoin_4H");
-        int endIndex = series.getEndIndex();
-
-        // 2. Preparar os Indicadores
-        ClosePriceIndicator closePrice = new ClosePriceIndicator(series);
-        EMAIndicator ema200 = new EMAIndicator(closePrice, EMA_200_PERIOD);
-        EMAIndicator ema50 = new EMAIndicator(closePrice, EMA_50_PERIOD);
-        ADXIndicator adx = new ADXIndicator(series, ADX_PERIOD);
+        // 1. Extrair os valores do momento atual (último candle)
+        double currentPrice = indicators4h.getClose();
+        double currentEma200 = indicators4h.get(emaSlow);
+        double currentEma50 = indicators4h.get(emaFast);
+        double currentAdx = indicators4h.get(adx);
         
         // Para volatilidade, comparamos o ATR atual com a média do ATR (SMA do ATR)
-        ATRIndicator atr = new ATRIndicator(series, ATR_PERIOD);
-        SMAIndicator averageAtr = new SMAIndicator(atr, ATR_PERIOD * 2);
-
-        // 3. Extrair os valores do momento atual (último candle)
-        double currentPrice = closePrice.getValue(endIndex).doubleValue();
-        double currentEma200 = ema200.getValue(endIndex).doubleValue();
-        double currentEma50 = ema50.getValue(endIndex).doubleValue();
-        double currentAdx = adx.getValue(endIndex).doubleValue();
-        
-        double currentAtr = atr.getValue(endIndex).doubleValue();
-        double baselineAtr = averageAtr.getValue(endIndex).doubleValue();
+        double currentAtr = indicators4h.get(atr);
+        double baselineAtr = indicators4h.get(averageAtr);
 
-        // 4. Aplicar as Regras de Negócio (Decisão)
+        // 2. Aplicar as Regras de Negócio (Decisão)
         
         // Regra 1: O mercado está explodindo de volatilidade? (ATR muito acima da média histórica)
-        if (currentAtr > (baselineAtr * ATR_VOLATILITY_MULTIPLIER)) {
+        if (currentAtr > (baselineAtr * parameters.atrVolatilityMultiplier())) {
             return MarketRegime.VOLATILE;
         }
 
         // Regra 2: O mercado está sem força/lateralizado?
-        if (currentAdx < ADX_TREND_THRESHOLD) {
+        if (currentAdx < parameters.adxTrendThreshold()) {
             return MarketRegime.SIDEWAYS;
         }
 
@@ -84,4 +104,4 @@ public class RegimeAnalyzerService {
             return MarketRegime.SIDEWAYS;
         }
     }
-}
\ No newline at end of file
+}
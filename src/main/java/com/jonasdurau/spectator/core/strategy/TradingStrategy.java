@@ -1,10 +1,19 @@
 package com.jonasdurau.spectator.core.strategy;
 
-import com.jonasdurau.spectator.core.domain.Candle;
 import com.jonasdurau.spectator.core.domain.MarketRegime;
-import java.util.List;
+import com.jonasdurau.spectator.core.indicator.IndicatorContext;
+import com.jonasdurau.spectator.core.indicator.IndicatorSpec;
+
+import java.util.Set;
 
 public interface TradingStrategy {
     String getName();
-    TradeSignal evaluate(List<Candle> recent1hCandles, MarketRegime current4hRegime, double currentPrice);
+
+    /**
+     * Indicadores (com parâmetros) que a estratégia lê do contexto de 1H.
+     * O motor calcula a união dos requisitos de todas as estratégias uma única vez por tick.
+     */
+    Set<IndicatorSpec> requiredIndicators();
+
+    TradeSignal evaluate(IndicatorContext indicators1h, MarketRegime current4hRegime, double currentPrice);
 }
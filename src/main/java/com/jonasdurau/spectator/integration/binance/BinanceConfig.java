@@ -1,5 +1,6 @@
 package com.jonasdurau.spectator.integration.binance;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestClient;
@@ -10,9 +11,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 public class BinanceConfig {
 
     @Bean
-    public RestClient binanceApi() {
+    public RestClient binanceApi(@Value("${spectator.binance.rest.base-url:https://api.binance.com}") String baseUrl) {
         return RestClient.builder()
-                .baseUrl("https://api.binance.com")
+                .baseUrl(baseUrl)
                 .build();
     }
 
@@ -0,0 +1,321 @@
+package com.jonasdurau.spectator.integration.binance;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.jonasdurau.spectator.core.domain.Candle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decoder de klines da Binance em cima do {@link JsonParser} (streaming) do Jackson.
+ *
+ * Os preços chegam como strings ("43250.12000000"); lemos direto do buffer de caracteres do parser
+ * para primitivos, sem criar {@code String} nem objetos intermediários, e pulamos com {@code skipChildren}
+ * tudo o que não usamos. Símbolo e intervalo passam por uma tabela de interning para que a mesma
+ * instância de {@code String} seja reaproveitada a cada mensagem.
+ *
+ * Uma instância não é thread-safe: o WebSocket entrega as mensagens de uma sessão em sequência,
+ * então cada cliente tem o seu decoder. {@link #decodeKlineArray} é estático e pode ser usado em paralelo.
+ */
+public final class BinanceKlineDecoder {
+
+    private static final JsonFactory SHARED_FACTORY = new JsonFactory();
+
+    // 10^0 .. 10^22 são exatos em double
+    private static final double[] POWERS_OF_TEN = new double[23];
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final JsonFactory jsonFactory;
+    private final MutableKlineEvent event = new MutableKlineEvent();
+    private final SymbolTable names = new SymbolTable();
+
+    public BinanceKlineDecoder() {
+        this(SHARED_FACTORY);
+    }
+
+    public BinanceKlineDecoder(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * Decodifica um evento {@code <symbol>@kline_<interval>} no objeto reaproveitado.
+     * Aceita tanto o evento puro ({@code /ws}) quanto o envelope dos combined streams
+     * ({@code {"stream":"btcusdt@kline_1h","data":{...}}}).
+     *
+     * @return o mesmo {@link MutableKlineEvent} a cada chamada, válido até a próxima; ou {@code null} se a
+     *         mensagem não traz kline (respostas de SUBSCRIBE/UNSUBSCRIBE, por exemplo).
+     */
+    public MutableKlineEvent decode(String payload) throws IOException {
+        event.reset();
+        boolean hasKline;
+        try (JsonParser parser = jsonFactory.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Kline payload is not a JSON object");
+            }
+            hasKline = readEvent(parser);
+        }
+        if (!hasKline) {
+            return null;
+        }
+        if (event.symbol == null || event.interval == null || Double.isNaN(event.close)) {
+            throw new IOException("Kline payload is missing required fields");
+        }
+        return event;
+    }
+
+    /**
+     * @return true se encontrou o objeto {@code k}.
+     */
+    private boolean readEvent(JsonParser parser) throws IOException {
+        boolean hasKline = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "E" -> event.eventTime = parser.getLongValue();
+                case "s" -> event.symbol = names.intern(parser);
+                case "k" -> {
+                    if (value == JsonToken.START_OBJECT) {
+                        readKline(parser);
+                        hasKline = true;
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                // Envelope dos combined streams: o evento vem dentro de "data"
+                case "data" -> {
+                    if (value == JsonToken.START_OBJECT) {
+                        hasKline |= readEvent(parser);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        return hasKline;
+    }
+
+    private void readKline(JsonParser parser) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "t" -> event.openTime = parser.getLongValue();
+                case "T" -> event.closeTime = parser.getLongValue();
+                case "s" -> event.symbol = names.intern(parser);
+                case "i" -> event.interval = names.intern(parser);
+                case "o" -> event.open = readDouble(parser);
+                case "h" -> event.high = readDouble(parser);
+                case "l" -> event.low = readDouble(parser);
+                case "c" -> event.close = readDouble(parser);
+                case "v" -> event.volume = readDouble(parser);
+                case "n" -> event.trades = parser.getLongValue();
+                case "x" -> event.closed = parser.getBooleanValue();
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * Decodifica a resposta de {@code /api/v3/klines} (array de arrays) direto em candles,
+     * sem passar por {@code List<List<Object>>}.
+     */
+    public static List<Candle> decodeKlineArray(InputStream body, String symbol, String interval) throws IOException {
+        List<Candle> candles = new ArrayList<>();
+        try (JsonParser parser = SHARED_FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Klines response is not a JSON array");
+            }
+            while (parser.nextToken() == JsonToken.START_ARRAY) {
+                candles.add(readKlineRow(parser, symbol, interval));
+            }
+        }
+        return candles;
+    }
+
+    /**
+     * Uma linha: [openTime, open, high, low, close, volume, closeTime, ...]. Os campos depois do volume são ignorados.
+     */
+    private static Candle readKlineRow(JsonParser parser, String symbol, String interval) throws IOException {
+        long openTime = 0;
+        double open = 0, high = 0, low = 0, close = 0, volume = 0;
+        int index = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == null) {
+                throw new IOException("Unexpected end of klines response");
+            }
+            switch (index++) {
+                case 0 -> openTime = parser.getLongValue();
+                case 1 -> open = readDouble(parser);
+                case 2 -> high = readDouble(parser);
+                case 3 -> low = readDouble(parser);
+                case 4 -> close = readDouble(parser);
+                case 5 -> volume = readDouble(parser);
+                default -> parser.skipChildren();
+            }
+        }
+        if (index < 6) {
+            throw new IOException("Kline row has only " + index + " fields");
+        }
+        return new Candle(symbol, interval, Instant.ofEpochMilli(openTime), open, high, low, close, volume);
+    }
+
+    private static double readDouble(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_STRING) {
+            return parseDecimal(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+        }
+        if (token == JsonToken.VALUE_NUMBER_FLOAT || token == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getDoubleValue();
+        }
+        throw new IOException("Expected a numeric value but got " + token);
+    }
+
+    /**
+     * Converte um decimal simples ("-123.4500") sem alocar.
+     *
+     * Zeros à direita da parte fracionária são descartados; se a mantissa restante cabe em 53 bits e a escala
+     * em 10^22, mantissa e potência são exatas em double e uma única divisão IEEE dá o mesmo resultado
+     * corretamente arredondado de {@link Double#parseDouble}. Fora disso (expoente, dígitos demais) caímos nele.
+     */
+    static double parseDecimal(char[] buffer, int offset, int length) {
+        int end = offset + length;
+        int i = offset;
+        boolean negative = false;
+        if (i < end && (buffer[i] == '-' || buffer[i] == '+')) {
+            negative = buffer[i] == '-';
+            i++;
+        }
+
+        // Ignora zeros à direita da parte fracionária
+        int dot = -1;
+        for (int j = i; j < end; j++) {
+            if (buffer[j] == '.') {
+                dot = j;
+                break;
+            }
+        }
+        if (dot >= 0) {
+            while (end > dot + 1 && buffer[end - 1] == '0') {
+                end--;
+            }
+            if (end == dot + 1) {
+                end = dot;
+            }
+        }
+
+        long mantissa = 0;
+        int scale = 0;
+        int digits = 0;
+        boolean afterDot = false;
+        for (; i < end; i++) {
+            char ch = buffer[i];
+            if (ch >= '0' && ch <= '9') {
+                if (mantissa > (MAX_EXACT_MANTISSA - 9) / 10) {
+                    return slowParse(buffer, offset, length);
+                }
+                mantissa = mantissa * 10 + (ch - '0');
+                if (afterDot) {
+                    scale++;
+                }
+                digits++;
+            } else if (ch == '.' && !afterDot) {
+                afterDot = true;
+            } else {
+                return slowParse(buffer, offset, length);
+            }
+        }
+        if (digits == 0 || scale >= POWERS_OF_TEN.length) {
+            return slowParse(buffer, offset, length);
+        }
+
+        double value = scale == 0 ? (double) mantissa : mantissa / POWERS_OF_TEN[scale];
+        return negative ? -value : value;
+    }
+
+    private static double slowParse(char[] buffer, int offset, int length) {
+        return Double.parseDouble(new String(buffer, offset, length));
+    }
+
+    /**
+     * Tabela de interning para os poucos símbolos/intervalos do stream: compara direto com o buffer
+     * do parser e só cria a {@code String} na primeira vez que vê o valor.
+     */
+    static final class SymbolTable {
+
+        private String[] slots = new String[64];
+        private int size;
+
+        String intern(JsonParser parser) throws IOException {
+            if (parser.currentToken() != JsonToken.VALUE_STRING) {
+                return parser.getValueAsString();
+            }
+            return intern(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+        }
+
+        String intern(char[] buffer, int offset, int length) {
+            int hash = 0;
+            for (int i = 0; i < length; i++) {
+                hash = 31 * hash + buffer[offset + i];
+            }
+
+            int mask = slots.length - 1;
+            int slot = hash & mask;
+            while (slots[slot] != null) {
+                String candidate = slots[slot];
+                if (candidate.hashCode() == hash && matches(candidate, buffer, offset, length)) {
+                    return candidate;
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            String value = new String(buffer, offset, length);
+            slots[slot] = value;
+            if (++size * 2 > slots.length) {
+                rehash();
+            }
+            return value;
+        }
+
+        private static boolean matches(String candidate, char[] buffer, int offset, int length) {
+            if (candidate.length() != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (candidate.charAt(i) != buffer[offset + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void rehash() {
+            String[] old = slots;
+            slots = new String[old.length * 2];
+            int mask = slots.length - 1;
+            for (String value : old) {
+                if (value != null) {
+                    int slot = value.hashCode() & mask;
+                    while (slots[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    slots[slot] = value;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.jonasdurau.spectator.integration.binance;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket compartilhado pelo peso das requisições REST da Binance.
+ *
+ * A Binance limita o IP por peso acumulado no minuto ({@code REQUEST_WEIGHT}) e informa o consumo real
+ * em {@code X-MBX-USED-WEIGHT-1M} a cada resposta. O bucket reabastece continuamente a {@code limit/60s},
+ * mas é corrigido pelo header para baixo sempre que o servidor enxerga mais consumo que nós
+ * (outros processos no mesmo IP, janelas desalinhadas).
+ *
+ * 429 e 418 bloqueiam todas as threads até o {@code Retry-After}; sem o header, usamos backoff exponencial.
+ */
+@Component
+public class BinanceRateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(BinanceRateLimiter.class);
+
+    private static final long MINUTE_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final long INITIAL_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long MAX_BACKOFF_NANOS = TimeUnit.MINUTES.toNanos(2);
+
+    private final int weightLimit;
+    private final LongSupplier nanoClock;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private double tokens;
+    private long lastRefillNanos;
+    private long blockedUntilNanos;
+    private int consecutiveRejections;
+
+    public BinanceRateLimiter(@Value("${spectator.binance.rest.weight-limit-per-minute:5000}") int weightLimit) {
+        this(weightLimit, System::nanoTime);
+    }
+
+    BinanceRateLimiter(int weightLimit, LongSupplier nanoClock) {
+        if (weightLimit <= 0) {
+            throw new IllegalArgumentException("Weight limit must be positive: " + weightLimit);
+        }
+        this.weightLimit = weightLimit;
+        this.nanoClock = nanoClock;
+        this.tokens = weightLimit;
+        this.lastRefillNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * Bloqueia até haver peso disponível e nenhum backoff em andamento.
+     * Feito para virtual threads: espera com sleep fora do lock.
+     */
+    public void acquire(int weight) throws InterruptedException {
+        while (true) {
+            long waitNanos;
+            lock.lock();
+            try {
+                long now = nanoClock.getAsLong();
+                refill(now);
+                if (now < blockedUntilNanos) {
+                    waitNanos = blockedUntilNanos - now;
+                } else if (tokens >= weight) {
+                    tokens -= weight;
+                    return;
+                } else {
+                    waitNanos = (long) ((weight - tokens) * MINUTE_NANOS / weightLimit);
+                }
+            } finally {
+                lock.unlock();
+            }
+            TimeUnit.NANOSECONDS.sleep(Math.max(waitNanos, TimeUnit.MILLISECONDS.toNanos(1)));
+        }
+    }
+
+    /**
+     * Ajusta o bucket ao consumo informado pela Binance ({@code X-MBX-USED-WEIGHT-1M}).
+     */
+    public void onUsedWeight(int usedWeight) {
+        lock.lock();
+        try {
+            refill(nanoClock.getAsLong());
+            tokens = Math.min(tokens, Math.max(0, weightLimit - usedWeight));
+            consecutiveRejections = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Registra um 429 (limite excedido) ou 418 (IP banido) e bloqueia as próximas requisições.
+     *
+     * @param retryAfterSeconds valor do header {@code Retry-After}, ou negativo se ausente
+     */
+    public void onRateLimited(int status, long retryAfterSeconds) {
+        lock.lock();
+        try {
+            long now = nanoClock.getAsLong();
+            long backoff = retryAfterSeconds >= 0
+                    ? TimeUnit.SECONDS.toNanos(retryAfterSeconds)
+                    : Math.min(INITIAL_BACKOFF_NANOS << Math.min(consecutiveRejections, 16), MAX_BACKOFF_NANOS);
+            consecutiveRejections++;
+            blockedUntilNanos = Math.max(blockedUntilNanos, now + backoff);
+            tokens = 0;
+            lastRefillNanos = Math.max(now, blockedUntilNanos);
+            log.warn("Binance answered {}. Pausing REST requests for {} ms.", status, TimeUnit.NANOSECONDS.toMillis(backoff));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getWeightLimit() {
+        return weightLimit;
+    }
+
+    /** Peso disponível agora (aproximado, para métricas e testes). */
+    public double getAvailableWeight() {
+        lock.lock();
+        try {
+            refill(nanoClock.getAsLong());
+            return tokens;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refill(long now) {
+        if (now <= lastRefillNanos) {
+            return;
+        }
+        tokens = Math.min(weightLimit, tokens + (double) (now - lastRefillNanos) * weightLimit / MINUTE_NANOS);
+        lastRefillNanos = now;
+    }
+}
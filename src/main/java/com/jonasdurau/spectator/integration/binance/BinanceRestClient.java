@@ -3,22 +3,47 @@ package com.jonasdurau.spectator.integration.binance;
 import com.jonasdurau.spectator.core.domain.Candle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 @Component
 public class BinanceRestClient {
 
     private static final Logger log = LoggerFactory.getLogger(BinanceRestClient.class);
+
+    // Máximo de candles por requisição em /api/v3/klines
+    public static final int MAX_KLINES_PER_REQUEST = 1000;
+
+    // Peso de /api/v3/klines na tabela REQUEST_WEIGHT da Binance
+    static final int KLINES_WEIGHT = 2;
+
+    private static final int MAX_ATTEMPTS = 5;
+    private static final String USED_WEIGHT_HEADER = "X-MBX-USED-WEIGHT-1M";
+
     private final RestClient restClient;
+    private final BinanceRateLimiter rateLimiter;
+    private final int backfillConcurrency;
 
-    public BinanceRestClient(RestClient restClient) {
+    public BinanceRestClient(RestClient restClient,
+            BinanceRateLimiter rateLimiter,
+            @Value("${spectator.binance.rest.backfill-concurrency:4}") int backfillConcurrency) {
         this.restClient = restClient;
+        this.rateLimiter = rateLimiter;
+        this.backfillConcurrency = Math.max(1, backfillConcurrency);
     }
 
     /**
@@ -29,25 +54,7 @@ public class BinanceRestClient {
      */
     public List<Candle> fetchHistoricalCandles(String symbol, String interval, int limit) {
         log.info("Fetching {} {} candles for {}", limit, interval, symbol);
-
-        // A Binance retorna uma lista de listas genéricas
-        List<List<Object>> response = restClient.get()
-                .uri(uriBuilder -> uriBuilder
-                        .path("/api/v3/klines")
-                        .queryParam("symbol", symbol)
-                        .queryParam("interval", interval)
-                        .queryParam("limit", limit)
-                        .build())
-                .retrieve()
-                .body(new ParameterizedTypeReference<>() {});
-
-        if (response == null || response.isEmpty()) {
-            return List.of();
-        }
-
-        return response.stream()
-                .map(kline -> mapToCandle(symbol, interval, kline))
-                .collect(Collectors.toList());
+        return fetchKlines(symbol, interval, limit, null, null);
     }
 
     /**
@@ -55,45 +62,153 @@ public class BinanceRestClient {
      */
     public List<Candle> fetchHistoricalCandles(String symbol, String interval, int limit, java.time.Instant startTime) {
         log.info("Fetching gap: {} {} candles for {} starting from {}", limit, interval, symbol, startTime);
+        return fetchKlines(symbol, interval, limit, startTime.toEpochMilli(), null);
+    }
 
-        List<List<Object>> response = restClient.get()
-                .uri(uriBuilder -> uriBuilder
-                        .path("/api/v3/klines")
-                        .queryParam("symbol", symbol)
-                        .queryParam("interval", interval)
-                        .queryParam("limit", limit)
-                        .queryParam("startTime", startTime.toEpochMilli()) // <-- O pulo do gato
-                        .build())
-                .retrieve()
-                .body(new ParameterizedTypeReference<>() {});
-
-        if (response == null || response.isEmpty()) {
-            return List.of();
+    /**
+     * Baixa todos os candles de {@code from} até {@code to} (inclusive).
+     *
+     * O intervalo é dividido em faixas de 1000 candles, buscadas em paralelo em virtual threads
+     * (no máximo {@code backfill-concurrency} ao mesmo tempo, todas passando pelo {@link BinanceRateLimiter}).
+     * Os lotes são entregues ao {@code sink} na ordem cronológica, assim que o lote da vez termina.
+     *
+     * @return quantidade total de candles entregues.
+     */
+    public int backfill(String symbol, String interval, Instant from, Instant to, Consumer<List<Candle>> sink) {
+        long intervalMs = intervalDuration(interval).toMillis();
+        long rangeMs = intervalMs * MAX_KLINES_PER_REQUEST;
+        long startMs = from.toEpochMilli();
+        long endMs = to.toEpochMilli();
+        if (endMs < startMs) {
+            return 0;
         }
 
-        return response.stream()
-                .map(kline -> mapToCandle(symbol, interval, kline))
-                .collect(java.util.stream.Collectors.toList());
+        int ranges = (int) ((endMs - startMs) / rangeMs + 1);
+        log.info("Backfilling {} {} from {} to {} in {} ranges ({} concurrent).",
+                symbol, interval, from, to, ranges, backfillConcurrency);
+
+        int total = 0;
+        Deque<Future<List<Candle>>> inFlight = new ArrayDeque<>(backfillConcurrency);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            int next = 0;
+            try {
+                while (next < ranges || !inFlight.isEmpty()) {
+                    // Mantém a janela cheia; a cabeça da fila é sempre a faixa mais antiga ainda não escrita
+                    while (next < ranges && inFlight.size() < backfillConcurrency) {
+                        long rangeStart = startMs + next * rangeMs;
+                        long rangeEnd = Math.min(rangeStart + rangeMs - 1, endMs);
+                        inFlight.addLast(executor.submit(
+                                () -> fetchKlines(symbol, interval, MAX_KLINES_PER_REQUEST, rangeStart, rangeEnd)));
+                        next++;
+                    }
+
+                    List<Candle> batch = inFlight.removeFirst().get();
+                    if (!batch.isEmpty()) {
+                        sink.accept(batch);
+                        total += batch.size();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Backfill interrupted for " + symbol + " " + interval, e);
+            } catch (ExecutionException e) {
+                throw new RestClientException("Backfill failed for " + symbol + " " + interval, e.getCause());
+            } finally {
+                inFlight.forEach(f -> f.cancel(true));
+            }
+        }
+        return total;
     }
 
     /**
-     * Converte o array da Binance para a nossa entidade de domínio limpa.
-     * Documentação: https://binance-docs.github.io/apidocs/spot/en/#kline-candlestick-data
+     * Duração de um intervalo de kline da Binance ("1m", "4h", "1d", "1w"...).
+     * O intervalo mensal ("1M") não tem duração fixa e não é suportado.
      */
-    private Candle mapToCandle(String symbol, String interval, List<Object> kline) {
-        // kline.get(0) = Open time (Long)
-        long openTimeMs = ((Number) kline.get(0)).longValue();
-        
-        // Convertendo para UTC, que é o padrão de facto para trading
-        Instant time = Instant.ofEpochMilli(openTimeMs);
-
-        // kline.get(1) a (5) = O, H, L, C, V (Vêm como String na API da Binance)
-        double open = Double.parseDouble(kline.get(1).toString());
-        double high = Double.parseDouble(kline.get(2).toString());
-        double low = Double.parseDouble(kline.get(3).toString());
-        double close = Double.parseDouble(kline.get(4).toString());
-        double volume = Double.parseDouble(kline.get(5).toString());
-
-        return new Candle(symbol, interval, time, open, high, low, close, volume);
+    public static Duration intervalDuration(String interval) {
+        if (interval == null || interval.length() < 2) {
+            throw new IllegalArgumentException("Invalid kline interval: " + interval);
+        }
+        long amount = Long.parseLong(interval.substring(0, interval.length() - 1));
+        return switch (interval.charAt(interval.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            case 'h' -> Duration.ofHours(amount);
+            case 'd' -> Duration.ofDays(amount);
+            case 'w' -> Duration.ofDays(7 * amount);
+            default -> throw new IllegalArgumentException("Unsupported kline interval: " + interval);
+        };
+    }
+
+    /**
+     * Uma requisição a /api/v3/klines passando pelo rate limiter, com retry em 429/418.
+     */
+    private List<Candle> fetchKlines(String symbol, String interval, int limit, Long startTime, Long endTime) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                rateLimiter.acquire(KLINES_WEIGHT);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for Binance rate limit", e);
+            }
+
+            KlineResponse response = restClient.get()
+                    .uri(uriBuilder -> {
+                        uriBuilder.path("/api/v3/klines")
+                                .queryParam("symbol", symbol)
+                                .queryParam("interval", interval)
+                                .queryParam("limit", limit);
+                        if (startTime != null) {
+                            uriBuilder.queryParam("startTime", startTime);
+                        }
+                        if (endTime != null) {
+                            uriBuilder.queryParam("endTime", endTime);
+                        }
+                        return uriBuilder.build();
+                    })
+                    .exchange((request, clientResponse) -> {
+                        int status = clientResponse.getStatusCode().value();
+                        HttpHeaders headers = clientResponse.getHeaders();
+                        if (status == 429 || status == 418) {
+                            return new KlineResponse(status, null, parseLong(headers.getFirst("Retry-After"), -1));
+                        }
+                        String usedWeight = headers.getFirst(USED_WEIGHT_HEADER);
+                        if (usedWeight != null) {
+                            rateLimiter.onUsedWeight((int) parseLong(usedWeight, 0));
+                        }
+                        if (status >= 400) {
+                            return new KlineResponse(status, null, -1);
+                        }
+                        // Decodifica o corpo em streaming, sem o List<List<Object>> intermediário
+                        return new KlineResponse(status,
+                                BinanceKlineDecoder.decodeKlineArray(clientResponse.getBody(), symbol, interval), -1);
+                    });
+
+            if (response.status() == 429 || response.status() == 418) {
+                rateLimiter.onRateLimited(response.status(), response.retryAfterSeconds());
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw new RestClientException("Binance rate limit still exceeded after " + attempt + " attempts");
+                }
+                continue;
+            }
+            if (response.status() >= 400) {
+                throw new RestClientException("Binance klines request failed with status " + response.status());
+            }
+
+            return response.candles();
+        }
+    }
+
+    private static long parseLong(String value, long fallback) {
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    private record KlineResponse(int status, List<Candle> candles, long retryAfterSeconds) {
     }
-}
\ No newline at end of file
+}
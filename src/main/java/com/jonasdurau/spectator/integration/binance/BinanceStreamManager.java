@@ -0,0 +1,236 @@
+package com.jonasdurau.spectator.integration.binance;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jonasdurau.spectator.core.domain.Candle;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Distribui as inscrições de kline entre poucas conexões de combined streams e roteia cada mensagem
+ * para o listener do (símbolo, intervalo).
+ *
+ * Cada conexão recebe até {@code streams-per-connection} streams; inscrições e cancelamentos em tempo de
+ * execução só mexem na conexão dona do stream, sem derrubar as outras. As mudanças são aplicadas pela
+ * thread de controle a cada {@code control-interval-ms}, o que agrupa rajadas num único SUBSCRIBE.
+ *
+ * O mesmo ciclo faz o watchdog e a reconexão de cada socket (ver {@link BinanceWebSocketClient}). Quando um socket
+ * volta, o {@link KlineGapListener} de cada stream dele repara o buraco via REST numa virtual thread, e as klines
+ * ao vivo ficam retidas até o reparo terminar. Reconexões, quedas por silêncio e tempo fora do ar viram métricas.
+ */
+@Component
+public class BinanceStreamManager {
+
+    private static final Logger log = LoggerFactory.getLogger(BinanceStreamManager.class);
+
+    private final ObjectMapper objectMapper;
+    private final String baseUrl;
+    private final int streamsPerConnection;
+    private final Duration staleTimeout;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+
+    private final List<BinanceWebSocketClient> connections = new CopyOnWriteArrayList<>();
+    private final Map<String, BinanceWebSocketClient> owners = new HashMap<>();
+    // símbolo (maiúsculo, como vem no payload) -> intervalo -> listener
+    private final Map<String, Map<String, KlineListener>> routes = new ConcurrentHashMap<>();
+    // nome do stream -> inscrição (para saber quem repara o buraco depois de uma reconexão)
+    private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+
+    private final Counter reconnects;
+    private final Counter staleDisconnects;
+    private final Counter connectFailures;
+    private final Timer downtime;
+
+    private record Subscription(String symbol, String interval, KlineGapListener gapListener) {
+    }
+
+    private final ScheduledExecutorService control = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "binance-stream-control");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public BinanceStreamManager(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Value("${spectator.binance.ws.base-url:wss://stream.binance.com:9443}") String baseUrl,
+            @Value("${spectator.binance.ws.streams-per-connection:200}") int streamsPerConnection,
+            @Value("${spectator.binance.ws.control-interval-ms:500}") long controlIntervalMs,
+            @Value("${spectator.binance.ws.stale-timeout-ms:30000}") long staleTimeoutMs,
+            @Value("${spectator.binance.ws.reconnect-initial-backoff-ms:1000}") long initialBackoffMs,
+            @Value("${spectator.binance.ws.reconnect-max-backoff-ms:60000}") long maxBackoffMs) {
+        this.objectMapper = objectMapper;
+        this.baseUrl = baseUrl;
+        this.streamsPerConnection = Math.max(1, streamsPerConnection);
+        this.staleTimeout = Duration.ofMillis(staleTimeoutMs);
+        this.initialBackoff = Duration.ofMillis(initialBackoffMs);
+        this.maxBackoff = Duration.ofMillis(maxBackoffMs);
+
+        this.reconnects = meterRegistry.counter("spectator.binance.ws.reconnects");
+        this.staleDisconnects = meterRegistry.counter("spectator.binance.ws.stale.disconnects");
+        this.connectFailures = meterRegistry.counter("spectator.binance.ws.connect.failures");
+        this.downtime = meterRegistry.timer("spectator.binance.ws.downtime");
+        meterRegistry.gauge("spectator.binance.ws.connections", connections, List::size);
+        meterRegistry.gauge("spectator.binance.ws.connections.open", connections,
+                list -> list.stream().filter(BinanceWebSocketClient::isOpen).count());
+        meterRegistry.gauge("spectator.binance.ws.streams", subscriptions, Map::size);
+
+        control.scheduleWithFixedDelay(this::reconcileAll, controlIntervalMs, controlIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Passa a receber as klines do (símbolo, intervalo). Não bloqueia: a inscrição é enviada no próximo ciclo de controle.
+     *
+     * @param gapListener chamado depois de uma reconexão para repor o que foi perdido enquanto o socket estava fora
+     */
+    public synchronized void subscribe(String symbol, String interval, KlineListener listener, KlineGapListener gapListener) {
+        String upperSymbol = symbol.toUpperCase(java.util.Locale.ROOT);
+        routes.computeIfAbsent(upperSymbol, k -> new ConcurrentHashMap<>()).put(interval, listener);
+
+        String stream = BinanceWebSocketClient.klineStream(symbol, interval);
+        subscriptions.put(stream, new Subscription(upperSymbol, interval, gapListener));
+        if (owners.containsKey(stream)) {
+            return;
+        }
+
+        BinanceWebSocketClient connection = connections.stream()
+                .filter(c -> c.getStreamCount() < streamsPerConnection)
+                .findFirst()
+                .orElseGet(this::newConnection);
+        connection.addStream(stream);
+        owners.put(stream, connection);
+    }
+
+    public synchronized void unsubscribe(String symbol, String interval) {
+        String upperSymbol = symbol.toUpperCase(java.util.Locale.ROOT);
+        Map<String, KlineListener> byInterval = routes.get(upperSymbol);
+        if (byInterval != null) {
+            byInterval.remove(interval);
+            if (byInterval.isEmpty()) {
+                routes.remove(upperSymbol);
+            }
+        }
+
+        String stream = BinanceWebSocketClient.klineStream(symbol, interval);
+        subscriptions.remove(stream);
+        BinanceWebSocketClient connection = owners.remove(stream);
+        if (connection != null) {
+            connection.removeStream(stream);
+        }
+    }
+
+    public synchronized Set<String> getSubscribedStreams() {
+        return Set.copyOf(owners.keySet());
+    }
+
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        control.shutdownNow();
+        connections.forEach(BinanceWebSocketClient::close);
+    }
+
+    private BinanceWebSocketClient newConnection() {
+        BinanceWebSocketClient connection = new BinanceWebSocketClient(baseUrl, objectMapper.getFactory(), this::dispatch,
+                new ConnectionEvents(), staleTimeout, initialBackoff, maxBackoff);
+        connections.add(connection);
+        log.info("Opening Binance combined stream connection #{}", connections.size());
+        return connection;
+    }
+
+    /**
+     * Métricas e reparo de buraco de todas as conexões.
+     */
+    private final class ConnectionEvents implements BinanceWebSocketClient.ConnectionListener {
+
+        @Override
+        public void onReconnected(BinanceWebSocketClient connection, Set<String> streams, Duration downtimeDuration) {
+            reconnects.increment();
+            downtime.record(downtimeDuration);
+            log.info("Binance stream reconnected after {} ms. Repairing {} streams before resuming live ticks.",
+                    downtimeDuration.toMillis(), streams.size());
+
+            // Fora da thread do WebSocket: o REST pode levar alguns segundos e o socket precisa continuar lendo
+            Thread.ofVirtual().name("binance-gap-repair").start(() -> {
+                try {
+                    for (String stream : streams) {
+                        Subscription subscription = subscriptions.get(stream);
+                        if (subscription == null || subscription.gapListener() == null) {
+                            continue;
+                        }
+                        try {
+                            subscription.gapListener().repairGap(subscription.symbol(), subscription.interval());
+                        } catch (Exception e) {
+                            log.error("Gap repair failed for {}. Live ticks resume anyway.", stream, e);
+                        }
+                    }
+                } finally {
+                    connection.releaseHeldKlines();
+                }
+            });
+        }
+
+        @Override
+        public void onStale(BinanceWebSocketClient connection) {
+            staleDisconnects.increment();
+        }
+
+        @Override
+        public void onConnectFailure(BinanceWebSocketClient connection, Throwable error) {
+            connectFailures.increment();
+        }
+    }
+
+    private void dispatch(Candle candle, boolean closed) {
+        Map<String, KlineListener> byInterval = routes.get(candle.getSymbol());
+        KlineListener listener = byInterval != null ? byInterval.get(candle.getTimeframe()) : null;
+        if (listener != null) {
+            listener.onKline(candle, closed);
+        }
+    }
+
+    private void reconcileAll() {
+        List<BinanceWebSocketClient> empty = new ArrayList<>();
+        for (BinanceWebSocketClient connection : connections) {
+            try {
+                connection.reconcile();
+                if (connection.getStreamCount() == 0) {
+                    empty.add(connection);
+                }
+            } catch (Exception e) {
+                log.error("Failed to reconcile Binance stream connection", e);
+            }
+        }
+        if (!empty.isEmpty()) {
+            synchronized (this) {
+                for (BinanceWebSocketClient connection : empty) {
+                    // Pode ter recebido inscrição entre o reconcile e o lock
+                    if (connection.getStreamCount() == 0) {
+                        connections.remove(connection);
+                        connection.close();
+                        log.info("Closed idle Binance combined stream connection.");
+                    }
+                }
+            }
+        }
+    }
+}
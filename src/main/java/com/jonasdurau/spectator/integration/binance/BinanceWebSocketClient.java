@@ -1,8 +1,7 @@
 package com.jonasdurau.spectator.integration.binance;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonFactory;
 import com.jonasdurau.spectator.core.domain.Candle;
-import com.jonasdurau.spectator.integration.binance.dto.BinanceKlineEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.socket.CloseStatus;
@@ -11,79 +10,374 @@ import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.client.standard.StandardWebSocketClient;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
-import java.time.Instant;
-import java.util.function.Consumer;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Uma conexão de combined streams da Binance ({@code /stream?streams=a/b/c}).
+ *
+ * O conjunto desejado de streams pode mudar a qualquer momento; {@link #reconcile()} (chamado periodicamente
+ * pelo {@link BinanceStreamManager}) abre a conexão com todos eles na URL ou, se ela já estiver aberta, manda um
+ * único SUBSCRIBE/UNSUBSCRIBE com a diferença. Assim rajadas de inscrições viram uma mensagem só, respeitando
+ * o limite de mensagens de controle por segundo da Binance.
+ *
+ * O mesmo ciclo cuida da recuperação:
+ * <ul>
+ *   <li>conexão caiu ou falhou: reconecta com backoff exponencial e jitter;</li>
+ *   <li>nenhuma mensagem em {@code staleTimeout}: o watchdog derruba a sessão e ela entra no fluxo acima;</li>
+ *   <li>reconectou: as klines ao vivo ficam retidas até o {@link ConnectionListener} reparar o buraco via REST,
+ *       e só então são entregues, na ordem em que chegaram.</li>
+ * </ul>
+ */
 public class BinanceWebSocketClient extends TextWebSocketHandler {
 
     private static final Logger log = LoggerFactory.getLogger(BinanceWebSocketClient.class);
-    private static final String BINANCE_WS_URL = "wss://stream.binance.com:9443/ws/";
 
-    private final ObjectMapper objectMapper;
-    private final Consumer<Candle> candleUpdateListener;
-    private WebSocketSession currentSession;
+    /**
+     * Eventos de saúde da conexão (reparo de buraco e métricas).
+     */
+    @FunctionalInterface
+    public interface ConnectionListener {
+
+        /**
+         * A conexão voltou depois de uma queda. Deve reparar o buraco dos streams informados
+         * e então chamar {@link BinanceWebSocketClient#releaseHeldKlines()}.
+         */
+        void onReconnected(BinanceWebSocketClient connection, Set<String> streams, Duration downtime);
+
+        /** O watchdog derrubou a sessão por falta de mensagens. */
+        default void onStale(BinanceWebSocketClient connection) {
+        }
+
+        /** Uma tentativa de conexão falhou. */
+        default void onConnectFailure(BinanceWebSocketClient connection, Throwable error) {
+        }
+    }
+
+    private final String baseUrl;
+    // Mensagens de uma sessão chegam em sequência, então um decoder (e um evento reaproveitado) por cliente basta
+    private final BinanceKlineDecoder decoder;
+    private final KlineListener candleUpdateListener;
+    private final ConnectionListener connectionListener;
+    private final long staleTimeoutNanos;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+
+    // Streams desejados (escrito por quem inscreve) e streams que a Binance já conhece (só dentro do lock)
+    private final Set<String> streams = ConcurrentHashMap.newKeySet();
+    private final Set<String> active = new HashSet<>();
+    private final Object lock = new Object();
+    private final AtomicLong requestIds = new AtomicLong();
+
+    private volatile WebSocketSession currentSession;
+    private volatile boolean connecting;
+    private volatile long lastMessageNanos;
+    private Set<String> connectedWith = Set.of();
 
-    public BinanceWebSocketClient(ObjectMapper objectMapper, Consumer<Candle> listener) {
-        this.objectMapper = objectMapper;
+    // Estado de reconexão (só dentro do lock)
+    private int failedAttempts;
+    private long nextAttemptNanos;
+    private long disconnectedSinceNanos;
+
+    // Klines recebidas enquanto o buraco da queda é reparado, coalescidas por candle
+    private final Object holdLock = new Object();
+    private boolean holding;
+    private boolean draining;
+    private final Map<String, HeldKline> held = new LinkedHashMap<>();
+
+    private record HeldKline(Candle candle, boolean closed) {
+    }
+
+    public BinanceWebSocketClient(String baseUrl, JsonFactory jsonFactory, KlineListener listener,
+            ConnectionListener connectionListener, Duration staleTimeout, Duration initialBackoff, Duration maxBackoff) {
+        this.baseUrl = baseUrl;
+        this.decoder = new BinanceKlineDecoder(jsonFactory);
         this.candleUpdateListener = listener;
+        this.connectionListener = connectionListener;
+        this.staleTimeoutNanos = staleTimeout.toNanos();
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+    }
+
+    /**
+     * Nome do stream de kline na Binance. Ex: "btcusdt@kline_1h" (a Binance exige minúsculo).
+     */
+    public static String klineStream(String symbol, String interval) {
+        return symbol.toLowerCase(java.util.Locale.ROOT) + "@kline_" + interval;
+    }
+
+    public boolean addStream(String stream) {
+        return streams.add(stream);
+    }
+
+    public boolean removeStream(String stream) {
+        return streams.remove(stream);
+    }
+
+    public int getStreamCount() {
+        return streams.size();
+    }
+
+    public boolean isOpen() {
+        WebSocketSession session = currentSession;
+        return session != null && session.isOpen();
+    }
+
+    /**
+     * Aproxima a conexão do conjunto desejado de streams e verifica a saúde dela.
+     * Nunca bloqueia: a conexão é aberta de forma assíncrona.
+     */
+    public void reconcile() {
+        synchronized (lock) {
+            long now = System.nanoTime();
+            WebSocketSession session = currentSession;
+
+            if (session != null && session.isOpen() && now - lastMessageNanos > staleTimeoutNanos) {
+                log.warn("No message from Binance for {} ms on session {}. Dropping stale connection.",
+                        TimeUnit.NANOSECONDS.toMillis(now - lastMessageNanos), session.getId());
+                connectionListener.onStale(this);
+                closeQuietly(session, CloseStatus.SESSION_NOT_RELIABLE);
+                markDisconnected(session, now);
+                session = null;
+            }
+
+            if (session != null && !session.isOpen()) {
+                // Fechou sem passar (ainda) pelo afterConnectionClosed
+                markDisconnected(session, now);
+                session = null;
+            }
+
+            if (session == null) {
+                if (!connecting && !streams.isEmpty() && now >= nextAttemptNanos) {
+                    connect();
+                }
+                return;
+            }
+
+            Set<String> toSubscribe = new HashSet<>(streams);
+            toSubscribe.removeAll(active);
+            Set<String> toUnsubscribe = new HashSet<>(active);
+            toUnsubscribe.removeAll(streams);
+
+            send(session, "SUBSCRIBE", toSubscribe);
+            send(session, "UNSUBSCRIBE", toUnsubscribe);
+        }
+    }
+
+    public void close() {
+        synchronized (lock) {
+            WebSocketSession session = currentSession;
+            currentSession = null;
+            active.clear();
+            streams.clear();
+            if (session != null) {
+                closeQuietly(session, CloseStatus.NORMAL);
+            }
+        }
+    }
+
+    /**
+     * Entrega as klines retidas durante o reparo (na ordem de chegada) e volta a repassar ao vivo.
+     *
+     * O listener roda fora do {@code holdLock}, para não travar a thread do socket enquanto processa: cada rodada
+     * troca a lista retida por uma vazia e entrega a antiga. Enquanto isso o ao vivo continua retido, e só volta a
+     * passar direto quando uma rodada encontra a lista vazia, então a ordem de chegada se mantém.
+     */
+    public void releaseHeldKlines() {
+        synchronized (holdLock) {
+            // Quem já está drenando entrega também o que chegar agora
+            if (draining) {
+                return;
+            }
+            draining = true;
+        }
+        try {
+            while (true) {
+                List<HeldKline> batch;
+                synchronized (holdLock) {
+                    if (held.isEmpty()) {
+                        holding = false;
+                        return;
+                    }
+                    batch = new ArrayList<>(held.values());
+                    held.clear();
+                }
+                for (HeldKline kline : batch) {
+                    deliver(kline.candle(), kline.closed());
+                }
+            }
+        } finally {
+            synchronized (holdLock) {
+                draining = false;
+            }
+        }
+    }
+
+    private void connect() {
+        connectedWith = Set.copyOf(streams);
+        String streamUrl = baseUrl + "/stream?streams=" + String.join("/", connectedWith);
+        connecting = true;
+
+        log.info("Connecting to Binance combined stream with {} streams (attempt {})", connectedWith.size(), failedAttempts + 1);
+        try {
+            new StandardWebSocketClient().execute(this, streamUrl).whenComplete((session, error) -> {
+                if (error != null) {
+                    connectionFailed(error);
+                }
+            });
+        } catch (RuntimeException e) {
+            connectionFailed(e);
+        }
+    }
+
+    private void connectionFailed(Throwable error) {
+        synchronized (lock) {
+            connecting = false;
+            long now = System.nanoTime();
+            if (disconnectedSinceNanos == 0) {
+                disconnectedSinceNanos = now;
+            }
+            failedAttempts++;
+            long delay = backoffNanos(failedAttempts);
+            nextAttemptNanos = now + delay;
+            log.error("Failed to connect to Binance WebSocket. Retrying in {} ms.", TimeUnit.NANOSECONDS.toMillis(delay), error);
+        }
+        connectionListener.onConnectFailure(this, error);
     }
 
     /**
-     * Inicia a conexão com a Binance para um símbolo e intervalo específicos.
-     * @param symbol Ex: "btcusdt" (A Binance exige minúsculo no WebSocket)
-     * @param interval Ex: "1h", "4h"
-     * @param listener Uma função que será chamada toda vez que um tick chegar
+     * Backoff exponencial com "equal jitter": metade fixa e metade aleatória, para que várias conexões
+     * derrubadas juntas não voltem todas no mesmo instante.
      */
-    public void connect(String symbol, String interval) {
-        String streamUrl = BINANCE_WS_URL + symbol.toLowerCase() + "@kline_" + interval;
+    private long backoffNanos(int attempt) {
+        long exponential = Math.min(maxBackoffNanos, initialBackoffNanos << Math.min(attempt - 1, 20));
+        long half = Math.max(1, exponential / 2);
+        return half + ThreadLocalRandom.current().nextLong(half + 1);
+    }
+
+    private void markDisconnected(WebSocketSession session, long now) {
+        if (currentSession != session) {
+            return;
+        }
+        currentSession = null;
+        active.clear();
+        if (disconnectedSinceNanos == 0) {
+            disconnectedSinceNanos = now;
+        }
+        // A primeira tentativa já leva jitter; quedas em massa (corte das 24h) não voltam em bloco
+        nextAttemptNanos = now + backoffNanos(Math.max(1, failedAttempts));
+    }
 
-        StandardWebSocketClient client = new StandardWebSocketClient();
+    private void send(WebSocketSession session, String method, Set<String> params) {
+        if (params.isEmpty()) {
+            return;
+        }
+        List<String> sorted = params.stream().sorted().toList();
+        String request = "{\"method\":\"" + method + "\",\"params\":[\"" + String.join("\",\"", sorted)
+                + "\"],\"id\":" + requestIds.incrementAndGet() + "}";
         try {
-            log.info("Connecting to Binance WebSocket: {}", streamUrl);
-            client.execute(this, streamUrl).get(); // .get() trava até conectar
-        } catch (Exception e) {
-            log.error("Failed to connect to Binance WebSocket", e);
-            // Em produção, implementaríamos um retry automático aqui
+            session.sendMessage(new TextMessage(request));
+            if ("SUBSCRIBE".equals(method)) {
+                active.addAll(sorted);
+            } else {
+                active.removeAll(sorted);
+            }
+            log.info("{} {} stream(s) on session {}", method, sorted.size(), session.getId());
+        } catch (IOException e) {
+            // Fica para o próximo reconcile
+            log.warn("Failed to send {} to Binance", method, e);
+        }
+    }
+
+    private static void closeQuietly(WebSocketSession session, CloseStatus status) {
+        try {
+            if (session.isOpen()) {
+                session.close(status);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to close Binance WebSocket cleanly", e);
         }
     }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) {
-        this.currentSession = session;
+        long downtimeNanos;
+        Set<String> reconnectedStreams;
+        synchronized (lock) {
+            this.currentSession = session;
+            connecting = false;
+            lastMessageNanos = System.nanoTime();
+            active.clear();
+            active.addAll(connectedWith);
+
+            downtimeNanos = disconnectedSinceNanos == 0 ? -1 : lastMessageNanos - disconnectedSinceNanos;
+            reconnectedStreams = connectedWith;
+            disconnectedSinceNanos = 0;
+            failedAttempts = 0;
+        }
         log.info("Binance WebSocket Connection Established. Session ID: {}", session.getId());
+
+        if (downtimeNanos >= 0) {
+            // Segura o ao vivo até o buraco ser preenchido; quem repara chama releaseHeldKlines()
+            synchronized (holdLock) {
+                holding = true;
+            }
+            connectionListener.onReconnected(this, reconnectedStreams, Duration.ofNanos(downtimeNanos));
+        }
     }
 
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
-        String payload = message.getPayload();
-        
-        // Converte o JSON string para o nosso Record
-        BinanceKlineEvent event = objectMapper.readValue(payload, BinanceKlineEvent.class);
-        BinanceKlineEvent.KlineData data = event.kline();
-
-        // Converte o DTO da Binance para nossa Entidade de Domínio
-        Instant time = Instant.ofEpochMilli(data.startTime());
-        
-        Candle candle = new Candle(
-                event.symbol(),
-                data.interval(),
-                time,
-                Double.parseDouble(data.open()),
-                Double.parseDouble(data.high()),
-                Double.parseDouble(data.low()),
-                Double.parseDouble(data.close()),
-                Double.parseDouble(data.volume())
-        );
-
-        // Se alguém estiver escutando, repassa o candle
-        if (candleUpdateListener != null) {
-            candleUpdateListener.accept(candle);
+        lastMessageNanos = System.nanoTime();
+
+        // Parser de streaming: preços lidos direto para primitivos, campos ignorados nem são materializados
+        MutableKlineEvent event = decoder.decode(message.getPayload());
+
+        // Respostas de SUBSCRIBE/UNSUBSCRIBE não trazem kline
+        if (event == null) {
+            return;
         }
+
+        Candle candle = event.toCandle();
+        boolean closed = event.isClosed();
+        synchronized (holdLock) {
+            if (holding) {
+                String key = candle.getSymbol() + ':' + candle.getTimeframe() + ':' + event.getOpenTime();
+                HeldKline previous = held.remove(key);
+                held.put(key, new HeldKline(candle, closed || (previous != null && previous.closed())));
+                return;
+            }
+        }
+        deliver(candle, closed);
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
         log.warn("Binance WebSocket Connection Closed. Status: {}", status);
-        this.currentSession = null;
+        synchronized (lock) {
+            markDisconnected(session, System.nanoTime());
+        }
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        log.warn("Binance WebSocket transport error on session {}", session.getId(), exception);
+    }
+
+    private void deliver(Candle candle, boolean closed) {
+        // Se alguém estiver escutando, repassa o candle (e se ele fechou)
+        if (candleUpdateListener != null) {
+            candleUpdateListener.onKline(candle, closed);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,14 @@
+package com.jonasdurau.spectator.integration.binance;
+
+/**
+ * Repara o buraco de um stream depois que a conexão caiu e voltou.
+ * As klines ao vivo desse stream só voltam a ser entregues depois que o reparo termina.
+ */
+@FunctionalInterface
+public interface KlineGapListener {
+
+    /**
+     * Deve buscar (via REST) e aplicar os candles perdidos desde o último recebido até agora.
+     */
+    void repairGap(String symbol, String interval);
+}
@@ -0,0 +1,16 @@
+package com.jonasdurau.spectator.integration.binance;
+
+import com.jonasdurau.spectator.core.domain.Candle;
+
+/**
+ * Recebe cada atualização de kline do WebSocket da Binance.
+ */
+@FunctionalInterface
+public interface KlineListener {
+
+    /**
+     * @param candle estado atual do candle
+     * @param closed true quando esta é a última atualização do candle (campo {@code x} da Binance)
+     */
+    void onKline(Candle candle, boolean closed);
+}
@@ -0,0 +1,95 @@
+package com.jonasdurau.spectator.integration.binance;
+
+import com.jonasdurau.spectator.core.domain.Candle;
+
+import java.time.Instant;
+
+/**
+ * Evento de kline do WebSocket com os campos em primitivos, reaproveitado a cada mensagem
+ * pelo {@link BinanceKlineDecoder}. Só é válido até o próximo {@code decode}: quem precisar
+ * guardar o valor deve copiá-lo (por exemplo com {@link #toCandle()}).
+ */
+public final class MutableKlineEvent {
+
+    String symbol;
+    String interval;
+    long eventTime;
+    long openTime;
+    long closeTime;
+    double open;
+    double high;
+    double low;
+    double close;
+    double volume;
+    long trades;
+    boolean closed;
+
+    void reset() {
+        symbol = null;
+        interval = null;
+        eventTime = 0;
+        openTime = 0;
+        closeTime = 0;
+        open = Double.NaN;
+        high = Double.NaN;
+        low = Double.NaN;
+        close = Double.NaN;
+        volume = Double.NaN;
+        trades = 0;
+        closed = false;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public String getInterval() {
+        return interval;
+    }
+
+    public long getEventTime() {
+        return eventTime;
+    }
+
+    /** Horário de abertura do candle em epoch millis (campo {@code t}). */
+    public long getOpenTime() {
+        return openTime;
+    }
+
+    public long getCloseTime() {
+        return closeTime;
+    }
+
+    public double getOpen() {
+        return open;
+    }
+
+    public double getHigh() {
+        return high;
+    }
+
+    public double getLow() {
+        return low;
+    }
+
+    public double getClose() {
+        return close;
+    }
+
+    public double getVolume() {
+        return volume;
+    }
+
+    public long getTrades() {
+        return trades;
+    }
+
+    /** Campo {@code x}: true na última atualização do candle. */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public Candle toCandle() {
+        return new Candle(symbol, interval, Instant.ofEpochMilli(openTime), open, high, low, close, volume);
+    }
+}
@@ -0,0 +1,179 @@
+package com.jonasdurau.spectator.ui.broadcaster;
+
+import com.jonasdurau.spectator.core.repository.CandleBatchRepository;
+import com.jonasdurau.spectator.integration.binance.BinanceRestClient;
+import com.jonasdurau.spectator.ui.components.ChartPayload;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Páginas de candles anteriores ao {@link DashboardSnapshot}, pedidas pelo gráfico quando o usuário rola para
+ * trás. Cada página sai do banco por keyset ({@link CandleBatchRepository#forEachBefore}) já serializada no
+ * formato do {@link ChartPayload} e fica num cache LRU de tamanho fixo, compartilhado por todas as sessões: a
+ * memória não cresce com o número de abas nem com o quanto cada uma rolou.
+ *
+ * O cursor pedido é arredondado para cima até a grade de {@code page-bars} candles. Abas abertas em horas
+ * diferentes caem nas mesmas chaves já na primeira página (o navegador descarta os candles que já tem) e daí em
+ * diante seguem a mesma sequência de cursores. Pedidos simultâneos da mesma página esperam uma única consulta.
+ * Só fica no cache a página que chega até o cursor com candles já fechados: a célula da grade que ainda contém o
+ * candle mais novo muda a cada candle gravado e é lida do banco a cada pedido.
+ *
+ * Métricas: {@code spectator.ui.history.hits} e {@code .misses}.
+ */
+@Component
+public class ChartHistoryPages {
+
+    private static final Logger log = LoggerFactory.getLogger(ChartHistoryPages.class);
+
+    // Consultas simultâneas ao banco; os outros pedidos esperam na fila
+    private static final int LOADER_THREADS = 2;
+
+    /**
+     * Candles de uma página, do mais antigo para o mais novo.
+     *
+     * @param json      array no formato de {@link ChartPayload#history}
+     * @param exhausted não há candles mais antigos no banco
+     */
+    public record HistoryPage(String json, int count, boolean exhausted) {
+    }
+
+    private record PageKey(String symbol, long before) {
+    }
+
+    /**
+     * @param settled a página vai até o candle anterior ao cursor e ele já fechou: não muda mais
+     */
+    private record LoadedPage(HistoryPage page, boolean settled) {
+    }
+
+    private final CandleBatchRepository candleBatchRepository;
+    private final int pageBars;
+    private final long barMs;
+    private final long gridMs;
+
+    // Em ordem de acesso: o primeiro é o menos usado. Guarda a página ainda em carga, para juntar pedidos iguais
+    private final Map<PageKey, CompletableFuture<HistoryPage>> pages;
+    private final ExecutorService loader = Executors.newFixedThreadPool(LOADER_THREADS,
+            Thread.ofPlatform().name("chart-history-", 0).daemon().factory());
+
+    final Counter hits;
+    final Counter misses;
+
+    public ChartHistoryPages(CandleBatchRepository candleBatchRepository, MeterRegistry meterRegistry,
+            @Value("${spectator.dashboard.history.page-bars:500}") int pageBars,
+            @Value("${spectator.dashboard.history.cache-pages:256}") int cachePages) {
+        this.candleBatchRepository = candleBatchRepository;
+        this.pageBars = pageBars;
+        this.barMs = BinanceRestClient.intervalDuration(DashboardSnapshots.TIMEFRAME).toMillis();
+        this.gridMs = pageBars * barMs;
+        this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<PageKey, CompletableFuture<HistoryPage>> eldest) {
+                return size() > cachePages;
+            }
+        };
+        this.hits = meterRegistry.counter("spectator.ui.history.hits");
+        this.misses = meterRegistry.counter("spectator.ui.history.misses");
+    }
+
+    public int getPageBars() {
+        return pageBars;
+    }
+
+    /**
+     * Até {@code page-bars} candles anteriores a {@code beforeMs}, normalmente o candle mais antigo do gráfico.
+     * Pode trazer alguns candles a partir dele por causa do arredondamento do cursor.
+     */
+    public CompletableFuture<HistoryPage> olderThan(String symbol, long beforeMs) {
+        // O cursor vem do navegador: nada depois de agora, onde ficariam candles ainda abertos
+        PageKey key = new PageKey(symbol, align(Math.min(beforeMs, System.currentTimeMillis())));
+        CompletableFuture<HistoryPage> page;
+        synchronized (pages) {
+            page = pages.get(key);
+            if (page != null) {
+                hits.increment();
+                return page;
+            }
+            page = new CompletableFuture<>();
+            pages.put(key, page);
+        }
+        misses.increment();
+        CompletableFuture<HistoryPage> loading = page;
+        loader.execute(() -> {
+            try {
+                LoadedPage loaded = load(key);
+                if (!loaded.settled()) {
+                    // Guardada até aqui só para juntar pedidos iguais; o próximo pedido lê o banco de novo
+                    synchronized (pages) {
+                        pages.remove(key, loading);
+                    }
+                }
+                loading.complete(loaded.page());
+            } catch (RuntimeException e) {
+                // A falha não fica no cache: o próximo pedido tenta de novo
+                synchronized (pages) {
+                    pages.remove(key, loading);
+                }
+                log.warn("Failed to load chart history of {} before {}.", key.symbol(),
+                        Instant.ofEpochMilli(key.before()), e);
+                loading.completeExceptionally(e);
+            }
+        });
+        return page;
+    }
+
+    public int getCachedPages() {
+        synchronized (pages) {
+            return pages.size();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+
+    long align(long timeMs) {
+        return Math.ceilDiv(timeMs, gridMs) * gridMs;
+    }
+
+    private LoadedPage load(PageKey key) {
+        // O banco entrega do mais novo para o mais velho: preenche os arrays de trás para frente
+        long[] time = new long[pageBars];
+        double[] open = new double[pageBars];
+        double[] high = new double[pageBars];
+        double[] low = new double[pageBars];
+        double[] close = new double[pageBars];
+        int[] next = {pageBars};
+        int count = candleBatchRepository.forEachBefore(key.symbol(), DashboardSnapshots.TIMEFRAME,
+                Instant.ofEpochMilli(key.before()), pageBars, (t, o, h, l, c, v) -> {
+                    int i = --next[0];
+                    time[i] = t;
+                    open[i] = o;
+                    high[i] = h;
+                    low[i] = l;
+                    close[i] = c;
+                });
+        int from = next[0];
+        String json = from == 0 ? ChartPayload.history(time, open, high, low, close)
+                : ChartPayload.history(Arrays.copyOfRange(time, from, pageBars),
+                        Arrays.copyOfRange(open, from, pageBars), Arrays.copyOfRange(high, from, pageBars),
+                        Arrays.copyOfRange(low, from, pageBars), Arrays.copyOfRange(close, from, pageBars));
+        boolean settled = count > 0 && time[pageBars - 1] == key.before() - barMs
+                && key.before() <= System.currentTimeMillis();
+        return new LoadedPage(new HistoryPage(json, count, count < pageBars), settled);
+    }
+}
@@ -0,0 +1,205 @@
+package com.jonasdurau.spectator.ui.broadcaster;
+
+import com.jonasdurau.spectator.core.buffer.CandleWindow;
+import com.jonasdurau.spectator.core.domain.MarketRegime;
+import com.jonasdurau.spectator.core.domain.PositionSnapshot;
+import com.jonasdurau.spectator.core.indicator.ChartOverlay;
+import com.jonasdurau.spectator.ui.components.ChartPayload;
+
+import java.util.List;
+
+/**
+ * Estado da tela de um símbolo num instante: últimos candles do gráfico com seus overlays, regime, posições
+ * abertas e último preço.
+ * Imutável; o {@link DashboardSnapshots} troca a referência inteira a cada tick, então quem leu um snapshot
+ * nunca vê metade de uma atualização.
+ *
+ * O JSON do histórico e dos overlays só é gerado quando a primeira tela pede, e reaproveitado pelas seguintes.
+ */
+public final class DashboardSnapshot {
+
+    private final String symbol;
+    private final long[] time;
+    private final double[] open;
+    private final double[] high;
+    private final double[] low;
+    private final double[] close;
+    // Paralelo aos candles; null onde não há overlay
+    private final ChartOverlay[] overlays;
+    private final MarketRegime regime;
+    private final List<PositionSnapshot> openPositions;
+
+    // Cache derivado dos arrays; uma corrida só gera o mesmo texto duas vezes
+    private volatile String historyJson;
+    private volatile String overlayJson;
+
+    private DashboardSnapshot(String symbol, long[] time, double[] open, double[] high, double[] low,
+            double[] close, ChartOverlay[] overlays, MarketRegime regime, List<PositionSnapshot> openPositions) {
+        this.symbol = symbol;
+        this.time = time;
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.close = close;
+        this.overlays = overlays;
+        this.regime = regime;
+        this.openPositions = openPositions;
+    }
+
+    /**
+     * Copia a janela do buffer em memória, ainda sem overlays.
+     *
+     * @return null se o escritor do buffer abriu um candle no meio da cópia (quem chama tenta de novo)
+     */
+    static DashboardSnapshot of(String symbol, CandleWindow window, List<PositionSnapshot> openPositions) {
+        int n = window.size();
+        long[] time = new long[n];
+        double[] open = new double[n];
+        double[] high = new double[n];
+        double[] low = new double[n];
+        double[] close = new double[n];
+        for (int i = 0; i < n; i++) {
+            time[i] = window.time(i);
+            open[i] = window.open(i);
+            high[i] = window.high(i);
+            low[i] = window.low(i);
+            close[i] = window.close(i);
+            if (i > 0 && time[i] <= time[i - 1]) {
+                return null;
+            }
+        }
+        return new DashboardSnapshot(symbol, time, open, high, low, close, new ChartOverlay[n], null, openPositions);
+    }
+
+    /**
+     * Mesmo snapshot com os overlays dados, um por candle.
+     */
+    DashboardSnapshot withOverlays(ChartOverlay[] overlays) {
+        if (overlays.length != time.length) {
+            throw new IllegalArgumentException("Expected " + time.length + " overlays, got " + overlays.length);
+        }
+        return new DashboardSnapshot(symbol, time, open, high, low, close, overlays, regime, openPositions);
+    }
+
+    /**
+     * Novo snapshot com o tick aplicado: revisa o último candle ou acrescenta um novo, descartando o mais antigo
+     * se passar de {@code maxBars}. O overlay do tick vai para o mesmo candle. Um tick de um candle anterior ao
+     * último só atualiza regime e posições.
+     */
+    DashboardSnapshot with(MarketTick tick, int maxBars) {
+        long t = tick.candle().getTime().toEpochMilli();
+        int n = time.length;
+        if (n > 0 && t < time[n - 1]) {
+            return new DashboardSnapshot(symbol, time, open, high, low, close, overlays, tick.regime(),
+                    tick.openPositions());
+        }
+        boolean revision = n > 0 && t == time[n - 1];
+        int size = revision ? n : Math.min(n + 1, maxBars);
+        // Com a janela cheia, o candle novo empurra o mais antigo para fora
+        int from = revision ? 0 : n + 1 - size;
+        int kept = revision ? n - 1 : n - from;
+        long[] newTime = new long[size];
+        double[] newOpen = new double[size];
+        double[] newHigh = new double[size];
+        double[] newLow = new double[size];
+        double[] newClose = new double[size];
+        ChartOverlay[] newOverlays = new ChartOverlay[size];
+        System.arraycopy(time, from, newTime, 0, kept);
+        System.arraycopy(open, from, newOpen, 0, kept);
+        System.arraycopy(high, from, newHigh, 0, kept);
+        System.arraycopy(low, from, newLow, 0, kept);
+        System.arraycopy(close, from, newClose, 0, kept);
+        System.arraycopy(overlays, from, newOverlays, 0, kept);
+        newTime[size - 1] = t;
+        newOpen[size - 1] = tick.candle().getOpen();
+        newHigh[size - 1] = tick.candle().getHigh();
+        newLow[size - 1] = tick.candle().getLow();
+        newClose[size - 1] = tick.candle().getClose();
+        newOverlays[size - 1] = tick.overlay();
+        return new DashboardSnapshot(symbol, newTime, newOpen, newHigh, newLow, newClose, newOverlays,
+                tick.regime(), tick.openPositions());
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public int size() {
+        return time.length;
+    }
+
+    public boolean isEmpty() {
+        return time.length == 0;
+    }
+
+    /**
+     * Fechamento do candle mais recente, ou NaN se não há candles.
+     */
+    public double lastPrice() {
+        return time.length == 0 ? Double.NaN : close[time.length - 1];
+    }
+
+    /**
+     * Horário de abertura (epoch ms) do candle mais recente, ou {@link Long#MIN_VALUE}.
+     */
+    public long lastTime() {
+        return time.length == 0 ? Long.MIN_VALUE : time[time.length - 1];
+    }
+
+    public long time(int index) {
+        return time[index];
+    }
+
+    public double close(int index) {
+        return close[index];
+    }
+
+    /**
+     * Overlay do candle, ou null se não houver.
+     */
+    public ChartOverlay overlay(int index) {
+        return overlays[index];
+    }
+
+    /**
+     * Cópia dos horários de abertura (epoch ms), do mais antigo para o mais novo.
+     */
+    long[] times() {
+        return time.clone();
+    }
+
+    /**
+     * Regime do último tick, ou null se nenhum tick chegou desde a subida.
+     */
+    public MarketRegime regime() {
+        return regime;
+    }
+
+    public List<PositionSnapshot> openPositions() {
+        return openPositions;
+    }
+
+    /**
+     * Candles no formato de {@link ChartPayload#history}.
+     */
+    public String historyJson() {
+        String json = historyJson;
+        if (json == null) {
+            json = ChartPayload.history(time, open, high, low, close);
+            historyJson = json;
+        }
+        return json;
+    }
+
+    /**
+     * Overlays dos candles no formato de {@link ChartPayload#overlays}.
+     */
+    public String overlayJson() {
+        String json = overlayJson;
+        if (json == null) {
+            json = ChartPayload.overlays(overlays);
+            overlayJson = json;
+        }
+        return json;
+    }
+}
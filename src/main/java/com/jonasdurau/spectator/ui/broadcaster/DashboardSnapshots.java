@@ -0,0 +1,83 @@
+package com.jonasdurau.spectator.ui.broadcaster;
+
+import com.jonasdurau.spectator.core.buffer.CandleBufferRegistry;
+import com.jonasdurau.spectator.core.position.PositionBook;
+import com.jonasdurau.spectator.core.service.ChartOverlayService;
+import com.jonasdurau.spectator.core.service.IndicatorService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Um {@link DashboardSnapshot} por símbolo, compartilhado pela aplicação inteira. Nasce de uma cópia do buffer
+ * em memória do timeframe das estratégias (sem banco) e daí em diante é mantido pelos ticks do
+ * {@link MarketDataBroadcaster}. Uma tela nova só lê a referência atual: uma onda de reconexões não gera
+ * nenhuma consulta. Os overlays dos candles copiados são calculados uma vez nessa cópia
+ * ({@link ChartOverlayService#history}); os seguintes chegam prontos nos ticks.
+ *
+ * Uma tela aberta antes da carga inicial do buffer ({@code MarketDataService.startSync}) copia um buffer vazio ou
+ * incompleto. Enquanto o snapshot tiver menos candles do que o buffer já tem (e menos que {@code bars}), ele é
+ * copiado de novo no próximo acesso ou tick, em vez de seguir curto para sempre.
+ */
+@Component
+public class DashboardSnapshots {
+
+    public static final String TIMEFRAME = IndicatorService.STRATEGY_TIMEFRAME;
+
+    // Tentativas de copiar o buffer enquanto o stream abre candles
+    private static final int SEED_ATTEMPTS = 3;
+
+    private final CandleBufferRegistry candleBuffers;
+    private final PositionBook positionBook;
+    private final ChartOverlayService chartOverlays;
+    private final int bars;
+    private final Map<String, DashboardSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    public DashboardSnapshots(CandleBufferRegistry candleBuffers, PositionBook positionBook,
+            ChartOverlayService chartOverlays, @Value("${spectator.dashboard.bars:200}") int bars) {
+        this.candleBuffers = candleBuffers;
+        this.positionBook = positionBook;
+        this.chartOverlays = chartOverlays;
+        this.bars = bars;
+    }
+
+    public DashboardSnapshot get(String symbol) {
+        DashboardSnapshot snapshot = snapshots.get(symbol);
+        if (snapshot != null && !behindBuffer(snapshot)) {
+            return snapshot;
+        }
+        return snapshots.compute(symbol, (key, current) -> current == null || behindBuffer(current) ? seed(key)
+                : current);
+    }
+
+    /**
+     * Troca o snapshot do símbolo por um com o tick aplicado. Chamado pelo estágio de publish.
+     */
+    void onTick(MarketTick tick) {
+        snapshots.compute(tick.symbol(), (symbol, current) -> (current == null || behindBuffer(current)
+                ? seed(symbol) : current).with(tick, bars));
+    }
+
+    /**
+     * O buffer ganhou candles que o snapshot não tem. Com o snapshot cheio ({@code bars}) nem consulta o buffer.
+     */
+    private boolean behindBuffer(DashboardSnapshot snapshot) {
+        return snapshot.size() < bars
+                && candleBuffers.get(snapshot.getSymbol(), TIMEFRAME).size() > snapshot.size();
+    }
+
+    private DashboardSnapshot seed(String symbol) {
+        for (int attempt = 1; ; attempt++) {
+            DashboardSnapshot snapshot = DashboardSnapshot.of(symbol,
+                    candleBuffers.window(symbol, TIMEFRAME, bars), positionBook.snapshot(symbol));
+            if (snapshot != null) {
+                return snapshot.withOverlays(chartOverlays.history(symbol, snapshot.times()));
+            }
+            if (attempt == SEED_ATTEMPTS) {
+                throw new IllegalStateException("Candle buffer of " + symbol + " kept changing while copied");
+            }
+        }
+    }
+}
@@ -1,27 +1,129 @@
 package com.jonasdurau.spectator.ui.broadcaster;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.function.Consumer;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Fan-out dos ticks para as telas abertas. O {@link #broadcast} só deposita o tick na caixa de entrada de cada
+ * {@link Subscription} do símbolo (latest-wins, um tick por inscrição) e volta; a entrega ao listener, que faz o
+ * {@code ui.access} e espera ele rodar, fica em virtual threads. Uma aba lenta ou meio morta perde ticks
+ * intermediários em vez de segurar o pipeline ou as outras abas, e a memória fica limitada pelo número de
+ * inscrições. O candle já vem serializado no tick ({@link MarketTick#chartPayload}), então N sessões não geram N
+ * serializações. Antes do fan-out o tick atualiza o {@link DashboardSnapshots}, de onde as telas novas partem.
+ *
+ * Métricas agregadas (por sessão, em {@link #getSubscriberStats}):
+ * <ul>
+ *   <li>{@code spectator.ui.fanout.delivered}, {@code .conflated}, {@code .dropped}: ticks entregues,
+ *   substituídos por um mais novo e descartados sem substituto;</li>
+ *   <li>{@code spectator.ui.fanout.lag}: espera entre o broadcast e a entrega;</li>
+ *   <li>{@code spectator.ui.fanout.subscribers}: inscrições abertas.</li>
+ * </ul>
+ */
 @Component
 public class MarketDataBroadcaster {
 
-    // Lista thread-safe para guardar todas as abas de navegador abertas
-    private final List<Consumer<MarketTick>> listeners = new CopyOnWriteArrayList<>();
+    // Inscrições (abas de navegador abertas), agrupadas pelo símbolo que cada uma está olhando
+    private final DashboardSnapshots snapshots;
+    private final Map<String, Set<Subscription>> subscriptionsBySymbol = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong();
+    private final Duration deliveryTimeout;
+    private final ExecutorService delivery = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("ui-fanout-", 0).factory());
+
+    final Counter delivered;
+    final Counter conflated;
+    final Counter dropped;
+    final Timer lag;
 
-    public void register(Consumer<MarketTick> listener) {
-        listeners.add(listener);
+    public MarketDataBroadcaster(DashboardSnapshots snapshots, MeterRegistry meterRegistry,
+            @Value("${spectator.dashboard.delivery-timeout-ms:2000}") long deliveryTimeoutMs) {
+        this.snapshots = snapshots;
+        this.deliveryTimeout = Duration.ofMillis(deliveryTimeoutMs);
+        this.delivered = meterRegistry.counter("spectator.ui.fanout.delivered");
+        this.conflated = meterRegistry.counter("spectator.ui.fanout.conflated");
+        this.dropped = meterRegistry.counter("spectator.ui.fanout.dropped");
+        this.lag = meterRegistry.timer("spectator.ui.fanout.lag");
+        meterRegistry.gauge("spectator.ui.fanout.subscribers", this, MarketDataBroadcaster::getSubscriberCount);
     }
 
-    public void unregister(Consumer<MarketTick> listener) {
-        listeners.remove(listener);
+    /**
+     * Passa a entregar os ticks de {@code symbol} ao listener até a inscrição ser fechada.
+     */
+    public Subscription subscribe(String symbol, TickListener listener) {
+        Subscription subscription = new Subscription("ui-" + nextId.incrementAndGet(), symbol, listener, this,
+                delivery, deliveryTimeout);
+        subscribers(symbol).add(subscription);
+        return subscription;
     }
 
+    /**
+     * Chamado pelo estágio de publish do pipeline; nunca espera por nenhuma tela.
+     */
     public void broadcast(MarketTick tick) {
-        for (Consumer<MarketTick> listener : listeners) {
-            listener.accept(tick);
+        snapshots.onTick(tick);
+        Set<Subscription> subscriptions = subscriptionsBySymbol.get(tick.symbol());
+        if (subscriptions == null) {
+            return;
+        }
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(tick);
+        }
+    }
+
+    public int getSubscriberCount() {
+        int count = 0;
+        for (Set<Subscription> subscriptions : subscriptionsBySymbol.values()) {
+            count += subscriptions.size();
+        }
+        return count;
+    }
+
+    public List<SubscriberStats> getSubscriberStats() {
+        List<SubscriberStats> stats = new ArrayList<>();
+        for (Set<Subscription> subscriptions : subscriptionsBySymbol.values()) {
+            for (Subscription subscription : subscriptions) {
+                stats.add(subscription.stats());
+            }
+        }
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        delivery.shutdownNow();
+    }
+
+    void move(Subscription subscription, String from, String to) {
+        subscribers(to).add(subscription);
+        remove(subscription, from);
+    }
+
+    void remove(Subscription subscription) {
+        remove(subscription, subscription.getSymbol());
+    }
+
+    private void remove(Subscription subscription, String symbol) {
+        Set<Subscription> subscriptions = subscriptionsBySymbol.get(symbol);
+        if (subscriptions != null) {
+            subscriptions.remove(subscription);
         }
     }
-}
\ No newline at end of file
+
+    private Set<Subscription> subscribers(String symbol) {
+        return subscriptionsBySymbol.computeIfAbsent(symbol, k -> ConcurrentHashMap.newKeySet());
+    }
+}
@@ -2,9 +2,31 @@ package com.jonasdurau.spectator.ui.broadcaster;
 
 import com.jonasdurau.spectator.core.domain.Candle;
 import com.jonasdurau.spectator.core.domain.MarketRegime;
-import com.jonasdurau.spectator.core.domain.Position;
+import com.jonasdurau.spectator.core.domain.PositionSnapshot;
+import com.jonasdurau.spectator.core.indicator.ChartOverlay;
+import com.jonasdurau.spectator.ui.components.ChartPayload;
 
 import java.util.List;
 
-public record MarketTick(Candle candle, MarketRegime regime, List<Position> openPositions) {
-}
\ No newline at end of file
+/**
+ * @param overlay        indicadores desenhados sobre o candle, ou null
+ * @param chartPayload   o candle já serializado para o gráfico, gerado uma vez e enviado igual a todas as sessões
+ * @param overlayPayload o overlay serializado do mesmo jeito, ou null
+ */
+public record MarketTick(Candle candle, MarketRegime regime, List<PositionSnapshot> openPositions,
+        ChartOverlay overlay, String chartPayload, String overlayPayload) {
+
+    public MarketTick(Candle candle, MarketRegime regime, List<PositionSnapshot> openPositions) {
+        this(candle, regime, openPositions, null);
+    }
+
+    public MarketTick(Candle candle, MarketRegime regime, List<PositionSnapshot> openPositions,
+            ChartOverlay overlay) {
+        this(candle, regime, openPositions, overlay, ChartPayload.candle(candle),
+                overlay == null ? null : ChartPayload.overlay(overlay));
+    }
+
+    public String symbol() {
+        return candle.getSymbol();
+    }
+}
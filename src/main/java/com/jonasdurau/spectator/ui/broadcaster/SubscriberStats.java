@@ -0,0 +1,16 @@
+package com.jonasdurau.spectator.ui.broadcaster;
+
+import java.time.Duration;
+
+/**
+ * Contadores de uma {@link Subscription} (uma aba aberta).
+ *
+ * @param delivered ticks entregues ao listener
+ * @param conflated ticks substituídos por um mais novo antes de serem entregues
+ * @param dropped   ticks descartados sem substituto: falha na entrega, troca de símbolo ou inscrição fechada
+ * @param pending   se há um tick esperando entrega agora
+ * @param lastLag   espera do último tick entregue entre o broadcast e o listener
+ */
+public record SubscriberStats(String id, String symbol, long delivered, long conflated, long dropped,
+        boolean pending, Duration lastLag) {
+}
@@ -0,0 +1,179 @@
+package com.jonasdurau.spectator.ui.broadcaster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Inscrição de uma tela no {@link MarketDataBroadcaster}, com caixa de entrada própria de um único tick
+ * (latest-wins): enquanto a entrega anterior não terminou, um tick novo substitui o pendente. Uma sessão lenta
+ * pula ticks velhos em vez de acumulá-los, e nunca atrasa o broadcast nem as outras sessões.
+ *
+ * A entrega roda numa virtual thread agendada só quando há tick pendente; no máximo uma por inscrição, então o
+ * listener nunca é chamado em paralelo consigo mesmo. Ela espera o futuro devolvido pelo listener (o
+ * {@code ui.access}) até {@code deliveryTimeout}: uma sessão que não libera a trava nesse tempo tem o acesso
+ * cancelado e o tick conta como descartado, e nunca há mais de um acesso desta inscrição na fila do Vaadin.
+ */
+public final class Subscription implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(Subscription.class);
+
+    private record Pending(MarketTick tick, long enqueuedNanos) {
+    }
+
+    private final String id;
+    private final TickListener listener;
+    private final MarketDataBroadcaster broadcaster;
+    private final Executor delivery;
+    private final long deliveryTimeoutNanos;
+
+    private final AtomicReference<Pending> slot = new AtomicReference<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong conflated = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile String symbol;
+    private volatile boolean closed;
+    private volatile long lastLagNanos;
+
+    Subscription(String id, String symbol, TickListener listener, MarketDataBroadcaster broadcaster,
+            Executor delivery, Duration deliveryTimeout) {
+        this.id = id;
+        this.symbol = symbol;
+        this.listener = listener;
+        this.broadcaster = broadcaster;
+        this.delivery = delivery;
+        this.deliveryTimeoutNanos = deliveryTimeout.toNanos();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * Passa a receber os ticks de outro símbolo. Um tick pendente do anterior é descartado.
+     */
+    public void switchTo(String newSymbol) {
+        if (closed || newSymbol.equals(symbol)) {
+            return;
+        }
+        // Descarta antes de mudar: depois do move, o que chegar ao slot já é do símbolo novo e não pode se perder
+        discardPending();
+        broadcaster.move(this, symbol, newSymbol);
+        symbol = newSymbol;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        broadcaster.remove(this);
+        discardPending();
+        log.debug("UI subscription {} closed: {} delivered, {} conflated, {} dropped.", id, delivered.get(),
+                conflated.get(), dropped.get());
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public SubscriberStats stats() {
+        return new SubscriberStats(id, symbol, delivered.get(), conflated.get(), dropped.get(), slot.get() != null,
+                Duration.ofNanos(lastLagNanos));
+    }
+
+    /**
+     * Chamado pelo broadcast. Não bloqueia: só troca o pendente e, se preciso, agenda a entrega.
+     */
+    void offer(MarketTick tick) {
+        if (closed) {
+            return;
+        }
+        if (slot.getAndSet(new Pending(tick, System.nanoTime())) != null) {
+            conflated.incrementAndGet();
+            broadcaster.conflated.increment();
+            return;
+        }
+        if (scheduled.compareAndSet(false, true)) {
+            delivery.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Pending pending = slot.getAndSet(null);
+            if (pending == null) {
+                scheduled.set(false);
+                // Um offer entre o getAndSet e a liberação viu scheduled=true e não agendou: reassume a entrega
+                if (slot.get() == null || !scheduled.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+            if (closed) {
+                dropped.incrementAndGet();
+                broadcaster.dropped.increment();
+                continue;
+            }
+            deliver(pending);
+        }
+    }
+
+    private void deliver(Pending pending) {
+        long lag = System.nanoTime() - pending.enqueuedNanos();
+        lastLagNanos = lag;
+        broadcaster.lag.record(lag, TimeUnit.NANOSECONDS);
+        Future<?> update;
+        try {
+            update = listener.deliver(pending.tick());
+        } catch (RuntimeException e) {
+            // Tipicamente a UI já foi desanexada; o próximo tick tenta de novo até o detach fechar a inscrição
+            drop(pending, e);
+            return;
+        }
+        try {
+            update.get(deliveryTimeoutNanos, TimeUnit.NANOSECONDS);
+            delivered.incrementAndGet();
+            broadcaster.delivered.increment();
+        } catch (TimeoutException e) {
+            // Sessão presa: o acesso sai da fila e o próximo tick pendente, se houver, tenta de novo
+            update.cancel(false);
+            drop(pending, e);
+        } catch (ExecutionException e) {
+            drop(pending, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            update.cancel(false);
+            drop(pending, e);
+        }
+    }
+
+    private void drop(Pending pending, Throwable cause) {
+        dropped.incrementAndGet();
+        broadcaster.dropped.increment();
+        log.debug("UI subscription {} failed to deliver a {} tick.", id, pending.tick().symbol(), cause);
+    }
+
+    private void discardPending() {
+        if (slot.getAndSet(null) != null) {
+            dropped.incrementAndGet();
+            broadcaster.dropped.increment();
+        }
+    }
+}
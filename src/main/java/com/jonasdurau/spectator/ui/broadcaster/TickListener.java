@@ -0,0 +1,15 @@
+package com.jonasdurau.spectator.ui.broadcaster;
+
+import java.util.concurrent.Future;
+
+/**
+ * Quem recebe os ticks de uma {@link Subscription}: agenda a atualização da tela (tipicamente com
+ * {@code ui.access}) e devolve o futuro dela. A entrega espera esse futuro antes de pegar o próximo tick, então
+ * enquanto a sessão está ocupada os ticks conflacionam na inscrição em vez de se acumularem na fila de acessos do
+ * Vaadin.
+ */
+@FunctionalInterface
+public interface TickListener {
+
+    Future<?> deliver(MarketTick tick);
+}
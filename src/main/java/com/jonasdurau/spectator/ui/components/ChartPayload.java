@@ -0,0 +1,116 @@
+package com.jonasdurau.spectator.ui.components;
+
+import com.jonasdurau.spectator.core.domain.Candle;
+import com.jonasdurau.spectator.core.indicator.ChartOverlay;
+
+/**
+ * Formato compacto dos candles enviados ao {@link TradingViewChart}: cada candle é um array
+ * {@code [tempo em segundos, open, high, low, close]}, sem nomes de campo. Os overlays seguem a mesma ideia:
+ * {@code [tempo em segundos, EMA rápida, EMA lenta, banda superior, média, banda inferior, regime]}, com
+ * {@code null} no lugar dos valores que ainda não existem.
+ *
+ * O texto é gerado uma única vez (por tick ou por snapshot da tela) e o mesmo {@code String} vai para todas
+ * as sessões; o navegador monta os objetos que o LightweightCharts espera.
+ */
+public final class ChartPayload {
+
+    private ChartPayload() {
+    }
+
+    public static String candle(Candle candle) {
+        StringBuilder json = new StringBuilder(64);
+        append(json, candle.getTime().getEpochSecond(), candle.getOpen(), candle.getHigh(), candle.getLow(),
+                candle.getClose());
+        return json.toString();
+    }
+
+    /**
+     * Array de candles em ordem de tempo, um por segundo (o TradingView rejeita horários repetidos).
+     *
+     * @param time horário de abertura em epoch ms, do mais antigo para o mais novo
+     */
+    public static String history(long[] time, double[] open, double[] high, double[] low, double[] close) {
+        StringBuilder json = new StringBuilder(time.length * 64 + 2).append('[');
+        long previousSecond = Long.MIN_VALUE;
+        for (int i = 0; i < time.length; i++) {
+            long second = Math.floorDiv(time[i], 1000);
+            // Só pode repetir o segundo do anterior; o primeiro fica
+            if (second <= previousSecond) {
+                continue;
+            }
+            if (previousSecond != Long.MIN_VALUE) {
+                json.append(',');
+            }
+            append(json, second, open[i], high[i], low[i], close[i]);
+            previousSecond = second;
+        }
+        return json.append(']').toString();
+    }
+
+    public static String overlay(ChartOverlay overlay) {
+        StringBuilder json = new StringBuilder(96);
+        append(json, Math.floorDiv(overlay.time(), 1000), overlay);
+        return json.toString();
+    }
+
+    /**
+     * Array de overlays em ordem de tempo, um por segundo, pulando as posições sem overlay.
+     *
+     * @param overlays do mais antigo para o mais novo; pode ter nulls
+     */
+    public static String overlays(ChartOverlay[] overlays) {
+        StringBuilder json = new StringBuilder(overlays.length * 96 + 2).append('[');
+        long previousSecond = Long.MIN_VALUE;
+        for (ChartOverlay overlay : overlays) {
+            if (overlay == null) {
+                continue;
+            }
+            long second = Math.floorDiv(overlay.time(), 1000);
+            if (second <= previousSecond) {
+                continue;
+            }
+            if (previousSecond != Long.MIN_VALUE) {
+                json.append(',');
+            }
+            append(json, second, overlay);
+            previousSecond = second;
+        }
+        return json.append(']').toString();
+    }
+
+    private static void append(StringBuilder json, long second, ChartOverlay overlay) {
+        json.append('[').append(second);
+        value(json, overlay.emaFast());
+        value(json, overlay.emaSlow());
+        value(json, overlay.bbUpper());
+        value(json, overlay.bbMiddle());
+        value(json, overlay.bbLower());
+        json.append(',');
+        if (overlay.regime() == null) {
+            json.append("null");
+        } else {
+            json.append('"').append(overlay.regime().name()).append('"');
+        }
+        json.append(']');
+    }
+
+    // JSON não tem NaN nem infinito
+    private static void value(StringBuilder json, double value) {
+        json.append(',');
+        if (Double.isFinite(value)) {
+            json.append(value);
+        } else {
+            json.append("null");
+        }
+    }
+
+    private static void append(StringBuilder json, long second, double open, double high, double low,
+            double close) {
+        json.append('[').append(second)
+                .append(',').append(open)
+                .append(',').append(high)
+                .append(',').append(low)
+                .append(',').append(close)
+                .append(']');
+    }
+}
@@ -1,20 +1,28 @@
 package com.jonasdurau.spectator.ui.components;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.jonasdurau.spectator.core.domain.Candle;
 import com.vaadin.flow.component.AttachEvent;
+import com.vaadin.flow.component.ClientCallable;
 import com.vaadin.flow.component.html.Div;
 
-import java.util.Comparator;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.function.LongConsumer;
 
+/**
+ * Gráfico de candles do LightweightCharts. Os dados chegam já serializados no formato do {@link ChartPayload},
+ * gerados uma vez e compartilhados por todas as sessões; o navegador aplica no máximo uma atualização por quadro
+ * de animação (a mais recente de cada candle), então rajadas de ticks não travam a aba.
+ *
+ * Sobre os candles vão os overlays calculados no servidor ({@link ChartPayload#overlay}): EMAs do regime, bandas
+ * de Bollinger e o regime como cor de fundo. Chegam junto com o histórico e com cada tick.
+ *
+ * O histórico inicial é curto; quando o usuário rola até perto do candle mais antigo, o gráfico pede a página
+ * anterior ao servidor ({@link #setOlderHistoryLoader}) e a junta ao que já tem.
+ */
 public class TradingViewChart extends Div {
 
-    // Instanciamos o serializador JSON padrão do Spring
-    private static final ObjectMapper mapper = new ObjectMapper();
+    // Candles de folga à esquerda da área visível antes de pedir a página anterior
+    private static final int OLDER_HISTORY_THRESHOLD = 50;
+
+    private LongConsumer olderHistoryLoader;
 
     public TradingViewChart() {
         setWidthFull();
@@ -32,6 +40,101 @@ public class TradingViewChart extends Div {
                 """
                             const container = $0;
 
+                            const toBar = (t) => ({ time: t[0], open: t[1], high: t[2], low: t[3], close: t[4] });
+
+                            const applyTick = (bar) => {
+                                if (container.candlestickSeries) {
+                                    try {
+                                        container.candlestickSeries.update(bar);
+                                    } catch(e) {
+                                        console.warn("TradingView Tick Update Error:", e);
+                                    }
+                                    return;
+                                }
+                                if (!container._pendingData) container._pendingData = [];
+                                const existing = container._pendingData.findIndex(d => d.time === bar.time);
+                                if (existing >= 0) {
+                                    container._pendingData[existing] = bar;
+                                } else {
+                                    container._pendingData.push(bar);
+                                }
+                                container._pendingData.sort((a, b) => a.time - b.time);
+                            };
+
+                            // Overlay: [tempo, EMA rápida, EMA lenta, banda superior, média, banda inferior, regime]
+                            const REGIME_COLORS = {
+                                TRENDING_UP: 'rgba(38, 166, 154, 0.08)',
+                                TRENDING_DOWN: 'rgba(239, 83, 80, 0.08)',
+                                VOLATILE: 'rgba(255, 167, 38, 0.08)'
+                            };
+                            const toShade = (o) => ({
+                                time: o[0], value: 1, color: REGIME_COLORS[o[6]] || 'rgba(0, 0, 0, 0)'
+                            });
+
+                            container.spectatorOverlays = (overlays) => {
+                                if (!container.overlaySeries) {
+                                    container._pendingOverlays = overlays;
+                                    return;
+                                }
+                                try {
+                                    container.overlaySeries.forEach((series, k) => series.setData(overlays
+                                            .filter(o => o[k + 1] !== null)
+                                            .map(o => ({ time: o[0], value: o[k + 1] }))));
+                                    container.regimeSeries.setData(overlays.map(toShade));
+                                } catch(e) {
+                                    console.error("TradingView Overlay Data Error:", e, overlays);
+                                }
+                            };
+
+                            const applyOverlay = (o) => {
+                                if (!container.overlaySeries) {
+                                    const pending = (container._pendingOverlays || []).filter(p => p[0] !== o[0]);
+                                    pending.push(o);
+                                    container._pendingOverlays = pending.sort((a, b) => a[0] - b[0]);
+                                    return;
+                                }
+                                try {
+                                    container.overlaySeries.forEach((series, k) => {
+                                        if (o[k + 1] !== null) series.update({ time: o[0], value: o[k + 1] });
+                                    });
+                                    container.regimeSeries.update(toShade(o));
+                                } catch(e) {
+                                    console.warn("TradingView Overlay Update Error:", e);
+                                }
+                            };
+
+                            // Ticks do quadro atual, um por candle (o mais recente vence), aplicados em ordem de tempo
+                            container._ticks = new Map();
+                            container.spectatorTick = (payload, overlay) => {
+                                const tick = JSON.parse(payload);
+                                container._ticks.set(tick[0], [tick, overlay]);
+                                if (container._frame) return;
+                                container._frame = requestAnimationFrame(() => {
+                                    container._frame = 0;
+                                    const ticks = [...container._ticks.values()].sort((a, b) => a[0][0] - b[0][0]);
+                                    container._ticks.clear();
+                                    ticks.forEach(([t, o]) => {
+                                        applyTick(toBar(t));
+                                        if (o) applyOverlay(JSON.parse(o));
+                                    });
+                                });
+                            };
+
+                            // Página mais antiga vinda do servidor: os candles que o gráfico já tem prevalecem
+                            container.spectatorPrepend = (payload, exhausted) => {
+                                container._loadingOlder = false;
+                                container._historyExhausted = exhausted;
+                                const series = container.candlestickSeries;
+                                if (!series) return;
+                                try {
+                                    const bars = new Map(JSON.parse(payload).map(t => [t[0], toBar(t)]));
+                                    series.data().forEach(bar => bars.set(bar.time, bar));
+                                    series.setData([...bars.values()].sort((a, b) => a.time - b.time));
+                                } catch(e) {
+                                    console.error("TradingView older history error:", e);
+                                }
+                            };
+
                             const renderChart = () => {
                                 try {
                                     if (container.chart) return;
@@ -44,15 +147,43 @@ public class TradingViewChart extends Div {
                                         timeScale: { timeVisible: true, secondsVisible: false }
                                     });
 
+                                    // Regime como faixa de fundo: adicionada primeiro para ficar atrás dos candles
+                                    const regimeSeries = chart.addSeries(window.LightweightCharts.HistogramSeries, {
+                                        priceScaleId: 'regime', lastValueVisible: false, priceLineVisible: false
+                                    });
+                                    chart.priceScale('regime').applyOptions({
+                                        visible: false, scaleMargins: { top: 0, bottom: 0 }
+                                    });
+
                                     // NEW v5 Unified Series API
                                     const series = chart.addSeries(window.LightweightCharts.CandlestickSeries, {
                                         upColor: '#26a69a', downColor: '#ef5350', borderVisible: false,
                                         wickUpColor: '#26a69a', wickDownColor: '#ef5350'
                                     });
 
+                                    // Na ordem do overlay: EMA rápida, EMA lenta, bandas superior, média e inferior
+                                    const line = (color, lineStyle) => chart.addSeries(
+                                            window.LightweightCharts.LineSeries, {
+                                                color, lineStyle, lineWidth: 1, priceLineVisible: false,
+                                                lastValueVisible: false, crosshairMarkerVisible: false
+                                            });
+                                    container.overlaySeries = [line('#2962ff', 0), line('#ff6d00', 0),
+                                        line('#787b86', 2), line('#787b86', 1), line('#787b86', 2)];
+                                    container.regimeSeries = regimeSeries;
+
                                     container.chart = chart;
                                     container.candlestickSeries = series;
 
+                                    // Perto da borda esquerda, pede a página anterior ao candle mais antigo, uma por vez
+                                    chart.timeScale().subscribeVisibleLogicalRangeChange(range => {
+                                        if (!range || range.from > $1 || container._loadingOlder
+                                                || container._historyExhausted) return;
+                                        const data = series.data();
+                                        if (data.length === 0) return;
+                                        container._loadingOlder = true;
+                                        container.$server.loadOlder(data[0].time);
+                                    });
+
                                     if (container._pendingData) {
                                         try {
                                             series.setData(container._pendingData);
@@ -64,6 +195,10 @@ public class TradingViewChart extends Div {
                                         }
                                         container._pendingData = null;
                                     }
+                                    if (container._pendingOverlays) {
+                                        container.spectatorOverlays(container._pendingOverlays);
+                                        container._pendingOverlays = null;
+                                    }
                                 } catch(e) {
                                     console.error("TradingView renderChart Error:", e);
                                 }
@@ -96,92 +231,88 @@ public class TradingViewChart extends Div {
 
                             loadLibrary();
                         """,
-                getElement());
+                getElement(), OLDER_HISTORY_THRESHOLD);
     }
 
-    public void setHistoricalData(List<Candle> candles) {
-        if (candles == null || candles.isEmpty())
-            return;
-
-        // A GRANDE CORREÇÃO: Agrupar pelo mesmo número exato que o TradingView vai ler
-        List<Map<String, Object>> safeData = candles.stream()
-                .filter(c -> c.getTime() != null)
-                .collect(Collectors.toMap(
-                        c -> c.getTime().getEpochSecond(), // Chave é o segundo exato
-                        c -> c,
-                        (existing, replacement) -> existing // Se houver colisão no mesmo segundo, descarta o clone
-                ))
-                .values().stream()
-                .sorted(Comparator.comparing(Candle::getTime))
-                .map(this::candleToMap)
-                .toList();
-
-        try {
-            String jsonStr = mapper.writeValueAsString(safeData);
-
-            getElement().executeJs("""
-                        const container = $0;
-                        const data = JSON.parse($1);
-
-                        if (container.candlestickSeries) {
-                            try {
-                                container.candlestickSeries.setData(data);
-                                if (data.length > 0) {
-                                    container.chart.timeScale().fitContent();
-                                }
-                            } catch(e) {
-                                console.error("TradingView Data Error:", e, data);
-                            }
-                        } else {
-                            container._pendingData = data;
-                        }
-                    """, getElement(), jsonStr);
+    /**
+     * Quem responde aos pedidos de candles mais antigos do gráfico.
+     *
+     * @param loader recebe o horário (epoch ms) do candle mais antigo exibido e responde com
+     *               {@link #prependHistory}, de qualquer thread com a sessão travada
+     */
+    public void setOlderHistoryLoader(LongConsumer loader) {
+        this.olderHistoryLoader = loader;
+    }
 
-        } catch (JsonProcessingException e) {
-            System.err.println("Erro ao serializar dados do grafico: " + e.getMessage());
-        }
+    /**
+     * Junta ao gráfico candles mais antigos. Libera o próximo pedido, ou encerra os pedidos se {@code exhausted}.
+     *
+     * @param olderJson array no formato de {@link ChartPayload#history}; pode repetir candles já exibidos
+     */
+    public void prependHistory(String olderJson, boolean exhausted) {
+        getElement().executeJs("$0.spectatorPrepend && $0.spectatorPrepend($1, $2)", getElement(), olderJson,
+                exhausted);
     }
 
-    public void updateLiveTick(Candle candle) {
-        if (candle == null || candle.getTime() == null)
+    @ClientCallable
+    private void loadOlder(double beforeSecond) {
+        if (olderHistoryLoader == null) {
+            prependHistory("[]", true);
             return;
+        }
+        olderHistoryLoader.accept((long) beforeSecond * 1000);
+    }
 
-        try {
-            String jsonStr = mapper.writeValueAsString(candleToMap(candle));
+    /**
+     * Substitui o histórico do gráfico e os overlays.
+     *
+     * @param historyJson array no formato de {@link ChartPayload#history}
+     * @param overlayJson array no formato de {@link ChartPayload#overlays}
+     */
+    public void setHistoricalData(String historyJson, String overlayJson) {
+        getElement().executeJs("""
+                    const container = $0;
+                    const data = JSON.parse($1).map(t => ({ time: t[0], open: t[1], high: t[2], low: t[3], close: t[4] }));
+                    const overlays = JSON.parse($2);
 
-            getElement().executeJs("""
-                        const container = $0;
-                        const tick = JSON.parse($1);
+                    // Ticks ainda não aplicados podem ser do símbolo anterior
+                    if (container._ticks) container._ticks.clear();
+                    // Novo histórico (ou novo símbolo): a paginação para trás recomeça
+                    container._loadingOlder = false;
+                    container._historyExhausted = false;
 
-                        if (container.candlestickSeries) {
-                            try {
-                                container.candlestickSeries.update(tick);
-                            } catch(e) {
-                                console.warn("TradingView Tick Update Error:", e);
-                            }
-                        } else {
-                            if (!container._pendingData) container._pendingData = [];
-                            const existing = container._pendingData.findIndex(d => d.time === tick.time);
-                            if (existing >= 0) {
-                                container._pendingData[existing] = tick;
-                            } else {
-                                container._pendingData.push(tick);
+                    if (container.candlestickSeries) {
+                        try {
+                            container.candlestickSeries.setData(data);
+                            if (data.length > 0) {
+                                container.chart.timeScale().fitContent();
                             }
-                            container._pendingData.sort((a, b) => a.time - b.time);
+                        } catch(e) {
+                            console.error("TradingView Data Error:", e, data);
                         }
-                    """, getElement(), jsonStr);
+                    } else {
+                        container._pendingData = data;
+                    }
 
-        } catch (JsonProcessingException e) {
-            System.err.println("Erro ao serializar tick: " + e.getMessage());
-        }
+                    // Antes do onAttach o handler ainda não existe; o renderChart aplica os pendentes
+                    if (container.spectatorOverlays) {
+                        container.spectatorOverlays(overlays);
+                    } else {
+                        container._pendingOverlays = overlays;
+                    }
+                """, getElement(), historyJson, overlayJson);
     }
 
-    private Map<String, Object> candleToMap(Candle c) {
-        return Map.of(
-                "time", c.getTime().getEpochSecond(),
-                "open", c.getOpen(),
-                "high", c.getHigh(),
-                "low", c.getLow(),
-                "close", c.getClose());
+    /**
+     * Atualiza (ou acrescenta) o candle do tick e o seu overlay. A expressão enviada é mínima; o resto já está no
+     * navegador.
+     *
+     * @param tickJson    candle no formato de {@link ChartPayload#candle}
+     * @param overlayJson overlay no formato de {@link ChartPayload#overlay}, ou null
+     */
+    public void updateLiveTick(String tickJson, String overlayJson) {
+        // Antes do onAttach instalar o handler o tick é descartado: o histórico e os próximos ticks cobrem
+        getElement().executeJs("$0.spectatorTick && $0.spectatorTick($1, $2)", getElement(), tickJson,
+                overlayJson);
     }
-}
\ No newline at end of file
+}
@@ -1,10 +1,12 @@
 package com.jonasdurau.spectator.ui.view;
 
-import com.jonasdurau.spectator.core.domain.Candle;
 import com.jonasdurau.spectator.core.domain.MarketRegime;
-import com.jonasdurau.spectator.core.repository.CandleRepository;
+import com.jonasdurau.spectator.core.service.MarketDataService;
+import com.jonasdurau.spectator.ui.broadcaster.ChartHistoryPages;
+import com.jonasdurau.spectator.ui.broadcaster.DashboardSnapshot;
+import com.jonasdurau.spectator.ui.broadcaster.DashboardSnapshots;
 import com.jonasdurau.spectator.ui.broadcaster.MarketDataBroadcaster;
-import com.jonasdurau.spectator.ui.broadcaster.MarketTick;
+import com.jonasdurau.spectator.ui.broadcaster.Subscription;
 import com.jonasdurau.spectator.ui.components.TradingViewChart;
 import com.vaadin.flow.component.AttachEvent;
 import com.vaadin.flow.component.DetachEvent;
@@ -12,28 +14,34 @@ import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.html.H1;
 import com.vaadin.flow.component.html.H2;
 import com.vaadin.flow.component.html.Span;
-import com.jonasdurau.spectator.core.domain.Position;
+import com.jonasdurau.spectator.core.domain.PositionSnapshot;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
+import com.vaadin.flow.component.select.Select;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
 import com.vaadin.flow.theme.lumo.LumoUtility;
 
 import java.text.NumberFormat;
-import java.util.Collections;
 import java.util.List;
+import java.util.LinkedHashSet;
 import java.util.Locale;
-import java.util.function.Consumer;
+import java.util.Set;
 
 @Route("")
 @PageTitle("Spectator | Trading Terminal")
 public class DashboardView extends VerticalLayout {
 
     private final MarketDataBroadcaster broadcaster;
-    private final CandleRepository candleRepository;
-    private Consumer<MarketTick> broadcasterListener;
+    private final DashboardSnapshots snapshots;
+    private final ChartHistoryPages historyPages;
+    private final MarketDataService marketDataService;
+    private Subscription subscription;
+    private String currentSymbol;
 
     // Componentes Visuais
+    private final Select<String> symbolSelect = new Select<>();
+    private final Span priceCaption = new Span();
     private final H2 priceLabel = new H2("Loading...");
     private final Span regimeBadge = new Span("ANALYZING");
     private final Span positionBadge = new Span("NO ACTIVE TRADES");
@@ -42,9 +50,13 @@ public class DashboardView extends VerticalLayout {
 
     private final NumberFormat currencyFormatter = NumberFormat.getCurrencyInstance(Locale.US);
 
-    public DashboardView(MarketDataBroadcaster broadcaster, CandleRepository candleRepository) {
+    public DashboardView(MarketDataBroadcaster broadcaster, DashboardSnapshots snapshots,
+            ChartHistoryPages historyPages, MarketDataService marketDataService) {
         this.broadcaster = broadcaster;
-        this.candleRepository = candleRepository;
+        this.snapshots = snapshots;
+        this.historyPages = historyPages;
+        this.marketDataService = marketDataService;
+        this.currentSymbol = marketDataService.getDefaultSymbol();
 
         setSizeFull();
         setPadding(true);
@@ -55,6 +67,7 @@ public class DashboardView extends VerticalLayout {
 
         // Adicionamos o gráfico no lugar do grid
         add(chart);
+        chart.setOlderHistoryLoader(this::loadOlderHistory);
 
         loadInitialData();
     }
@@ -62,7 +75,20 @@ public class DashboardView extends VerticalLayout {
     private void createHeader() {
         H1 title = new H1("Spectator Engine");
         title.addClassNames(LumoUtility.FontSize.XXLARGE, LumoUtility.Margin.Bottom.NONE);
-        add(title);
+
+        // Símbolos acompanhados pelo engine; o padrão entra mesmo se a carga inicial ainda estiver rodando
+        Set<String> symbols = new LinkedHashSet<>();
+        symbols.add(currentSymbol);
+        symbols.addAll(marketDataService.getSymbols());
+        symbolSelect.setItems(symbols);
+        symbolSelect.setValue(currentSymbol);
+        symbolSelect.addValueChangeListener(event -> switchSymbol(event.getValue()));
+
+        HorizontalLayout header = new HorizontalLayout(title, symbolSelect);
+        header.setWidthFull();
+        header.setAlignItems(Alignment.CENTER);
+        header.setJustifyContentMode(JustifyContentMode.BETWEEN);
+        add(header);
     }
 
     private void createMetricsBoard() {
@@ -73,7 +99,7 @@ public class DashboardView extends VerticalLayout {
         // Cores ajustadas para combinar com o fundo escuro
         board.addClassNames(LumoUtility.Background.BASE, LumoUtility.Padding.LARGE, LumoUtility.BorderRadius.LARGE);
 
-        VerticalLayout priceLayout = new VerticalLayout(new Span("BTC/USDT Live Price"), priceLabel);
+        VerticalLayout priceLayout = new VerticalLayout(priceCaption, priceLabel);
         priceLayout.setSpacing(false);
         priceLayout.setPadding(false);
         priceLabel.addClassNames(LumoUtility.TextColor.PRIMARY, LumoUtility.Margin.NONE);
@@ -103,21 +129,33 @@ public class DashboardView extends VerticalLayout {
     }
 
     private void loadInitialData() {
-        // Puxa os últimos 500 candles para o gráfico ficar bonito
-        List<Candle> initialCandles = candleRepository.findLastCandles("BTCUSDT", "1h", 500);
-
-        if (!initialCandles.isEmpty()) {
-            // Reverte a ordem porque o TradingView exige do mais velho para o mais novo
-            Collections.reverse(initialCandles);
+        priceCaption.setText(currentSymbol + " Live Price");
 
-            chart.setHistoricalData(initialCandles);
+        // Estado compartilhado do símbolo (candles e overlays serializados, regime, posições), mantido pelo stream
+        DashboardSnapshot snapshot = snapshots.get(currentSymbol);
 
-            // Pega o candle mais recente para o painel superior
-            Candle last = initialCandles.get(initialCandles.size() - 1);
-            updateMetrics(last, MarketRegime.SIDEWAYS, Collections.emptyList());
+        if (!snapshot.isEmpty()) {
+            chart.setHistoricalData(snapshot.historyJson(), snapshot.overlayJson());
+            updateMetrics(snapshot.lastPrice(), snapshot.regime(), snapshot.openPositions());
         }
     }
 
+    /**
+     * Página anterior ao candle mais antigo do gráfico, buscada fora da trava da sessão. A resposta de um símbolo
+     * que já saiu da tela é descartada.
+     */
+    private void loadOlderHistory(long beforeMs) {
+        String symbol = currentSymbol;
+        getUI().ifPresent(ui -> historyPages.olderThan(symbol, beforeMs).whenComplete((page, error) ->
+                ui.access(() -> {
+                    if (!symbol.equals(currentSymbol)) {
+                        return;
+                    }
+                    // Numa falha o gráfico fica livre para pedir de novo na próxima rolagem
+                    chart.prependHistory(error == null ? page.json() : "[]", error == null && page.exhausted());
+                })));
+    }
+
     @Override
     protected void onAttach(AttachEvent attachEvent) {
         UI ui = attachEvent.getUI();
@@ -125,23 +163,47 @@ public class DashboardView extends VerticalLayout {
         // A forma oficial no Vaadin 25 de forçar o Lumo Dark globalmente na tag <html>
         ui.getPage().executeJs("document.documentElement.setAttribute('theme', 'dark');");
 
-        broadcasterListener = tick -> ui.access(() -> {
-            updateMetrics(tick.candle(), tick.regime(), tick.openPositions());
+        // Entregue numa virtual thread do broadcaster, que espera o access rodar: com a sessão ocupada os ticks
+        // seguintes conflacionam na inscrição em vez de encher a fila de acessos da sessão
+        subscription = broadcaster.subscribe(currentSymbol, tick -> ui.access(() -> {
+            // Um tick do símbolo anterior pode chegar logo depois da troca
+            if (!tick.symbol().equals(currentSymbol)) {
+                return;
+            }
+            updateMetrics(tick.candle().getClose(), tick.regime(), tick.openPositions());
             // Atualiza o gráfico de forma segura e não bloqueante
-            chart.updateLiveTick(tick.candle());
-        });
-
-        broadcaster.register(broadcasterListener);
+            chart.updateLiveTick(tick.chartPayload(), tick.overlayPayload());
+        }));
     }
 
     @Override
     protected void onDetach(DetachEvent detachEvent) {
-        broadcaster.unregister(broadcasterListener);
+        if (subscription != null) {
+            subscription.close();
+            subscription = null;
+        }
+    }
+
+    /**
+     * Troca o símbolo exibido: passa a ouvir só os ticks dele e recarrega o histórico do gráfico.
+     */
+    private void switchSymbol(String symbol) {
+        if (symbol == null || symbol.equals(currentSymbol)) {
+            return;
+        }
+        currentSymbol = symbol;
+        loadInitialData();
+        if (subscription != null) {
+            subscription.switchTo(symbol);
+        }
     }
 
-    private void updateMetrics(Candle candle, MarketRegime regime, List<Position> positions) {
-        priceLabel.setText(currencyFormatter.format(candle.getClose()));
-        regimeBadge.setText(regime.name().replace("_", " "));
+    /**
+     * @param regime null enquanto nenhum tick chegou desde a subida
+     */
+    private void updateMetrics(double price, MarketRegime regime, List<PositionSnapshot> positions) {
+        priceLabel.setText(currencyFormatter.format(price));
+        regimeBadge.setText(regime == null ? "ANALYZING" : regime.name().replace("_", " "));
 
         regimeBadge.removeClassNames(LumoUtility.Background.SUCCESS_10, LumoUtility.TextColor.SUCCESS,
                 LumoUtility.Background.ERROR_10, LumoUtility.TextColor.ERROR,
@@ -155,21 +217,22 @@ public class DashboardView extends VerticalLayout {
                 regimeBadge.addClassNames(LumoUtility.Background.ERROR_10, LumoUtility.TextColor.ERROR);
             case VOLATILE ->
                 regimeBadge.addClassNames(LumoUtility.Background.WARNING_10, LumoUtility.TextColor.WARNING);
-            default -> regimeBadge.addClassNames(LumoUtility.Background.CONTRAST_10, LumoUtility.TextColor.BODY);
+            case null, default ->
+                regimeBadge.addClassNames(LumoUtility.Background.CONTRAST_10, LumoUtility.TextColor.BODY);
         }
 
         // Setup Floating PnL & Position states
         if (positions != null && !positions.isEmpty()) {
-            Position active = positions.get(0); // Assuming one anti-martingale trade active at a time
-            positionBadge.setText(active.getSide() + " x" + active.getQuantity());
+            PositionSnapshot active = positions.get(0); // Assuming one anti-martingale trade active at a time
+            positionBadge.setText(active.side() + " x" + active.quantity());
 
-            if (active.getSide() == com.jonasdurau.spectator.core.domain.TradeSide.LONG) {
+            if (active.side() == com.jonasdurau.spectator.core.domain.TradeSide.LONG) {
                 positionBadge.addClassNames(LumoUtility.Background.SUCCESS_10, LumoUtility.TextColor.SUCCESS);
             } else {
                 positionBadge.addClassNames(LumoUtility.Background.ERROR_10, LumoUtility.TextColor.ERROR);
             }
 
-            double pnl = active.calculateFloatingPnl(candle.getClose());
+            double pnl = active.calculateFloatingPnl(price);
             pnlLabel.setText((pnl >= 0 ? "+" : "") + currencyFormatter.format(pnl));
 
             pnlLabel.removeClassNames(LumoUtility.TextColor.SUCCESS, LumoUtility.TextColor.ERROR);
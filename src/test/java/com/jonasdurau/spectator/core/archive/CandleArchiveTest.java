@@ -0,0 +1,118 @@
+package com.jonasdurau.spectator.core.archive;
+
+import com.jonasdurau.spectator.core.backtest.CandleSeries;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CandleArchiveTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("candle-archive");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    void rowsSurviveReopeningAndSpanChunks() {
+        Path path = directory.resolve("BTCUSDT/1h.candles");
+        // Blocos de 8 linhas: 50 candles ocupam 7 blocos
+        try (CandleArchive archive = CandleArchive.openOrCreate(path, "BTCUSDT", "1h", 8)) {
+            for (int i = 0; i < 50; i++) {
+                assertTrue(archive.append(i * HOUR, 100 + i, 101 + i, 99 + i, 100.5 + i, i));
+            }
+        }
+
+        try (CandleArchive archive = CandleArchive.openReadOnly(path)) {
+            assertEquals("BTCUSDT", archive.getSymbol());
+            assertEquals("1h", archive.getTimeframe());
+            assertEquals(50, archive.size());
+            assertEquals(49 * HOUR, archive.lastTime());
+            assertEquals(123.5, archive.close(23), 0.0);
+            assertEquals(17, archive.indexAtOrAfter(17 * HOUR));
+            assertEquals(18, archive.indexAtOrAfter(17 * HOUR + 1));
+            assertEquals(0, archive.indexAtOrAfter(-HOUR));
+            assertEquals(50, archive.indexAtOrAfter(50 * HOUR));
+
+            CandleSeries series = archive.toSeries(5 * HOUR, 30 * HOUR);
+            assertEquals(26, series.size());
+            for (int i = 0; i < series.size(); i++) {
+                assertEquals((5 + i) * HOUR, series.time(i));
+                assertEquals(105 + i, series.open(i), 0.0);
+                assertEquals(106 + i, series.high(i), 0.0);
+                assertEquals(104 + i, series.low(i), 0.0);
+                assertEquals(105.5 + i, series.close(i), 0.0);
+                assertEquals(5 + i, series.volume(i), 0.0);
+            }
+        }
+    }
+
+    @Test
+    void seriesReadsTheMappedRowsInPlaceUntilCopied() {
+        Path path = directory.resolve("BTCUSDT/4h.candles");
+        try (CandleArchive archive = CandleArchive.openOrCreate(path, "BTCUSDT", "4h", 8)) {
+            for (int i = 0; i < 20; i++) {
+                archive.append(i * HOUR, 100 + i, 101 + i, 99 + i, 100.5 + i, i);
+            }
+            CandleSeries view = archive.toSeries(3 * HOUR, Long.MAX_VALUE);
+            CandleSeries copy = view.copy();
+            assertEquals(17, view.size());
+            assertEquals(5, view.indexAtOrAfter(7 * HOUR + 1));
+            assertEquals(17, view.indexAtOrAfter(20 * HOUR));
+            assertThrows(IndexOutOfBoundsException.class, () -> view.close(17));
+
+            // A revisão do último candle aparece na visão, não na cópia
+            archive.append(19 * HOUR, 119, 130, 118, 125, 40);
+            assertEquals(125, view.close(16), 0.0);
+            assertEquals(119.5, copy.close(16), 0.0);
+            assertSame(copy, copy.copy());
+        }
+    }
+
+    @Test
+    void appendOverwritesTheLastCandleAndIgnoresOlderOnes() {
+        Path path = directory.resolve("ETHUSDT/4h.candles");
+        try (CandleArchive archive = CandleArchive.openOrCreate(path, "ETHUSDT", "4h", 8)) {
+            archive.append(0, 1, 1, 1, 1, 1);
+            archive.append(HOUR, 2, 2, 2, 2, 2);
+
+            // Revisão do último candle (reparado ainda aberto) e um candle antigo que já estava no arquivo
+            assertTrue(archive.append(HOUR, 2, 3, 1.5, 2.5, 7));
+            assertFalse(archive.append(0, 9, 9, 9, 9, 9));
+
+            assertEquals(2, archive.size());
+            assertEquals(2.5, archive.close(1), 0.0);
+            assertEquals(7, archive.volume(1), 0.0);
+            assertEquals(1, archive.close(0), 0.0);
+        }
+
+        // Reaberto para escrita, continua de onde parou
+        try (CandleArchive archive = CandleArchive.openOrCreate(path, "ETHUSDT", "4h")) {
+            archive.append(2 * HOUR, 3, 3, 3, 3, 3);
+            assertEquals(3, archive.size());
+            assertEquals(0, archive.firstTime());
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.jonasdurau.spectator.core.backtest;
+
+import com.jonasdurau.spectator.core.buffer.CandleRingBuffer;
+import com.jonasdurau.spectator.core.domain.MarketRegime;
+import com.jonasdurau.spectator.core.domain.Position;
+import com.jonasdurau.spectator.core.domain.Trade;
+import com.jonasdurau.spectator.core.domain.TradeSide;
+import com.jonasdurau.spectator.core.indicator.IndicatorContext;
+import com.jonasdurau.spectator.core.indicator.IndicatorEngine;
+import com.jonasdurau.spectator.core.indicator.IndicatorSpec;
+import com.jonasdurau.spectator.core.service.RiskManagerService;
+import com.jonasdurau.spectator.core.strategy.MeanReversionStrategy;
+import com.jonasdurau.spectator.core.strategy.PullbackTrendStrategy;
+import com.jonasdurau.spectator.core.strategy.RegimeAnalyzerService;
+import com.jonasdurau.spectator.core.strategy.TradeSignal;
+import com.jonasdurau.spectator.core.strategy.TradingStrategy;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BacktestEngineTest {
+
+    private static final long HOUR = Duration.ofHours(1).toMillis();
+    private static final long START = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+    @Test
+    void targetExitsAtItsLevelOnTheSimulatedClock() {
+        // Entrada no fechamento do candle 2 (100); o candle 3 toca o alvo (110) sem chegar no stop (95)
+        CandleSeries bars = series(
+                new double[] {100, 100, 100, 100},
+                new double[] {101, 101, 101, 112},
+                new double[] {99, 99, 99, 98},
+                new double[] {100, 100, 100, 105});
+        BacktestEngine engine = engine(new EnterOnce(3, TradeSide.LONG, 2, 95.0, 110.0), 0.001);
+
+        BacktestResult result = engine.run(bars, empty4h());
+
+        assertEquals(1, result.closedPositions().size());
+        Position position = result.closedPositions().get(0);
+        assertEquals(20.0, position.getRealizedPnl(), 1e-9);
+        assertEquals(Instant.ofEpochMilli(START + 3 * HOUR), position.getCreatedAt());
+        assertEquals(Instant.ofEpochMilli(START + 4 * HOUR), position.getClosedAt());
+
+        List<Trade> trades = result.trades();
+        assertEquals(2, trades.size());
+        assertEquals(TradeSide.SHORT, trades.get(1).getSide());
+        assertEquals(110.0, trades.get(1).getPrice(), 1e-9);
+
+        double fees = (100 * 2 + 110 * 2) * 0.001;
+        BacktestStatistics stats = result.statistics();
+        assertEquals(4, stats.bars());
+        assertEquals(1, stats.wins());
+        assertEquals(fees, stats.fees(), 1e-9);
+        assertEquals(10_000 + 20 - fees, result.equityCurve().last(), 1e-9);
+    }
+
+    @Test
+    void stopGappedOverFillsAtTheOpen() {
+        CandleSeries bars = series(
+                new double[] {100, 100, 90},
+                new double[] {101, 101, 92},
+                new double[] {99, 99, 88},
+                new double[] {100, 100, 91});
+        BacktestEngine engine = engine(new EnterOnce(2, TradeSide.LONG, 1, 95.0, 110.0), 0);
+
+        BacktestResult result = engine.run(bars, empty4h());
+
+        Position position = result.closedPositions().get(0);
+        assertEquals(-10.0, position.getRealizedPnl(), 1e-9);
+        assertEquals(10_000 - 10.0, result.statistics().finalEquity(), 1e-9);
+        assertEquals(10.0, result.statistics().maxDrawdown(), 1e-9);
+    }
+
+    @Test
+    void warmupBarsFeedIndicatorsButDoNotTrade() {
+        CandleSeries bars = series(
+                new double[] {100, 100, 100, 100},
+                new double[] {101, 101, 101, 101},
+                new double[] {99, 99, 99, 99},
+                new double[] {100, 100, 100, 100});
+        BacktestEngine engine = engine(new EnterOnce(2, TradeSide.LONG, 1, 95.0, 110.0), 0);
+
+        BacktestResult result = engine.run(bars, empty4h(), START + 2 * HOUR);
+
+        assertEquals(2, result.equityCurve().size());
+        assertEquals(START + 3 * HOUR, result.equityCurve().time()[0]);
+        // O sinal do candle 2 (barCount 2) caiu no aquecimento
+        assertTrue(result.openPositions().isEmpty());
+    }
+
+    @Test
+    void replaysLiveStrategiesOverARandomWalk() {
+        // Vazão fica no BacktestEngineBenchmark (src/jmh); aqui só o suficiente para as estratégias operarem
+        int n = 5_000;
+        CandleSeries bars = randomWalk(n, 42);
+        CandleSeries bars4h = aggregate(bars, 4);
+
+        RiskManagerService risk = new RiskManagerService();
+        BacktestEngine engine = new BacktestEngine(
+                List.of(new PullbackTrendStrategy(risk), new MeanReversionStrategy(risk)),
+                new RegimeAnalyzerService(), BacktestConfig.defaults(10_000, 0.001));
+
+        BacktestResult result = engine.run(bars, bars4h);
+        BacktestStatistics stats = result.statistics();
+
+        assertEquals(n, stats.bars());
+        assertTrue(stats.trades() > 0);
+        assertEquals(stats.wins() + stats.losses(), stats.trades());
+        double realized = result.closedPositions().stream().mapToDouble(Position::getRealizedPnl).sum();
+        double floating = result.openPositions().stream()
+                .mapToDouble(p -> p.calculateFloatingPnl(bars.close(n - 1))).sum();
+        assertEquals(10_000 + realized + floating - stats.fees(), stats.finalEquity(), 1e-6);
+    }
+
+    @Test
+    void cachedIndicatorsMatchTheIncrementalEngine() {
+        CandleSeries bars = randomWalk(3_000, 7);
+        List<IndicatorSpec> specs = List.of(IndicatorSpec.ema(50), IndicatorSpec.rsi(14), IndicatorSpec.adx(14),
+                IndicatorSpec.atrAverage(14, 28), IndicatorSpec.standardDeviation(20), IndicatorSpec.lowestLow(5));
+        IndicatorCache.View cached = new IndicatorCache(bars, 250).view(specs);
+
+        CandleRingBuffer buffer = new CandleRingBuffer("BTCUSDT", "1h", 250);
+        IndicatorEngine live = new IndicatorEngine("BTCUSDT", "1h", specs);
+        for (int i = 0; i < bars.size(); i++) {
+            buffer.update(bars.time(i), bars.open(i), bars.high(i), bars.low(i), bars.close(i), bars.volume(i));
+            IndicatorContext expected = live.sync(buffer.window(250));
+            IndicatorContext actual = cached.contextAt(i);
+            assertEquals(expected.getBarCount(), actual.getBarCount());
+            for (IndicatorSpec spec : specs) {
+                assertEquals(expected.get(spec), actual.get(spec), 0.0, spec + " at " + i);
+            }
+        }
+    }
+
+    static CandleSeries randomWalk(int n, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[] open = new double[n];
+        double[] high = new double[n];
+        double[] low = new double[n];
+        double[] close = new double[n];
+        double price = 30_000;
+        for (int i = 0; i < n; i++) {
+            open[i] = price;
+            price *= 1 + random.nextGaussian() * 0.004 + 0.0001 * Math.sin(i / 500.0);
+            close[i] = price;
+            high[i] = Math.max(open[i], close[i]) * (1 + random.nextDouble() * 0.003);
+            low[i] = Math.min(open[i], close[i]) * (1 - random.nextDouble() * 0.003);
+        }
+        return series(open, high, low, close);
+    }
+
+    private static BacktestEngine engine(TradingStrategy strategy, double feeRate) {
+        return new BacktestEngine(List.of(strategy), new RegimeAnalyzerService(),
+                BacktestConfig.defaults(10_000, feeRate));
+    }
+
+    private static CandleSeries series(double[] open, double[] high, double[] low, double[] close) {
+        long[] time = new long[open.length];
+        for (int i = 0; i < time.length; i++) {
+            time[i] = START + i * HOUR;
+        }
+        return new CandleSeries("BTCUSDT", "1h", time, open, high, low, close, new double[open.length]);
+    }
+
+    private static CandleSeries empty4h() {
+        return new CandleSeries("BTCUSDT", "4h", new long[0], new double[0], new double[0], new double[0],
+                new double[0], new double[0]);
+    }
+
+    static CandleSeries aggregate(CandleSeries bars, int factor) {
+        int n = bars.size() / factor;
+        long[] time = new long[n];
+        double[] open = new double[n];
+        double[] high = new double[n];
+        double[] low = new double[n];
+        double[] close = new double[n];
+        for (int i = 0; i < n; i++) {
+            int from = i * factor;
+            time[i] = bars.time(from);
+            open[i] = bars.open(from);
+            close[i] = bars.close(from + factor - 1);
+            high[i] = Double.NEGATIVE_INFINITY;
+            low[i] = Double.POSITIVE_INFINITY;
+            for (int j = from; j < from + factor; j++) {
+                high[i] = Math.max(high[i], bars.high(j));
+                low[i] = Math.min(low[i], bars.low(j));
+            }
+        }
+        return new CandleSeries("BTCUSDT", "4h", time, open, high, low, close, new double[n]);
+    }
+
+    /**
+     * Entra uma vez quando a janela chega a {@code barCount} candles.
+     */
+    private record EnterOnce(int barCount, TradeSide side, double quantity, Double stopLoss, Double takeProfit)
+            implements TradingStrategy {
+
+        @Override
+        public String getName() {
+            return "enter-once";
+        }
+
+        @Override
+        public Set<IndicatorSpec> requiredIndicators() {
+            return Set.of(IndicatorSpec.ema(2));
+        }
+
+        @Override
+        public TradeSignal evaluate(IndicatorContext indicators1h, MarketRegime current4hRegime, double currentPrice) {
+            return indicators1h.getBarCount() == barCount
+                    ? TradeSignal.enter(side, quantity, stopLoss, takeProfit)
+                    : TradeSignal.ignore();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.jonasdurau.spectator.core.backtest;
+
+import com.jonasdurau.spectator.core.indicator.IndicatorSpec;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class IndicatorCacheTest {
+
+    @Test
+    void concurrentRequestsShareOneColumnPerSpec() throws Exception {
+        IndicatorCache cache = new IndicatorCache(BacktestEngineTest.randomWalk(5_000, 3), 250);
+        List<IndicatorSpec> specs = List.of(IndicatorSpec.ema(50), IndicatorSpec.rsi(14), IndicatorSpec.adx(14),
+                IndicatorSpec.sma(20));
+        ExecutorService workers = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<CompletableFuture<double[]>> requests = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            IndicatorSpec spec = specs.get(i % specs.size());
+            requests.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return cache.column(spec);
+            }, workers));
+        }
+        start.countDown();
+
+        // Quem pediu o mesmo spec recebe a mesma coluna, calculada uma vez
+        for (int i = 0; i < requests.size(); i++) {
+            assertSame(cache.column(specs.get(i % specs.size())), requests.get(i).get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(specs.size(), cache.size());
+        workers.shutdown();
+    }
+
+    @Test
+    void bulkKernelColumnsAreTheEngineColumnsBitForBit() {
+        CandleSeries bars = BacktestEngineTest.randomWalk(5_000, 9);
+        IndicatorCache engine = new IndicatorCache(bars, 250);
+        IndicatorCache bulk = new IndicatorCache(bars, 250, true);
+
+        for (IndicatorSpec spec : List.of(IndicatorSpec.ema(50), IndicatorSpec.ema(200), IndicatorSpec.rsi(14),
+                IndicatorSpec.atr(14), IndicatorSpec.adx(14))) {
+            assertArrayEquals(engine.column(spec), bulk.column(spec), spec.toString());
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.jonasdurau.spectator.core.backtest;
+
+import com.jonasdurau.spectator.core.domain.Position;
+import com.jonasdurau.spectator.core.domain.TradeSide;
+import com.jonasdurau.spectator.core.service.RiskManagerService;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MonteCarloSimulatorTest {
+
+    @Test
+    void sampleKeepsClosedPositionsWithAStop() {
+        Position shortWin = closed(TradeSide.SHORT, 100, 105, 90);
+        Position open = new Position("BTCUSDT", TradeSide.LONG, 100, 1, 95.0, 110.0);
+        Position noStop = new Position("BTCUSDT", TradeSide.LONG, 100, 1, null, null);
+        noStop.closePosition(101);
+
+        TradeSample sample = TradeSample.of(List.of(shortWin, open, noStop));
+
+        assertEquals(1, sample.size());
+        assertEquals(10, sample.move(0), 1e-9);
+        assertEquals(90, sample.exit(0), 1e-9);
+        assertEquals(105, sample.stopLoss(0), 1e-9);
+    }
+
+    @Test
+    void shuffledPathsEndAtTheSameCompoundedEquity() {
+        // +2R, -1R, +0.5R, -1R, -1R, +3R com 1% de risco e sem custos: reordenar só muda o caminho, não o fim
+        double[] rMultiples = {2, -1, 0.5, -1, -1, 3};
+        List<Position> positions = new ArrayList<>();
+        double expected = 1;
+        for (double r : rMultiples) {
+            positions.add(closed(TradeSide.LONG, 100, 95, 100 + 5 * r));
+            expected *= 1 + 0.01 * r;
+        }
+        MonteCarloConfig config = new MonteCarloConfig(20_000, MonteCarloConfig.Resampling.SHUFFLE, 0, 10_000, 0.01,
+                true, 0, 0, 0.5, 7L);
+
+        MonteCarloResult result = new MonteCarloSimulator(new RiskManagerService(), 2)
+                .simulate(TradeSample.of(positions), config);
+
+        assertEquals(20_000, result.paths());
+        assertEquals(0, result.ruined());
+        assertEquals(Math.log(expected), result.logReturn().min(), 1e-9);
+        assertEquals(Math.log(expected), result.logReturn().max(), 1e-9);
+        // Três perdas de 1% seguidas é o pior caminho possível; qualquer perda já é 1% abaixo do topo
+        assertEquals(1 - 0.99 * 0.99 * 0.99, result.maxDrawdownPct().max(), 1e-9);
+        assertEquals(0.01, result.maxDrawdownPct().min(), 1e-9);
+    }
+
+    @Test
+    void resultDoesNotDependOnTheNumberOfThreads() {
+        List<Position> positions = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            positions.add(closed(TradeSide.LONG, 100, 98, i % 3 == 0 ? 104 : 98));
+        }
+        TradeSample sample = TradeSample.of(positions);
+        MonteCarloConfig config = new MonteCarloConfig(30_000, MonteCarloConfig.Resampling.BOOTSTRAP, 200, 10_000,
+                0.02, false, 0.001, 0.0005, 0.3, 42L);
+
+        MonteCarloResult single = new MonteCarloSimulator(new RiskManagerService(), 1).simulate(sample, config);
+        MonteCarloResult parallel = new MonteCarloSimulator(new RiskManagerService(), 3).simulate(sample, config);
+
+        assertEquals(single.ruined(), parallel.ruined());
+        assertTrue(single.ruined() > 0 && single.ruined() < 30_000);
+        for (int bin = 0; bin < single.maxDrawdownPct().bins(); bin++) {
+            assertEquals(single.maxDrawdownPct().countAt(bin), parallel.maxDrawdownPct().countAt(bin));
+        }
+        assertEquals(single.returnQuantile(0.05), parallel.returnQuantile(0.05), 1e-12);
+        assertEquals(single.ruinProbability(), single.probabilityOfDrawdownAtLeast(0.3), 1e-12);
+    }
+
+    @Test
+    void histogramQuantilesInterpolateWithinBins() {
+        Histogram histogram = new Histogram(0, 1, 100);
+        for (int i = 0; i < 1000; i++) {
+            histogram.add(i / 1000.0);
+        }
+        Histogram other = histogram.emptyCopy();
+        other.add(5);
+        histogram.merge(other);
+
+        assertEquals(1001, histogram.count());
+        assertEquals(0.5, histogram.quantile(0.5), 0.01);
+        assertEquals(0.9, histogram.quantile(0.9), 0.01);
+        assertEquals(5, histogram.max());
+        assertEquals(101 / 1001.0, histogram.fractionAtLeast(0.9), 1e-9);
+    }
+
+    private static Position closed(TradeSide side, double entry, double stopLoss, double exit) {
+        Position position = new Position("BTCUSDT", side, entry, 1, stopLoss, null);
+        position.closePosition(exit);
+        return position;
+    }
+}
@@ -0,0 +1,80 @@
+package com.jonasdurau.spectator.core.backtest;
+
+import com.jonasdurau.spectator.core.service.RiskManagerService;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParameterOptimizerTest {
+
+    private static final BacktestConfig CONFIG = BacktestConfig.defaults(10_000, 0.001);
+
+    @Test
+    void combinationsDecodeTheWholeGrid() {
+        ParameterSpace space = ParameterSpace.empty()
+                .with("a", 1, 2)
+                .withRange("b", 0.5, 1.5, 0.5);
+
+        assertEquals(6, space.size());
+        assertEquals(Map.of("a", 1.0, "b", 0.5), space.combination(0).asMap());
+        assertEquals(Map.of("a", 1.0, "b", 1.5), space.combination(2).asMap());
+        assertEquals(Map.of("a", 2.0, "b", 1.0), space.combination(4).asMap());
+        assertEquals(7.0, space.combination(5).get("missing", 7.0));
+    }
+
+    @Test
+    void parallelGridSearchRanksLikeSequentialEvaluation() {
+        CandleSeries bars = BacktestEngineTest.randomWalk(20_000, 11);
+        BacktestDataset dataset = BacktestDataset.of(bars, BacktestEngineTest.aggregate(bars, 4), Long.MIN_VALUE,
+                CONFIG.analysisWindow());
+        ParameterSpace space = ParameterSpace.empty()
+                .with(StrategyVariants.PULLBACK_MAX_DISTANCE_PCT, 0.005, 0.01, 0.02)
+                .with(StrategyVariants.PULLBACK_REWARD_RISK, 1.5, 2, 3)
+                .with(StrategyVariants.REGIME_ADX_TREND_THRESHOLD, 15, 20, 25);
+        StrategyVariants variants = new StrategyVariants(new RiskManagerService(), CONFIG);
+
+        List<OptimizationResult> top = new ParameterOptimizer(4)
+                .gridSearch(dataset, space, variants, Objective.NET_PROFIT, 5);
+
+        assertEquals(5, top.size());
+        for (int i = 1; i < top.size(); i++) {
+            assertTrue(top.get(i - 1).score() >= top.get(i).score());
+        }
+
+        // Mesmo ranking avaliando uma a uma, numa thread só
+        double best = Double.NEGATIVE_INFINITY;
+        for (long k = 0; k < space.size(); k++) {
+            best = Math.max(best, variants.create(space.combination(k)).evaluate(dataset).netProfit());
+        }
+        assertEquals(best, top.get(0).score(), 1e-9);
+
+        // O cache de indicadores foi compartilhado: só as specs distintas foram calculadas
+        assertEquals(6, dataset.indicators().size());
+    }
+
+    @Test
+    void randomSearchIsReproducibleForASeed() {
+        CandleSeries bars = BacktestEngineTest.randomWalk(5_000, 3);
+        BacktestDataset dataset = BacktestDataset.of(bars, BacktestEngineTest.aggregate(bars, 4), Long.MIN_VALUE,
+                CONFIG.analysisWindow());
+        ParameterSpace space = ParameterSpace.empty()
+                .withRange(StrategyVariants.MEAN_REVERSION_RSI_OVERSOLD, 20, 40, 1)
+                .withRange(StrategyVariants.MEAN_REVERSION_BB_MULTIPLIER, 1.5, 3, 0.25);
+        StrategyVariants variants = new StrategyVariants(new RiskManagerService(), CONFIG);
+        ParameterOptimizer optimizer = new ParameterOptimizer(2);
+
+        List<OptimizationResult> first = optimizer.randomSearch(dataset, space, variants,
+                Objective.PROFIT_FACTOR.withMinTrades(1), 20, 99L, 3);
+        List<OptimizationResult> second = optimizer.randomSearch(dataset, space, variants,
+                Objective.PROFIT_FACTOR.withMinTrades(1), 20, 99L, 3);
+
+        assertEquals(3, first.size());
+        for (int i = 0; i < first.size(); i++) {
+            assertEquals(first.get(i).score(), second.get(i).score(), 0.0);
+        }
+    }
+}
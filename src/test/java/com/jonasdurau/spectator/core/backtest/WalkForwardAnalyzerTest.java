@@ -0,0 +1,88 @@
+package com.jonasdurau.spectator.core.backtest;
+
+import com.jonasdurau.spectator.core.service.RiskManagerService;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WalkForwardAnalyzerTest {
+
+    private static final BacktestConfig CONFIG = BacktestConfig.defaults(10_000, 0.001);
+
+    @Test
+    void sliceOfTheSharedCacheMatchesAFreshTruncatedDataset() {
+        CandleSeries bars = BacktestEngineTest.randomWalk(12_000, 5);
+        BacktestDataset full = BacktestDataset.of(bars, BacktestEngineTest.aggregate(bars, 4), Long.MIN_VALUE,
+                CONFIG.analysisWindow());
+        StrategyVariants variants = new StrategyVariants(new RiskManagerService(), CONFIG);
+        ParameterSet parameters = ParameterSet.of(Map.of(StrategyVariants.REGIME_ADX_TREND_THRESHOLD, 15.0));
+
+        long from = bars.time(6_000);
+        long to = bars.time(9_000);
+        BacktestStatistics sliced = variants.create(parameters).evaluate(full.slice(from, to));
+
+        // Série cortada em "to" e cache novo: o mesmo resultado, sem nada do futuro vazando para a janela
+        CandleSeries truncated = truncate(bars, 9_000);
+        BacktestDataset fresh = BacktestDataset.of(truncated, BacktestEngineTest.aggregate(truncated, 4), from,
+                CONFIG.analysisWindow());
+        BacktestStatistics expected = variants.create(parameters).evaluate(fresh);
+
+        assertEquals(3_000, sliced.bars());
+        assertEquals(expected.trades(), sliced.trades());
+        assertEquals(expected.finalEquity(), sliced.finalEquity(), 1e-9);
+        assertEquals(expected.maxDrawdown(), sliced.maxDrawdown(), 1e-9);
+    }
+
+    @Test
+    void rollsWindowsAndValidatesEachWinnerOutOfSample() {
+        CandleSeries bars = BacktestEngineTest.randomWalk(8_000, 21);
+        BacktestDataset dataset = BacktestDataset.of(bars, BacktestEngineTest.aggregate(bars, 4), bars.time(1_000),
+                CONFIG.analysisWindow());
+        WalkForwardConfig walkForward = WalkForwardConfig.rolling(Duration.ofHours(2_000), Duration.ofHours(1_000));
+        ParameterSpace space = ParameterSpace.empty()
+                .with(StrategyVariants.REGIME_ADX_TREND_THRESHOLD, 15, 20, 25)
+                .with(StrategyVariants.PULLBACK_REWARD_RISK, 1.5, 2.5);
+        StrategyVariants variants = new StrategyVariants(new RiskManagerService(), CONFIG);
+
+        WalkForwardReport report = new WalkForwardAnalyzer(new ParameterOptimizer(3))
+                .analyze(dataset, walkForward, space, variants, Objective.NET_PROFIT, 0, 0L);
+
+        // 7000 candles negociáveis (1000..7999): janelas de 2000 + 1000 andando 1000 cabem começando em 1000, 2000,
+        // 3000 e 4000; a de 5000 terminaria depois do último candle
+        assertEquals(4, report.windows().size());
+        long hour = Duration.ofHours(1).toMillis();
+        for (int w = 0; w < report.windows().size(); w++) {
+            WalkForwardWindow window = report.windows().get(w);
+            long inSampleFrom = bars.time(1_000) + w * 1_000L * hour;
+            assertEquals(inSampleFrom, window.inSampleFrom().toEpochMilli());
+
+            BacktestDataset outOfSample = dataset.slice(window.outOfSampleFrom().toEpochMilli(),
+                    window.outOfSampleTo().toEpochMilli());
+            assertEquals(variants.create(window.parameters()).evaluate(outOfSample).finalEquity(),
+                    window.outOfSample().finalEquity(), 1e-9);
+            assertEquals(variants.create(ParameterSet.of(Map.of())).evaluate(outOfSample).finalEquity(),
+                    window.baseline().finalEquity(), 1e-9);
+            assertEquals(1_000, window.outOfSample().bars());
+        }
+    }
+
+    private static CandleSeries truncate(CandleSeries series, int size) {
+        long[] time = new long[size];
+        double[] open = new double[size];
+        double[] high = new double[size];
+        double[] low = new double[size];
+        double[] close = new double[size];
+        for (int i = 0; i < size; i++) {
+            time[i] = series.time(i);
+            open[i] = series.open(i);
+            high[i] = series.high(i);
+            low[i] = series.low(i);
+            close[i] = series.close(i);
+        }
+        return new CandleSeries(series.getSymbol(), series.getTimeframe(), time, open, high, low, close,
+                new double[size]);
+    }
+}
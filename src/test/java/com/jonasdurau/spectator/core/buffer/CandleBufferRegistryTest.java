@@ -0,0 +1,18 @@
+package com.jonasdurau.spectator.core.buffer;
+
+import com.jonasdurau.spectator.core.service.TickPipelineService;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CandleBufferRegistryTest {
+
+    @Test
+    void capacityMustExceedTheAnalysisWindow() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new CandleBufferRegistry(null, TickPipelineService.ANALYSIS_WINDOW));
+        CandleBufferRegistry registry = new CandleBufferRegistry(null, TickPipelineService.ANALYSIS_WINDOW + 1);
+        assertEquals(TickPipelineService.ANALYSIS_WINDOW + 1, registry.get("BTCUSDT", "1h").getCapacity());
+    }
+}
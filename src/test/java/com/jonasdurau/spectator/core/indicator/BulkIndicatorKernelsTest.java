@@ -0,0 +1,135 @@
+package com.jonasdurau.spectator.core.indicator;
+
+import com.jonasdurau.spectator.core.domain.Candle;
+import com.jonasdurau.spectator.core.strategy.Ta4jMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ta4j.core.BarSeries;
+import org.ta4j.core.Indicator;
+import org.ta4j.core.indicators.ATRIndicator;
+import org.ta4j.core.indicators.RSIIndicator;
+import org.ta4j.core.indicators.averages.EMAIndicator;
+import org.ta4j.core.indicators.averages.SMAIndicator;
+import org.ta4j.core.indicators.helpers.ClosePriceIndicator;
+import org.ta4j.core.indicators.statistics.StandardDeviationIndicator;
+import org.ta4j.core.num.Num;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Confere os kernels vetorizados contra o ta4j ({@code DecimalNum}, via {@link Ta4jMapper}) e contra os
+ * indicadores streaming. O tamanho não é múltiplo da largura das lanes, para passar pelas caudas escalares.
+ */
+class BulkIndicatorKernelsTest {
+
+    private static final int BARS = 3_001;
+
+    private List<Candle> candles;
+    private double[] high;
+    private double[] low;
+    private double[] close;
+
+    @BeforeEach
+    void setUp() {
+        candles = randomWalk(BARS, 7L);
+        high = new double[BARS];
+        low = new double[BARS];
+        close = new double[BARS];
+        for (int i = 0; i < BARS; i++) {
+            high[i] = candles.get(i).getHigh();
+            low[i] = candles.get(i).getLow();
+            close[i] = candles.get(i).getClose();
+        }
+    }
+
+    @Test
+    void kernelsMatchTa4jDecimalNum() {
+        BarSeries series = Ta4jMapper.toBarSeries(candles, "test");
+        ClosePriceIndicator closePrice = new ClosePriceIndicator(series);
+
+        int compared = 0;
+        compared += assertClose(new EMAIndicator(closePrice, 50), BulkIndicatorKernels.ema(close, 50));
+        compared += assertClose(new SMAIndicator(closePrice, 20), BulkIndicatorKernels.sma(close, 20));
+        compared += assertClose(new StandardDeviationIndicator(closePrice, 20),
+                BulkIndicatorKernels.standardDeviation(close, 20));
+        compared += assertClose(new RSIIndicator(closePrice, 14), BulkIndicatorKernels.rsi(close, 14));
+        compared += assertClose(new ATRIndicator(series, 14), BulkIndicatorKernels.atr(high, low, close, 14));
+        assertTrue(compared > BARS * 5 / 2, "Too few comparable values: " + compared);
+    }
+
+    @Test
+    void recurrencesAreBitIdenticalToTheStreamingIndicators() {
+        double[] ema = BulkIndicatorKernels.ema(close, 200);
+        double[] rsi = BulkIndicatorKernels.rsi(close, 14);
+        double[] atr = BulkIndicatorKernels.atr(high, low, close, 14);
+        double[] sma = BulkIndicatorKernels.sma(close, 20);
+        double[] stdDev = BulkIndicatorKernels.standardDeviation(close, 20);
+
+        StreamingEma streamingEma = new StreamingEma(200);
+        StreamingRsi streamingRsi = new StreamingRsi(14);
+        StreamingAtr streamingAtr = new StreamingAtr(14);
+        StreamingSma streamingSma = new StreamingSma(20);
+        StreamingStandardDeviation streamingStdDev = new StreamingStandardDeviation(20);
+        for (int i = 0; i < BARS; i++) {
+            assertEquals(streamingEma.update(close[i], true), ema[i], 0.0, "EMA at " + i);
+            assertEquals(streamingRsi.update(close[i], true), rsi[i], 0.0, "RSI at " + i);
+            assertEquals(streamingAtr.update(high[i], low[i], close[i], true), atr[i], 0.0, "ATR at " + i);
+            // A soma da janela é acumulada em outra ordem: mesma tolerância do teste contra o ta4j
+            double expectedSma = streamingSma.update(close[i], true);
+            assertEquals(expectedSma, sma[i], 1e-6 * Math.max(1.0, expectedSma), "SMA at " + i);
+            double expectedStdDev = streamingStdDev.update(close[i], true);
+            assertEquals(expectedStdDev, stdDev[i], 1e-6 * Math.max(1.0, expectedStdDev), "Std dev at " + i);
+        }
+    }
+
+    @Test
+    void shortAndEmptyInputsKeepTheWarmupSemantics() {
+        double[] input = {10, 12, 11};
+
+        assertEquals(0, BulkIndicatorKernels.sma(new double[0], 5).length);
+        assertEquals(0, BulkIndicatorKernels.rsi(new double[0], 14).length);
+        double[] sma = BulkIndicatorKernels.sma(input, 5);
+        assertEquals(11, sma[2], 1e-12);
+        assertEquals(1, BulkIndicatorKernels.standardDeviation(input, 2)[1], 1e-12);
+        assertEquals(100, BulkIndicatorKernels.rsi(new double[] {1, 2, 3}, 14)[2], 0.0);
+        assertEquals(0, BulkIndicatorKernels.rsi(new double[] {1, 1, 1}, 14)[2], 0.0);
+    }
+
+    private static int assertClose(Indicator<Num> expected, double[] actual) {
+        int compared = 0;
+        for (int i = 0; i < actual.length; i++) {
+            double value = expected.getValue(i).doubleValue();
+            if (Double.isNaN(value)) {
+                // Período instável do ta4j, nada a comparar
+                continue;
+            }
+            double tolerance = 1e-6 * Math.max(1.0, Math.abs(value));
+            assertEquals(value, actual[i], tolerance, "Mismatch at index " + i);
+            compared++;
+        }
+        return compared;
+    }
+
+    private static List<Candle> randomWalk(int bars, long seed) {
+        Random random = new Random(seed);
+        List<Candle> result = new ArrayList<>(bars);
+        Instant time = Instant.parse("2024-01-01T00:00:00Z");
+        double close = 42000.0;
+        for (int i = 0; i < bars; i++) {
+            double open = close;
+            close = Math.max(1.0, open * (1 + random.nextGaussian() * 0.01));
+            double high = Math.max(open, close) * (1 + random.nextDouble() * 0.005);
+            double low = Math.min(open, close) * (1 - random.nextDouble() * 0.005);
+            result.add(new Candle("BTCUSDT", "1h", time, open, high, low, close, 100 + random.nextDouble() * 900));
+            time = time.plus(Duration.ofHours(1));
+        }
+        return result;
+    }
+}
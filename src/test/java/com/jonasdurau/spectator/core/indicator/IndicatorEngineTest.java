@@ -0,0 +1,101 @@
+package com.jonasdurau.spectator.core.indicator;
+
+import com.jonasdurau.spectator.core.buffer.CandleRingBuffer;
+import com.jonasdurau.spectator.core.domain.MarketRegime;
+import com.jonasdurau.spectator.core.service.IndicatorService;
+import com.jonasdurau.spectator.core.strategy.RegimeAnalyzerService;
+import com.jonasdurau.spectator.core.strategy.TradeSignal;
+import com.jonasdurau.spectator.core.strategy.TradingStrategy;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndicatorEngineTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    @Test
+    void sharedSpecsAreComputedOnceAndAtrAverageBringsItsAtr() {
+        IndicatorSpec ema = IndicatorSpec.ema(50);
+        IndicatorSpec atrAverage = IndicatorSpec.atrAverage(14, 28);
+        IndicatorEngine engine = new IndicatorEngine("BTCUSDT", "1h",
+                List.of(atrAverage, ema, IndicatorSpec.sma(20), IndicatorSpec.ema(50)));
+
+        // A EMA repetida ocupa um slot só; o ATR(14) entra como dependência da média
+        assertEquals(Set.of(ema, IndicatorSpec.sma(20), atrAverage, IndicatorSpec.atr(14)), engine.getSpecs());
+    }
+
+    @Test
+    void atrAverageReadsTheAtrOfTheSameTickWhateverTheDeclarationOrder() {
+        IndicatorSpec atr = IndicatorSpec.atr(3);
+        IndicatorSpec atrAverage = IndicatorSpec.atrAverage(3, 2);
+        // A média declarada antes do ATR ainda é calculada depois dele
+        IndicatorEngine engine = new IndicatorEngine("BTCUSDT", "1h", List.of(atrAverage, atr));
+        CandleRingBuffer buffer = new CandleRingBuffer("BTCUSDT", "1h", 100);
+
+        double previousAtr = Double.NaN;
+        int compared = 0;
+        for (int i = 0; i < 40; i++) {
+            double price = 100 + 5 * Math.sin(i / 2.0);
+            buffer.update(i * HOUR, price, price + 1 + i % 3, price - 1, price + 0.5, 1);
+            IndicatorContext context = engine.sync(buffer.window(50));
+            double currentAtr = context.get(atr);
+            if (!Double.isNaN(previousAtr) && !Double.isNaN(context.get(atrAverage))) {
+                assertEquals((previousAtr + currentAtr) / 2, context.get(atrAverage), 1e-9, "bar " + i);
+                compared++;
+            }
+            previousAtr = currentAtr;
+        }
+        assertTrue(compared > 30, "compared " + compared);
+    }
+
+    @Test
+    void serviceUnitesTheRequirementsOfEachTimeframe() {
+        IndicatorService service = new IndicatorService(List.of(
+                strategy(IndicatorSpec.ema(50), IndicatorSpec.rsi(14)),
+                strategy(IndicatorSpec.ema(50), IndicatorSpec.sma(20))), new RegimeAnalyzerService());
+        CandleRingBuffer hourly = new CandleRingBuffer("BTCUSDT", IndicatorService.STRATEGY_TIMEFRAME, 100);
+        CandleRingBuffer regime = new CandleRingBuffer("BTCUSDT", IndicatorService.REGIME_TIMEFRAME, 100);
+        for (int i = 0; i < 30; i++) {
+            hourly.update(i * HOUR, 100 + i, 101 + i, 99 + i, 100 + i, 1);
+            regime.update(i * 4 * HOUR, 100 + i, 101 + i, 99 + i, 100 + i, 1);
+        }
+
+        // No 1H, a união das estratégias; specs do regime (4H) não são calculadas ali, e vice-versa
+        IndicatorContext strategyContext = service.compute(hourly.window(50));
+        assertEquals(119.5, strategyContext.get(IndicatorSpec.sma(20)), 1e-9);
+        strategyContext.get(IndicatorSpec.ema(50));
+        strategyContext.get(IndicatorSpec.rsi(14));
+        assertThrows(IllegalArgumentException.class, () -> strategyContext.get(IndicatorSpec.adx(14)));
+
+        IndicatorContext regimeContext = service.compute(regime.window(50));
+        regimeContext.get(IndicatorSpec.adx(14));
+        regimeContext.get(IndicatorSpec.ema(200));
+        assertThrows(IllegalArgumentException.class, () -> regimeContext.get(IndicatorSpec.rsi(14)));
+    }
+
+    private static TradingStrategy strategy(IndicatorSpec... specs) {
+        return new TradingStrategy() {
+            @Override
+            public String getName() {
+                return "test";
+            }
+
+            @Override
+            public Set<IndicatorSpec> requiredIndicators() {
+                return Set.of(specs);
+            }
+
+            @Override
+            public TradeSignal evaluate(IndicatorContext indicators1h, MarketRegime current4hRegime,
+                    double currentPrice) {
+                return TradeSignal.ignore();
+            }
+        };
+    }
+}
@@ -0,0 +1,177 @@
+package com.jonasdurau.spectator.core.indicator;
+
+import com.jonasdurau.spectator.core.buffer.CandleRingBuffer;
+import com.jonasdurau.spectator.core.domain.Candle;
+import com.jonasdurau.spectator.core.strategy.Ta4jMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ta4j.core.BarSeries;
+import org.ta4j.core.Indicator;
+import org.ta4j.core.indicators.ATRIndicator;
+import org.ta4j.core.indicators.RSIIndicator;
+import org.ta4j.core.indicators.adx.ADXIndicator;
+import org.ta4j.core.indicators.averages.EMAIndicator;
+import org.ta4j.core.indicators.averages.SMAIndicator;
+import org.ta4j.core.indicators.helpers.ClosePriceIndicator;
+import org.ta4j.core.indicators.helpers.LowPriceIndicator;
+import org.ta4j.core.indicators.helpers.LowestValueIndicator;
+import org.ta4j.core.indicators.statistics.StandardDeviationIndicator;
+import org.ta4j.core.num.Num;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Garante que os indicadores incrementais reproduzem os valores do ta4j que as estratégias usavam,
+ * inclusive quando cada candle chega primeiro como revisão intrabar e só depois com o valor final.
+ */
+class StreamingIndicatorEquivalenceTest {
+
+    private static final int BARS = 1200;
+
+    private List<Candle> candles;
+    private BarSeries series;
+
+    @BeforeEach
+    void setUp() {
+        candles = randomWalk(BARS, 42L);
+        series = Ta4jMapper.toBarSeries(candles, "test");
+    }
+
+    @Test
+    void closeBasedIndicatorsMatchTa4j() {
+        ClosePriceIndicator close = new ClosePriceIndicator(series);
+        EMAIndicator ema50 = new EMAIndicator(close, 50);
+        EMAIndicator ema200 = new EMAIndicator(close, 200);
+        RSIIndicator rsi = new RSIIndicator(close, 14);
+        SMAIndicator sma = new SMAIndicator(close, 20);
+        StandardDeviationIndicator stdDev = new StandardDeviationIndicator(close, 20);
+        LowestValueIndicator swingLow = new LowestValueIndicator(new LowPriceIndicator(series), 5);
+
+        StreamingEma streamingEma50 = new StreamingEma(50);
+        StreamingEma streamingEma200 = new StreamingEma(200);
+        StreamingRsi streamingRsi = new StreamingRsi(14);
+        StreamingSma streamingSma = new StreamingSma(20);
+        StreamingStandardDeviation streamingStdDev = new StreamingStandardDeviation(20);
+        StreamingLowestValue streamingSwingLow = new StreamingLowestValue(5);
+
+        int compared = 0;
+        for (int i = 0; i < BARS; i++) {
+            Candle c = candles.get(i);
+
+            // Revisão intrabar com valores provisórios, depois o valor final sem avançar
+            double provisional = c.getOpen();
+            streamingEma50.update(provisional, true);
+            streamingEma200.update(provisional, true);
+            streamingRsi.update(provisional, true);
+            streamingSma.update(provisional, true);
+            streamingStdDev.update(provisional, true);
+            streamingSwingLow.update(c.getHigh(), true);
+
+            streamingEma50.update(c.getClose(), false);
+            streamingEma200.update(c.getClose(), false);
+            streamingRsi.update(c.getClose(), false);
+            streamingSma.update(c.getClose(), false);
+            streamingStdDev.update(c.getClose(), false);
+            streamingSwingLow.update(c.getLow(), false);
+
+            compared += assertClose(ema50, i, streamingEma50.getValue());
+            assertClose(ema200, i, streamingEma200.getValue());
+            assertClose(rsi, i, streamingRsi.getValue());
+            assertClose(sma, i, streamingSma.getValue());
+            assertClose(stdDev, i, streamingStdDev.getValue());
+            assertClose(swingLow, i, streamingSwingLow.getValue());
+        }
+        assertTrue(compared > BARS / 2, "Too few comparable values: " + compared);
+    }
+
+    @Test
+    void barBasedIndicatorsMatchTa4j() {
+        ATRIndicator atr = new ATRIndicator(series, 14);
+        SMAIndicator averageAtr = new SMAIndicator(atr, 28);
+        ADXIndicator adx = new ADXIndicator(series, 14);
+
+        StreamingAtr streamingAtr = new StreamingAtr(14);
+        StreamingSma streamingAverageAtr = new StreamingSma(28);
+        StreamingAdx streamingAdx = new StreamingAdx(14);
+
+        int compared = 0;
+        for (int i = 0; i < BARS; i++) {
+            Candle c = candles.get(i);
+
+            double open = c.getOpen();
+            streamingAverageAtr.update(streamingAtr.update(open, open, open, true), true);
+            streamingAdx.update(open, open, open, true);
+
+            streamingAverageAtr.update(streamingAtr.update(c.getHigh(), c.getLow(), c.getClose(), false), false);
+            streamingAdx.update(c.getHigh(), c.getLow(), c.getClose(), false);
+
+            compared += assertClose(atr, i, streamingAtr.getValue());
+            assertClose(averageAtr, i, streamingAverageAtr.getValue());
+            assertClose(adx, i, streamingAdx.getValue());
+        }
+        assertTrue(compared > BARS / 2, "Too few comparable values: " + compared);
+    }
+
+    @Test
+    void cursorFeedsOnlyNewAndRevisedBarsFromTheRingBuffer() {
+        CandleRingBuffer buffer = new CandleRingBuffer("BTCUSDT", "1h", 500);
+        buffer.seed(candles.subList(0, 400));
+
+        WindowCursor cursor = new WindowCursor();
+        StreamingEma ema = new StreamingEma(50);
+        WindowCursor.BarSink sink = (window, i, advance) -> ema.update(window.close(i), advance);
+
+        assertEquals(250, cursor.sync(buffer.window(250), sink));
+
+        for (int i = 400; i < BARS; i++) {
+            Candle c = candles.get(i);
+            long time = c.getTime().toEpochMilli();
+            buffer.update(time, c.getOpen(), c.getOpen(), c.getOpen(), c.getOpen(), 0);
+            cursor.sync(buffer.window(250), sink);
+            buffer.update(time, c.getOpen(), c.getHigh(), c.getLow(), c.getClose(), c.getVolume());
+            assertEquals(1, cursor.sync(buffer.window(250), sink));
+        }
+
+        // Mesmo aquecimento (a partir do candle 150) alimentado direto, sem buffer
+        StreamingEma reference = new StreamingEma(50);
+        for (int i = 150; i < BARS; i++) {
+            reference.update(candles.get(i).getClose(), true);
+        }
+        assertEquals(reference.getValue(), ema.getValue(), 1e-9);
+    }
+
+    private static int assertClose(Indicator<Num> expected, int index, double actual) {
+        double value = expected.getValue(index).doubleValue();
+        if (Double.isNaN(value)) {
+            // Período instável do ta4j, nada a comparar
+            return 0;
+        }
+        double tolerance = 1e-6 * Math.max(1.0, Math.abs(value));
+        assertEquals(value, actual, tolerance, "Mismatch at index " + index);
+        return 1;
+    }
+
+    private static List<Candle> randomWalk(int bars, long seed) {
+        Random random = new Random(seed);
+        List<Candle> result = new ArrayList<>(bars);
+        Instant time = Instant.parse("2024-01-01T00:00:00Z");
+        double close = 42000.0;
+        for (int i = 0; i < bars; i++) {
+            double open = close;
+            close = Math.max(1.0, open * (1 + random.nextGaussian() * 0.01));
+            double high = Math.max(open, close) * (1 + random.nextDouble() * 0.005);
+            double low = Math.min(open, close) * (1 - random.nextDouble() * 0.005);
+            double volume = 100 + random.nextDouble() * 900;
+            result.add(new Candle("BTCUSDT", "1h", time, open, high, low, close, volume));
+            time = time.plus(Duration.ofHours(1));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,64 @@
+package com.jonasdurau.spectator.core.pipeline;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Timeout(value = 30, unit = TimeUnit.SECONDS)
+class PipelineStageTest {
+
+    @Test
+    void conflatingStageKeepsOnlyLatestPerKeyWhileHandlerIsBusy() throws Exception {
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> handled = Collections.synchronizedList(new ArrayList<>());
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        ConflatingStage<String, String> stage = new ConflatingStage<>("analytics-test", value -> {
+            handled.add(value);
+            if (value.equals("BTC:0")) {
+                firstStarted.countDown();
+                await(release);
+            }
+        }, registry);
+        stage.start();
+
+        stage.offer("BTC", "BTC:0");
+        assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+
+        // Handler ocupado: estas atualizações se acumulam e são conflacionadas por chave
+        for (int i = 1; i <= 100; i++) {
+            stage.offer("BTC", "BTC:" + i);
+        }
+        stage.offer("ETH", "ETH:1");
+        assertEquals(2, stage.getDepth());
+        release.countDown();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (handled.size() < 3 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        stage.stop();
+
+        // Na ordem em que as chaves ficaram pendentes, cada uma com o valor mais recente
+        assertEquals(List.of("BTC:0", "BTC:100", "ETH:1"), List.copyOf(handled));
+        assertEquals(99.0, registry.counter("spectator.pipeline.conflated", "stage", "analytics-test").count(), 0.0);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
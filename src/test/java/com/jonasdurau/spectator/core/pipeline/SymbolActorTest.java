@@ -0,0 +1,93 @@
+package com.jonasdurau.spectator.core.pipeline;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Timeout(value = 30, unit = TimeUnit.SECONDS)
+class SymbolActorTest {
+
+    @Test
+    void checkThenActFromManyThreadsOpensExactlyOnePosition() throws Exception {
+        SymbolActor actor = new SymbolActor("BTCUSDT", new SimpleMeterRegistry());
+        // Estado confinado à thread do ator: sem lock nem volatile
+        int[] openPositions = {0};
+        AtomicInteger opened = new AtomicInteger();
+
+        int threads = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String timeframe = t % 2 == 0 ? "1h" : "4h";
+            producers.add(Thread.ofPlatform().start(() -> {
+                await(start);
+                for (int i = 0; i < 1_000; i++) {
+                    actor.tellLatest(timeframe, () -> {
+                        if (openPositions[0] == 0) {
+                            Thread.yield(); // abre a janela que a versão sem ator perdia
+                            openPositions[0]++;
+                            opened.incrementAndGet();
+                        }
+                    });
+                }
+            }));
+        }
+        start.countDown();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        // Chave nova entra depois de tudo o que já estava pendente
+        CompletableFuture<Integer> positions = new CompletableFuture<>();
+        actor.tellLatest("done", () -> positions.complete(openPositions[0]));
+        assertEquals(1, positions.get(5, TimeUnit.SECONDS));
+        assertEquals(1, opened.get());
+        actor.stop();
+    }
+
+    @Test
+    void tellLatestConflatesPerKeyAndKeepsTheOrderOfTheKeys() throws Exception {
+        SymbolActor actor = new SymbolActor("ETHUSDT", new SimpleMeterRegistry());
+        CountDownLatch busy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> log = new ArrayList<>();
+
+        actor.tellLatest("busy", () -> {
+            busy.countDown();
+            await(release);
+        });
+        assertTrue(busy.await(5, TimeUnit.SECONDS));
+
+        for (int i = 1; i <= 50; i++) {
+            int price = i;
+            actor.tellLatest("1h", () -> log.add("1h:" + price));
+        }
+        actor.tellLatest("4h", () -> log.add("4h:1"));
+        actor.tellLatest("1h", () -> log.add("1h:51"));
+        CompletableFuture<List<String>> snapshot = new CompletableFuture<>();
+        actor.tellLatest("done", () -> snapshot.complete(List.copyOf(log)));
+        release.countDown();
+
+        // O tick conflacionado fica na posição do primeiro pendente da sua chave
+        assertEquals(List.of("1h:51", "4h:1"), snapshot.get(5, TimeUnit.SECONDS));
+        actor.stop();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
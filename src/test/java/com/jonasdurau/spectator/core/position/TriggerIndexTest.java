@@ -0,0 +1,192 @@
+package com.jonasdurau.spectator.core.position;
+
+import com.jonasdurau.spectator.core.domain.TradeSide;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TriggerIndexTest {
+
+    @Test
+    void firesStopsAndTargetsOnTheRightSide() {
+        TriggerIndex<String> index = new TriggerIndex<>();
+        index.addStopLoss("long-sl", TradeSide.LONG, 95);
+        index.addTakeProfit("long-tp", TradeSide.LONG, 110);
+        index.addStopLoss("short-sl", TradeSide.SHORT, 105);
+        index.addTakeProfit("short-tp", TradeSide.SHORT, 90);
+
+        List<String> fired = new ArrayList<>();
+        index.onPrice(100, (owner, kind, level, price) -> fired.add(owner));
+        assertTrue(fired.isEmpty());
+
+        index.onPrice(106, (owner, kind, level, price) -> fired.add(owner + "@" + level));
+        assertEquals(List.of("short-sl@105.0"), fired);
+
+        fired.clear();
+        index.onPrice(80, (owner, kind, level, price) -> fired.add(owner));
+        assertEquals(List.of("long-sl", "short-tp"), fired);
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void ocoPartnerIsCancelledWhenTheOtherFires() {
+        TriggerIndex<String> index = new TriggerIndex<>();
+        int stop = index.addStopLoss("pos", TradeSide.LONG, 95);
+        int target = index.addTakeProfit("pos", TradeSide.LONG, 110);
+        index.linkOco(stop, target);
+
+        List<TriggerKind> fired = new ArrayList<>();
+        index.onPrice(111, (owner, kind, level, price) -> fired.add(kind));
+        assertEquals(List.of(TriggerKind.TAKE_PROFIT), fired);
+        assertFalse(index.isActive(stop));
+        assertEquals(0, index.size());
+
+        index.onPrice(50, (owner, kind, level, price) -> fired.add(kind));
+        assertEquals(1, fired.size());
+    }
+
+    @Test
+    void trailingStopFollowsTheBestPrice() {
+        TriggerIndex<String> index = new TriggerIndex<>();
+        int longTrail = index.addTrailingStop("long", TradeSide.LONG, 100, 5);
+        int shortTrail = index.addTrailingStop("short", TradeSide.SHORT, 100, 5);
+
+        List<String> fired = new ArrayList<>();
+        index.onPrice(120, (owner, kind, level, price) -> fired.add(owner + "@" + level));
+        assertEquals(List.of("short@105.0"), fired);
+        assertEquals(115.0, index.levelOf(longTrail));
+
+        index.onPrice(116, (owner, kind, level, price) -> fired.add(owner + "@" + level));
+        assertEquals(1, fired.size());
+        index.onPrice(115, (owner, kind, level, price) -> fired.add(owner + "@" + level));
+        assertEquals(List.of("short@105.0", "long@115.0"), fired);
+        assertFalse(index.isActive(shortTrail));
+    }
+
+    @Test
+    void cancelChecksOwnerSoReusedIdsAreSafe() {
+        TriggerIndex<String> index = new TriggerIndex<>();
+        int first = index.addStopLoss("a", TradeSide.LONG, 95);
+        index.onPrice(90, (owner, kind, level, price) -> { });
+        int reused = index.addStopLoss("b", TradeSide.LONG, 80);
+        assertEquals(first, reused);
+
+        assertFalse(index.cancel(first, "a"));
+        assertTrue(index.isActive(reused));
+        assertTrue(index.cancel(reused, "b"));
+    }
+
+    /**
+     * Compara com uma varredura linear (a lógica antiga, estendida com trailing e OCO) num passeio aleatório.
+     * Preços e distâncias inteiros para que os dois lados façam exatamente as mesmas contas.
+     */
+    @Test
+    void matchesLinearScanOnRandomWalk() {
+        SplittableRandom random = new SplittableRandom(42);
+        TriggerIndex<Integer> index = new TriggerIndex<>();
+        Map<Integer, Naive> model = new HashMap<>();
+        Map<Integer, Integer> ids = new HashMap<>();
+        int nextOwner = 0;
+        double price = 1_000;
+
+        for (int step = 0; step < 20_000; step++) {
+            int action = random.nextInt(10);
+            if (action < 3) {
+                TradeSide side = random.nextBoolean() ? TradeSide.LONG : TradeSide.SHORT;
+                int owner = nextOwner++;
+                double distance = 1 + random.nextInt(30);
+                int kind = random.nextInt(3);
+                Naive naive;
+                int id;
+                if (kind == 0) {
+                    double level = side == TradeSide.LONG ? price - distance : price + distance;
+                    id = index.addStopLoss(owner, side, level);
+                    naive = Naive.fixed(side == TradeSide.SHORT, level);
+                } else if (kind == 1) {
+                    double level = side == TradeSide.LONG ? price + distance : price - distance;
+                    id = index.addTakeProfit(owner, side, level);
+                    naive = Naive.fixed(side == TradeSide.LONG, level);
+                } else {
+                    id = index.addTrailingStop(owner, side, price, distance);
+                    naive = Naive.trailing(side == TradeSide.SHORT, price, distance);
+                }
+                model.put(owner, naive);
+                ids.put(owner, id);
+            } else if (action == 3 && !ids.isEmpty()) {
+                int owner = ids.keySet().iterator().next();
+                assertTrue(index.cancel(ids.remove(owner), owner));
+                model.remove(owner);
+            } else {
+                price += random.nextInt(21) - 10;
+
+                TreeSet<Integer> expected = new TreeSet<>();
+                for (Iterator<Map.Entry<Integer, Naive>> it = model.entrySet().iterator(); it.hasNext(); ) {
+                    Map.Entry<Integer, Naive> entry = it.next();
+                    if (entry.getValue().onPrice(price)) {
+                        expected.add(entry.getKey());
+                        it.remove();
+                    }
+                }
+                TreeSet<Integer> actual = new TreeSet<>();
+                index.onPrice(price, (owner, kind, level, p) -> actual.add(owner));
+                actual.forEach(ids::remove);
+
+                assertEquals(expected, actual, "step " + step + " price " + price);
+                assertEquals(model.size(), index.size());
+                for (Map.Entry<Integer, Naive> entry : model.entrySet()) {
+                    assertEquals(entry.getValue().level(), index.levelOf(ids.get(entry.getKey())), 0.0);
+                }
+            }
+        }
+    }
+
+    private static final class Naive {
+        final boolean rising;
+        final boolean trailing;
+        double level;
+        double best;
+        double distance;
+
+        static Naive fixed(boolean rising, double level) {
+            Naive n = new Naive(rising, false);
+            n.level = level;
+            return n;
+        }
+
+        static Naive trailing(boolean rising, double price, double distance) {
+            Naive n = new Naive(rising, true);
+            n.best = price;
+            n.distance = distance;
+            return n;
+        }
+
+        private Naive(boolean rising, boolean trailing) {
+            this.rising = rising;
+            this.trailing = trailing;
+        }
+
+        double level() {
+            if (!trailing) {
+                return level;
+            }
+            return rising ? best + distance : best - distance;
+        }
+
+        boolean onPrice(double price) {
+            if (trailing) {
+                best = rising ? Math.min(best, price) : Math.max(best, price);
+            }
+            return rising ? price >= level() : price <= level();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.jonasdurau.spectator.core.repository;
+
+import com.jonasdurau.spectator.core.domain.Candle;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Benchmark de ingestão: upsert linha a linha (caminho antigo do seed/gap fill) contra o lote
+ * multi-linha do {@link CandleBatchRepository} e o COPY binário do {@link CandleBulkLoader}.
+ *
+ * Roda contra um TimescaleDB real já migrado pelo Flyway, por exemplo o container do compose.yaml:
+ * <pre>
+ * docker compose up -d timescaledb
+ * SPECTATOR_BENCHMARK_DB_URL=jdbc:postgresql://localhost:5432/spectator ./gradlew test --tests '*CandleBulkLoadBenchmarkTest'
+ * </pre>
+ * Usuário/senha padrão são os do compose; sobrescreva com SPECTATOR_BENCHMARK_DB_USER / SPECTATOR_BENCHMARK_DB_PASSWORD.
+ * A quantidade de linhas vem de SPECTATOR_BENCHMARK_ROWS (padrão 20000).
+ */
+@EnabledIfEnvironmentVariable(named = "SPECTATOR_BENCHMARK_DB_URL", matches = ".+")
+class CandleBulkLoadBenchmarkTest {
+
+    // Símbolo próprio para não tocar nos dados reais
+    private static final String SYMBOL = "BENCHUSDT";
+    private static final String TIMEFRAME = "1m";
+
+    private static final String SINGLE_ROW_UPSERT = """
+            INSERT INTO market_candles (symbol, timeframe, time, open, high, low, close, volume)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (symbol, timeframe, time)
+            DO UPDATE SET
+                open = EXCLUDED.open,
+                high = EXCLUDED.high,
+                low = EXCLUDED.low,
+                close = EXCLUDED.close,
+                volume = EXCLUDED.volume
+            """;
+
+    private JdbcTemplate jdbcTemplate;
+    private List<Candle> candles;
+
+    @BeforeEach
+    void setUp() {
+        String url = System.getenv("SPECTATOR_BENCHMARK_DB_URL");
+        String user = envOrDefault("SPECTATOR_BENCHMARK_DB_USER", "spectator_user");
+        String password = envOrDefault("SPECTATOR_BENCHMARK_DB_PASSWORD", "spectator_pass");
+        int rows = Integer.parseInt(envOrDefault("SPECTATOR_BENCHMARK_ROWS", "20000"));
+
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(url, user, password));
+        candles = generate(rows);
+        deleteBenchmarkRows();
+    }
+
+    @AfterEach
+    void tearDown() {
+        deleteBenchmarkRows();
+    }
+
+    @Test
+    void comparesIngestionThroughput() {
+        double perRow = measure("per-row upsert", c -> {
+            for (Candle candle : c) {
+                jdbcTemplate.update(SINGLE_ROW_UPSERT,
+                        candle.getSymbol(), candle.getTimeframe(), Timestamp.from(candle.getTime()),
+                        candle.getOpen(), candle.getHigh(), candle.getLow(), candle.getClose(), candle.getVolume());
+            }
+            return c.size();
+        });
+
+        double batch = measure("multi-row batch upsert", new CandleBatchRepository(jdbcTemplate)::upsertAll);
+        double copy = measure("binary COPY + merge", new CandleBulkLoader(jdbcTemplate)::load);
+
+        System.out.printf("%nIngestion of %d candles: per-row %.0f rows/s | batch %.0f rows/s (%.1fx) | COPY %.0f rows/s (%.1fx)%n",
+                candles.size(), perRow, batch, batch / perRow, copy, copy / perRow);
+    }
+
+    /**
+     * Cada variante começa com a tabela limpa (caminho de insert) e depois regrava tudo (caminho de update).
+     * @return linhas por segundo somando as duas passadas.
+     */
+    private double measure(String label, ToIntFunction<List<Candle>> loader) {
+        deleteBenchmarkRows();
+
+        long start = System.nanoTime();
+        loader.applyAsInt(candles);
+        loader.applyAsInt(candles);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Integer stored = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM market_candles WHERE symbol = ? AND timeframe = ?", Integer.class, SYMBOL, TIMEFRAME);
+        assertEquals(candles.size(), stored == null ? 0 : stored, label + " stored an unexpected number of rows");
+
+        Double lastClose = jdbcTemplate.queryForObject(
+                "SELECT close FROM market_candles WHERE symbol = ? AND timeframe = ? ORDER BY time DESC LIMIT 1",
+                Double.class, SYMBOL, TIMEFRAME);
+        assertEquals(candles.get(candles.size() - 1).getClose(), lastClose == null ? Double.NaN : lastClose, 0.0);
+
+        double rowsPerSecond = 2.0 * candles.size() / seconds;
+        System.out.printf("%-24s %8.0f rows/s (%.2f s)%n", label, rowsPerSecond, seconds);
+        return rowsPerSecond;
+    }
+
+    private void deleteBenchmarkRows() {
+        jdbcTemplate.update("DELETE FROM market_candles WHERE symbol = ? AND timeframe = ?", SYMBOL, TIMEFRAME);
+    }
+
+    private static List<Candle> generate(int rows) {
+        Instant start = Instant.now().truncatedTo(ChronoUnit.MINUTES).minus(rows, ChronoUnit.MINUTES);
+        List<Candle> result = new ArrayList<>(rows);
+        double price = 50_000;
+        for (int i = 0; i < rows; i++) {
+            double open = price;
+            price += Math.sin(i * 0.01) * 25;
+            result.add(new Candle(SYMBOL, TIMEFRAME, start.plus(i, ChronoUnit.MINUTES),
+                    open, Math.max(open, price) + 5, Math.min(open, price) - 5, price, 1 + (i % 100)));
+        }
+        return result;
+    }
+
+    private static String envOrDefault(String name, String fallback) {
+        String value = System.getenv(name);
+        return value == null || value.isBlank() ? fallback : value;
+    }
+}
@@ -0,0 +1,73 @@
+package com.jonasdurau.spectator.core.service;
+
+import com.jonasdurau.spectator.core.domain.Candle;
+import com.jonasdurau.spectator.core.repository.CandleBatchRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CandleWriteBehindServiceTest {
+
+    /**
+     * Repositório que segura o primeiro {@code upsertAll} até o teste liberar.
+     */
+    private static final class BlockingCandles extends CandleBatchRepository {
+
+        final List<List<Candle>> batches = new CopyOnWriteArrayList<>();
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        BlockingCandles() {
+            super(null);
+        }
+
+        @Override
+        public int upsertAll(Collection<Candle> candles) {
+            batches.add(new ArrayList<>(candles));
+            writing.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return candles.size();
+        }
+    }
+
+    @Test
+    void revisionSubmittedDuringTheWriteGoesInTheNextFlush() throws Exception {
+        BlockingCandles candles = new BlockingCandles();
+        // Timer longo: só os flushes do teste gravam
+        CandleWriteBehindService writeBehind = new CandleWriteBehindService(candles, 60_000, 5000);
+        Instant open = Instant.ofEpochMilli(3_600_000L);
+        Candle first = new Candle("BTCUSDT", "1h", open, 100, 101, 99, 100, 1);
+        writeBehind.submit(first, false);
+
+        CompletableFuture<Integer> inFlight = CompletableFuture.supplyAsync(writeBehind::flush);
+        assertTrue(candles.writing.await(5, TimeUnit.SECONDS));
+
+        // Mesma chave e, para Candle.equals, o mesmo candle: só a identidade distingue a revisão
+        Candle revision = new Candle("BTCUSDT", "1h", open, 100, 103, 99, 102, 7);
+        writeBehind.submit(revision, false);
+        candles.release.countDown();
+        assertEquals(1, inFlight.get(5, TimeUnit.SECONDS));
+
+        assertEquals(1, writeBehind.getPendingCount());
+        assertEquals(1, writeBehind.flush());
+        assertEquals(2, candles.batches.size());
+        assertSame(revision, candles.batches.get(1).get(0));
+        assertEquals(0, writeBehind.getPendingCount());
+        writeBehind.shutdown();
+    }
+}
@@ -0,0 +1,97 @@
+package com.jonasdurau.spectator.core.service;
+
+import com.jonasdurau.spectator.core.buffer.CandleBufferRegistry;
+import com.jonasdurau.spectator.core.domain.Candle;
+import com.jonasdurau.spectator.core.domain.MarketRegime;
+import com.jonasdurau.spectator.core.indicator.ChartOverlay;
+import com.jonasdurau.spectator.core.indicator.IndicatorContext;
+import com.jonasdurau.spectator.core.strategy.MeanReversionStrategy;
+import com.jonasdurau.spectator.core.strategy.RegimeAnalyzerService;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChartOverlayServiceTest {
+
+    private static final long HOUR = 3_600_000L;
+    private static final long START = 100_000 * 4 * HOUR;
+
+    private static final String SYMBOL = "BTCUSDT";
+    private static final int HOURS = 300;
+    // Candles de 4H fechados até o fechamento do último candle de 1H
+    private static final int CLOSED_REGIME_BARS = HOURS / 4;
+
+    @Test
+    void historyMatchesWhatTheLivePipelineComputesAtEachClose() {
+        CandleBufferRegistry buffers = new CandleBufferRegistry(null, HOURS);
+        feed(buffers, CLOSED_REGIME_BARS + 5);
+        RegimeAnalyzerService regimeAnalyzer = new RegimeAnalyzerService();
+        MeanReversionStrategy meanReversion = new MeanReversionStrategy(null);
+        ChartOverlayService overlays = new ChartOverlayService(buffers, regimeAnalyzer, meanReversion);
+
+        long[] times = new long[5];
+        for (int k = 0; k < times.length; k++) {
+            times[k] = START + (HOURS - times.length + k) * HOUR;
+        }
+        ChartOverlay[] history = overlays.history(SYMBOL, times);
+
+        // O último candle de 1H, como o pipeline o veria no fechamento: só os candles de 4H já fechados
+        CandleBufferRegistry live = new CandleBufferRegistry(null, HOURS);
+        feed(live, CLOSED_REGIME_BARS);
+        IndicatorService indicatorService = new IndicatorService(List.of(meanReversion), regimeAnalyzer);
+        IndicatorContext indicators1h = indicatorService.compute(
+                live.window(SYMBOL, IndicatorService.STRATEGY_TIMEFRAME, TickPipelineService.ANALYSIS_WINDOW));
+        IndicatorContext indicators4h = indicatorService.compute(
+                live.window(SYMBOL, IndicatorService.REGIME_TIMEFRAME, TickPipelineService.ANALYSIS_WINDOW));
+        ChartOverlay expected = overlays.live(indicators1h, indicators4h, regimeAnalyzer.analyze(indicators4h));
+
+        ChartOverlay last = history[times.length - 1];
+        assertEquals(times[times.length - 1], last.time());
+        assertEquals(expected.bbMiddle(), last.bbMiddle(), 1e-9);
+        assertEquals(expected.bbUpper(), last.bbUpper(), 1e-9);
+        assertEquals(expected.bbLower(), last.bbLower(), 1e-9);
+        assertEquals(expected.emaFast(), last.emaFast(), 1e-9);
+        assertTrue(last.bbUpper() > last.bbMiddle() && last.bbMiddle() > last.bbLower());
+        // 75 candles de 4H aquecem a EMA 50 mas não a EMA 200
+        assertTrue(Double.isFinite(last.emaFast()));
+        assertTrue(Double.isNaN(last.emaSlow()));
+        assertEquals(MarketRegime.SIDEWAYS, last.regime());
+    }
+
+    @Test
+    void barsBeforeTheWarmUpHaveNoValuesAndMissingBarsNoOverlay() {
+        CandleBufferRegistry buffers = new CandleBufferRegistry(null, HOURS);
+        feed(buffers, CLOSED_REGIME_BARS);
+        ChartOverlayService overlays = new ChartOverlayService(buffers, new RegimeAnalyzerService(),
+                new MeanReversionStrategy(null));
+
+        // O buffer copia capacidade - 1 candles: a hora 0 fica de fora; a hora 1 é o primeiro candle copiado
+        ChartOverlay[] history = overlays.history(SYMBOL, new long[] {START, START + HOUR, START + HOUR / 2 * 5});
+        assertNull(history[0]);
+        assertTrue(Double.isNaN(history[1].bbMiddle()));
+        assertTrue(Double.isNaN(history[1].emaFast()));
+        assertNull(history[1].regime());
+        assertNull(history[2]);
+    }
+
+    /**
+     * {@link #HOURS} candles de 1H e {@code regimeBars} de 4H, com preços que oscilam.
+     */
+    private static void feed(CandleBufferRegistry buffers, int regimeBars) {
+        for (int h = 0; h < HOURS; h++) {
+            double price = 100 + 10 * Math.sin(h / 7.0) + h * 0.05;
+            buffers.update(new Candle(SYMBOL, IndicatorService.STRATEGY_TIMEFRAME,
+                    Instant.ofEpochMilli(START + h * HOUR), price, price + 1, price - 1, price + 0.5, 1));
+        }
+        for (int j = 0; j < regimeBars; j++) {
+            double price = 100 + 10 * Math.sin(j / 3.0) + j * 0.2;
+            buffers.update(new Candle(SYMBOL, IndicatorService.REGIME_TIMEFRAME,
+                    Instant.ofEpochMilli(START + j * 4 * HOUR), price, price + 3, price - 3, price + 1, 1));
+        }
+    }
+}
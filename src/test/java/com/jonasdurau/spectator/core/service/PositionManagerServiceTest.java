@@ -0,0 +1,75 @@
+package com.jonasdurau.spectator.core.service;
+
+import com.jonasdurau.spectator.core.domain.Position;
+import com.jonasdurau.spectator.core.domain.PositionStatus;
+import com.jonasdurau.spectator.core.domain.Trade;
+import com.jonasdurau.spectator.core.domain.TradeSide;
+import com.jonasdurau.spectator.core.position.PositionBook;
+import com.jonasdurau.spectator.core.repository.PositionRepository;
+import com.jonasdurau.spectator.core.repository.TradeRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PositionManagerServiceTest {
+
+    private static final String SYMBOL = "BTCUSDT";
+
+    @Test
+    void failedCloseLeavesTheBookEntryOpenAndTheRetryClosesItOnce() {
+        AtomicBoolean failing = new AtomicBoolean(true);
+        AtomicInteger saves = new AtomicInteger();
+        PositionBook book = new PositionBook(null);
+        PositionManagerService positions = new PositionManagerService(
+                repository(PositionRepository.class, failing, saves), repository(TradeRepository.class, failing, saves),
+                book, TransactionOperations.withoutTransaction());
+
+        Position position = new Position(SYMBOL, TradeSide.LONG, 100, 1, 95.0, 110.0);
+        position.addTrade(new Trade(position, SYMBOL, TradeSide.LONG, 100, 1, Instant.now()));
+        book.add(position);
+
+        // O banco recusa o fechamento: a entidade do livro volta a ser exatamente a posição aberta
+        positions.evaluateLiveTick(SYMBOL, 94);
+        assertEquals(1, saves.get());
+        assertEquals(PositionStatus.OPEN, position.getStatus());
+        assertEquals(1, position.getTrades().size());
+        assertNull(position.getRealizedPnl());
+        assertNull(position.getClosedAt());
+        assertTrue(positions.hasOpenPositions(SYMBOL));
+
+        // O gatilho foi rearmado e o próximo tick fecha com um único trade de saída
+        failing.set(false);
+        positions.evaluateLiveTick(SYMBOL, 94);
+        assertEquals(3, saves.get());
+        assertEquals(PositionStatus.CLOSED, position.getStatus());
+        assertEquals(2, position.getTrades().size());
+        assertEquals(-6, position.getRealizedPnl(), 1e-9);
+        assertFalse(positions.hasOpenPositions(SYMBOL));
+    }
+
+    /**
+     * Repositório que só sabe salvar (devolve a própria entidade); falha enquanto {@code failing} estiver ligado.
+     */
+    @SuppressWarnings("unchecked")
+    private static <R> R repository(Class<R> type, AtomicBoolean failing, AtomicInteger saves) {
+        return (R) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+            if (!method.getName().equals("save")) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+            saves.incrementAndGet();
+            if (failing.get()) {
+                throw new IllegalStateException("database down");
+            }
+            return args[0];
+        });
+    }
+}
@@ -0,0 +1,168 @@
+package com.jonasdurau.spectator.core.store;
+
+import com.jonasdurau.spectator.core.backtest.CandleSeries;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompressedCandleStoreTest {
+
+    private static final long MINUTE = 60_000L;
+    private static final long START = 1_700_000_000_000L;
+
+    @Test
+    void roundTripIsExactAcrossBlocksGapsAndTheTail() {
+        // Blocos de 64: 1000 candles ficam em 15 blocos selados e a cauda
+        CompressedCandleStore store = new CompressedCandleStore("BTCUSDT", "1m", 64);
+        Columns expected = generate(1000, 2, 5, 11);
+        // Um bloco com preços sem escala decimal exata e volumes quaisquer cai no XOR e nos doubles crus
+        SplittableRandom random = new SplittableRandom(3);
+        for (int i = 300; i < 364; i++) {
+            expected.open[i] = expected.open[i] * (1 + random.nextDouble() * 1e-9);
+            expected.volume[i] = random.nextDouble();
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            assertTrue(store.append(expected.time[i], expected.open[i], expected.high[i], expected.low[i],
+                    expected.close[i], expected.volume[i]));
+        }
+
+        assertEquals(1000, store.size());
+        assertEquals(16, store.blockCount());
+        CandleSeries series = store.toSeries(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(1000, series.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.time[i], series.time(i));
+            assertEquals(expected.open[i], series.open(i), 0.0);
+            assertEquals(expected.high[i], series.high(i), 0.0);
+            assertEquals(expected.low[i], series.low(i), 0.0);
+            assertEquals(expected.close[i], series.close(i), 0.0);
+            assertEquals(expected.volume[i], series.volume(i), 0.0);
+        }
+
+        // Acesso aleatório por bloco
+        long[] time = new long[64];
+        double[] open = new double[64];
+        double[] high = new double[64];
+        double[] low = new double[64];
+        double[] close = new double[64];
+        double[] volume = new double[64];
+        assertEquals(64, store.decodeBlock(5, time, open, high, low, close, volume, 0));
+        assertEquals(expected.time[5 * 64 + 7], time[7]);
+        assertEquals(expected.open[5 * 64 + 7], open[7], 0.0);
+        assertEquals(1000 - 15 * 64, store.decodeBlock(15, time, open, high, low, close, volume, 0));
+        assertEquals(expected.close[999], close[1000 - 15 * 64 - 1], 0.0);
+    }
+
+    @Test
+    void summariesAndRangesSkipBlocksWithoutDecoding() {
+        CompressedCandleStore store = new CompressedCandleStore("ETHUSDT", "1m", 100);
+        Columns data = generate(450, 2, 4, 5);
+        for (int i = 0; i < data.size(); i++) {
+            store.append(data.time[i], data.open[i], data.high[i], data.low[i], data.close[i], data.volume[i]);
+        }
+
+        for (int block = 0; block < store.blockCount(); block++) {
+            BlockSummary summary = store.summary(block);
+            int from = block * 100;
+            int count = Math.min(100, data.size() - from);
+            double minLow = Double.POSITIVE_INFINITY;
+            double maxHigh = Double.NEGATIVE_INFINITY;
+            for (int i = from; i < from + count; i++) {
+                minLow = Math.min(minLow, data.low[i]);
+                maxHigh = Math.max(maxHigh, data.high[i]);
+            }
+            assertEquals(count, summary.count());
+            assertEquals(data.time[from], summary.firstTime());
+            assertEquals(data.time[from + count - 1], summary.lastTime());
+            assertEquals(minLow, summary.minLow(), 0.0);
+            assertEquals(maxHigh, summary.maxHigh(), 0.0);
+        }
+
+        // Período atravessando uma fronteira de bloco, com pontas que não caem em candles
+        CandleSeries range = store.toSeries(data.time[95] - 1, data.time[205] + 1);
+        assertEquals(111, range.size());
+        assertEquals(data.time[95], range.time(0));
+        assertEquals(data.close[205], range.close(110), 0.0);
+
+        // Só a cauda, e um período vazio
+        assertEquals(20, store.toSeries(data.time[430], Long.MAX_VALUE).size());
+        assertEquals(0, store.toSeries(data.time[449] + 1, Long.MAX_VALUE).size());
+    }
+
+    @Test
+    void lastCandleIsRevisedAndOlderCandlesAreIgnored() {
+        CompressedCandleStore store = new CompressedCandleStore("SOLUSDT", "1h", 2);
+        store.append(0, 1, 1, 1, 1, 1);
+        store.append(MINUTE, 2, 2, 2, 2, 2);
+
+        // A cauda cheia só é selada quando chega um candle mais novo: o último continua revisável
+        assertTrue(store.append(MINUTE, 2, 3, 1.5, 2.5, 7));
+        assertFalse(store.append(0, 9, 9, 9, 9, 9));
+        store.append(2 * MINUTE, 3, 3, 3, 3, 3);
+
+        CandleSeries series = store.toSeries(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(3, series.size());
+        assertEquals(2.5, series.close(1), 0.0);
+        assertEquals(7, series.volume(1), 0.0);
+        assertEquals(1, series.close(0), 0.0);
+        assertEquals(2 * MINUTE, store.lastTime());
+        assertEquals(0, store.firstTime());
+    }
+
+    @Test
+    void typicalMinuteCandlesCompressWellBelowRawColumns() {
+        CompressedCandleStore store = new CompressedCandleStore("BTCUSDT", "1m");
+        Columns data = generate(100_000, 2, 5, 42);
+        for (int i = 0; i < data.size(); i++) {
+            store.append(data.time[i], data.open[i], data.high[i], data.low[i], data.close[i], data.volume[i]);
+        }
+
+        // 48 bytes por candle em colunas primitivas; bem mais como objetos Candle
+        double bytesPerCandle = (double) store.memoryBytes() / store.size();
+        assertTrue(bytesPerCandle < 16, "bytes per candle: " + bytesPerCandle);
+    }
+
+    /**
+     * Passeio aleatório de candles de 1 minuto com {@code priceDecimals}/{@code volumeDecimals} casas e alguns buracos.
+     */
+    private static Columns generate(int n, int priceDecimals, int volumeDecimals, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double priceScale = Math.pow(10, priceDecimals);
+        double volumeScale = Math.pow(10, volumeDecimals);
+        Columns c = new Columns(n);
+        long time = START;
+        double price = 60_000;
+        for (int i = 0; i < n; i++) {
+            if (random.nextInt(200) == 0) {
+                time += MINUTE * random.nextInt(1, 500);
+            }
+            double close = Math.round((price + random.nextGaussian() * 20) * priceScale) / priceScale;
+            c.time[i] = time;
+            c.open[i] = price;
+            c.close[i] = close;
+            c.high[i] = Math.round((Math.max(price, close) + Math.abs(random.nextGaussian()) * 10) * priceScale)
+                    / priceScale;
+            c.low[i] = Math.round((Math.min(price, close) - Math.abs(random.nextGaussian()) * 10) * priceScale)
+                    / priceScale;
+            c.volume[i] = Math.round(random.nextDouble() * 50 * volumeScale) / volumeScale;
+            time += MINUTE;
+            price = close;
+        }
+        return c;
+    }
+
+    private record Columns(long[] time, double[] open, double[] high, double[] low, double[] close, double[] volume) {
+
+        Columns(int n) {
+            this(new long[n], new double[n], new double[n], new double[n], new double[n], new double[n]);
+        }
+
+        int size() {
+            return time.length;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.jonasdurau.spectator.integration.binance;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jonasdurau.spectator.core.domain.Candle;
+import com.jonasdurau.spectator.integration.binance.dto.BinanceKlineEvent;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * O decoder de streaming precisa produzir exatamente os mesmos valores que o caminho antigo
+ * (ObjectMapper + record + Double.parseDouble).
+ */
+class BinanceKlineDecoderTest {
+
+    static final String PAYLOAD = """
+            {"e":"kline","E":1700000012345,"s":"BTCUSDT","k":{"t":1699999200000,"T":1700002799999,"s":"BTCUSDT",\
+            "i":"1h","f":100,"L":200,"o":"36512.34000000","c":"36577.01000000","h":"36600.00000000",\
+            "l":"36480.10000000","v":"812.52341000","n":15321,"x":false,"q":"29712345.12345678",\
+            "V":"401.00000000","Q":"14654321.00000000","B":"0","extra":{"nested":[1,2,{"a":"b"}]}}}""";
+
+    @Test
+    void matchesObjectMapperDecoding() throws Exception {
+        BinanceKlineEvent expected = new ObjectMapper().readValue(PAYLOAD, BinanceKlineEvent.class);
+        MutableKlineEvent actual = new BinanceKlineDecoder().decode(PAYLOAD);
+
+        assertEquals(expected.symbol(), actual.getSymbol());
+        assertEquals(expected.kline().interval(), actual.getInterval());
+        assertEquals(expected.kline().startTime(), actual.getOpenTime());
+        assertEquals(Double.parseDouble(expected.kline().open()), actual.getOpen(), 0.0);
+        assertEquals(Double.parseDouble(expected.kline().high()), actual.getHigh(), 0.0);
+        assertEquals(Double.parseDouble(expected.kline().low()), actual.getLow(), 0.0);
+        assertEquals(Double.parseDouble(expected.kline().close()), actual.getClose(), 0.0);
+        assertEquals(Double.parseDouble(expected.kline().volume()), actual.getVolume(), 0.0);
+        assertEquals(expected.kline().isClosed(), actual.isClosed());
+        assertEquals(1700000012345L, actual.getEventTime());
+        assertEquals(15321, actual.getTrades());
+    }
+
+    @Test
+    void reusesEventAndInternsNames() throws Exception {
+        BinanceKlineDecoder decoder = new BinanceKlineDecoder();
+        MutableKlineEvent first = decoder.decode(PAYLOAD);
+        String symbol = first.getSymbol();
+        String interval = first.getInterval();
+
+        MutableKlineEvent second = decoder.decode(PAYLOAD.replace("\"x\":false", "\"x\":true"));
+
+        assertSame(first, second);
+        assertSame(symbol, second.getSymbol());
+        assertSame(interval, second.getInterval());
+        assertTrue(second.isClosed());
+    }
+
+    @Test
+    void unwrapsCombinedStreamEnvelope() throws Exception {
+        MutableKlineEvent event = new BinanceKlineDecoder().decode("{\"stream\":\"btcusdt@kline_1h\",\"data\":" + PAYLOAD + "}");
+
+        assertEquals("BTCUSDT", event.getSymbol());
+        assertEquals("1h", event.getInterval());
+        assertEquals(36577.01, event.getClose(), 0.0);
+    }
+
+    @Test
+    void ignoresControlResponsesAndRejectsIncompleteKlines() throws Exception {
+        BinanceKlineDecoder decoder = new BinanceKlineDecoder();
+
+        assertNull(decoder.decode("{\"result\":null,\"id\":1}"));
+        assertThrows(java.io.IOException.class, () -> decoder.decode("{\"e\":\"kline\",\"s\":\"BTCUSDT\",\"k\":{\"t\":1}}"));
+    }
+
+    @Test
+    void decodesRestKlineArray() throws Exception {
+        String body = """
+                [[1699999200000,"36512.34000000","36600.00000000","36480.10000000","36577.01000000","812.52341000",\
+                1700002799999,"29712345.12345678",15321,"401.00000000","14654321.00000000","0"],\
+                [1700002800000,"36577.01000000","36700.50000000","36570.00000000","36690.00000000","1.00000000",\
+                1700006399999,"0",1,"0","0","0"]]""";
+
+        List<Candle> candles = BinanceKlineDecoder.decodeKlineArray(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), "BTCUSDT", "1h");
+
+        assertEquals(2, candles.size());
+        assertEquals(1699999200000L, candles.get(0).getTime().toEpochMilli());
+        assertEquals(36577.01, candles.get(0).getClose(), 0.0);
+        assertEquals(36700.5, candles.get(1).getHigh(), 0.0);
+        assertEquals(1.0, candles.get(1).getVolume(), 0.0);
+    }
+
+    @Test
+    void decimalParsingMatchesDoubleParseDouble() {
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            StringBuilder text = new StringBuilder();
+            if (random.nextInt(10) == 0) {
+                text.append('-');
+            }
+            text.append((long) (random.nextDouble() * Math.pow(10, random.nextInt(10))));
+            int fraction = random.nextInt(10);
+            if (fraction > 0) {
+                text.append('.');
+                for (int d = 0; d < fraction; d++) {
+                    text.append((char) ('0' + random.nextInt(10)));
+                }
+            }
+            String value = text.toString();
+            char[] chars = ("  " + value + " ").toCharArray();
+            assertEquals(Double.parseDouble(value), BinanceKlineDecoder.parseDecimal(chars, 2, value.length()), 0.0, value);
+        }
+    }
+}
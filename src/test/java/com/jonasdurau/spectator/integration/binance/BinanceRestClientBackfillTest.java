@@ -0,0 +1,175 @@
+package com.jonasdurau.spectator.integration.binance;
+
+import com.jonasdurau.spectator.core.domain.Candle;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Backfill contra um servidor HTTP local que imita /api/v3/klines (headers de peso, 429 com Retry-After).
+ */
+class BinanceRestClientBackfillTest {
+
+    private static final long HOUR_MS = Duration.ofHours(1).toMillis();
+    private static final Instant FROM = Instant.parse("2024-01-01T00:00:00Z");
+
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger rateLimitedResponses = new AtomicInteger();
+    private volatile int usedWeightHeader = 10;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/v3/klines", this::handleKlines);
+        server.setExecutor(java.util.concurrent.Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void backfillDeliversContiguousBatchesInOrder() {
+        BinanceRestClient client = newClient(new BinanceRateLimiter(6000), 4);
+        Instant to = FROM.plusMillis(3499 * HOUR_MS);
+
+        List<List<Candle>> batches = new ArrayList<>();
+        int total = client.backfill("BTCUSDT", "1h", FROM, to, batches::add);
+
+        assertEquals(3500, total);
+        assertEquals(4, batches.size());
+        assertEquals(4, requests.get());
+
+        long expected = FROM.toEpochMilli();
+        for (List<Candle> batch : batches) {
+            for (Candle candle : batch) {
+                assertEquals(expected, candle.getTime().toEpochMilli(), "candles must arrive in chronological order");
+                expected += HOUR_MS;
+            }
+        }
+    }
+
+    @Test
+    void retriesAfterRateLimitResponse() {
+        rateLimitedResponses.set(1);
+        BinanceRestClient client = newClient(new BinanceRateLimiter(6000), 2);
+
+        long start = System.nanoTime();
+        List<Candle> candles = client.fetchHistoricalCandles("BTCUSDT", "1h", 10, FROM);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(10, candles.size());
+        assertEquals(2, requests.get());
+        assertTrue(elapsedMs >= 900, "should honour Retry-After before retrying, waited " + elapsedMs + " ms");
+    }
+
+    @Test
+    void usedWeightHeaderShrinksAvailableBudget() {
+        BinanceRateLimiter limiter = new BinanceRateLimiter(1000);
+        usedWeightHeader = 990;
+
+        newClient(limiter, 1).fetchHistoricalCandles("BTCUSDT", "1h", 5);
+
+        assertTrue(limiter.getAvailableWeight() < 20, "budget should follow X-MBX-USED-WEIGHT-1M");
+    }
+
+    @Test
+    void parsesKlineIntervals() {
+        assertEquals(Duration.ofMinutes(15), BinanceRestClient.intervalDuration("15m"));
+        assertEquals(Duration.ofHours(4), BinanceRestClient.intervalDuration("4h"));
+        assertEquals(Duration.ofDays(7), BinanceRestClient.intervalDuration("1w"));
+    }
+
+    private BinanceRestClient newClient(BinanceRateLimiter limiter, int concurrency) {
+        RestClient restClient = RestClient.builder()
+                .baseUrl("http://127.0.0.1:" + server.getAddress().getPort())
+                .build();
+        return new BinanceRestClient(restClient, limiter, concurrency);
+    }
+
+    private void handleKlines(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+
+        if (rateLimitedResponses.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+            exchange.getResponseHeaders().add("Retry-After", "1");
+            exchange.sendResponseHeaders(429, -1);
+            exchange.close();
+            return;
+        }
+
+        Map<String, String> query = parseQuery(exchange.getRequestURI());
+        int limit = Integer.parseInt(query.getOrDefault("limit", "500"));
+        long start = Long.parseLong(query.getOrDefault("startTime", String.valueOf(FROM.toEpochMilli())));
+        long end = Long.parseLong(query.getOrDefault("endTime", String.valueOf(Long.MAX_VALUE)));
+
+        // Atraso aleatório para que as faixas terminem fora de ordem
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextInt(5, 60));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        StringBuilder json = new StringBuilder("[");
+        long openTime = (start + HOUR_MS - 1) / HOUR_MS * HOUR_MS;
+        for (int i = 0; i < limit && openTime <= end; i++, openTime += HOUR_MS) {
+            if (i > 0) {
+                json.append(',');
+            }
+            double price = 40_000 + (openTime / HOUR_MS % 1000);
+            json.append('[').append(openTime)
+                    .append(",\"").append(price).append('"')
+                    .append(",\"").append(price + 10).append('"')
+                    .append(",\"").append(price - 10).append('"')
+                    .append(",\"").append(price + 1).append('"')
+                    .append(",\"12.5\",").append(openTime + HOUR_MS - 1)
+                    .append(",\"0\",100,\"0\",\"0\",\"0\"]");
+        }
+        json.append(']');
+
+        byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.getResponseHeaders().add("X-MBX-USED-WEIGHT-1M", String.valueOf(usedWeightHeader));
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static Map<String, String> parseQuery(URI uri) {
+        Map<String, String> params = new HashMap<>();
+        String query = uri.getRawQuery();
+        if (query == null) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(pair.substring(0, eq), pair.substring(eq + 1));
+            }
+        }
+        return params;
+    }
+}
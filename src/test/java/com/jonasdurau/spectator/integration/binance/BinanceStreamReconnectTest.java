@@ -0,0 +1,264 @@
+package com.jonasdurau.spectator.integration.binance;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reconexão, watchdog e reparo de buraco contra um servidor WebSocket local mínimo (RFC 6455, só texto)
+ * que derruba conexões ou fica em silêncio quando o teste manda.
+ */
+@Timeout(value = 30, unit = TimeUnit.SECONDS)
+class BinanceStreamReconnectTest {
+
+    private FakeBinanceServer server;
+    private SimpleMeterRegistry registry;
+    private BinanceStreamManager manager;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new FakeBinanceServer();
+        registry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (manager != null) {
+            manager.shutdown();
+        }
+        server.close();
+    }
+
+    @Test
+    void reconnectsAfterDropAndRepairsGapBeforeResumingLiveTicks() throws Exception {
+        manager = newManager(5_000);
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+        manager.subscribe("BTCUSDT", "1m",
+                (candle, closed) -> events.add("tick:" + candle.getClose()),
+                (symbol, interval) -> {
+                    events.add("gap:" + symbol + ":" + interval);
+                    sleep(300); // o servidor manda ao vivo enquanto o reparo ainda roda
+                    events.add("gap:done");
+                });
+
+        FakeConnection first = server.awaitConnection(0);
+        assertTrue(first.path.contains("btcusdt@kline_1m"), first.path);
+        first.sendKline(1_700_000_000_000L, "100.5");
+        await(() -> events.contains("tick:100.5"));
+
+        first.drop();
+
+        FakeConnection second = server.awaitConnection(1);
+        second.sendKline(1_700_000_060_000L, "101.5");
+        await(() -> events.contains("tick:101.5"));
+
+        assertEquals(List.of("tick:100.5", "gap:BTCUSDT:1m", "gap:done", "tick:101.5"), List.copyOf(events));
+        assertEquals(1.0, registry.counter("spectator.binance.ws.reconnects").count(), 0.0);
+        assertEquals(1, registry.timer("spectator.binance.ws.downtime").count());
+    }
+
+    @Test
+    void watchdogDropsSilentConnectionAndReconnects() throws Exception {
+        manager = newManager(300);
+        manager.subscribe("ETHUSDT", "1h", (candle, closed) -> { }, (symbol, interval) -> { });
+
+        server.awaitConnection(0);
+        // O servidor nunca fala nada: o watchdog precisa derrubar e abrir outra
+        server.awaitConnection(1);
+
+        assertTrue(registry.counter("spectator.binance.ws.stale.disconnects").count() >= 1);
+        await(() -> registry.counter("spectator.binance.ws.reconnects").count() >= 1);
+    }
+
+    @Test
+    void backsOffWhileServerIsDown() throws Exception {
+        int port = server.port();
+        server.close();
+        manager = new BinanceStreamManager(new ObjectMapper(), registry, "ws://127.0.0.1:" + port,
+                200, 20, 5_000, 50, 400);
+        manager.subscribe("BTCUSDT", "1m", (candle, closed) -> { }, (symbol, interval) -> { });
+
+        Thread.sleep(1_500);
+
+        double failures = registry.counter("spectator.binance.ws.connect.failures").count();
+        // Sem backoff seriam ~75 tentativas (uma por ciclo de 20 ms); com backoff limitado a 400 ms, bem menos
+        assertTrue(failures >= 2 && failures <= 15, "unexpected number of attempts: " + failures);
+    }
+
+    private BinanceStreamManager newManager(long staleTimeoutMs) {
+        return new BinanceStreamManager(new ObjectMapper(), registry, "ws://127.0.0.1:" + server.port(),
+                200, 50, staleTimeoutMs, 50, 200);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Condition not met in time");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Servidor WebSocket mínimo: handshake, frames de texto do servidor e descarte do que o cliente manda.
+     */
+    static final class FakeBinanceServer implements AutoCloseable {
+
+        private static final String WS_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+        private final ServerSocket serverSocket;
+        private final List<FakeConnection> connections = new CopyOnWriteArrayList<>();
+
+        FakeBinanceServer() throws IOException {
+            serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            Thread.ofPlatform().daemon().name("fake-binance-accept").start(this::acceptLoop);
+        }
+
+        int port() {
+            return serverSocket.getLocalPort();
+        }
+
+        FakeConnection awaitConnection(int index) throws InterruptedException {
+            await(() -> connections.size() > index);
+            return connections.get(index);
+        }
+
+        private void acceptLoop() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    FakeConnection connection = handshake(socket);
+                    if (connection != null) {
+                        connections.add(connection);
+                        Thread.ofPlatform().daemon().start(connection::drainClientFrames);
+                    }
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private FakeConnection handshake(Socket socket) throws IOException {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+            String requestLine = reader.readLine();
+            String key = null;
+            String line;
+            while ((line = reader.readLine()) != null && !line.isEmpty()) {
+                int colon = line.indexOf(':');
+                if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase("Sec-WebSocket-Key")) {
+                    key = line.substring(colon + 1).trim();
+                }
+            }
+            if (requestLine == null || key == null) {
+                socket.close();
+                return null;
+            }
+
+            String accept;
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-1").digest((key + WS_GUID).getBytes(StandardCharsets.ISO_8859_1));
+                accept = Base64.getEncoder().encodeToString(digest);
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+
+            OutputStream out = socket.getOutputStream();
+            out.write(("HTTP/1.1 101 Switching Protocols\r\n"
+                    + "Upgrade: websocket\r\n"
+                    + "Connection: Upgrade\r\n"
+                    + "Sec-WebSocket-Accept: " + accept + "\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+            return new FakeConnection(socket, requestLine.split(" ")[1]);
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+            for (FakeConnection connection : connections) {
+                connection.drop();
+            }
+        }
+    }
+
+    static final class FakeConnection {
+
+        final Socket socket;
+        final String path;
+
+        FakeConnection(Socket socket, String path) {
+            this.socket = socket;
+            this.path = path;
+        }
+
+        void sendKline(long openTime, String close) throws IOException {
+            sendText("{\"stream\":\"btcusdt@kline_1m\",\"data\":{\"e\":\"kline\",\"E\":" + (openTime + 1) + ",\"s\":\"BTCUSDT\","
+                    + "\"k\":{\"t\":" + openTime + ",\"T\":" + (openTime + 59_999) + ",\"s\":\"BTCUSDT\",\"i\":\"1m\","
+                    + "\"o\":\"100.0\",\"c\":\"" + close + "\",\"h\":\"102.0\",\"l\":\"99.0\",\"v\":\"1.0\",\"n\":1,\"x\":false}}}");
+        }
+
+        synchronized void sendText(String text) throws IOException {
+            byte[] payload = text.getBytes(StandardCharsets.UTF_8);
+            OutputStream out = socket.getOutputStream();
+            out.write(0x81); // FIN + frame de texto
+            if (payload.length < 126) {
+                out.write(payload.length);
+            } else {
+                out.write(126);
+                out.write((payload.length >>> 8) & 0xFF);
+                out.write(payload.length & 0xFF);
+            }
+            out.write(payload);
+            out.flush();
+        }
+
+        /** Queda abrupta, sem frame de close (como a Binance no corte das 24h). */
+        void drop() throws IOException {
+            socket.close();
+        }
+
+        void drainClientFrames() {
+            try (InputStream in = socket.getInputStream()) {
+                byte[] buffer = new byte[4096];
+                while (in.read(buffer) >= 0) {
+                    // Descarta SUBSCRIBE/pings/close do cliente
+                }
+            } catch (IOException e) {
+                // Conexão encerrada
+            }
+        }
+    }
+}
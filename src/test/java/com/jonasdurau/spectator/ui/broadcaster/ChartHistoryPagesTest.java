@@ -0,0 +1,129 @@
+package com.jonasdurau.spectator.ui.broadcaster;
+
+import com.jonasdurau.spectator.core.repository.CandleBatchRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChartHistoryPagesTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    /**
+     * {@code market_candles} com um candle por hora em [0, {@code size}) horas, respondendo como o keyset do banco.
+     * Crescer {@code size} simula os candles que fecham depois.
+     */
+    private static final class HourlyCandles extends CandleBatchRepository {
+
+        volatile int size;
+        final AtomicInteger queries = new AtomicInteger();
+        final AtomicBoolean failing = new AtomicBoolean();
+
+        HourlyCandles(int size) {
+            super(null);
+            this.size = size;
+        }
+
+        @Override
+        public int forEachBefore(String symbol, String timeframe, Instant before, int limit,
+                CandleRowHandler handler) {
+            queries.incrementAndGet();
+            if (failing.get()) {
+                throw new IllegalStateException("database down");
+            }
+            int rows = 0;
+            for (long i = Math.min(size, Math.ceilDiv(before.toEpochMilli(), HOUR)) - 1; i >= 0 && rows < limit;
+                    i--, rows++) {
+                handler.row(i * HOUR, i, i + 1, i - 1, i, 1);
+            }
+            return rows;
+        }
+    }
+
+    @Test
+    void pagesWalkBackThroughTheWholeHistoryAlongAlignedCursors() throws Exception {
+        HourlyCandles candles = new HourlyCandles(35);
+        ChartHistoryPages pages = new ChartHistoryPages(candles, new SimpleMeterRegistry(), 10, 16);
+
+        // O cursor 33h sobe até a grade de 10 candles: a primeira página repete os candles 33 e 34
+        ChartHistoryPages.HistoryPage first = pages.olderThan("BTCUSDT", 33 * HOUR).get();
+        assertEquals(10, first.count());
+        assertFalse(first.exhausted());
+        assertTrue(first.json().startsWith("[[" + 25 * 3600 + ","), first.json());
+        assertTrue(first.json().endsWith("[" + 34 * 3600 + ",34.0,35.0,33.0,34.0]]"), first.json());
+
+        // Daí em diante o candle mais antigo já está na grade e as páginas emendam sem buraco
+        assertTrue(pages.olderThan("BTCUSDT", 25 * HOUR).get().json().startsWith("[[" + 20 * 3600 + ","));
+        ChartHistoryPages.HistoryPage oldest = pages.olderThan("BTCUSDT", 10 * HOUR).get();
+        assertEquals(10, oldest.count());
+        assertTrue(oldest.json().startsWith("[[0,"));
+        ChartHistoryPages.HistoryPage end = pages.olderThan("BTCUSDT", 0).get();
+        assertEquals(0, end.count());
+        assertTrue(end.exhausted());
+        assertEquals("[]", end.json());
+        pages.shutdown();
+    }
+
+    @Test
+    void pageOfTheNewestGridCellIsReadAgainAfterTheHistoryGrows() throws Exception {
+        HourlyCandles candles = new HourlyCandles(35);
+        ChartHistoryPages pages = new ChartHistoryPages(candles, new SimpleMeterRegistry(), 10, 16);
+
+        // O cursor 33h sobe para 40h, além do candle mais novo (34h): a página não fica no cache
+        ChartHistoryPages.HistoryPage first = pages.olderThan("BTCUSDT", 33 * HOUR).get();
+        assertTrue(first.json().endsWith("[" + 34 * 3600 + ",34.0,35.0,33.0,34.0]]"), first.json());
+        assertEquals(0, pages.getCachedPages());
+
+        // Fecham os candles até 44h; uma aba aberta agora tem 38h como o mais antigo e cai na mesma chave
+        candles.size = 45;
+        ChartHistoryPages.HistoryPage later = pages.olderThan("BTCUSDT", 38 * HOUR).get();
+        assertEquals(2, candles.queries.get());
+        assertTrue(later.json().startsWith("[[" + 30 * 3600 + ","), later.json());
+        assertTrue(later.json().endsWith("[" + 39 * 3600 + ",39.0,40.0,38.0,39.0]]"), later.json());
+
+        // Agora a página vai até o cursor e não muda mais
+        assertEquals(1, pages.getCachedPages());
+        assertSame(later, pages.olderThan("BTCUSDT", 36 * HOUR).get());
+        assertEquals(2, candles.queries.get());
+        pages.shutdown();
+    }
+
+    @Test
+    void sessionsShareCachedPagesAndTheCacheStaysBounded() throws Exception {
+        HourlyCandles candles = new HourlyCandles(100);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ChartHistoryPages pages = new ChartHistoryPages(candles, registry, 10, 2);
+
+        // Cursores diferentes dentro da mesma célula da grade caem na mesma página
+        ChartHistoryPages.HistoryPage page = pages.olderThan("BTCUSDT", 91 * HOUR).get();
+        assertSame(page, pages.olderThan("BTCUSDT", 95 * HOUR).get());
+        assertSame(page, pages.olderThan("BTCUSDT", 100 * HOUR).get());
+        assertEquals(1, candles.queries.get());
+        assertEquals(2, (long) registry.counter("spectator.ui.history.hits").count());
+
+        // Com duas páginas no cache, a menos usada sai
+        pages.olderThan("BTCUSDT", 90 * HOUR).get();
+        pages.olderThan("ETHUSDT", 90 * HOUR).get();
+        assertEquals(2, pages.getCachedPages());
+        pages.olderThan("BTCUSDT", 100 * HOUR).get();
+        assertEquals(4, candles.queries.get());
+
+        // Uma falha chega a quem pediu e não fica no cache
+        candles.failing.set(true);
+        assertThrows(ExecutionException.class, () -> pages.olderThan("BTCUSDT", 50 * HOUR).get());
+        candles.failing.set(false);
+        assertEquals(10, pages.olderThan("BTCUSDT", 50 * HOUR).get().count());
+        assertEquals(6, candles.queries.get());
+        pages.shutdown();
+    }
+}
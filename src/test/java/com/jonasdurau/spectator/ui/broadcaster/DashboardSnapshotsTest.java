@@ -0,0 +1,117 @@
+package com.jonasdurau.spectator.ui.broadcaster;
+
+import com.jonasdurau.spectator.core.buffer.CandleBufferRegistry;
+import com.jonasdurau.spectator.core.domain.Candle;
+import com.jonasdurau.spectator.core.domain.MarketRegime;
+import com.jonasdurau.spectator.core.indicator.ChartOverlay;
+import com.jonasdurau.spectator.core.position.PositionBook;
+import com.jonasdurau.spectator.core.service.ChartOverlayService;
+import com.jonasdurau.spectator.core.strategy.MeanReversionStrategy;
+import com.jonasdurau.spectator.core.strategy.RegimeAnalyzerService;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DashboardSnapshotsTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    @Test
+    void seedsFromTheBufferAndRollsForwardWithTicks() {
+        CandleBufferRegistry buffers = new CandleBufferRegistry(null, 500);
+        for (int i = 0; i < 6; i++) {
+            buffers.update(candle(i, 100 + i));
+        }
+        DashboardSnapshots snapshots = new DashboardSnapshots(buffers, new PositionBook(null), overlays(buffers), 5);
+
+        DashboardSnapshot seeded = snapshots.get("BTCUSDT");
+        assertEquals(5, seeded.size());
+        assertEquals(HOUR, seeded.time(0));
+        assertEquals(105, seeded.lastPrice(), 0.0);
+        assertNull(seeded.regime());
+        // Os candles copiados já vêm com overlay (sem 4H no buffer, sem EMAs nem regime)
+        assertEquals(HOUR, seeded.overlay(0).time());
+        assertNull(seeded.overlay(4).regime());
+        assertSame(seeded, snapshots.get("BTCUSDT"));
+
+        // Revisão do candle aberto: mesmo tamanho, só o último muda
+        snapshots.onTick(tick(5, 106, MarketRegime.TRENDING_UP));
+        DashboardSnapshot revised = snapshots.get("BTCUSDT");
+        assertNotSame(seeded, revised);
+        assertEquals(5, revised.size());
+        assertEquals(106, revised.lastPrice(), 0.0);
+        assertEquals(MarketRegime.TRENDING_UP, revised.regime());
+        // O snapshot anterior não muda
+        assertEquals(105, seeded.lastPrice(), 0.0);
+
+        // Candle novo com a janela cheia: o mais antigo sai, e o overlay do tick fica no candle novo
+        ChartOverlay overlay = new ChartOverlay(6 * HOUR, 101, Double.NaN, 110, 105, 100, MarketRegime.VOLATILE);
+        snapshots.onTick(new MarketTick(candle(6, 107), MarketRegime.VOLATILE, List.of(), overlay));
+        DashboardSnapshot rolled = snapshots.get("BTCUSDT");
+        assertEquals(5, rolled.size());
+        assertEquals(2 * HOUR, rolled.time(0));
+        assertEquals(106, rolled.close(3), 0.0);
+        assertEquals(6 * HOUR, rolled.lastTime());
+        assertTrue(rolled.historyJson().startsWith("[[7200,102.0,"));
+        assertSame(overlay, rolled.overlay(4));
+        assertEquals(2 * HOUR, rolled.overlay(0).time());
+        assertTrue(rolled.overlayJson().endsWith(",[21600,101.0,null,110.0,105.0,100.0,\"VOLATILE\"]]"),
+                rolled.overlayJson());
+
+        // Tick atrasado de um candle anterior só atualiza o regime
+        snapshots.onTick(tick(4, 1, MarketRegime.SIDEWAYS));
+        DashboardSnapshot late = snapshots.get("BTCUSDT");
+        assertEquals(107, late.lastPrice(), 0.0);
+        assertEquals(MarketRegime.SIDEWAYS, late.regime());
+    }
+
+    @Test
+    void firstTickOfAnUnseenSymbolSeedsItsSnapshot() {
+        CandleBufferRegistry buffers = new CandleBufferRegistry(null, 500);
+        DashboardSnapshots snapshots = new DashboardSnapshots(buffers, new PositionBook(null), overlays(buffers), 5);
+        snapshots.onTick(new MarketTick(new Candle("ETHUSDT", "1h", Instant.ofEpochMilli(HOUR), 1, 2, 0.5, 1.5, 3),
+                MarketRegime.SIDEWAYS, List.of()));
+
+        DashboardSnapshot snapshot = snapshots.get("ETHUSDT");
+        assertEquals(1, snapshot.size());
+        assertEquals(1.5, snapshot.lastPrice(), 0.0);
+        assertEquals("[[3600,1.0,2.0,0.5,1.5]]", snapshot.historyJson());
+    }
+
+    @Test
+    void viewOpenedBeforeTheBufferIsSeededGetsTheFullHistoryAfterwards() {
+        CandleBufferRegistry buffers = new CandleBufferRegistry(null, 500);
+        DashboardSnapshots snapshots = new DashboardSnapshots(buffers, new PositionBook(null), overlays(buffers), 5);
+        assertTrue(snapshots.get("BTCUSDT").isEmpty());
+
+        // Carga inicial do buffer (startSync) depois que a tela já abriu
+        for (int i = 0; i < 6; i++) {
+            buffers.update(candle(i, 100 + i));
+        }
+        DashboardSnapshot seeded = snapshots.get("BTCUSDT");
+        assertEquals(5, seeded.size());
+        assertEquals(HOUR, seeded.time(0));
+        assertEquals(105, seeded.lastPrice(), 0.0);
+        assertSame(seeded, snapshots.get("BTCUSDT"));
+    }
+
+    private static Candle candle(int hour, double close) {
+        return new Candle("BTCUSDT", DashboardSnapshots.TIMEFRAME, Instant.ofEpochMilli(hour * HOUR), close, close,
+                close, close, 1);
+    }
+
+    private static ChartOverlayService overlays(CandleBufferRegistry buffers) {
+        return new ChartOverlayService(buffers, new RegimeAnalyzerService(), new MeanReversionStrategy(null));
+    }
+
+    private static MarketTick tick(int hour, double close, MarketRegime regime) {
+        return new MarketTick(candle(hour, close), regime, List.of());
+    }
+}
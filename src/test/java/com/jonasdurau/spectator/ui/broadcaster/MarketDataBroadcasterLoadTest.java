@@ -0,0 +1,249 @@
+package com.jonasdurau.spectator.ui.broadcaster;
+
+import com.jonasdurau.spectator.core.buffer.CandleBufferRegistry;
+import com.jonasdurau.spectator.core.domain.Candle;
+import com.jonasdurau.spectator.core.domain.MarketRegime;
+import com.jonasdurau.spectator.core.position.PositionBook;
+import com.jonasdurau.spectator.core.service.ChartOverlayService;
+import com.jonasdurau.spectator.core.strategy.MeanReversionStrategy;
+import com.jonasdurau.spectator.core.strategy.RegimeAnalyzerService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Timeout(value = 60, unit = TimeUnit.SECONDS)
+class MarketDataBroadcasterLoadTest {
+
+    private static final int SESSIONS = 1000;
+    private static final int SYMBOLS = 10;
+    private static final int TICKS_PER_SYMBOL = 2000;
+    private static final long DELIVERY_TIMEOUT_MS = 500;
+
+    /**
+     * Uma aba simulada. Como o {@code ui.access} do Vaadin, {@link #deliver} só enfileira a atualização e volta na
+     * hora; a fila é sem limite e quem a esvazia, um comando por vez, é a thread que detém a trava da sessão. Se
+     * lenta, cada comando segura a trava por um tempo; se travada, o primeiro nunca a solta até o fim do teste.
+     */
+    private static final class Session implements TickListener {
+
+        final String symbol;
+        final long delayMillis;
+        final CountDownLatch stuck;
+        final ExecutorService lock = Executors.newSingleThreadExecutor(Thread.ofVirtual().factory());
+        final AtomicInteger accesses = new AtomicInteger();
+        final AtomicReference<MarketTick> last = new AtomicReference<>();
+        Subscription subscription;
+
+        Session(String symbol, long delayMillis, CountDownLatch stuck) {
+            this.symbol = symbol;
+            this.delayMillis = delayMillis;
+            this.stuck = stuck;
+        }
+
+        @Override
+        public Future<?> deliver(MarketTick tick) {
+            accesses.incrementAndGet();
+            return CompletableFuture.runAsync(() -> {
+                try {
+                    if (stuck != null) {
+                        stuck.await();
+                    } else if (delayMillis > 0) {
+                        Thread.sleep(delayMillis);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                last.set(tick);
+            }, lock);
+        }
+    }
+
+    @Test
+    void slowAndStuckSessionsNeitherBlockTheBroadcastNorQueueStaleTicks() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MarketDataBroadcaster broadcaster = new MarketDataBroadcaster(snapshots(), registry, DELIVERY_TIMEOUT_MS);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // 90% rápidas, 9% lentas (20 ms por entrega) e 1% travadas até o fim do teste
+        List<Session> sessions = new ArrayList<>(SESSIONS);
+        for (int i = 0; i < SESSIONS; i++) {
+            String symbol = "SYM" + (i % SYMBOLS) + "USDT";
+            Session session = i % 100 == 0 ? new Session(symbol, 0, release)
+                    : new Session(symbol, i % 100 < 10 ? 20 : 0, null);
+            session.subscription = broadcaster.subscribe(symbol, session);
+            sessions.add(session);
+        }
+        assertEquals(SESSIONS, broadcaster.getSubscriberCount());
+
+        MarketTick[] lastTick = new MarketTick[SYMBOLS];
+        for (int i = 0; i < SYMBOLS * TICKS_PER_SYMBOL; i++) {
+            int s = i % SYMBOLS;
+            MarketTick tick = tick("SYM" + s + "USDT", i);
+            lastTick[s] = tick;
+            broadcaster.broadcast(tick);
+        }
+
+        // Toda sessão que não está travada termina no último tick do seu símbolo
+        for (Session session : sessions) {
+            if (session.stuck != null) {
+                continue;
+            }
+            MarketTick expected = lastTick[symbolIndex(session.symbol)];
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while ((session.last.get() != expected || settled(session.subscription.stats()) < TICKS_PER_SYMBOL)
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(expected, session.last.get(), session.subscription.getId());
+        }
+
+        long slowConflated = 0;
+        for (Session session : sessions) {
+            SubscriberStats stats = session.subscription.stats();
+            if (session.stuck != null) {
+                // Um acesso por timeout, não um por tick: o resto conflacionou na inscrição
+                assertEquals(0, stats.delivered());
+                assertTrue(stats.conflated() + stats.dropped() >= TICKS_PER_SYMBOL - 2, "stuck " + stats);
+                assertTrue(session.accesses.get() < TICKS_PER_SYMBOL / 10, "stuck accesses " + session.accesses);
+            } else {
+                assertEquals(TICKS_PER_SYMBOL, settled(stats));
+                // A entrega espera cada acesso rodar antes de pedir o próximo
+                assertEquals(stats.delivered() + stats.dropped(), session.accesses.get());
+                if (session.delayMillis > 0) {
+                    slowConflated += stats.conflated();
+                    assertTrue(stats.delivered() < TICKS_PER_SYMBOL / 10, "slow session delivered "
+                            + stats.delivered());
+                }
+            }
+        }
+        assertTrue(slowConflated > 0);
+        assertEquals(broadcaster.getSubscriberStats().stream().mapToLong(SubscriberStats::conflated).sum(),
+                (long) registry.counter("spectator.ui.fanout.conflated").count());
+
+        // Fechar com tick pendente conta como descarte; a entrega presa termina e é descartada também
+        for (Session session : sessions) {
+            session.subscription.close();
+        }
+        release.countDown();
+        assertEquals(0, broadcaster.getSubscriberCount());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (registry.counter("spectator.ui.fanout.dropped").count() < SESSIONS / 100
+                && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(registry.counter("spectator.ui.fanout.dropped").count() >= SESSIONS / 100);
+        broadcaster.shutdown();
+        sessions.forEach(session -> session.lock.shutdownNow());
+    }
+
+    @Test
+    void accessThatDoesNotRunInTimeIsCancelledAndCountedAsDropped() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MarketDataBroadcaster broadcaster = new MarketDataBroadcaster(snapshots(), registry, 100);
+        // A sessão nunca roda o primeiro acesso; o segundo roda na hora
+        CompletableFuture<Void> stuck = new CompletableFuture<>();
+        List<Double> received = new ArrayList<>();
+        Subscription subscription = broadcaster.subscribe("BTCUSDT", tick -> {
+            if (tick.candle().getClose() == 1) {
+                return stuck;
+            }
+            synchronized (received) {
+                received.add(tick.candle().getClose());
+            }
+            return CompletableFuture.completedFuture(null);
+        });
+
+        broadcaster.broadcast(tick("BTCUSDT", 1));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (subscription.stats().dropped() < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(stuck.isCancelled());
+        assertEquals(1, (long) registry.counter("spectator.ui.fanout.dropped").count());
+
+        broadcaster.broadcast(tick("BTCUSDT", 2));
+        while (subscription.stats().delivered() < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        synchronized (received) {
+            assertEquals(List.of(2.0), received);
+        }
+        subscription.close();
+        broadcaster.shutdown();
+    }
+
+    @Test
+    void switchingSymbolDiscardsThePendingTickOfThePreviousOne() throws Exception {
+        MarketDataBroadcaster broadcaster = new MarketDataBroadcaster(snapshots(), new SimpleMeterRegistry(),
+                DELIVERY_TIMEOUT_MS * 10);
+        ExecutorService lock = Executors.newSingleThreadExecutor(Thread.ofVirtual().factory());
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> received = new ArrayList<>();
+        Subscription subscription = broadcaster.subscribe("BTCUSDT", tick -> CompletableFuture.runAsync(() -> {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (received) {
+                received.add(tick.symbol() + ":" + tick.candle().getClose());
+            }
+        }, lock));
+
+        broadcaster.broadcast(tick("BTCUSDT", 1));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        broadcaster.broadcast(tick("BTCUSDT", 2));
+        subscription.switchTo("ETHUSDT");
+        broadcaster.broadcast(tick("BTCUSDT", 3));
+        broadcaster.broadcast(tick("ETHUSDT", 4));
+        release.countDown();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (subscription.stats().delivered() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        synchronized (received) {
+            assertEquals(List.of("BTCUSDT:1.0", "ETHUSDT:4.0"), received);
+        }
+        assertEquals(1, subscription.stats().dropped());
+        subscription.close();
+        broadcaster.shutdown();
+        lock.shutdownNow();
+    }
+
+    private static DashboardSnapshots snapshots() {
+        CandleBufferRegistry buffers = new CandleBufferRegistry(null, 500);
+        return new DashboardSnapshots(buffers, new PositionBook(null),
+                new ChartOverlayService(buffers, new RegimeAnalyzerService(), new MeanReversionStrategy(null)), 500);
+    }
+
+    private static long settled(SubscriberStats stats) {
+        return stats.delivered() + stats.conflated() + stats.dropped();
+    }
+
+    private static int symbolIndex(String symbol) {
+        return Integer.parseInt(symbol.substring(3, symbol.length() - 4));
+    }
+
+    private static MarketTick tick(String symbol, int i) {
+        Candle candle = new Candle(symbol, "1h", Instant.ofEpochSecond(i), i, i, i, i, 1);
+        return new MarketTick(candle, MarketRegime.SIDEWAYS, List.of());
+    }
+}
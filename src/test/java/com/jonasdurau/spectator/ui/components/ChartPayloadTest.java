@@ -0,0 +1,43 @@
+package com.jonasdurau.spectator.ui.components;
+
+import com.jonasdurau.spectator.core.domain.Candle;
+import com.jonasdurau.spectator.core.domain.MarketRegime;
+import com.jonasdurau.spectator.core.indicator.ChartOverlay;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ChartPayloadTest {
+
+    @Test
+    void candleIsACompactArrayInSeconds() {
+        Candle candle = new Candle("BTCUSDT", "1h", Instant.ofEpochMilli(1_700_000_000_000L), 100.5, 101, 99.25,
+                100.75, 12);
+        assertEquals("[1700000000,100.5,101.0,99.25,100.75]", ChartPayload.candle(candle));
+    }
+
+    @Test
+    void historyKeepsOneCandlePerSecond() {
+        long base = 1_700_000_000_000L;
+        long[] time = {base, base + 3_600_000, base + 3_600_500, base + 7_200_000};
+        double[] price = {1, 2, 9, 3};
+
+        assertEquals("[[1700000000,1.0,1.0,1.0,1.0],[1700003600,2.0,2.0,2.0,2.0],[1700007200,3.0,3.0,3.0,3.0]]",
+                ChartPayload.history(time, price, price, price, price));
+        assertEquals("[]", ChartPayload.history(new long[0], new double[0], new double[0], new double[0],
+                new double[0]));
+    }
+
+    @Test
+    void overlaysWriteNullForValuesNotWarmedUpYet() {
+        long base = 1_700_000_000_000L;
+        ChartOverlay warm = new ChartOverlay(base + 3_600_000, 1, 2, 3.5, 3, 2.5, MarketRegime.TRENDING_UP);
+        ChartOverlay cold = new ChartOverlay(base, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN, null);
+
+        assertEquals("[1700003600,1.0,2.0,3.5,3.0,2.5,\"TRENDING_UP\"]", ChartPayload.overlay(warm));
+        assertEquals("[[1700000000,null,null,null,null,null,null],[1700003600,1.0,2.0,3.5,3.0,2.5,\"TRENDING_UP\"]]",
+                ChartPayload.overlays(new ChartOverlay[] {cold, null, warm}));
+    }
+}